@@ -0,0 +1,85 @@
+package safePubg;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * BatchedSamplerBenchmark
+ * Uma thread, o mesmo bloco de sequências (mesmas sementes) em cada mapa:
+ * o caminho normal (SafeZoneEngine.predictInto, uma sequência por vez) contra
+ * o BatchedShiftSampler (o bloco inteiro fase por fase). Os dois dão o mesmo resultado.
+ * Rode com "-prof gc" para ver também a alocação por sequência.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchedSamplerBenchmark {
+    private static final int SEQUENCES = 1024;
+    private static final List<SafeZone> NO_OBSERVED = Collections.emptyList();
+
+    @Param({"Erangel", "Miramar", "Taego", "Rondo"})
+    public String map;
+
+    @Param({"CENTRAL", "PERIPHERAL", "EDGE"})
+    public BenchmarkFixtures.RouteType routeType;
+
+    private SimulationContext context;
+    private ZoneSequenceBatch batch;
+    private BatchedShiftSampler sampler;
+    private SplittableRandom[] randoms;
+    private long round;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = SimulationContext.of(BenchmarkFixtures.landMask(map), routeType.start, routeType.end, false);
+        batch = new ZoneSequenceBatch(SEQUENCES);
+        sampler = new BatchedShiftSampler(context, SEQUENCES);
+        randoms = new SplittableRandom[SEQUENCES];
+    }
+
+    /**
+     * Sementes novas a cada chamada (as mesmas nos dois benchmarks), para não medir sempre as mesmas sequências.
+     */
+    private void nextRandoms() {
+        long base = (round++ % 64) * SEQUENCES;
+        for (int i = 0; i < SEQUENCES; i++) {
+            randoms[i] = SafeZoneEngine.sequenceRandom(BenchmarkFixtures.SEED, base + i);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SEQUENCES)
+    public ZoneSequenceBatch scalar() {
+        nextRandoms();
+        for (int i = 0; i < SEQUENCES; i++) {
+            SafeZoneEngine.predictInto(context, NO_OBSERVED, randoms[i], batch, i);
+        }
+        return batch;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SEQUENCES)
+    public ZoneSequenceBatch batched() {
+        nextRandoms();
+        sampler.predictInto(NO_OBSERVED, randoms, batch, 0, SEQUENCES);
+        return batch;
+    }
+}
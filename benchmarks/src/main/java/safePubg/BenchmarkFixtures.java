@@ -0,0 +1,74 @@
+package safePubg;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * BenchmarkFixtures
+ * Dados fixos (e com semente fixa) usados por todos os benchmarks,
+ * para que os resultados possam ser comparados entre commits.
+ * Os mapas são lidos de src/safePubg/maps: rode os benchmarks da raiz do projeto.
+ */
+public final class BenchmarkFixtures {
+    // Semente usada por todos os geradores dos benchmarks
+    static final long SEED = 0x5AFE_2024L;
+
+    private static MapAssets mapAssets;
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Os mapas reais (carregados uma única vez por JVM).
+     */
+    static synchronized MapAssets mapAssets() {
+        if (mapAssets == null) {
+            try {
+                mapAssets = MapAssets.loadAll();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Rode os benchmarks da raiz do projeto (precisa de src/safePubg/maps)", e);
+            }
+        }
+        return mapAssets;
+    }
+
+    static LandMask landMask(String map) {
+        return mapAssets().getLandMask(MapAssets.indexOf(map));
+    }
+
+    /**
+     * Uma máscara só de água: força o pior caso da Fase 1 (desistir e devolver um ponto qualquer).
+     */
+    static LandMask allWaterMask() {
+        BufferedImage img = new BufferedImage(256, 256, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = img.createGraphics();
+        g2d.setColor(new Color(30, 60, 200));
+        g2d.fillRect(0, 0, 256, 256);
+        g2d.dispose();
+        return LandMask.fromImage(img);
+    }
+
+    /**
+     * Tipos de rota usados nos benchmarks, com uma rota fixa (em km) para cada um.
+     */
+    public enum RouteType {
+        // Diagonal passando pelo centro do mapa
+        CENTRAL(0.5, 0.5, 7.5, 7.5),
+        // Horizontal a 2 km do centro
+        PERIPHERAL(0.0, 2.0, 8.0, 2.0),
+        // Horizontal a 3,5 km do centro (rasante na borda)
+        EDGE(0.0, 0.5, 8.0, 0.5);
+
+        final Point2D start;
+        final Point2D end;
+
+        RouteType(double startX, double startY, double endX, double endY) {
+            this.start = new Point2D.Double(startX, startY);
+            this.end = new Point2D.Double(endX, endY);
+        }
+    }
+}
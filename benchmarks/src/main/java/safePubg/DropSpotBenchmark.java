@@ -0,0 +1,70 @@
+package safePubg;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * DropSpotBenchmark
+ * Tempo da análise de pontos de pouso (DropSpotAnalysis) sobre uma simulação de 100 mil
+ * sequências já pronta, por resolução da grade e quantidade de threads.
+ * A simulação é feita uma vez no setup: só a análise é medida.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DropSpotBenchmark {
+    private static final int SAMPLES = 100_000;
+
+    @Param({"Erangel", "Miramar"})
+    public String map;
+
+    @Param({"CENTRAL", "EDGE"})
+    public BenchmarkFixtures.RouteType routeType;
+
+    @Param({"64", "128"})
+    public int resolution;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private SimulationContext context;
+    private DensityGrid grid;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = SimulationContext.of(map, BenchmarkFixtures.landMask(map), routeType.start, routeType.end, false);
+        grid = MonteCarloSimulator.simulate(context, SAMPLES, BenchmarkFixtures.SEED);
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    /**
+     * A análise completa (Fases 1 a 3) e os 5 melhores pontos ao longo da rota.
+     */
+    @Benchmark
+    public List<DropSpotAnalysis.DropSpot> analyze() {
+        return DropSpotAnalysis.of(grid, context.getRules(), resolution, pool).bestAlongRoute(context, 5);
+    }
+}
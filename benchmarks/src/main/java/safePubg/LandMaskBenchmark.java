@@ -0,0 +1,80 @@
+package safePubg;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * LandMaskBenchmark
+ * Custo de uma consulta isLand (detecção de água) em coordenadas do mundo,
+ * e da proporção de terra de um círculo do tamanho da Fase 4: exata (LandIntegral)
+ * e pela grade pré-calculada que a simulação usa (LandFractionGrid).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LandMaskBenchmark {
+    private static final int POINTS = 1024;
+
+    @Param({"Erangel", "Miramar", "Taego", "Rondo"})
+    public String map;
+
+    private LandMask mask;
+    private final double[] xs = new double[POINTS];
+    private final double[] ys = new double[POINTS];
+
+    @Setup
+    public void setup() {
+        mask = BenchmarkFixtures.landMask(map);
+        SplittableRandom random = new SplittableRandom(BenchmarkFixtures.SEED);
+        for (int i = 0; i < POINTS; i++) {
+            xs[i] = random.nextDouble() * WorldTransform.WORLD_SIZE;
+            ys[i] = random.nextDouble() * WorldTransform.WORLD_SIZE;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public int isLand() {
+        int land = 0;
+        for (int i = 0; i < POINTS; i++) {
+            if (mask.isLandAt(xs[i], ys[i])) land++;
+        }
+        return land;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public double landFraction() {
+        double sum = 0;
+        for (int i = 0; i < POINTS; i++) {
+            sum += mask.landFractionAt(xs[i], ys[i], SafeZoneEngine.PHASE_RADII[3]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public double landFractionGrid() {
+        LandFractionGrid grid = mask.landFractionGrid(SafeZoneEngine.PHASE_RADII[3]);
+        double sum = 0;
+        for (int i = 0; i < POINTS; i++) {
+            sum += grid.at(xs[i], ys[i]);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,65 @@
+package safePubg;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * MonteCarloBenchmark
+ * Vazão da simulação Monte Carlo em sequências por segundo, de 1 a N threads.
+ * Use "-p threads=1,2,4,8,16" para ajustar à máquina.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MonteCarloBenchmark {
+    private static final int SAMPLES = 20_000;
+
+    @Param({"Erangel", "Miramar", "Taego", "Rondo"})
+    public String map;
+
+    @Param({"CENTRAL", "PERIPHERAL", "EDGE"})
+    public BenchmarkFixtures.RouteType routeType;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private SimulationContext context;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = SimulationContext.of(BenchmarkFixtures.landMask(map), routeType.start, routeType.end, false);
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Cada chamada simula as mesmas sequências (mesma semente), com qualquer número de threads.
+     */
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public DensityGrid simulate() {
+        return MonteCarloSimulator.simulate(context, SAMPLES, BenchmarkFixtures.SEED, pool);
+    }
+}
@@ -0,0 +1,60 @@
+package safePubg;
+
+import java.awt.geom.Point2D;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Phase1FallbackBenchmark
+ * Os piores casos da Fase 1 (generateZonePoint):
+ * - EDGE_FAR: Borda + Distante com rota de Borda, a combinação quase vazia;
+ * - ALL_WATER: mapa só de água, que cai no "desistir e devolver qualquer ponto".
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Phase1FallbackBenchmark {
+
+    public enum Case { EDGE_FAR, ALL_WATER }
+
+    @Param({"Erangel", "Miramar", "Taego", "Rondo"})
+    public String map;
+
+    @Param({"EDGE_FAR", "ALL_WATER"})
+    public Case fallbackCase;
+
+    private SimulationContext context;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        LandMask mask = (fallbackCase == Case.ALL_WATER) ? BenchmarkFixtures.allWaterMask() : BenchmarkFixtures.landMask(map);
+        BenchmarkFixtures.RouteType route = BenchmarkFixtures.RouteType.EDGE;
+        context = SimulationContext.of(mask, route.start, route.end, false);
+    }
+
+    @Setup(Level.Iteration)
+    public void reseed() {
+        random = new SplittableRandom(BenchmarkFixtures.SEED);
+    }
+
+    @Benchmark
+    public Point2D generateZonePoint() {
+        return SafeZoneEngine.generateZonePoint(context, SafeZoneEngine.ZONE_EDGE, 2, random);
+    }
+}
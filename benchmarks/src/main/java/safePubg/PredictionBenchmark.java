@@ -0,0 +1,85 @@
+package safePubg;
+
+import java.awt.geom.Point2D;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * PredictionBenchmark
+ * Latência de UMA sequência (e das suas partes) por mapa e por tipo de rota.
+ * Rode com "-prof gc" para ver a taxa de alocação de cada caminho.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PredictionBenchmark {
+
+    @Param({"Erangel", "Miramar", "Taego", "Rondo"})
+    public String map;
+
+    @Param({"CENTRAL", "PERIPHERAL", "EDGE"})
+    public BenchmarkFixtures.RouteType routeType;
+
+    private LandMask mask;
+    private SimulationContext context;
+    private SplittableRandom random;
+    private final Point2D center = new Point2D.Double(WorldTransform.MAP_CENTER_X, WorldTransform.MAP_CENTER_Y);
+
+    @Setup(Level.Trial)
+    public void setup() {
+        mask = BenchmarkFixtures.landMask(map);
+        context = SimulationContext.of(mask, routeType.start, routeType.end, false);
+    }
+
+    /**
+     * Mesma semente a cada iteração: cada iteração percorre a mesma sequência de sorteios.
+     */
+    @Setup(Level.Iteration)
+    public void reseed() {
+        random = new SplittableRandom(BenchmarkFixtures.SEED);
+    }
+
+    @Benchmark
+    public List<SafeZone> predictSafeZoneSequence() {
+        return SafeZoneEngine.predictSafeZoneSequence(context, random);
+    }
+
+    @Benchmark
+    public Point2D generateZonePoint() {
+        return SafeZoneEngine.generateZonePoint(context, SafeZoneEngine.ZONE_PERIPHERAL, 1, random);
+    }
+
+    @Benchmark
+    public Point2D generateRandomPointInCircle() {
+        // Hard Shift da Fase 1 para a Fase 2
+        return SafeZoneEngine.generateRandomPointInCircle(center,
+            SafeZoneEngine.PHASE_RADII[0] - SafeZoneEngine.PHASE_RADII[1], 0.4, 1.0, random);
+    }
+
+    /**
+     * Custo fixo por rota: montar o contexto (e as tabelas de sorteio da Fase 1).
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 20)
+    public SimulationContext buildContext() {
+        return SimulationContext.of(mask, routeType.start, routeType.end, false);
+    }
+}
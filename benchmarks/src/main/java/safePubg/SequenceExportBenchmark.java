@@ -0,0 +1,79 @@
+package safePubg;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SequenceExportBenchmark
+ * Quanto a gravação das sequências (SequenceFileWriter) custa para a simulação:
+ * a mesma simulação sem gravar e gravando em um arquivo temporário, em sequências por segundo.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SequenceExportBenchmark {
+    private static final int SAMPLES = 100_000;
+
+    @Param({"Erangel", "Miramar"})
+    public String map;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private SimulationContext context;
+    private ForkJoinPool pool;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        BenchmarkFixtures.RouteType route = BenchmarkFixtures.RouteType.CENTRAL;
+        context = SimulationContext.of(map, BenchmarkFixtures.landMask(map), route.start, route.end, false);
+        pool = new ForkJoinPool(threads);
+        file = Files.createTempFile("sequence-export", SequenceFile.EXTENSION);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public DensityGrid simulate() {
+        return MonteCarloSimulator.simulate(context, List.of(), 0, SAMPLES, BenchmarkFixtures.SEED, pool);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public DensityGrid simulateAndExport() throws IOException {
+        SequenceFileWriter writer = new SequenceFileWriter(file,
+            SequenceFile.Header.of(map, context, List.of(), BenchmarkFixtures.SEED, 0));
+        try {
+            return MonteCarloSimulator.simulate(context, List.of(), 0, SAMPLES, BenchmarkFixtures.SEED, pool, writer);
+        } finally {
+            writer.close();
+        }
+    }
+}
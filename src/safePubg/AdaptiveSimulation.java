@@ -0,0 +1,255 @@
+package safePubg;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AdaptiveSimulation
+ * Monte Carlo que decide SOZINHO quantas sequências simular.
+ *
+ * Uma quantidade fixa desperdiça CPU nas rotas fáceis e fica ruidosa nas difíceis
+ * (ex: rotas de Borda em Miramar, onde muitos pontos caem na água e cada sequência custa mais).
+ * Aqui a simulação roda em RODADAS (cada uma do tamanho de tudo o que já foi feito, ou seja,
+ * o total dobra) e, depois de cada rodada, mede para cada fase simulada:
+ * - a MUDANÇA do heatmap: a distância L1 entre as probabilidades antes e depois da rodada;
+ * - a PRECISÃO das células mais prováveis: a meia largura do intervalo de 95% da
+ *   probabilidade de cada uma das TOP_BLOCKS melhores, relativa à própria probabilidade
+ *   (0.05 = "a chance desta célula é p ± 5%").
+ * As duas medidas são feitas em blocos de 500 m (BLOCK x BLOCK células do heatmap), a escala
+ * em que o heatmap é lido; célula por célula (62 m) o ruído nunca ficaria pequeno.
+ *
+ * Para quando a pior fase atinge a precisão pedida (as duas medidas abaixo do alvo),
+ * quando acaba o tempo (a próxima rodada é encolhida para caber no que sobra) ou no máximo
+ * de sequências. O resultado diz quantas sequências foram feitas e a precisão alcançada.
+ * Se todas as fases já foram observadas, não há nada a simular: volta na hora, com a
+ * grade vazia, como convergido.
+ *
+ * As rodadas usam as amostras [0, n) da semente em ordem: o resultado é idêntico ao
+ * MonteCarloSimulator.simulate com o mesmo total (só a parada por tempo depende da máquina).
+ */
+final class AdaptiveSimulation {
+    // Amostras da primeira rodada
+    static final int FIRST_ROUND_SAMPLES = 4_096;
+    // Rodada mínima (menos que isso não compensa: melhor parar)
+    static final int MIN_ROUND_SAMPLES = 1_024;
+    // Células do heatmap por bloco, em cada direção (8 x 62 m = 500 m)
+    static final int BLOCK = 8;
+    // Quantos blocos mais prováveis de cada fase entram na medida de precisão
+    static final int TOP_BLOCKS = 5;
+    // z do intervalo de 95%
+    private static final double Z_95 = 1.96;
+    // Margem da estimativa de tempo da próxima rodada (a velocidade varia um pouco)
+    private static final double TIME_SAFETY = 0.8;
+
+    /**
+     * Por que a simulação parou.
+     */
+    enum StopReason {
+        // Atingiu a precisão pedida
+        PRECISION,
+        // Acabou o tempo
+        TIME_BUDGET,
+        // Chegou ao máximo de sequências
+        MAX_SAMPLES
+    }
+
+    /**
+     * O que o chamador pede: a precisão, o tempo máximo e o máximo de sequências.
+     */
+    static final class Target {
+        // Alvo das duas medidas (meia largura relativa e mudança L1); 0 = só o tempo ou o máximo param
+        final double precision;
+        final long timeBudgetNanos;
+        final int maxSamples;
+
+        /**
+         * @param precision Meia largura relativa (95%) desejada para os melhores blocos, ex: 0.05 (0 = ignorar).
+         * @param timeBudgetMillis Tempo máximo em ms (0 = sem limite).
+         * @param maxSamples Máximo de sequências.
+         */
+        Target(double precision, long timeBudgetMillis, int maxSamples) {
+            if (!(precision >= 0) || timeBudgetMillis < 0 || maxSamples < 1) {
+                throw new IllegalArgumentException("Alvo inválido: precisão " + precision
+                    + ", tempo " + timeBudgetMillis + " ms, máximo " + maxSamples);
+            }
+            if (precision == 0 && timeBudgetMillis == 0) {
+                throw new IllegalArgumentException("Informe a precisão, o tempo máximo ou os dois");
+            }
+            this.precision = precision;
+            this.timeBudgetNanos = (timeBudgetMillis == 0) ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis);
+            this.maxSamples = maxSamples;
+        }
+    }
+
+    /**
+     * O heatmap e a precisão alcançada.
+     */
+    static final class Result {
+        final DensityGrid grid;
+        final int rounds;
+        // A pior fase de cada medida (NaN se nenhuma fase foi medida)
+        final double precision;
+        final double change;
+        // Por fase (NaN nas fases não simuladas, ex: as já observadas)
+        final double[] phasePrecision;
+        final double[] phaseChange;
+        final StopReason stopReason;
+        final long elapsedNanos;
+
+        Result(DensityGrid grid, int rounds, double[] phasePrecision, double[] phaseChange, StopReason stopReason, long elapsedNanos) {
+            this.grid = grid;
+            this.rounds = rounds;
+            this.phasePrecision = phasePrecision;
+            this.phaseChange = phaseChange;
+            this.precision = worst(phasePrecision);
+            this.change = worst(phaseChange);
+            this.stopReason = stopReason;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * true se parou por ter atingido a precisão pedida.
+         */
+        boolean isConverged() {
+            return stopReason == StopReason.PRECISION;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%,d sequências em %d rodadas (%.0f ms): precisão ±%.1f%%, mudança %.3f, parada: %s",
+                grid.getSamples(), rounds, elapsedNanos / 1e6, precision * 100, change, stopReason);
+        }
+    }
+
+    private AdaptiveSimulation() {
+    }
+
+    /**
+     * Simula em rodadas até atingir o alvo.
+     * @param observed As safes já vistas na partida, Fase 1 primeiro (só as outras fases são medidas).
+     */
+    static Result run(SimulationContext context, List<SafeZone> observed, Target target, long seed, ForkJoinPool pool) {
+        long startTime = System.nanoTime();
+        int firstPhase = Math.min(observed.size(), SafeZoneEngine.PHASE_COUNT);
+        DensityGrid grid = null;
+        double[][] previous = null;
+        double[] phasePrecision = new double[SafeZoneEngine.PHASE_COUNT];
+        double[] phaseChange = new double[SafeZoneEngine.PHASE_COUNT];
+        Arrays.fill(phasePrecision, Double.NaN);
+        Arrays.fill(phaseChange, Double.NaN);
+        if (firstPhase == SafeZoneEngine.PHASE_COUNT) {
+            // Todas as fases já foram vistas: não há o que simular nem medir (conta como convergido)
+            DensityGrid empty = new DensityGrid(MonteCarloSimulator.GRID_SIZE, MonteCarloSimulator.GRID_SIZE,
+                WorldTransform.WORLD_SIZE, WorldTransform.WORLD_SIZE);
+            return new Result(empty, 0, phasePrecision, phaseChange, StopReason.PRECISION, System.nanoTime() - startTime);
+        }
+        int rounds = 0;
+        int done = 0;
+        int roundSamples = Math.min(FIRST_ROUND_SAMPLES, target.maxSamples);
+        StopReason reason;
+        while (true) {
+            DensityGrid round = MonteCarloSimulator.simulate(context, observed, done, roundSamples, seed, pool);
+            if (grid == null) {
+                grid = round;
+            } else {
+                grid.merge(round);
+            }
+            done += roundSamples;
+            rounds++;
+
+            // Mede cada fase simulada
+            double[][] blocks = new double[SafeZoneEngine.PHASE_COUNT][];
+            for (int phase = firstPhase; phase < SafeZoneEngine.PHASE_COUNT; phase++) {
+                blocks[phase] = blockProbabilities(grid, phase);
+                phasePrecision[phase] = topBlocksHalfWidth(blocks[phase], grid.getSamples());
+                phaseChange[phase] = (previous == null) ? Double.NaN : l1Distance(previous[phase], blocks[phase]);
+            }
+            previous = blocks;
+
+            // Atingiu o alvo? (a mudança só existe a partir da segunda rodada)
+            if (target.precision > 0 && rounds > 1
+                    && worst(phasePrecision) <= target.precision && worst(phaseChange) <= target.precision) {
+                reason = StopReason.PRECISION;
+                break;
+            }
+            if (done >= target.maxSamples) {
+                reason = StopReason.MAX_SAMPLES;
+                break;
+            }
+            // Próxima rodada: dobra o total, mas cabendo no tempo que sobra
+            long elapsed = System.nanoTime() - startTime;
+            long remaining = target.timeBudgetNanos - elapsed;
+            long affordable = (long) (remaining * TIME_SAFETY * done / (double) Math.max(elapsed, 1));
+            roundSamples = (int) Math.min(Math.min(done, target.maxSamples - done), affordable);
+            if (roundSamples < Math.min(MIN_ROUND_SAMPLES, target.maxSamples - done)) {
+                reason = StopReason.TIME_BUDGET;
+                break;
+            }
+        }
+        return new Result(grid, rounds, phasePrecision, phaseChange, reason, System.nanoTime() - startTime);
+    }
+
+    /**
+     * As probabilidades da fase agrupadas em blocos de BLOCK x BLOCK células.
+     */
+    static double[] blockProbabilities(DensityGrid grid, int phase) {
+        int blockColumns = (grid.getColumns() + BLOCK - 1) / BLOCK;
+        int blockRows = (grid.getRows() + BLOCK - 1) / BLOCK;
+        double[] blocks = new double[blockColumns * blockRows];
+        for (int row = 0; row < grid.getRows(); row++) {
+            int blockBase = (row / BLOCK) * blockColumns;
+            for (int col = 0; col < grid.getColumns(); col++) {
+                blocks[blockBase + col / BLOCK] += grid.getCount(phase, col, row);
+            }
+        }
+        double samples = Math.max(grid.getSamples(), 1);
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] /= samples;
+        }
+        return blocks;
+    }
+
+    /**
+     * A maior meia largura relativa (95%) entre os TOP_BLOCKS blocos mais prováveis
+     * (aproximação normal da binomial: z * sqrt(p * (1 - p) / n) / p). NaN se a fase não tem contagens.
+     */
+    static double topBlocksHalfWidth(double[] blocks, long samples) {
+        double[] sorted = blocks.clone();
+        Arrays.sort(sorted);
+        double worst = Double.NaN;
+        for (int i = sorted.length - 1; i >= Math.max(0, sorted.length - TOP_BLOCKS); i--) {
+            double p = sorted[i];
+            if (p <= 0) break;
+            double halfWidth = Z_95 * Math.sqrt(p * (1 - p) / samples) / p;
+            worst = Double.isNaN(worst) ? halfWidth : Math.max(worst, halfWidth);
+        }
+        return worst;
+    }
+
+    /**
+     * A distância L1 entre duas distribuições (0 = iguais, 2 = sem nada em comum).
+     */
+    static double l1Distance(double[] a, double[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += Math.abs(a[i] - b[i]);
+        }
+        return sum;
+    }
+
+    /**
+     * O pior valor (o maior), ignorando NaN; NaN se todos forem NaN.
+     */
+    private static double worst(double[] values) {
+        double worst = Double.NaN;
+        for (double value : values) {
+            if (!Double.isNaN(value)) {
+                worst = Double.isNaN(worst) ? value : Math.max(worst, value);
+            }
+        }
+        return worst;
+    }
+}
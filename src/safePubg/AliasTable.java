@@ -0,0 +1,115 @@
+package safePubg;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * AliasTable
+ * Sorteio de um item com pesos diferentes em tempo CONSTANTE (método de Walker/Vose).
+ *
+ * A "roleta" comum soma os pesos e procura o item sorteado percorrendo a lista.
+ * Aqui, a tabela é montada uma vez: cada uma das n colunas tem a chance de ficar
+ * com o próprio item (probability) e, se não ficar, um item "vizinho" (alias).
+ * O sorteio é: escolhe uma coluna ao acaso e decide entre o item e o alias,
+ * com um único número aleatório, sem laço e sem criar objetos.
+ */
+final class AliasTable {
+    private final double[] probability;
+    private final int[] alias;
+
+    private AliasTable(double[] probability, int[] alias) {
+        this.probability = probability;
+        this.alias = alias;
+    }
+
+    /**
+     * Monta a tabela.
+     * @param weights Os pesos de cada item (não precisam somar 1 nem 100).
+     * @throws IllegalArgumentException Se algum peso for negativo (ou não for um número) ou se todos forem 0.
+     */
+    static AliasTable of(double[] weights) {
+        int n = weights.length;
+        double total = 0;
+        for (double weight : weights) {
+            if (!(weight >= 0) || Double.isInfinite(weight)) {
+                throw new IllegalArgumentException("Peso inválido: " + weight);
+            }
+            total += weight;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("Todos os pesos são 0");
+        }
+
+        // Pesos escalados para média 1: colunas "pequenas" (< 1) pegam o que falta de uma "grande"
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / total;
+            if (scaled[i] < 1) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        double[] probability = new double[n];
+        int[] alias = new int[n];
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1;
+            if (scaled[more] < 1) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // O que sobrou vale 1 (a menos de erros de arredondamento)
+        while (largeCount > 0) {
+            int item = large[--largeCount];
+            probability[item] = 1;
+            alias[item] = item;
+        }
+        while (smallCount > 0) {
+            int item = small[--smallCount];
+            probability[item] = 1;
+            alias[item] = item;
+        }
+        return new AliasTable(probability, alias);
+    }
+
+    /**
+     * Sorteia um item (índice do peso), consumindo UM número do gerador.
+     */
+    int sample(RandomGenerator rand) {
+        int n = probability.length;
+        double scaled = rand.nextDouble() * n;
+        int column = Math.min((int) scaled, n - 1);
+        return (scaled - column < probability[column]) ? column : alias[column];
+    }
+
+    /**
+     * A chance (0.0 a 1.0) de sortear o item, reconstruída da tabela
+     * (a parte da própria coluna mais as sobras das colunas que apontam para ele).
+     */
+    double probability(int item) {
+        int n = probability.length;
+        double total = probability[item];
+        for (int column = 0; column < n; column++) {
+            if (column != item && alias[column] == item) {
+                total += 1 - probability[column];
+            }
+        }
+        return total / n;
+    }
+
+    /**
+     * Quantos itens a tabela tem.
+     */
+    int size() {
+        return probability.length;
+    }
+}
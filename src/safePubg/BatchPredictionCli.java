@@ -0,0 +1,208 @@
+package safePubg;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * BatchPredictionCli
+ * Modo linha de comando (sem interface gráfica) para prever milhares de rotas.
+ *
+ * Lê as rotas de um arquivo CSV ou JSONL (uma rota por linha), distribui as
+ * previsões entre várias threads e escreve cada resultado (uma linha JSON)
+ * assim que ele fica pronto. O arquivo é lido aos poucos, então o tamanho
+ * da entrada não importa.
+ *
+ * Formatos de entrada aceitos (podem até ser misturados), com as coordenadas em km (0 a 8):
+ *   CSV:   map,startX,startY,endX,endY,seed[,id]
+ *   JSONL: {"map":"Erangel","startX":1.0,"startY":0.8,"endX":7.0,"endY":6.7,"seed":42,"id":"r1"}
+ * Linhas vazias, comentários (#) e o cabeçalho do CSV são ignorados.
+ *
+ * Uso:
+ *   java -Djava.awt.headless=true -cp bin safePubg.BatchPredictionCli entrada.csv [saida.jsonl] [--threads N]
+ */
+public final class BatchPredictionCli {
+
+    private BatchPredictionCli() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String inputPath = null;
+        String outputPath = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            if ("--threads".equals(args[i]) && i + 1 < args.length) {
+                threads = Math.max(1, Integer.parseInt(args[++i]));
+            } else if (inputPath == null) {
+                inputPath = args[i];
+            } else if (outputPath == null) {
+                outputPath = args[i];
+            } else {
+                printUsage();
+                System.exit(2);
+            }
+        }
+        if (inputPath == null) {
+            printUsage();
+            System.exit(2);
+        }
+
+        SafeZoneEngine engine;
+        try {
+            engine = SafeZoneEngine.load();
+        } catch (IOException e) {
+            System.err.println("ERRO: Não foi possível carregar os mapas: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        PredictionMetrics.startPeriodicDumpIfConfigured(System.err);
+        long startTime = System.nanoTime();
+        Writer out = (outputPath == null)
+            ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+            : Files.newBufferedWriter(Paths.get(outputPath), StandardCharsets.UTF_8);
+        long[] totals;
+        try (BufferedReader in = Files.newBufferedReader(Paths.get(inputPath), StandardCharsets.UTF_8)) {
+            totals = run(engine, in, out, threads);
+        } finally {
+            out.flush();
+            if (outputPath != null) {
+                out.close();
+            }
+        }
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        System.err.printf("LOG: %d rotas previstas (%d com erro) em %.2fs usando %d threads%n",
+            totals[0], totals[1], seconds, threads);
+        // Quais mapas e rotas gastaram mais tentativas
+        System.err.print(PredictionMetrics.dumpAll());
+    }
+
+    /**
+     * Lê as rotas de 'in', prevê cada uma em um pool de threads e escreve em 'out'
+     * na ordem em que as previsões terminam.
+     * @return {rotas processadas, rotas com erro}
+     */
+    static long[] run(SafeZoneEngine engine, BufferedReader in, Writer out, int threads) throws IOException, InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        // Limita quantas rotas ficam "no ar" ao mesmo tempo, para não ler o arquivo inteiro para a memória
+        Semaphore inFlight = new Semaphore(threads * 4);
+        AtomicLong processed = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        IOException[] writeError = new IOException[1];
+
+        try {
+            String line;
+            long lineNumber = 0;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#") || trimmed.toLowerCase(Locale.ROOT).startsWith("map,")) {
+                    continue;
+                }
+                String defaultId = Long.toString(lineNumber);
+                inFlight.acquire();
+                pool.execute(() -> {
+                    String result;
+                    try {
+                        result = predictLine(engine, trimmed, defaultId);
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                        result = "{\"id\":" + Json.quote(defaultId) + ",\"error\":" + Json.quote(String.valueOf(e.getMessage())) + "}";
+                    }
+                    try {
+                        synchronized (out) {
+                            out.write(result);
+                            out.write('\n');
+                        }
+                    } catch (IOException e) {
+                        synchronized (writeError) {
+                            writeError[0] = e;
+                        }
+                    } finally {
+                        processed.incrementAndGet();
+                        inFlight.release();
+                    }
+                });
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        synchronized (writeError) {
+            if (writeError[0] != null) {
+                throw writeError[0];
+            }
+        }
+        return new long[] {processed.get(), failed.get()};
+    }
+
+    /**
+     * Interpreta uma linha (CSV ou JSON), roda a previsão e monta a linha JSON de saída.
+     */
+    static String predictLine(SafeZoneEngine engine, String line, String defaultId) {
+        String id, map;
+        double startX, startY, endX, endY;
+        long seed;
+        try {
+            if (line.startsWith("{")) {
+                Map<String, String> fields = Json.parseFlatObject(line);
+                map = require(fields, "map");
+                startX = Double.parseDouble(require(fields, "startX"));
+                startY = Double.parseDouble(require(fields, "startY"));
+                endX = Double.parseDouble(require(fields, "endX"));
+                endY = Double.parseDouble(require(fields, "endY"));
+                seed = Long.parseLong(require(fields, "seed"));
+                id = fields.getOrDefault("id", defaultId);
+            } else {
+                String[] parts = line.split(",");
+                if (parts.length < 6) {
+                    throw new IllegalArgumentException("Esperado map,startX,startY,endX,endY,seed[,id]");
+                }
+                map = parts[0].trim();
+                startX = Double.parseDouble(parts[1].trim());
+                startY = Double.parseDouble(parts[2].trim());
+                endX = Double.parseDouble(parts[3].trim());
+                endY = Double.parseDouble(parts[4].trim());
+                seed = Long.parseLong(parts[5].trim());
+                id = (parts.length > 6) ? parts[6].trim() : defaultId;
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Número inválido: " + e.getMessage());
+        }
+
+        List<SafeZone> zones = engine.predict(map, startX, startY, endX, endY, seed);
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("{\"id\":").append(Json.quote(id))
+          .append(",\"map\":").append(Json.quote(map))
+          .append(",\"seed\":").append(seed)
+          .append(",\"zones\":");
+        Json.appendZones(sb, zones);
+        return sb.append('}').toString();
+    }
+
+    private static String require(Map<String, String> fields, String key) {
+        String value = fields.get(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Campo obrigatório ausente: " + key);
+        }
+        return value;
+    }
+
+    private static void printUsage() {
+        System.err.println("Uso: java -Djava.awt.headless=true -cp bin safePubg.BatchPredictionCli "
+            + "<entrada.csv|entrada.jsonl> [saida.jsonl] [--threads N]");
+    }
+}
@@ -0,0 +1,297 @@
+package safePubg;
+
+import java.awt.geom.Point2D;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * BatchedShiftSampler
+ * O mesmo sorteio das fases 2-7 do SafeZoneEngine, mas para MUITAS sequências
+ * ao mesmo tempo (um lote de ZoneSequenceBatch), fase por fase.
+ *
+ * No caminho normal, cada tentativa é uma chamada a generateRandomPointInCircle
+ * (um Point2D novo) seguida de um isLand. Aqui, cada sequência ainda sem centro
+ * na fase atual é uma "faixa" (lane), e cada rodada:
+ *   1. sorteia o (ângulo, distância) de todas as faixas;
+ *   2. converte tudo para coordenadas (laços simples sobre arrays, que o JIT desenrola);
+ *   3. consulta os bits de terra do lote inteiro de uma vez (LandMask.isLandAt em lote);
+ *   4. aceita as faixas que caíram em terra e compacta a lista das que faltam.
+ * Nenhum objeto é criado por tentativa.
+ *
+ * Cada sequência tem o SEU gerador e consome os números exatamente na mesma ordem
+ * que SafeZoneEngine.predictInto, então o resultado é idêntico (bit a bit) ao caminho normal.
+ * Por isso as faixas são sequências diferentes, e não várias tentativas da mesma
+ * sequência: sortear tentativas "a mais" mudaria a semente das fases seguintes.
+ *
+ * Uma instância guarda os rascunhos de um lote: use uma por thread.
+ */
+final class BatchedShiftSampler {
+    // Limite de tentativas por fase (o mesmo do SafeZoneEngine)
+    private static final int MAX_ATTEMPTS = 2000;
+
+    private final SimulationContext context;
+    private final PredictionMetrics metrics;
+    private final SafeZoneRules rules;
+    private final int capacity;
+
+    // Por faixa (posição na lista de sequências ainda sorteando)
+    private final int[] lanes;
+    private final double[] angles;
+    private final double[] distances;
+    private final double[] candidateX;
+    private final double[] candidateY;
+    private final int[] cells;
+    private final boolean[] land;
+
+    // Por sequência (linha - primeira linha do lote)
+    private final int[] attempts;
+    private final boolean[] timed;
+    private final int[] landCandidates;
+    private final double[] bestFraction;
+    private final double[] bestX;
+    private final double[] bestY;
+
+    /**
+     * @param capacity Quantas sequências cabem em cada chamada a predictInto.
+     */
+    BatchedShiftSampler(SimulationContext context, int capacity) {
+        this.context = context;
+        this.metrics = context.getMetrics();
+        this.rules = context.getRules();
+        this.capacity = capacity;
+        this.lanes = new int[capacity];
+        this.angles = new double[capacity];
+        this.distances = new double[capacity];
+        this.candidateX = new double[capacity];
+        this.candidateY = new double[capacity];
+        this.cells = new int[capacity];
+        this.land = new boolean[capacity];
+        this.attempts = new int[capacity];
+        this.timed = new boolean[capacity];
+        this.landCandidates = new int[capacity];
+        this.bestFraction = new double[capacity];
+        this.bestX = new double[capacity];
+        this.bestY = new double[capacity];
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Equivale a chamar SafeZoneEngine.predictInto para cada linha [from, to) do lote,
+     * com o gerador randoms[linha - from].
+     * @param observed As safes já vistas, Fase 1 primeiro (vazia = sequência completa a partir da rota).
+     * @throws IllegalArgumentException Se houver mais linhas que a capacidade ou safes observadas demais.
+     */
+    void predictInto(List<SafeZone> observed, RandomGenerator[] randoms, ZoneSequenceBatch batch, int from, int to) {
+        int count = to - from;
+        if (count > capacity) {
+            throw new IllegalArgumentException("Lote maior que a capacidade: " + count + " > " + capacity);
+        }
+        if (observed.size() > SafeZoneEngine.PHASE_COUNT) {
+            throw new IllegalArgumentException("Safes observadas demais: " + observed.size()
+                + " (máximo " + SafeZoneEngine.PHASE_COUNT + ")");
+        }
+        for (int row = from; row < to; row++) {
+            batch.setPhaseCount(row, 0);
+        }
+        SafeZoneEngine.setRadii(rules, batch);
+        if (observed.isEmpty()) {
+            int routeZoneType = context.getRouteZoneType();
+            if (routeZoneType < 0 || routeZoneType > 2) return;
+            boolean anyTimed = markTimed(count);
+            long phaseStart = anyTimed ? System.nanoTime() : 0;
+            // A Fase 1 (Regra da Rota do Avião) continua uma sequência por vez
+            for (int slot = 0; slot < count; slot++) {
+                Point2D firstCenter = SafeZoneEngine.predictFirstCenter(context, randoms[slot]);
+                if (firstCenter == null) {
+                    System.out.println("ERRO: Falha crítica ao gerar a Fase 1.");
+                    continue;
+                }
+                batch.setCenter(from + slot, 0, firstCenter.getX(), firstCenter.getY());
+                batch.setPhaseCount(from + slot, 1);
+                attempts[slot] = 1; // O sorteio direto da Fase 1 nunca rejeita pontos
+            }
+            if (anyTimed) {
+                recordTimings(batch, from, count, 0, (System.nanoTime() - phaseStart) / count);
+            }
+        } else {
+            for (int row = from; row < to; row++) {
+                for (int phase = 0; phase < observed.size(); phase++) {
+                    SafeZone zone = observed.get(phase);
+                    batch.setCenter(row, phase, zone.center.getX(), zone.center.getY());
+                }
+                batch.setPhaseCount(row, observed.size());
+            }
+            for (int phase = 0; phase < observed.size(); phase++) {
+                batch.setRadius(phase, observed.get(phase).radius);
+            }
+            markTimed(count);
+        }
+
+        for (int phase = Math.max(1, observed.size()); phase < SafeZoneEngine.PHASE_COUNT; phase++) {
+            samplePhase(batch, randoms, from, count, phase);
+        }
+        for (int row = from; row < to; row++) {
+            if (batch.getPhaseCount(row) > 0) {
+                metrics.recordSequence();
+            }
+        }
+    }
+
+    /**
+     * Sorteia o centro da fase 'phase' de todas as linhas que já têm a fase anterior.
+     */
+    private void samplePhase(ZoneSequenceBatch batch, RandomGenerator[] randoms, int from, int count, int phase) {
+        int active = 0;
+        boolean anyTimed = false;
+        for (int slot = 0; slot < count; slot++) {
+            if (batch.getPhaseCount(from + slot) == phase) {
+                lanes[active++] = slot;
+                attempts[slot] = 0;
+                landCandidates[slot] = 0;
+                bestFraction[slot] = -1;
+                anyTimed |= timed[slot];
+            }
+        }
+        if (active == 0) {
+            return;
+        }
+        long phaseStart = anyTimed ? System.nanoTime() : 0;
+        int sampled = active;
+        // Mesmo "raio de busca" do SafeZoneEngine: o novo círculo cabe inteiro no anterior
+        double searchRadius = Math.max(0, batch.getRadius(phase - 1) - rules.getRadius(phase));
+        // Fase 4: Regra da Proporção de Terra (candidatos na metade externa, fica com o de mais terra)
+        boolean landFractionPhase = (phase == 3);
+        if (landFractionPhase && context.isVerbose()) {
+            System.out.println("LOG: Calculando Fase 4 (Regra da Proporção de Terra)");
+        }
+
+        while (active > 0) {
+            // 1. Sorteio: cada faixa com o seu gerador, na mesma ordem do caminho normal
+            for (int lane = 0; lane < active; lane++) {
+                int slot = lanes[lane];
+                RandomGenerator rand = randoms[slot];
+                double minRadiusPercent, maxRadiusPercent;
+                if (landFractionPhase) {
+                    minRadiusPercent = rules.getPhase4Min();
+                    maxRadiusPercent = rules.getPhase4Max();
+                } else if (rand.nextDouble() * 100 < rules.getSoftShiftChance(phase)) { // "Soft Shift"
+                    minRadiusPercent = rules.getSoftMin(phase);
+                    maxRadiusPercent = rules.getSoftMax(phase);
+                } else { // "Hard Shift"
+                    minRadiusPercent = rules.getHardMin(phase);
+                    maxRadiusPercent = rules.getHardMax(phase);
+                }
+                angles[lane] = 2 * Math.PI * rand.nextDouble();
+                double rNorm = Math.sqrt(rand.nextDouble());
+                distances[lane] = searchRadius * ((rNorm * (maxRadiusPercent - minRadiusPercent)) + minRadiusPercent);
+                attempts[slot]++;
+            }
+            // 2. Polar -> cartesiano (as mesmas contas de generateRandomPointInCircle)
+            for (int lane = 0; lane < active; lane++) {
+                int row = from + lanes[lane];
+                candidateX[lane] = batch.getCenterX(row, phase - 1) + distances[lane] * Math.cos(angles[lane]);
+                candidateY[lane] = batch.getCenterY(row, phase - 1) + distances[lane] * Math.sin(angles[lane]);
+            }
+            // 3. Bits de terra do lote inteiro
+            context.isLand(candidateX, candidateY, active, cells, land);
+            // 4. Aceita quem terminou e compacta as faixas que continuam
+            int remaining = 0;
+            for (int lane = 0; lane < active; lane++) {
+                int slot = lanes[lane];
+                boolean done = landFractionPhase
+                    ? acceptLandFraction(batch, from + slot, slot, phase, lane)
+                    : acceptShift(batch, from + slot, slot, phase, lane);
+                if (!done) {
+                    lanes[remaining++] = slot;
+                }
+            }
+            active = remaining;
+        }
+        if (anyTimed) {
+            recordTimings(batch, from, count, phase, (System.nanoTime() - phaseStart) / sampled);
+        }
+    }
+
+    /**
+     * Fases 2, 3, 5, 6, 7: termina no primeiro ponto em terra (ou ao bater no limite).
+     */
+    private boolean acceptShift(ZoneSequenceBatch batch, int row, int slot, int phase, int lane) {
+        boolean hitCap = attempts[slot] > MAX_ATTEMPTS;
+        if (!hitCap && !land[lane]) {
+            return false;
+        }
+        if (hitCap && context.isVerbose()) {
+            System.out.println("AVISO: Não foi possível achar terra para a Fase " + (phase + 1) + ".");
+        }
+        finish(batch, row, slot, phase, candidateX[lane], candidateY[lane], hitCap);
+        return true;
+    }
+
+    /**
+     * Fase 4: junta getPhase4Candidates() pontos em terra e fica com o de maior proporção de terra.
+     */
+    private boolean acceptLandFraction(ZoneSequenceBatch batch, int row, int slot, int phase, int lane) {
+        if (land[lane]) {
+            landCandidates[slot]++;
+            double fraction = context.landFraction(candidateX[lane], candidateY[lane], rules.getRadius(phase));
+            if (fraction > bestFraction[slot]) {
+                bestFraction[slot] = fraction;
+                bestX[slot] = candidateX[lane];
+                bestY[slot] = candidateY[lane];
+            }
+        }
+        boolean hasBest = landCandidates[slot] > 0;
+        boolean hitCap = false;
+        if (attempts[slot] > MAX_ATTEMPTS) {
+            hitCap = !hasBest;
+            if (hitCap && context.isVerbose()) {
+                System.out.println("AVISO: Não foi possível achar terra para a Fase " + (phase + 1) + ".");
+            }
+        } else if (landCandidates[slot] < rules.getPhase4Candidates()) {
+            return false;
+        }
+        if (context.isVerbose()) {
+            System.out.printf("LOG: Fase 4 escolhida com %.0f%% de terra%n", Math.max(0, bestFraction[slot]) * 100);
+        }
+        if (hasBest) {
+            finish(batch, row, slot, phase, bestX[slot], bestY[slot], hitCap);
+        } else {
+            finish(batch, row, slot, phase, candidateX[lane], candidateY[lane], hitCap);
+        }
+        return true;
+    }
+
+    private void finish(ZoneSequenceBatch batch, int row, int slot, int phase, double x, double y, boolean hitCap) {
+        batch.setCenter(row, phase, x, y);
+        batch.setPhaseCount(row, phase + 1);
+        metrics.recordAttempts(phase, attempts[slot], hitCap);
+    }
+
+    /**
+     * Sorteia quais sequências do lote serão cronometradas (ver PredictionMetrics).
+     * @return Se alguma foi sorteada.
+     */
+    private boolean markTimed(int count) {
+        boolean any = false;
+        for (int slot = 0; slot < count; slot++) {
+            timed[slot] = PredictionMetrics.shouldTime();
+            any |= timed[slot];
+        }
+        return any;
+    }
+
+    /**
+     * As fases do lote rodam juntas, então cada sequência cronometrada recebe
+     * o tempo MÉDIO por sequência da fase (tempo total / sequências sorteadas).
+     */
+    private void recordTimings(ZoneSequenceBatch batch, int from, int count, int phase, long perSequence) {
+        for (int slot = 0; slot < count; slot++) {
+            if (timed[slot] && batch.getPhaseCount(from + slot) == phase + 1) {
+                metrics.recordTiming(phase, attempts[slot], perSequence);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package safePubg;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * CachedLayer
+ * Uma "camada" do desenho guardada em um bitmap já pronto para a tela.
+ * O conteúdo só é redesenhado quando o tamanho do painel ou a chave
+ * (ex: o mapa escolhido, a lista de safes) mudam; nos outros repaints
+ * (como ao arrastar a rota) basta copiar o bitmap, sem reescalar nada.
+ */
+final class CachedLayer {
+    private final boolean translucent;
+    private BufferedImage image;
+    private Object[] key;
+
+    /**
+     * @param translucent true para camadas com transparência (desenhadas por cima de outras).
+     */
+    CachedLayer(boolean translucent) {
+        this.translucent = translucent;
+    }
+
+    /**
+     * Devolve o bitmap da camada, redesenhando com 'painter' só se algo mudou.
+     * @param gc A configuração da tela (para criar uma imagem compatível); pode ser nula.
+     * @param painter Desenha o conteúdo da camada (recebe um Graphics2D do tamanho w x h).
+     * @param key Valores que, se mudarem, obrigam a redesenhar a camada.
+     */
+    BufferedImage get(GraphicsConfiguration gc, int width, int height, Consumer<Graphics2D> painter, Object... key) {
+        if (image == null || image.getWidth() != width || image.getHeight() != height || !Arrays.equals(this.key, key)) {
+            if (image == null || image.getWidth() != width || image.getHeight() != height) {
+                image = createImage(gc, width, height);
+            }
+            Graphics2D g2d = image.createGraphics();
+            if (translucent) {
+                // Limpa o conteúdo antigo (deixa tudo transparente)
+                g2d.setComposite(AlphaComposite.Clear);
+                g2d.fillRect(0, 0, width, height);
+                g2d.setComposite(AlphaComposite.SrcOver);
+            }
+            painter.accept(g2d);
+            g2d.dispose();
+            this.key = key;
+        }
+        return image;
+    }
+
+    private BufferedImage createImage(GraphicsConfiguration gc, int width, int height) {
+        int transparency = translucent ? Transparency.TRANSLUCENT : Transparency.OPAQUE;
+        if (gc != null) {
+            return gc.createCompatibleImage(width, height, transparency);
+        }
+        return new BufferedImage(width, height, translucent ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+    }
+}
@@ -0,0 +1,148 @@
+package safePubg;
+
+import java.awt.geom.Line2D;
+import java.awt.geom.Point2D;
+
+/**
+ * CalibrationCounts
+ * As contagens que o RuleCalibrator tira dos logs de partidas: só números somáveis,
+ * para que cada tarefa (um pedaço de um arquivo) conte sozinha, sem locks, e no final
+ * as contagens de todas sejam juntadas com merge. O resultado não depende de quantas
+ * threads ou pedaços foram usados.
+ *
+ * Cada partida vai para o TREINO ou para o TESTE (held-out), por um hash da própria
+ * linha: o teste mede a log-verossimilhança das regras ajustadas em partidas que o ajuste não viu.
+ *
+ * O que é contado:
+ * - Fase 1: partidas por mapa x tipo de rota x zona x distância da rota (as mesmas categorias do motor);
+ * - Fases 2-7: histograma do "shift" normalizado: distância entre o centro novo e o anterior,
+ *   dividida pelo raio de busca (raio anterior - raio novo), de 0.0 a 1.0;
+ * - a soma dos raios observados de cada fase, em milímetros inteiros (uma soma de double
+ *   dependeria da ordem do merge, e o ajuste dos raios mudaria nos últimos dígitos
+ *   conforme as threads e os pedaços).
+ */
+final class CalibrationCounts {
+    // Divisões do histograma de shift (0.0 a 1.0)
+    static final int SHIFT_BINS = 100;
+    // Índice dos mapas fora de MapAssets.MAPS
+    static final int OTHER_MAP = MapAssets.MAPS.length;
+
+    private static final int ZONES = SafeZoneRules.ZONE_NAMES.length;
+    private static final int CELLS = ZONES * SafeZoneRules.DISTANCES;
+
+    private final int holdoutPercent;
+    // [0 = treino, 1 = teste][mapa][tipo de rota][zona * DISTANCES + distância]
+    final long[][][][] phase1 = new long[2][OTHER_MAP + 1][ZONES][CELLS];
+    // [0 = treino, 1 = teste][fase][divisão]
+    final long[][][] shifts = new long[2][SafeZoneEngine.PHASE_COUNT][SHIFT_BINS];
+    // Milímetros por km (precisão da soma dos raios)
+    static final double RADIUS_UNITS_PER_KM = 1_000_000;
+    // Soma (em milímetros) e quantidade dos raios observados de cada fase (só treino)
+    final long[] radiusSums = new long[SafeZoneEngine.PHASE_COUNT];
+    final long[] radiusCounts = new long[SafeZoneEngine.PHASE_COUNT];
+    long trainMatches;
+    long heldOutMatches;
+    long rejectedLines;
+    // Fase 1 fora das categorias do motor (fora do mapa, longe demais da rota, rota inválida)
+    long phase1Skipped;
+
+    /**
+     * @param holdoutPercent Quantos % das partidas ficam para o teste (0 a 100).
+     */
+    CalibrationCounts(int holdoutPercent) {
+        this.holdoutPercent = holdoutPercent;
+    }
+
+    /**
+     * Conta uma partida.
+     * @param line A linha do log (decide treino/teste).
+     * @param mapIndex O índice em MapAssets.MAPS (ou -1 se for outro mapa).
+     * @param route {startX, startY, endX, endY} (km).
+     * @param circles {x, y, raio} de cada fase observada, Fase 1 primeiro (km).
+     */
+    void add(String line, int mapIndex, double[] route, double[][] circles) {
+        int set = isHeldOut(line) ? 1 : 0;
+        if (set == 0) {
+            trainMatches++;
+        } else {
+            heldOutMatches++;
+        }
+        int map = (mapIndex < 0) ? OTHER_MAP : mapIndex;
+
+        // Fase 1: tipo de rota x zona x distância
+        Point2D start = new Point2D.Double(route[0], route[1]);
+        Point2D end = new Point2D.Double(route[2], route[3]);
+        int routeType = SafeZoneEngine.determineRouteZoneType(start, end);
+        double[] first = circles[0];
+        int zone = SafeZoneEngine.getZoneRing(first[0], first[1]);
+        int distance = ZoneSampler.distanceBand(new Line2D.Double(start, end).ptLineDist(first[0], first[1]));
+        if (routeType >= 0 && routeType < ZONES && zone < ZONES && distance < SafeZoneRules.DISTANCES) {
+            phase1[set][map][routeType][zone * SafeZoneRules.DISTANCES + distance]++;
+        } else {
+            phase1Skipped++;
+        }
+
+        for (int phase = 0; phase < circles.length; phase++) {
+            if (set == 0) {
+                radiusSums[phase] += Math.round(circles[phase][2] * RADIUS_UNITS_PER_KM);
+                radiusCounts[phase]++;
+            }
+            if (phase == 0) {
+                continue;
+            }
+            double searchRadius = circles[phase - 1][2] - circles[phase][2];
+            if (searchRadius <= 0) {
+                continue;
+            }
+            double shift = Math.hypot(circles[phase][0] - circles[phase - 1][0], circles[phase][1] - circles[phase - 1][1]) / searchRadius;
+            shifts[set][phase][Math.min(SHIFT_BINS - 1, (int) (shift * SHIFT_BINS))]++;
+        }
+    }
+
+    void reject() {
+        rejectedLines++;
+    }
+
+    /**
+     * Soma as contagens de outra tarefa nesta.
+     */
+    void merge(CalibrationCounts other) {
+        for (int set = 0; set < 2; set++) {
+            for (int map = 0; map <= OTHER_MAP; map++) {
+                for (int route = 0; route < ZONES; route++) {
+                    for (int cell = 0; cell < CELLS; cell++) {
+                        phase1[set][map][route][cell] += other.phase1[set][map][route][cell];
+                    }
+                }
+            }
+            for (int phase = 0; phase < SafeZoneEngine.PHASE_COUNT; phase++) {
+                for (int bin = 0; bin < SHIFT_BINS; bin++) {
+                    shifts[set][phase][bin] += other.shifts[set][phase][bin];
+                }
+            }
+        }
+        for (int phase = 0; phase < SafeZoneEngine.PHASE_COUNT; phase++) {
+            radiusSums[phase] += other.radiusSums[phase];
+            radiusCounts[phase] += other.radiusCounts[phase];
+        }
+        trainMatches += other.trainMatches;
+        heldOutMatches += other.heldOutMatches;
+        rejectedLines += other.rejectedLines;
+        phase1Skipped += other.phase1Skipped;
+    }
+
+    /**
+     * Treino ou teste, pelo conteúdo da linha (não depende da ordem de leitura nem das threads).
+     */
+    private boolean isHeldOut(String line) {
+        if (holdoutPercent <= 0) {
+            return false;
+        }
+        // Espalha os bits do hashCode (o mesmo "finalizador" do SplittableRandom)
+        long h = line.hashCode() * 0x9E3779B97F4A7C15L;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        h ^= h >>> 31;
+        return Math.floorMod(h, 100) < holdoutPercent;
+    }
+}
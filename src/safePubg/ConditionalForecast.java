@@ -0,0 +1,141 @@
+package safePubg;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * ConditionalForecast
+ * A previsão de uma partida em andamento: conforme as safes reais aparecem
+ * (Fase 1, depois Fase 2...), o heatmap das fases que faltam vai se estreitando.
+ *
+ * O trabalho é reaproveitado de duas formas:
+ * - O contexto (as tabelas de sorteio da rota, as grades de terra da Fase 4) é
+ *   montado UMA vez por rota e usado por todas as observações.
+ * - Como cada fase só depende da safe anterior, o resultado depende só da ÚLTIMA
+ *   safe observada (e de quantas são). Cada prefixo é simulado uma única vez e
+ *   guardado: desfazer uma observação, ou fixar de novo a mesma safe, é instantâneo,
+ *   e dois prefixos que terminam na mesma safe dividem o mesmo resultado.
+ * Com poucas fases faltando (e círculos cada vez menores), cada nova observação
+ * custa poucos milissegundos.
+ *
+ * Pode ser usado por várias threads ao mesmo tempo.
+ */
+final class ConditionalForecast {
+    // Quantos prefixos ficam guardados (os menos usados saem primeiro)
+    static final int MAX_CACHED_PREFIXES = 64;
+
+    private final SimulationContext context;
+    private final int samples;
+    private final long seed;
+    private final ForkJoinPool pool;
+    // Prefixo -> simulação (em andamento ou pronta), do menos para o mais usado
+    private final Map<PrefixKey, CompletableFuture<DensityGrid>> results =
+        new LinkedHashMap<PrefixKey, CompletableFuture<DensityGrid>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PrefixKey, CompletableFuture<DensityGrid>> eldest) {
+                return size() > MAX_CACHED_PREFIXES;
+            }
+        };
+
+    /**
+     * @param context A rota e o mapa da partida (montado uma vez e reaproveitado).
+     * @param samples Quantas sequências simular para cada prefixo.
+     * @param seed A semente (o mesmo prefixo com a mesma semente sempre dá a mesma grade).
+     */
+    ConditionalForecast(SimulationContext context, int samples, long seed) {
+        this(context, samples, seed, ForkJoinPool.commonPool());
+    }
+
+    ConditionalForecast(SimulationContext context, int samples, long seed, ForkJoinPool pool) {
+        this.context = context;
+        this.samples = samples;
+        this.seed = seed;
+        this.pool = pool;
+    }
+
+    /**
+     * O heatmap das fases que faltam depois das safes observadas
+     * (as fases observadas ficam com a grade vazia). BLOQUEIA até a simulação terminar.
+     * @param observed As safes já vistas, Fase 1 primeiro (vazia = a previsão normal da rota).
+     */
+    DensityGrid forecast(List<SafeZone> observed) {
+        return forecastAsync(observed).join();
+    }
+
+    /**
+     * Igual a forecast, mas sem bloquear: se o prefixo já foi (ou está sendo)
+     * simulado, devolve o mesmo futuro; se não, começa a simulação no pool.
+     */
+    CompletableFuture<DensityGrid> forecastAsync(List<SafeZone> observed) {
+        List<SafeZone> prefix = List.copyOf(observed);
+        PrefixKey key = new PrefixKey(prefix);
+        CompletableFuture<DensityGrid> result;
+        synchronized (results) {
+            result = results.get(key);
+            if (result == null) {
+                result = CompletableFuture.supplyAsync(
+                    () -> MonteCarloSimulator.simulate(context, prefix, samples, seed, pool), pool);
+                results.put(key, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Uma sequência provável das fases que faltam (a amostra 0 da mesma semente).
+     */
+    List<SafeZone> sampleSequence(List<SafeZone> observed) {
+        return SafeZoneEngine.predictFromObserved(context, observed, SafeZoneEngine.sequenceRandom(seed, 0));
+    }
+
+    SimulationContext getContext() {
+        return context;
+    }
+
+    /**
+     * Quantos prefixos estão guardados (para LOGs e testes).
+     */
+    int cachedPrefixes() {
+        synchronized (results) {
+            return results.size();
+        }
+    }
+
+    /**
+     * A chave de um prefixo: quantas safes foram observadas e a última delas.
+     * As anteriores não importam para as fases seguintes (só a última safe conta).
+     */
+    private static final class PrefixKey {
+        private final int observedCount;
+        private final double centerX;
+        private final double centerY;
+        private final double radius;
+
+        PrefixKey(List<SafeZone> prefix) {
+            this.observedCount = prefix.size();
+            SafeZone last = prefix.isEmpty() ? null : prefix.get(prefix.size() - 1);
+            this.centerX = (last != null) ? last.getCenterX() : 0;
+            this.centerY = (last != null) ? last.getCenterY() : 0;
+            this.radius = (last != null) ? last.getRadius() : 0;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof PrefixKey)) {
+                return false;
+            }
+            PrefixKey key = (PrefixKey) other;
+            return observedCount == key.observedCount && Double.compare(centerX, key.centerX) == 0
+                && Double.compare(centerY, key.centerY) == 0 && Double.compare(radius, key.radius) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(observedCount, centerX, centerY, radius);
+        }
+    }
+}
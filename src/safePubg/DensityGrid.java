@@ -0,0 +1,177 @@
+package safePubg;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * DensityGrid
+ * Grade de contagem (um int por célula) para cada uma das 7 fases.
+ * Cada sequência simulada "vota" na célula onde caiu o centro de cada fase;
+ * dividindo pela quantidade de sequências temos a probabilidade de cada célula.
+ * Usa apenas arrays primitivos para não gerar lixo durante a simulação.
+ */
+final class DensityGrid {
+    private final int columns;
+    private final int rows;
+    private final double areaWidth;
+    private final double areaHeight;
+    // counts[fase][linha * columns + coluna]
+    private final int[][] counts;
+    private long samples;
+
+    /**
+     * @param columns Número de colunas da grade.
+     * @param rows Número de linhas da grade.
+     * @param areaWidth Largura da área coberta (nas mesmas coordenadas dos centros).
+     * @param areaHeight Altura da área coberta.
+     */
+    DensityGrid(int columns, int rows, double areaWidth, double areaHeight) {
+        this.columns = columns;
+        this.rows = rows;
+        this.areaWidth = areaWidth;
+        this.areaHeight = areaHeight;
+        this.counts = new int[SafeZoneEngine.PHASE_COUNT][columns * rows];
+    }
+
+    /**
+     * Uma grade vazia com as mesmas dimensões desta.
+     */
+    DensityGrid emptyCopy() {
+        return new DensityGrid(columns, rows, areaWidth, areaHeight);
+    }
+
+    /**
+     * Uma cópia independente desta grade (as contagens e o total de sequências).
+     * Usada para mostrar um resultado parcial enquanto a original continua somando.
+     */
+    DensityGrid copy() {
+        DensityGrid copy = emptyCopy();
+        copy.merge(this);
+        return copy;
+    }
+
+    /**
+     * Registra o centro de uma fase. Centros fora da área são ignorados
+     * (mas a sequência continua contando no total).
+     */
+    void add(int phase, double x, double y) {
+        int col = (int) (x / areaWidth * columns);
+        int row = (int) (y / areaHeight * rows);
+        if (x < 0 || y < 0 || col >= columns || row >= rows) {
+            return;
+        }
+        counts[phase][row * columns + col]++;
+    }
+
+    /**
+     * Conta mais uma sequência simulada.
+     */
+    void addSample() {
+        samples++;
+    }
+
+    /**
+     * Soma as contagens de outra grade (usada para juntar o trabalho das threads).
+     */
+    void merge(DensityGrid other) {
+        for (int phase = 0; phase < counts.length; phase++) {
+            int[] mine = counts[phase];
+            int[] theirs = other.counts[phase];
+            for (int i = 0; i < mine.length; i++) {
+                mine[i] += theirs[i];
+            }
+        }
+        samples += other.samples;
+    }
+
+    /**
+     * Grava a grade em binário (dimensões, total de sequências e as contagens de cada fase).
+     */
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(columns);
+        out.writeInt(rows);
+        out.writeDouble(areaWidth);
+        out.writeDouble(areaHeight);
+        out.writeLong(samples);
+        out.writeInt(counts.length);
+        for (int[] phaseCounts : counts) {
+            for (int count : phaseCounts) {
+                out.writeInt(count);
+            }
+        }
+    }
+
+    /**
+     * Lê uma grade gravada por writeTo.
+     * @throws IOException Se os dados estiverem truncados ou forem de outro formato.
+     */
+    static DensityGrid readFrom(DataInput in) throws IOException {
+        int columns = in.readInt();
+        int rows = in.readInt();
+        double areaWidth = in.readDouble();
+        double areaHeight = in.readDouble();
+        long samples = in.readLong();
+        int phases = in.readInt();
+        if (columns <= 0 || rows <= 0 || columns > 65_536 || rows > 65_536 || phases != SafeZoneEngine.PHASE_COUNT) {
+            throw new IOException("Grade inválida: " + columns + "x" + rows + ", " + phases + " fases");
+        }
+        DensityGrid grid = new DensityGrid(columns, rows, areaWidth, areaHeight);
+        for (int[] phaseCounts : grid.counts) {
+            for (int i = 0; i < phaseCounts.length; i++) {
+                phaseCounts[i] = in.readInt();
+            }
+        }
+        grid.samples = samples;
+        return grid;
+    }
+
+    /**
+     * Quanto a grade ocupa na memória (aproximado, em bytes).
+     */
+    long sizeInBytes() {
+        return 64 + (long) counts.length * (16 + 4L * columns * rows);
+    }
+
+    int getCount(int phase, int col, int row) {
+        return counts[phase][row * columns + col];
+    }
+
+    /**
+     * Maior contagem de uma fase (usada para normalizar as cores do heatmap).
+     */
+    int getMaxCount(int phase) {
+        int max = 0;
+        for (int c : counts[phase]) {
+            if (c > max) max = c;
+        }
+        return max;
+    }
+
+    /**
+     * Probabilidade (0 a 1) de o centro da fase cair na célula.
+     */
+    double getProbability(int phase, int col, int row) {
+        return samples == 0 ? 0 : (double) getCount(phase, col, row) / samples;
+    }
+
+    int getColumns() {
+        return columns;
+    }
+
+    int getRows() {
+        return rows;
+    }
+
+    double getAreaWidth() {
+        return areaWidth;
+    }
+
+    double getAreaHeight() {
+        return areaHeight;
+    }
+
+    long getSamples() {
+        return samples;
+    }
+}
@@ -0,0 +1,470 @@
+package safePubg;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * DropSpotAnalysis
+ * Onde pular? Para cada célula de uma grade do mapa, calcula a partir de uma simulação
+ * Monte Carlo (DensityGrid) das Fases 1 a 3:
+ * - a chance de a célula ficar DENTRO da safe de cada fase;
+ * - a distância esperada (km) que teria de ser percorrida da célula até a safe (0 se já estiver dentro).
+ * Com isso, ordena os melhores pontos de pouso ao longo da rota do avião.
+ *
+ * Comparar todas as células com todas as sequências (100 mil x 4 mil células x 3 fases)
+ * seria lento demais. Então:
+ * 1. Os centros simulados já estão agrupados na grade (um histograma por fase);
+ * 2. "Dentro da safe" = soma do histograma em um disco do tamanho do raio em volta da célula,
+ *    feita com SOMAS ACUMULADAS por linha (cada linha do disco custa uma subtração);
+ * 3. A distância esperada é a soma do histograma vezes a distância até a borda (uma tabela
+ *    por deslocamento dx, dy): isso é uma CONVOLUÇÃO do histograma com a tabela, feita com a
+ *    FFT (transformada rápida de Fourier) em O(n² log n), em vez de comparar cada célula com
+ *    cada célula com centros (O(n⁴)); poucos milissegundos por fase na grade padrão de 64 x 64;
+ * 4. As linhas do "dentro da safe" são divididas entre os núcleos (Fork/Join).
+ * O custo depende do tamanho da grade, não da quantidade de sequências simuladas.
+ *
+ * Obs: os centros são arredondados para o meio da sua célula (erro de até meia célula,
+ * ~60 m na resolução padrão).
+ */
+final class DropSpotAnalysis {
+    // Resolução padrão da análise (64 x 64 células no mapa de 8 x 8 km, 125 m por célula)
+    static final int DEFAULT_RESOLUTION = 64;
+    // Fases analisadas (1 a 3: as que decidem onde pousar e para onde ir)
+    static final int ANALYZED_PHASES = 3;
+    // Até quantos km da rota do avião dá para chegar de paraquedas (aproximado)
+    static final double DEFAULT_MAX_ROUTE_DISTANCE = 1.5;
+    // Distância mínima entre dois pontos sugeridos (para não sugerir células vizinhas)
+    static final double DEFAULT_MIN_SEPARATION = 0.5;
+    // Linhas da grade por tarefa Fork/Join
+    private static final int ROWS_PER_TASK = 4;
+
+    private final int resolution;
+    private final double cellWidth;
+    private final double cellHeight;
+    // Fases com centros simulados (as fases já observadas não têm)
+    private final boolean[] analyzed = new boolean[ANALYZED_PHASES];
+    // [fase][linha * resolution + coluna]
+    private final double[][] insideProbability = new double[ANALYZED_PHASES][];
+    private final double[][] expectedDistance = new double[ANALYZED_PHASES][];
+    // Soma das distâncias esperadas das fases analisadas (menor = melhor)
+    private final double[] score;
+
+    /**
+     * Um ponto de pouso sugerido.
+     */
+    static final class DropSpot {
+        // Centro da célula (km)
+        final double x;
+        final double y;
+        // Distância até a rota do avião (km)
+        final double routeDistance;
+        // Soma das distâncias esperadas até as safes das Fases 1 a 3 (km; menor = melhor)
+        final double score;
+        // Chance de estar dentro da safe de cada fase (NaN = fase não analisada)
+        final double[] insideProbability;
+        // Distância esperada até a safe de cada fase (km; NaN = fase não analisada)
+        final double[] expectedDistance;
+
+        DropSpot(double x, double y, double routeDistance, double score, double[] insideProbability, double[] expectedDistance) {
+            this.x = x;
+            this.y = y;
+            this.routeDistance = routeDistance;
+            this.score = score;
+            this.insideProbability = insideProbability;
+            this.expectedDistance = expectedDistance;
+        }
+    }
+
+    private DropSpotAnalysis(int resolution, double areaWidth, double areaHeight) {
+        this.resolution = resolution;
+        this.cellWidth = areaWidth / resolution;
+        this.cellHeight = areaHeight / resolution;
+        this.score = new double[resolution * resolution];
+    }
+
+    /**
+     * Analisa a simulação na resolução padrão, usando todos os núcleos.
+     * @param rules As regras do mapa (os raios de cada fase).
+     */
+    static DropSpotAnalysis of(DensityGrid grid, SafeZoneRules rules) {
+        return of(grid, rules, DEFAULT_RESOLUTION, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Analisa a simulação.
+     * @param grid A simulação (contagens dos centros de cada fase).
+     * @param rules As regras do mapa (os raios de cada fase).
+     * @param resolution Colunas e linhas da análise (a grade da simulação é reagrupada nela).
+     */
+    static DropSpotAnalysis of(DensityGrid grid, SafeZoneRules rules, int resolution, ForkJoinPool pool) {
+        if (resolution <= 0) {
+            throw new IllegalArgumentException("Resolução inválida: " + resolution);
+        }
+        DropSpotAnalysis analysis = new DropSpotAnalysis(resolution, grid.getAreaWidth(), grid.getAreaHeight());
+        int cells = resolution * resolution;
+        for (int phase = 0; phase < ANALYZED_PHASES; phase++) {
+            // 1. Histograma dos centros na resolução da análise
+            double[] histogram = new double[cells];
+            double total = 0;
+            for (int row = 0; row < grid.getRows(); row++) {
+                int targetRow = (int) ((row + 0.5) * resolution / grid.getRows());
+                for (int col = 0; col < grid.getColumns(); col++) {
+                    int count = grid.getCount(phase, col, row);
+                    if (count > 0) {
+                        histogram[targetRow * resolution + (int) ((col + 0.5) * resolution / grid.getColumns())] += count;
+                        total += count;
+                    }
+                }
+            }
+            analysis.insideProbability[phase] = new double[cells];
+            analysis.expectedDistance[phase] = new double[cells];
+            if (total == 0) {
+                Arrays.fill(analysis.insideProbability[phase], Double.NaN);
+                Arrays.fill(analysis.expectedDistance[phase], Double.NaN);
+                continue;
+            }
+            analysis.analyzed[phase] = true;
+            pool.invoke(new PhaseTask(analysis, new PhaseInput(analysis, histogram, total, grid.getSamples(), rules.getRadius(phase), phase),
+                0, resolution));
+        }
+        for (int phase = 0; phase < ANALYZED_PHASES; phase++) {
+            if (analysis.analyzed[phase]) {
+                double[] distance = analysis.expectedDistance[phase];
+                for (int cell = 0; cell < cells; cell++) {
+                    analysis.score[cell] += distance[cell];
+                }
+            }
+        }
+        return analysis;
+    }
+
+    /**
+     * Tudo o que as tarefas de uma fase leem (montado uma vez, antes de dividir as linhas).
+     */
+    private static final class PhaseInput {
+        final int phase;
+        // Somas acumuladas de cada linha do histograma: [linha * (resolution + 1) + coluna]
+        final double[] rowPrefix;
+        // Meia largura do disco (em colunas) para cada deslocamento de linha dy = -reach..reach
+        final int[] halfWidths;
+        final int reach;
+        // Soma (histograma x distância até a borda) de cada célula: [linha * resolution + coluna]
+        final double[] distanceSum;
+        final double total;
+        final long samples;
+
+        PhaseInput(DropSpotAnalysis analysis, double[] histogram, double total, long samples, double radius, int phase) {
+            int n = analysis.resolution;
+            this.phase = phase;
+            this.total = total;
+            this.samples = samples;
+            this.rowPrefix = new double[n * (n + 1)];
+            for (int row = 0; row < n; row++) {
+                double sum = 0;
+                for (int col = 0; col < n; col++) {
+                    sum += histogram[row * n + col];
+                    rowPrefix[row * (n + 1) + col + 1] = sum;
+                }
+            }
+            this.reach = Math.min(n - 1, (int) Math.floor(radius / analysis.cellHeight));
+            this.halfWidths = new int[2 * reach + 1];
+            for (int dy = -reach; dy <= reach; dy++) {
+                double offset = dy * analysis.cellHeight;
+                halfWidths[dy + reach] = (int) Math.floor(Math.sqrt(Math.max(0, radius * radius - offset * offset)) / analysis.cellWidth);
+            }
+            this.distanceSum = convolveOutsideDistance(histogram, n, analysis.cellWidth, analysis.cellHeight, radius);
+        }
+    }
+
+    /**
+     * Para cada célula c: soma de histograma[s] * max(0, |c - s| - raio) sobre todas as células s.
+     * É a convolução do histograma com a tabela de distâncias até a borda, calculada pela FFT:
+     * as duas grades vão para uma grade de lado 'size' (potência de 2, >= 2n - 1, para a convolução
+     * circular não dar a volta), são transformadas, multiplicadas ponto a ponto e voltam.
+     */
+    private static double[] convolveOutsideDistance(double[] histogram, int n, double cellWidth, double cellHeight, double radius) {
+        int size = 1;
+        while (size < 2 * n - 1) {
+            size <<= 1;
+        }
+        double[] histogramRe = new double[size * size];
+        double[] histogramIm = new double[size * size];
+        for (int row = 0; row < n; row++) {
+            System.arraycopy(histogram, row * n, histogramRe, row * size, n);
+        }
+        // A tabela por deslocamento (dx, dy), com os deslocamentos negativos "dando a volta" na grade
+        double[] kernelRe = new double[size * size];
+        double[] kernelIm = new double[size * size];
+        for (int dy = -(n - 1); dy < n; dy++) {
+            for (int dx = -(n - 1); dx < n; dx++) {
+                double distance = Math.hypot(dx * cellWidth, dy * cellHeight);
+                kernelRe[((dy + size) % size) * size + (dx + size) % size] = Math.max(0, distance - radius);
+            }
+        }
+        Fft fft = new Fft(size);
+        fft.transform2d(histogramRe, histogramIm, false);
+        fft.transform2d(kernelRe, kernelIm, false);
+        for (int i = 0; i < size * size; i++) {
+            double re = histogramRe[i] * kernelRe[i] - histogramIm[i] * kernelIm[i];
+            double im = histogramRe[i] * kernelIm[i] + histogramIm[i] * kernelRe[i];
+            histogramRe[i] = re;
+            histogramIm[i] = im;
+        }
+        fft.transform2d(histogramRe, histogramIm, true);
+        double[] result = new double[n * n];
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                // O arredondamento da FFT pode dar um "-0,0000000001" onde a soma é 0
+                result[row * n + col] = Math.max(0, histogramRe[row * size + col]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * FFT (Cooley-Tukey, raiz 2, sem recursão) de um lado fixo, com a tabela de senos e
+     * cossenos calculada uma vez. transform2d transforma as linhas e depois as colunas.
+     */
+    private static final class Fft {
+        private final int size;
+        private final double[] cos;
+        private final double[] sin;
+        private final double[] rowRe;
+        private final double[] rowIm;
+
+        Fft(int size) {
+            this.size = size;
+            this.cos = new double[size / 2];
+            this.sin = new double[size / 2];
+            for (int k = 0; k < size / 2; k++) {
+                cos[k] = Math.cos(2 * Math.PI * k / size);
+                sin[k] = Math.sin(2 * Math.PI * k / size);
+            }
+            this.rowRe = new double[size];
+            this.rowIm = new double[size];
+        }
+
+        /**
+         * Transforma a grade size x size ([linha * size + coluna]) no lugar.
+         * @param inverse Se true, a transformada inversa (já dividida por size²).
+         */
+        void transform2d(double[] re, double[] im, boolean inverse) {
+            for (int row = 0; row < size; row++) {
+                System.arraycopy(re, row * size, rowRe, 0, size);
+                System.arraycopy(im, row * size, rowIm, 0, size);
+                transform(inverse);
+                System.arraycopy(rowRe, 0, re, row * size, size);
+                System.arraycopy(rowIm, 0, im, row * size, size);
+            }
+            for (int col = 0; col < size; col++) {
+                for (int row = 0; row < size; row++) {
+                    rowRe[row] = re[row * size + col];
+                    rowIm[row] = im[row * size + col];
+                }
+                transform(inverse);
+                for (int row = 0; row < size; row++) {
+                    re[row * size + col] = rowRe[row];
+                    im[row * size + col] = rowIm[row];
+                }
+            }
+            if (inverse) {
+                double scale = 1.0 / ((double) size * size);
+                for (int i = 0; i < re.length; i++) {
+                    re[i] *= scale;
+                    im[i] *= scale;
+                }
+            }
+        }
+
+        /**
+         * A FFT de rowRe/rowIm, no lugar.
+         */
+        private void transform(boolean inverse) {
+            // Reordena pelos bits invertidos do índice
+            for (int i = 1, j = 0; i < size; i++) {
+                int bit = size >> 1;
+                for (; (j & bit) != 0; bit >>= 1) {
+                    j ^= bit;
+                }
+                j ^= bit;
+                if (i < j) {
+                    double t = rowRe[i]; rowRe[i] = rowRe[j]; rowRe[j] = t;
+                    t = rowIm[i]; rowIm[i] = rowIm[j]; rowIm[j] = t;
+                }
+            }
+            double sign = inverse ? 1 : -1;
+            for (int length = 2; length <= size; length <<= 1) {
+                int half = length >> 1;
+                int step = size / length;
+                for (int start = 0; start < size; start += length) {
+                    for (int k = 0; k < half; k++) {
+                        double wr = cos[k * step];
+                        double wi = sign * sin[k * step];
+                        int a = start + k;
+                        int b = a + half;
+                        double xr = rowRe[b] * wr - rowIm[b] * wi;
+                        double xi = rowRe[b] * wi + rowIm[b] * wr;
+                        rowRe[b] = rowRe[a] - xr;
+                        rowIm[b] = rowIm[a] - xi;
+                        rowRe[a] += xr;
+                        rowIm[a] += xi;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Tarefa Fork/Join: calcula as linhas [fromRow, toRow) de uma fase.
+     * Cada tarefa só escreve as suas linhas, então não há nada compartilhado para travar.
+     */
+    private static final class PhaseTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final DropSpotAnalysis analysis;
+        private final PhaseInput input;
+        private final int fromRow;
+        private final int toRow;
+
+        PhaseTask(DropSpotAnalysis analysis, PhaseInput input, int fromRow, int toRow) {
+            this.analysis = analysis;
+            this.input = input;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+        }
+
+        @Override
+        protected void compute() {
+            if (toRow - fromRow > ROWS_PER_TASK) {
+                int middle = (fromRow + toRow) >>> 1;
+                invokeAll(new PhaseTask(analysis, input, fromRow, middle), new PhaseTask(analysis, input, middle, toRow));
+                return;
+            }
+            int n = analysis.resolution;
+            double[] inside = analysis.insideProbability[input.phase];
+            double[] distance = analysis.expectedDistance[input.phase];
+            for (int row = fromRow; row < toRow; row++) {
+                for (int col = 0; col < n; col++) {
+                    // Dentro: soma do histograma no disco, uma linha de cada vez
+                    double insideCount = 0;
+                    for (int dy = -input.reach; dy <= input.reach; dy++) {
+                        int sourceRow = row + dy;
+                        if (sourceRow < 0 || sourceRow >= n) continue;
+                        int half = input.halfWidths[dy + input.reach];
+                        int base = sourceRow * (n + 1);
+                        insideCount += input.rowPrefix[base + Math.min(n, col + half + 1)] - input.rowPrefix[base + Math.max(0, col - half)];
+                    }
+                    int cell = row * n + col;
+                    // Sequências que falharam antes da fase contam como "fora"
+                    inside[cell] = insideCount / Math.max(input.samples, 1);
+                    // Distância: já somada para todas as células pela convolução (PhaseInput)
+                    distance[cell] = input.distanceSum[cell] / input.total;
+                }
+            }
+        }
+    }
+
+    /**
+     * Os melhores pontos de pouso perto da rota do avião, em terra, com os padrões de alcance e separação.
+     */
+    List<DropSpot> bestAlongRoute(SimulationContext context, int count) {
+        return bestAlongRoute(context, count, DEFAULT_MAX_ROUTE_DISTANCE, DEFAULT_MIN_SEPARATION);
+    }
+
+    /**
+     * Os melhores pontos de pouso (menor soma das distâncias esperadas) ao longo da rota do contexto.
+     * @param count Quantos pontos (no máximo).
+     * @param maxRouteDistance Distância máxima até a rota do avião (km).
+     * @param minSeparation Distância mínima entre dois pontos sugeridos (km).
+     * @return Os pontos, do melhor para o pior (vazio se nenhuma fase foi analisada).
+     */
+    List<DropSpot> bestAlongRoute(SimulationContext context, int count, double maxRouteDistance, double minSeparation) {
+        List<DropSpot> spots = new ArrayList<>(count);
+        if (count <= 0 || !analyzed[0] && !analyzed[1] && !analyzed[2]) {
+            return spots;
+        }
+        FlightPath path = context.getPath();
+        List<Integer> candidates = new ArrayList<>();
+        for (int cell = 0; cell < score.length; cell++) {
+            double x = getCellX(cell % resolution);
+            double y = getCellY(cell / resolution);
+            if (path.segmentDistance(x, y) <= maxRouteDistance
+                    && context.isLand(new Point2D.Double(x, y))) {
+                candidates.add(cell);
+            }
+        }
+        candidates.sort(Comparator.comparingDouble((Integer cell) -> score[cell]).thenComparingInt(cell -> cell));
+        double minSeparationSquared = minSeparation * minSeparation;
+        for (int cell : candidates) {
+            double x = getCellX(cell % resolution);
+            double y = getCellY(cell / resolution);
+            boolean tooClose = false;
+            for (DropSpot spot : spots) {
+                double dx = spot.x - x, dy = spot.y - y;
+                if (dx * dx + dy * dy < minSeparationSquared) {
+                    tooClose = true;
+                    break;
+                }
+            }
+            if (tooClose) continue;
+            double[] inside = new double[ANALYZED_PHASES];
+            double[] distance = new double[ANALYZED_PHASES];
+            for (int phase = 0; phase < ANALYZED_PHASES; phase++) {
+                inside[phase] = insideProbability[phase][cell];
+                distance[phase] = expectedDistance[phase][cell];
+            }
+            spots.add(new DropSpot(x, y, path.segmentDistance(x, y),
+                score[cell], inside, distance));
+            if (spots.size() == count) break;
+        }
+        return spots;
+    }
+
+    int getResolution() {
+        return resolution;
+    }
+
+    boolean isAnalyzed(int phase) {
+        return analyzed[phase];
+    }
+
+    /**
+     * Chance (0 a 1) de a célula ficar dentro da safe da fase (NaN se a fase não foi analisada).
+     */
+    double getInsideProbability(int phase, int col, int row) {
+        return insideProbability[phase][row * resolution + col];
+    }
+
+    /**
+     * Distância esperada (km) da célula até a safe da fase (NaN se a fase não foi analisada).
+     */
+    double getExpectedDistance(int phase, int col, int row) {
+        return expectedDistance[phase][row * resolution + col];
+    }
+
+    /**
+     * Soma das distâncias esperadas das fases analisadas (km; menor = melhor).
+     */
+    double getScore(int col, int row) {
+        return score[row * resolution + col];
+    }
+
+    /**
+     * O centro da coluna (km).
+     */
+    double getCellX(int col) {
+        return (col + 0.5) * cellWidth;
+    }
+
+    /**
+     * O centro da linha (km).
+     */
+    double getCellY(int row) {
+        return (row + 0.5) * cellHeight;
+    }
+}
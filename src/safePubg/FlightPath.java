@@ -0,0 +1,200 @@
+package safePubg;
+
+import java.awt.geom.Line2D;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * FlightPath
+ * A rota do avião como uma linha poligonal (em coordenadas do mundo, km): o ponto de início,
+ * zero ou mais pontos intermediários e o ponto de fim. É imutável.
+ *
+ * Com só dois pontos, é a rota de sempre (uma reta). Os pontos intermediários servem para
+ * corrigir uma rota desenhada torta ou para rotas especiais (eventos, modos personalizados).
+ *
+ * A "distância até a rota" segue a mesma ideia da reta de dois pontos (Line2D.ptLineDist,
+ * que prolonga a reta para os dois lados): o primeiro trecho é prolongado para trás do
+ * início e o último para a frente do fim, e os trechos do meio são segmentos.
+ * Essa conta é feita uma vez por rota, para o mapa inteiro, pelo RouteDistanceField.
+ */
+final class FlightPath {
+    // Máximo de pontos (início + intermediários + fim)
+    static final int MAX_POINTS = 64;
+
+    private final double[] xs;
+    private final double[] ys;
+
+    private FlightPath(double[] xs, double[] ys) {
+        this.xs = xs;
+        this.ys = ys;
+    }
+
+    /**
+     * A rota reta de sempre (start -> end).
+     */
+    static FlightPath of(Point2D startPoint, Point2D endPoint) {
+        return new FlightPath(new double[] {startPoint.getX(), endPoint.getX()},
+                              new double[] {startPoint.getY(), endPoint.getY()});
+    }
+
+    /**
+     * Uma rota com pontos intermediários (início primeiro, fim por último).
+     * Pontos repetidos em sequência são ignorados (um trecho de comprimento zero não tem direção).
+     * @throws IllegalArgumentException Se houver menos de 2 ou mais de MAX_POINTS pontos.
+     */
+    static FlightPath of(List<? extends Point2D> points) {
+        if (points.size() < 2 || points.size() > MAX_POINTS) {
+            throw new IllegalArgumentException("A rota precisa de 2 a " + MAX_POINTS + " pontos (recebeu " + points.size() + ")");
+        }
+        if (points.size() == 2) {
+            return of(points.get(0), points.get(1));
+        }
+        List<Point2D> distinct = new ArrayList<>(points.size());
+        for (Point2D point : points) {
+            if (distinct.isEmpty() || !distinct.get(distinct.size() - 1).equals(point)) {
+                distinct.add(point);
+            }
+        }
+        if (distinct.size() < 2) {
+            return of(points.get(0), points.get(points.size() - 1));
+        }
+        double[] xs = new double[distinct.size()];
+        double[] ys = new double[distinct.size()];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = distinct.get(i).getX();
+            ys[i] = distinct.get(i).getY();
+        }
+        return new FlightPath(xs, ys);
+    }
+
+    /**
+     * Lê uma rota do texto "x1,y1,x2,y2[,x3,y3...]" (km), como nas opções --route das linhas de comando.
+     * @throws IllegalArgumentException Se o texto não for uma lista de pares de números.
+     */
+    static FlightPath parse(String text) {
+        String[] fields = text.split(",");
+        if (fields.length < 4 || fields.length % 2 != 0) {
+            throw new IllegalArgumentException("A rota precisa de x,y para cada ponto (pelo menos início e fim): " + text);
+        }
+        List<Point2D> points = new ArrayList<>(fields.length / 2);
+        for (int i = 0; i < fields.length; i += 2) {
+            points.add(new Point2D.Double(Double.parseDouble(fields[i].trim()), Double.parseDouble(fields[i + 1].trim())));
+        }
+        return of(points);
+    }
+
+    int getPointCount() {
+        return xs.length;
+    }
+
+    /**
+     * Uma rota de dois pontos (reta)?
+     */
+    boolean isStraight() {
+        return xs.length == 2;
+    }
+
+    Point2D getPoint(int index) {
+        return new Point2D.Double(xs[index], ys[index]);
+    }
+
+    double getX(int index) {
+        return xs[index];
+    }
+
+    double getY(int index) {
+        return ys[index];
+    }
+
+    Point2D getStart() {
+        return getPoint(0);
+    }
+
+    Point2D getEnd() {
+        return getPoint(xs.length - 1);
+    }
+
+    /**
+     * Quantos trechos a rota tem para a distância até a rota (ver featureDistance):
+     * 1 na rota reta; um por segmento nas outras.
+     */
+    int getFeatureCount() {
+        return xs.length - 1;
+    }
+
+    /**
+     * A distância (km) do ponto até um trecho da rota:
+     * - rota reta: a reta inteira (exatamente Line2D.ptLineDist);
+     * - primeiro trecho: o segmento prolongado para trás do início;
+     * - último trecho: o segmento prolongado para a frente do fim;
+     * - trechos do meio: só o segmento.
+     */
+    double featureDistance(int feature, double px, double py) {
+        double x1 = xs[feature], y1 = ys[feature];
+        double x2 = xs[feature + 1], y2 = ys[feature + 1];
+        if (xs.length == 2) {
+            return Line2D.ptLineDist(x1, y1, x2, y2, px, py);
+        }
+        double dx = x2 - x1, dy = y2 - y1;
+        double t = ((px - x1) * dx + (py - y1) * dy) / (dx * dx + dy * dy);
+        if (feature > 0) {
+            t = Math.max(t, 0);
+        }
+        if (feature < xs.length - 2) {
+            t = Math.min(t, 1);
+        }
+        double ex = px - (x1 + t * dx);
+        double ey = py - (y1 + t * dy);
+        return Math.sqrt(ex * ex + ey * ey);
+    }
+
+    /**
+     * A distância (km) do ponto até a rota, calculada trecho por trecho (O(pontos)).
+     * Para o mapa inteiro, use o RouteDistanceField (uma leitura por célula).
+     */
+    double distance(double px, double py) {
+        double best = Double.POSITIVE_INFINITY;
+        for (int feature = 0; feature < getFeatureCount(); feature++) {
+            best = Math.min(best, featureDistance(feature, px, py));
+        }
+        return best;
+    }
+
+    /**
+     * A distância (km) do ponto até o caminho que o avião realmente voa (os segmentos,
+     * sem prolongar as pontas). É a distância que importa para saltar do avião.
+     */
+    double segmentDistance(double px, double py) {
+        double best = Double.POSITIVE_INFINITY;
+        for (int i = 0; i + 1 < xs.length; i++) {
+            best = Math.min(best, Line2D.ptSegDist(xs[i], ys[i], xs[i + 1], ys[i + 1], px, py));
+        }
+        return best;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FlightPath)) return false;
+        FlightPath other = (FlightPath) o;
+        return Arrays.equals(xs, other.xs) && Arrays.equals(ys, other.ys);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(xs) + Arrays.hashCode(ys);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < xs.length; i++) {
+            if (i > 0) sb.append(" -> ");
+            sb.append(String.format(Locale.ROOT, "(%.3f, %.3f)", xs[i], ys[i]));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,250 @@
+package safePubg;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Json
+ * Leitura e escrita mínimas de JSON, só o que o modo batch precisa:
+ * objetos "planos" (sem objetos ou arrays aninhados) na entrada,
+ * e a lista de safes na saída. Evita depender de bibliotecas externas.
+ */
+final class Json {
+
+    private Json() {
+    }
+
+    /**
+     * Lê um objeto JSON plano, ex: {"map":"Erangel","startX":10.5,"seed":42}.
+     * Os valores são devolvidos como texto (sem aspas); quem chamou converte.
+     * @throws IllegalArgumentException Se o texto não for um objeto plano válido.
+     */
+    static Map<String, String> parseFlatObject(String text) {
+        Map<String, String> result = new LinkedHashMap<>();
+        int[] pos = {skipSpaces(text, 0)};
+        expect(text, pos, '{');
+        if (peek(text, pos) == '}') {
+            pos[0]++;
+            return result;
+        }
+        while (true) {
+            String key = readString(text, pos);
+            expect(text, pos, ':');
+            String value;
+            if (peek(text, pos) == '"') {
+                value = readString(text, pos);
+            } else {
+                int start = pos[0];
+                while (pos[0] < text.length() && ",} \t\r\n".indexOf(text.charAt(pos[0])) < 0) {
+                    pos[0]++;
+                }
+                value = text.substring(start, pos[0]);
+                if (value.isEmpty() || value.startsWith("{") || value.startsWith("[")) {
+                    throw new IllegalArgumentException("Valor inválido para '" + key + "'");
+                }
+            }
+            result.put(key, value);
+            char next = peek(text, pos);
+            pos[0]++;
+            if (next == '}') {
+                return result;
+            }
+            if (next != ',') {
+                throw new IllegalArgumentException("Esperado ',' ou '}' na posição " + (pos[0] - 1));
+            }
+        }
+    }
+
+    /**
+     * Coloca um texto entre aspas, escapando os caracteres especiais.
+     */
+    static String quote(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * Escreve a sequência de safes como um array de [x, y, raio].
+     */
+    static void appendZones(StringBuilder sb, List<SafeZone> zones) {
+        sb.append('[');
+        for (int i = 0; i < zones.size(); i++) {
+            SafeZone zone = zones.get(i);
+            if (i > 0) sb.append(',');
+            sb.append('[').append(zone.getCenterX())
+              .append(',').append(zone.getCenterY())
+              .append(',').append(zone.getRadius()).append(']');
+        }
+        sb.append(']');
+    }
+
+    /**
+     * Escreve a grade de densidade: as dimensões e, para cada fase,
+     * as contagens de todas as células (linha por linha).
+     */
+    static void appendDensity(StringBuilder sb, DensityGrid grid) {
+        sb.append("{\"columns\":").append(grid.getColumns())
+          .append(",\"rows\":").append(grid.getRows())
+          .append(",\"areaWidth\":").append(grid.getAreaWidth())
+          .append(",\"areaHeight\":").append(grid.getAreaHeight())
+          .append(",\"phases\":[");
+        for (int phase = 0; phase < SafeZoneEngine.PHASE_COUNT; phase++) {
+            if (phase > 0) sb.append(',');
+            sb.append('[');
+            for (int row = 0; row < grid.getRows(); row++) {
+                for (int col = 0; col < grid.getColumns(); col++) {
+                    if (row > 0 || col > 0) sb.append(',');
+                    sb.append(grid.getCount(phase, col, row));
+                }
+            }
+            sb.append(']');
+        }
+        sb.append("]}");
+    }
+
+    /**
+     * Escreve os resumos das fases: um objeto por fase (Fase 1 primeiro).
+     */
+    static void appendSummaries(StringBuilder sb, PhaseSummary[] summaries) {
+        sb.append('[');
+        for (int phase = 0; phase < summaries.length; phase++) {
+            PhaseSummary summary = summaries[phase];
+            if (phase > 0) sb.append(',');
+            sb.append("{\"meanX\":").append(summary.meanX)
+              .append(",\"meanY\":").append(summary.meanY)
+              .append(",\"spread\":").append(summary.spread)
+              .append(",\"peakX\":").append(summary.peakX)
+              .append(",\"peakY\":").append(summary.peakY)
+              .append(",\"peakProbability\":").append(summary.peakProbability).append('}');
+        }
+        sb.append(']');
+    }
+
+    /**
+     * Escreve os pontos de pouso sugeridos (o melhor primeiro); fases não analisadas viram null.
+     */
+    static void appendDropSpots(StringBuilder sb, List<DropSpotAnalysis.DropSpot> spots) {
+        sb.append('[');
+        for (int i = 0; i < spots.size(); i++) {
+            DropSpotAnalysis.DropSpot spot = spots.get(i);
+            if (i > 0) sb.append(',');
+            sb.append("{\"x\":").append(spot.x)
+              .append(",\"y\":").append(spot.y)
+              .append(",\"routeDistance\":").append(spot.routeDistance)
+              .append(",\"score\":").append(spot.score)
+              .append(",\"inside\":");
+            appendNumbers(sb, spot.insideProbability);
+            sb.append(",\"distance\":");
+            appendNumbers(sb, spot.expectedDistance);
+            sb.append('}');
+        }
+        sb.append(']');
+    }
+
+    /**
+     * Escreve a precisão alcançada por uma simulação adaptativa (fases não medidas viram null).
+     */
+    static void appendConvergence(StringBuilder sb, AdaptiveSimulation.Result result) {
+        sb.append("{\"rounds\":").append(result.rounds)
+          .append(",\"precision\":");
+        appendNumber(sb, result.precision);
+        sb.append(",\"change\":");
+        appendNumber(sb, result.change);
+        sb.append(",\"converged\":").append(result.isConverged())
+          .append(",\"stopReason\":").append(quote(result.stopReason.name()))
+          .append(",\"elapsedMs\":").append(result.elapsedNanos / 1_000_000)
+          .append(",\"phasePrecision\":");
+        appendNumbers(sb, result.phasePrecision);
+        sb.append(",\"phaseChange\":");
+        appendNumbers(sb, result.phaseChange);
+        sb.append('}');
+    }
+
+    private static void appendNumbers(StringBuilder sb, double[] values) {
+        sb.append('[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) sb.append(',');
+            appendNumber(sb, values[i]);
+        }
+        sb.append(']');
+    }
+
+    private static void appendNumber(StringBuilder sb, double value) {
+        if (Double.isNaN(value)) {
+            sb.append("null");
+        } else {
+            sb.append(value);
+        }
+    }
+
+    private static String readString(String text, int[] pos) {
+        expect(text, pos, '"');
+        StringBuilder sb = new StringBuilder();
+        while (pos[0] < text.length()) {
+            char c = text.charAt(pos[0]++);
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c == '\\' && pos[0] < text.length()) {
+                char escaped = text.charAt(pos[0]++);
+                switch (escaped) {
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'u':
+                        if (pos[0] + 4 > text.length()) {
+                            throw new IllegalArgumentException("Escape \\u incompleto");
+                        }
+                        sb.append((char) Integer.parseInt(text.substring(pos[0], pos[0] + 4), 16));
+                        pos[0] += 4;
+                        break;
+                    default: sb.append(escaped);
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+        throw new IllegalArgumentException("Texto sem aspas de fechamento");
+    }
+
+    private static void expect(String text, int[] pos, char c) {
+        if (peek(text, pos) != c) {
+            throw new IllegalArgumentException("Esperado '" + c + "' na posição " + pos[0]);
+        }
+        pos[0]++;
+    }
+
+    private static char peek(String text, int[] pos) {
+        pos[0] = skipSpaces(text, pos[0]);
+        if (pos[0] >= text.length()) {
+            throw new IllegalArgumentException("Fim inesperado do JSON");
+        }
+        return text.charAt(pos[0]);
+    }
+
+    private static int skipSpaces(String text, int pos) {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+}
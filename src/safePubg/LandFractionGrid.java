@@ -0,0 +1,81 @@
+package safePubg;
+
+import java.nio.FloatBuffer;
+
+/**
+ * LandFractionGrid
+ * A proporção de terra de um círculo de raio FIXO, já calculada para uma grade
+ * de centros cobrindo o mapa inteiro. Na simulação, consultar um candidato
+ * vira uma única leitura de array, em vez das dezenas de leituras espalhadas
+ * (e falhas de cache) de uma consulta na LandIntegral.
+ *
+ * A grade é montada uma vez por mapa e por raio (ver LandMask.landFractionGrid),
+ * com a LandIntegral: alguns milissegundos no primeiro uso.
+ */
+final class LandFractionGrid {
+    // Lado da grade em células (~31 m por célula no mapa de 8 km)
+    static final int RESOLUTION = 256;
+
+    private final double radius;
+    private final WorldTransform toGrid;
+    private final FloatBuffer fractions;
+
+    private LandFractionGrid(double radius, FloatBuffer fractions) {
+        this.radius = radius;
+        this.toGrid = new WorldTransform(RESOLUTION, RESOLUTION);
+        this.fractions = fractions;
+    }
+
+    /**
+     * Calcula a proporção de terra de um círculo de raio 'worldRadius' (km)
+     * centrado no meio de cada célula da grade.
+     */
+    static LandFractionGrid of(LandMask mask, LandIntegral integral, double worldRadius) {
+        WorldTransform toGrid = new WorldTransform(RESOLUTION, RESOLUTION);
+        WorldTransform toMask = mask.getTransform();
+        double radiusX = toMask.scaleX(worldRadius);
+        double radiusY = toMask.scaleY(worldRadius);
+        float[] fractions = new float[RESOLUTION * RESOLUTION];
+        for (int y = 0; y < RESOLUTION; y++) {
+            double maskY = toMask.toScreenY(toGrid.toWorldY(y + 0.5));
+            for (int x = 0; x < RESOLUTION; x++) {
+                double maskX = toMask.toScreenX(toGrid.toWorldX(x + 0.5));
+                fractions[y * RESOLUTION + x] = (float) integral.landFraction(maskX, maskY, radiusX, radiusY);
+            }
+        }
+        return new LandFractionGrid(worldRadius, FloatBuffer.wrap(fractions));
+    }
+
+    /**
+     * Usa uma grade já calculada (RESOLUTION x RESOLUTION valores, ex: de um MapDataFile).
+     */
+    static LandFractionGrid fromBuffer(double worldRadius, FloatBuffer fractions) {
+        if (fractions.remaining() != RESOLUTION * RESOLUTION) {
+            throw new IllegalArgumentException("Tamanho da grade de proporções inválido");
+        }
+        return new LandFractionGrid(worldRadius, fractions);
+    }
+
+    /**
+     * Os valores da grade (só leitura, para gravar em um MapDataFile).
+     */
+    FloatBuffer getFractions() {
+        return fractions.asReadOnlyBuffer();
+    }
+
+    /**
+     * A proporção de terra (0.0 a 1.0) do círculo centrado no ponto do mundo (km) dado.
+     * Centros fora do mapa usam a célula mais próxima da borda.
+     */
+    double at(double worldX, double worldY) {
+        int x = (int) toGrid.toScreenX(worldX);
+        int y = (int) toGrid.toScreenY(worldY);
+        x = Math.max(0, Math.min(RESOLUTION - 1, x));
+        y = Math.max(0, Math.min(RESOLUTION - 1, y));
+        return fractions.get(y * RESOLUTION + x);
+    }
+
+    double getRadius() {
+        return radius;
+    }
+}
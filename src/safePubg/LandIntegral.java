@@ -0,0 +1,127 @@
+package safePubg;
+
+import java.nio.IntBuffer;
+
+/**
+ * LandIntegral
+ * Tabela de somas acumuladas (summed-area table / "imagem integral") da máscara de terra.
+ * Cada posição guarda quantas células de terra existem no retângulo que vai do canto
+ * superior esquerdo até ela, então a quantidade de terra em QUALQUER retângulo sai
+ * de apenas 4 leituras, não importa o tamanho do retângulo.
+ *
+ * Um círculo é aproximado por uma pilha de faixas horizontais (no máximo MAX_BANDS),
+ * cada uma um retângulo com a largura do círculo naquela altura. Assim a proporção
+ * de terra de um círculo custa o mesmo para um raio de 10 m ou de 3 km.
+ */
+final class LandIntegral {
+    // Quantidade máxima de faixas usadas para aproximar um círculo
+    static final int MAX_BANDS = 32;
+
+    private final int width;
+    private final int height;
+    // sums[y * (width + 1) + x] = células de terra em [0, x) x [0, y)
+    // (um Buffer, para poder vir de um arquivo mapeado na memória; ver MapDataFile)
+    private final IntBuffer sums;
+
+    private LandIntegral(int width, int height, IntBuffer sums) {
+        this.width = width;
+        this.height = height;
+        this.sums = sums;
+    }
+
+    /**
+     * Monta a tabela a partir da máscara (uma única passada por todas as células).
+     */
+    static LandIntegral of(LandMask mask) {
+        int width = mask.getWidth();
+        int height = mask.getHeight();
+        int stride = width + 1;
+        int[] sums = new int[stride * (height + 1)];
+        for (int y = 0; y < height; y++) {
+            int rowSum = 0;
+            int above = y * stride;
+            int current = above + stride;
+            for (int x = 0; x < width; x++) {
+                if (mask.isLand(x, y)) rowSum++;
+                sums[current + x + 1] = sums[above + x + 1] + rowSum;
+            }
+        }
+        return new LandIntegral(width, height, IntBuffer.wrap(sums));
+    }
+
+    /**
+     * Usa uma tabela já calculada ((width + 1) x (height + 1) somas, ex: de um MapDataFile).
+     */
+    static LandIntegral fromBuffer(int width, int height, IntBuffer sums) {
+        if (sums.remaining() != (width + 1) * (height + 1)) {
+            throw new IllegalArgumentException("Tamanho da tabela de somas não bate com a máscara");
+        }
+        return new LandIntegral(width, height, sums);
+    }
+
+    /**
+     * As somas (só leitura, para gravar em um MapDataFile).
+     */
+    IntBuffer getSums() {
+        return sums.asReadOnlyBuffer();
+    }
+
+    /**
+     * Quantidade de células de terra no retângulo [x0, x1) x [y0, y1) (em células da máscara).
+     * Como em LandMask.isLand, as células fora do mapa contam como terra.
+     */
+    int landInRect(int x0, int y0, int x1, int y1) {
+        if (x1 <= x0 || y1 <= y0) return 0;
+        int area = (x1 - x0) * (y1 - y0);
+        int cx0 = Math.max(0, x0), cy0 = Math.max(0, y0);
+        int cx1 = Math.min(width, x1), cy1 = Math.min(height, y1);
+        if (cx1 <= cx0 || cy1 <= cy0) {
+            return area; // Totalmente fora do mapa
+        }
+        int stride = width + 1;
+        int inside = sums.get(cy1 * stride + cx1) - sums.get(cy0 * stride + cx1)
+                   - sums.get(cy1 * stride + cx0) + sums.get(cy0 * stride + cx0);
+        int clippedArea = (cx1 - cx0) * (cy1 - cy0);
+        return inside + (area - clippedArea);
+    }
+
+    /**
+     * Proporção de terra (0.0 a 1.0) dentro de uma elipse alinhada aos eixos
+     * (um círculo do mundo vira uma elipse se a máscara não for quadrada).
+     * @param centerX Centro, em células da máscara.
+     * @param centerY Centro, em células da máscara.
+     * @param radiusX Raio horizontal, em células.
+     * @param radiusY Raio vertical, em células.
+     */
+    double landFraction(double centerX, double centerY, double radiusX, double radiusY) {
+        int top = (int) Math.floor(centerY - radiusY);
+        int bottom = (int) Math.ceil(centerY + radiusY);
+        int rows = bottom - top;
+        // Círculos pequenos usam uma faixa por linha (exato); os grandes, no máximo MAX_BANDS faixas
+        int bands = Math.min(rows, MAX_BANDS);
+        // Altura de cada faixa (multiplicação em vez de divisão dentro do laço)
+        double bandHeight = (double) rows / bands;
+        long land = 0;
+        long area = 0;
+        int y1 = top;
+        for (int band = 0; band < bands; band++) {
+            int y0 = y1;
+            y1 = (band == bands - 1) ? bottom : top + (int) ((band + 1) * bandHeight);
+            // Largura do círculo na altura do meio da faixa
+            double dy = ((y0 + y1) * 0.5 - centerY) / radiusY;
+            if (dy <= -1 || dy >= 1) continue;
+            double halfWidth = radiusX * Math.sqrt(1 - dy * dy);
+            int x0 = (int) Math.round(centerX - halfWidth);
+            int x1 = (int) Math.round(centerX + halfWidth);
+            if (x1 <= x0) continue;
+            land += landInRect(x0, y0, x1, y1);
+            area += (long) (x1 - x0) * (y1 - y0);
+        }
+        if (area == 0) {
+            // Menor que uma célula: vale a célula do centro
+            return landInRect((int) Math.floor(centerX), (int) Math.floor(centerY),
+                              (int) Math.floor(centerX) + 1, (int) Math.floor(centerY) + 1);
+        }
+        return (double) land / area;
+    }
+}
@@ -0,0 +1,234 @@
+package safePubg;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * LandMask
+ * Máscara pré-calculada de terra/água de um mapa.
+ * Cada pixel da imagem é classificado UMA vez (no carregamento) usando a
+ * mesma regra de cor do detector de água (Azul > Verde E Azul > Vermelho + 10),
+ * e o resultado é guardado em um bitset compactado (um bit por pixel, 64 pixels por long).
+ * Assim, consultar se um ponto é terra vira um simples teste de bit,
+ * sem HashMap, sem getRGB e sem criar objetos Color.
+ *
+ * A máscara cobre o mapa inteiro (8 x 8 km, ver WorldTransform) e pode ter
+ * qualquer resolução: mais células = mais precisão, menos células = mais velocidade.
+ *
+ * Os dados ficam em Buffers (e não em arrays) para que a máscara possa vir tanto
+ * da imagem (memória da JVM) quanto de um arquivo pré-compilado mapeado na memória
+ * (MapDataFile), que fica fora do heap e é compartilhado entre processos.
+ */
+final class LandMask {
+    private final int width;
+    private final int height;
+    // Bit = 1 significa TERRA, bit = 0 significa ÁGUA
+    private final LongBuffer landBits;
+    // Zona de cada célula (ZONE_CENTER, ZONE_PERIPHERAL, ZONE_EDGE ou ZONE_OUTSIDE), um byte por célula
+    private final ByteBuffer zoneRings;
+    // Converte coordenadas do mundo (km) para células da máscara
+    private final WorldTransform toMask;
+    // Somas acumuladas da máscara, para medir a proporção de terra de um círculo
+    private final LandIntegral integral;
+    // Proporções de terra já calculadas, uma grade por raio de círculo (ex: o da Fase 4)
+    private final ConcurrentMap<Double, LandFractionGrid> fractionGrids = new ConcurrentHashMap<>();
+
+    private LandMask(int width, int height, LongBuffer landBits, ByteBuffer zoneRings, LandIntegral integral) {
+        this.width = width;
+        this.height = height;
+        this.landBits = landBits;
+        this.toMask = new WorldTransform(width, height);
+        this.zoneRings = (zoneRings != null) ? zoneRings : computeZoneRings(toMask, width, height);
+        this.integral = (integral != null) ? integral : LandIntegral.of(this);
+    }
+
+    /**
+     * Monta a máscara com dados já calculados (ex: lidos de um MapDataFile).
+     */
+    static LandMask fromBuffers(int width, int height, LongBuffer landBits, ByteBuffer zoneRings, LandIntegral integral) {
+        return new LandMask(width, height, landBits, zoneRings, integral);
+    }
+
+    /**
+     * Classifica todos os pixels da imagem e monta a máscara (na resolução da própria imagem).
+     */
+    static LandMask fromImage(BufferedImage image) {
+        return fromImage(image, image.getWidth(), image.getHeight());
+    }
+
+    /**
+     * Monta a máscara com a resolução escolhida (width x height células).
+     * Cada célula usa a cor do pixel da imagem mais próximo do seu centro.
+     */
+    static LandMask fromImage(BufferedImage image, int width, int height) {
+        int imageWidth = image.getWidth();
+        int imageHeight = image.getHeight();
+        long[] bits = new long[(int) (((long) width * height + 63) >>> 6)];
+
+        // Qual coluna da imagem cada coluna da máscara usa
+        int[] sourceX = new int[width];
+        for (int x = 0; x < width; x++) {
+            sourceX[x] = Math.min(imageWidth - 1, (int) ((x + 0.5) * imageWidth / width));
+        }
+
+        // Lê uma linha inteira de cada vez (bem mais rápido que getRGB pixel a pixel)
+        int[] row = new int[imageWidth];
+        int loadedRow = -1;
+        for (int y = 0; y < height; y++) {
+            int sourceY = Math.min(imageHeight - 1, (int) ((y + 0.5) * imageHeight / height));
+            if (sourceY != loadedRow) {
+                image.getRGB(0, sourceY, imageWidth, 1, row, 0, imageWidth);
+                loadedRow = sourceY;
+            }
+            int base = y * width;
+            for (int x = 0; x < width; x++) {
+                if (isLandColor(row[sourceX[x]])) {
+                    int index = base + x;
+                    bits[index >>> 6] |= 1L << index;
+                }
+            }
+        }
+        return new LandMask(width, height, LongBuffer.wrap(bits), null, null);
+    }
+
+    /**
+     * Calcula a zona (anel) do centro de cada célula, com os limites de 0.25 e 0.75 do raio do mapa.
+     */
+    private static ByteBuffer computeZoneRings(WorldTransform toMask, int width, int height) {
+        byte[] rings = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            double worldY = toMask.toWorldY(y + 0.5);
+            for (int x = 0; x < width; x++) {
+                rings[y * width + x] = (byte) SafeZoneEngine.getZoneRing(toMask.toWorldX(x + 0.5), worldY);
+            }
+        }
+        return ByteBuffer.wrap(rings);
+    }
+
+    /**
+     * A REGRA DE DETECÇÃO DE ÁGUA, aplicada a um pixel ARGB.
+     */
+    static boolean isLandColor(int argb) {
+        int red = (argb >> 16) & 0xFF;
+        int green = (argb >> 8) & 0xFF;
+        int blue = argb & 0xFF;
+        return !(blue > green && blue > (red + 10));
+    }
+
+    /**
+     * Verifica se o pixel (x, y) é terra.
+     * Pontos fora dos limites da imagem são considerados terra (mesmo comportamento de antes).
+     */
+    boolean isLand(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return true;
+        }
+        int index = y * width + x;
+        return (landBits.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    /**
+     * A zona (anel) do centro da célula (x, y): ZONE_CENTER, ZONE_PERIPHERAL,
+     * ZONE_EDGE ou ZONE_OUTSIDE (além do raio do mapa).
+     */
+    int getZoneRing(int x, int y) {
+        return zoneRings.get(y * width + x);
+    }
+
+    /**
+     * Verifica se um ponto em coordenadas do mundo (km) é terra.
+     */
+    boolean isLandAt(double worldX, double worldY) {
+        return isLand((int) Math.floor(toMask.toScreenX(worldX)), (int) Math.floor(toMask.toScreenY(worldY)));
+    }
+
+    /**
+     * isLandAt para um lote de pontos de uma vez (ver BatchedShiftSampler):
+     * primeiro converte todos os pontos para índices de célula, depois lê os bits.
+     * Laços separados e sem objetos, que o JIT desenrola e otimiza bem.
+     * @param worldX X dos pontos (km).
+     * @param worldY Y dos pontos (km).
+     * @param count Quantos pontos (a partir do índice 0).
+     * @param cells Rascunho com pelo menos 'count' posições.
+     * @param out Recebe true para cada ponto em terra.
+     */
+    void isLandAt(double[] worldX, double[] worldY, int count, int[] cells, boolean[] out) {
+        for (int i = 0; i < count; i++) {
+            int x = (int) Math.floor(toMask.toScreenX(worldX[i]));
+            int y = (int) Math.floor(toMask.toScreenY(worldY[i]));
+            // -1 marca "fora da máscara" (conta como terra, como em isLand)
+            cells[i] = (x < 0 || x >= width || y < 0 || y >= height) ? -1 : y * width + x;
+        }
+        for (int i = 0; i < count; i++) {
+            int index = cells[i];
+            out[i] = index < 0 || (landBits.get(index >>> 6) & (1L << index)) != 0;
+        }
+    }
+
+    /**
+     * A proporção de terra (0.0 a 1.0) de um círculo do mundo, com custo
+     * constante (não depende do raio; ver LandIntegral).
+     * @param worldX X do centro (km).
+     * @param worldY Y do centro (km).
+     * @param worldRadius Raio do círculo (km).
+     */
+    double landFractionAt(double worldX, double worldY, double worldRadius) {
+        return integral.landFraction(toMask.toScreenX(worldX), toMask.toScreenY(worldY),
+                                     toMask.scaleX(worldRadius), toMask.scaleY(worldRadius));
+    }
+
+    /**
+     * A grade de proporções de terra para círculos de raio 'worldRadius' (km),
+     * montada no primeiro pedido e reaproveitada depois (por todas as threads).
+     */
+    LandFractionGrid landFractionGrid(double worldRadius) {
+        return fractionGrids.computeIfAbsent(worldRadius, radius -> LandFractionGrid.of(this, integral, radius));
+    }
+
+    /**
+     * Registra uma grade de proporções já calculada (ex: lida de um MapDataFile).
+     */
+    void putLandFractionGrid(LandFractionGrid grid) {
+        fractionGrids.put(grid.getRadius(), grid);
+    }
+
+    /**
+     * As grades de proporção de terra já calculadas (para gravar em um MapDataFile).
+     */
+    Collection<LandFractionGrid> getLandFractionGrids() {
+        return fractionGrids.values();
+    }
+
+    // --- ACESSO AOS DADOS BRUTOS (só leitura, para o MapDataFile) ---
+
+    LongBuffer getLandBits() {
+        return landBits.asReadOnlyBuffer();
+    }
+
+    ByteBuffer getZoneRings() {
+        return zoneRings.asReadOnlyBuffer();
+    }
+
+    LandIntegral getIntegral() {
+        return integral;
+    }
+
+    /**
+     * A transformação do mundo (km) para as células desta máscara.
+     */
+    WorldTransform getTransform() {
+        return toMask;
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+}
@@ -0,0 +1,199 @@
+package safePubg;
+
+import java.awt.geom.Point2D;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * LivePreview
+ * Prévia ao vivo da Fase 1 enquanto o usuário arrasta a rota do avião.
+ *
+ * Cada mudança de rota (request) vira um pedido com um número de "geração".
+ * Os pedidos são agrupados (debounce): no máximo um começa a cada DEBOUNCE_MS,
+ * e ele usa sempre a rota MAIS RECENTE. A simulação roda em uma thread própria
+ * (nunca na thread da interface) e é progressiva: poucas amostras primeiro (um
+ * esboço na hora), depois cada vez mais, publicando o resultado parcial a cada rodada.
+ * Quando a rota muda, a simulação antiga percebe que a sua geração ficou velha
+ * e para na hora. A única exceção é a primeira rodada (o esboço, poucos milissegundos),
+ * que sempre termina: assim, arrastando sem parar, a prévia acompanha a rota com um
+ * pequeno atraso em vez de nunca aparecer. cancel() descarta até o esboço.
+ *
+ * Só a Fase 1 é simulada (SafeZoneEngine.predictFirstCenter), com os mesmos geradores
+ * da simulação completa: a prévia converge para o heatmap da Fase 1 do MonteCarloSimulator.
+ */
+final class LivePreview {
+    // Intervalo mínimo entre o começo de duas prévias (ms)
+    static final long DEBOUNCE_MS = 40;
+    // Amostras da primeira rodada (o esboço); cada rodada seguinte simula 4x mais
+    static final int FIRST_ROUND_SAMPLES = 2_000;
+    // Total de amostras em que a prévia para (já bem parecida com o heatmap completo)
+    static final int MAX_SAMPLES = 500_000;
+    // Tempo máximo (ns) gasto em uma prévia, mesmo que não chegue a MAX_SAMPLES
+    static final long TIME_BUDGET_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // A prévia usa uma semente fixa: arrastando devagar, o "ruído" do esboço não pisca
+    static final long SEED = 0x5AFE_2025L;
+    // De quantas em quantas amostras a simulação confere se foi cancelada
+    private static final int CANCEL_CHECK_INTERVAL = 512;
+
+    /**
+     * Recebe os resultados parciais. É chamado na thread da prévia (NÃO na da interface):
+     * quem mexe na tela deve usar SwingUtilities.invokeLater, ignorar resultados cancelados
+     * (isCancelled) e nunca trocar um resultado por outro de geração mais velha.
+     */
+    interface Listener {
+        /**
+         * @param generation A geração do pedido que gerou este resultado.
+         * @param grid Uma cópia da grade (só a Fase 1 tem contagens); não é mais alterada.
+         * @param finished true na última rodada desta prévia.
+         */
+        void previewUpdated(long generation, DensityGrid grid, boolean finished);
+    }
+
+    private final Listener listener;
+    // Uma única thread: no máximo uma prévia rodando (as velhas são canceladas)
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "live-preview");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.NORM_PRIORITY - 1); // A interface tem prioridade
+        return thread;
+    });
+    // Geração do pedido mais recente (cada request ou cancel incrementa)
+    private final AtomicLong generation = new AtomicLong();
+    // Pedidos com geração até esta foram cancelados (cancel)
+    private volatile long cancelledGeneration;
+    // O pedido mais recente que ainda não começou (null = nenhum)
+    private final AtomicReference<Request> pending = new AtomicReference<>();
+    // Se já existe uma execução de drain agendada
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    LivePreview(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Pede uma prévia para a rota dada (pode ser chamado a cada movimento do mouse).
+     * Não simula nada aqui: só registra o pedido e agenda a thread da prévia.
+     * @return A geração deste pedido.
+     */
+    long request(String mapName, LandMask landMask, Point2D startPoint, Point2D endPoint) {
+        return request(mapName, landMask, FlightPath.of(startPoint, endPoint));
+    }
+
+    /**
+     * request para uma rota com pontos intermediários (o FlightPath já é uma cópia imutável).
+     * @return A geração deste pedido.
+     */
+    long request(String mapName, LandMask landMask, FlightPath path) {
+        long requestGeneration = generation.incrementAndGet();
+        pending.set(new Request(requestGeneration, mapName, landMask, path));
+        if (!drainScheduled.getAndSet(true)) {
+            executor.schedule(this::drain, DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+        }
+        return requestGeneration;
+    }
+
+    /**
+     * Cancela a prévia em andamento (e a que estiver esperando).
+     */
+    void cancel() {
+        cancelledGeneration = generation.incrementAndGet();
+        pending.set(null);
+    }
+
+    /**
+     * Se 'requestGeneration' ainda é o pedido mais recente (o resultado não ficou velho).
+     */
+    boolean isCurrent(long requestGeneration) {
+        return generation.get() == requestGeneration;
+    }
+
+    /**
+     * Se o pedido foi descartado por cancel() (ex: a rota foi apagada).
+     */
+    boolean isCancelled(long requestGeneration) {
+        return requestGeneration <= cancelledGeneration;
+    }
+
+    /**
+     * Roda na thread da prévia: pega o pedido mais recente (se houver) e simula.
+     */
+    private void drain() {
+        drainScheduled.set(false);
+        Request request = pending.getAndSet(null);
+        if (request != null && !isCancelled(request.generation)) {
+            try {
+                run(request);
+            } catch (RuntimeException e) {
+                e.printStackTrace(); // Uma prévia com erro não pode matar a thread
+            }
+        }
+    }
+
+    /**
+     * A simulação progressiva: rodadas de 2.000, 8.000, 32.000... amostras, publicando
+     * a grade acumulada depois de cada rodada, até MAX_SAMPLES ou TIME_BUDGET_NANOS.
+     */
+    private void run(Request request) {
+        long startTime = System.nanoTime();
+        SimulationContext context = SimulationContext.of(request.mapName, request.landMask, request.path, false);
+        if (context.getRouteZoneType() < 0) {
+            return;
+        }
+        DensityGrid grid = new DensityGrid(MonteCarloSimulator.GRID_SIZE, MonteCarloSimulator.GRID_SIZE,
+            WorldTransform.WORLD_SIZE, WorldTransform.WORLD_SIZE);
+        long done = 0;
+        int roundSamples = FIRST_ROUND_SAMPLES;
+        while (true) {
+            long roundEnd = Math.min(MAX_SAMPLES, done + roundSamples);
+            for (long i = done; i < roundEnd; i++) {
+                if ((i % CANCEL_CHECK_INTERVAL) == 0 && isStale(request.generation, done)) {
+                    return; // A rota mudou: o resultado não interessa mais
+                }
+                Point2D center = SafeZoneEngine.predictFirstCenter(context, SafeZoneEngine.sequenceRandom(SEED, i));
+                if (center != null) {
+                    grid.add(0, center.getX(), center.getY());
+                }
+                grid.addSample();
+            }
+            done = roundEnd;
+            boolean finished = done >= MAX_SAMPLES || System.nanoTime() - startTime >= TIME_BUDGET_NANOS;
+            if (isCancelled(request.generation)) {
+                return;
+            }
+            listener.previewUpdated(request.generation, grid.copy(), finished);
+            if (finished || !isCurrent(request.generation)) {
+                return; // Terminou, ou já existe uma rota mais nova esperando a sua vez
+            }
+            roundSamples *= 4;
+        }
+    }
+
+    /**
+     * Se a simulação deve parar: cancelada, ou (depois do esboço) com uma rota mais nova na fila.
+     * @param samplesDone Amostras já publicadas (0 = ainda no esboço).
+     */
+    private boolean isStale(long requestGeneration, long samplesDone) {
+        return isCancelled(requestGeneration) || (samplesDone > 0 && !isCurrent(requestGeneration));
+    }
+
+    /**
+     * Um pedido de prévia: a rota (já copiada) e a sua geração.
+     */
+    private static final class Request {
+        final long generation;
+        final String mapName;
+        final LandMask landMask;
+        final FlightPath path;
+
+        Request(long generation, String mapName, LandMask landMask, FlightPath path) {
+            this.generation = generation;
+            this.mapName = mapName;
+            this.landMask = landMask;
+            this.path = path;
+        }
+    }
+}
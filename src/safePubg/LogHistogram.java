@@ -0,0 +1,101 @@
+package safePubg;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LogHistogram
+ * Histograma de valores inteiros (ex: nanossegundos, número de tentativas)
+ * com baldes logarítmicos, no estilo do HdrHistogram: cada potência de 2
+ * é dividida em 4 baldes, então qualquer valor é guardado com erro de no
+ * máximo 25%, usando só 248 contadores para todo o intervalo de um long.
+ *
+ * Registrar um valor é só um incremento atômico (sem locks e sem criar
+ * objetos), então pode ser chamado por várias threads no caminho quente.
+ */
+final class LogHistogram {
+    // Baldes por potência de 2 (2 bits de "mantissa")
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Registra um valor (valores negativos contam como 0).
+     */
+    void record(long value) {
+        if (value < 0) value = 0;
+        buckets.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    long getCount() {
+        return count.sum();
+    }
+
+    long getMax() {
+        return max.get();
+    }
+
+    double getMean() {
+        long n = count.sum();
+        return (n == 0) ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Estima o percentil pedido (ex: 0.99), devolvendo o limite superior do balde onde ele cai.
+     */
+    long getPercentile(double quantile) {
+        long n = count.sum();
+        if (n == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(quantile * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets.get(i);
+            if (seen >= target) {
+                return Math.min(upperBoundOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    /**
+     * Valores pequenos (0 a 3) têm um balde cada; os outros caem no balde
+     * (expoente, 2 bits seguintes ao bit mais alto).
+     */
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int mantissa = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + shift * SUB_BUCKETS + mantissa;
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        int mantissa = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        long lower = (long) (SUB_BUCKETS + mantissa) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
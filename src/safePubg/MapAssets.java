@@ -0,0 +1,381 @@
+package safePubg;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.ImageIO;
+
+/**
+ * MapAssets
+ * As imagens dos mapas e as suas máscaras de terra/água (LandMask).
+ * Não usa nada do Swing: pode ser carregado em um servidor sem tela
+ * (-Djava.awt.headless=true). Quem decide o que fazer em caso de erro
+ * (mostrar uma janela, abortar, etc.) é quem chamou.
+ *
+ * Os mapas são carregados SOB DEMANDA e em paralelo, em threads próprias:
+ * loadAsync(i) começa (uma única vez) a decodificar o PNG e montar a máscara
+ * do mapa i e devolve na hora. As imagens vêm do classpath (funciona dentro
+ * de um .jar), com o sistema de arquivos (src/safePubg/maps) como reserva.
+ *
+ * Se existir um arquivo pré-compilado do mapa (MapDataFile, gerado pelo
+ * MapDataCompiler) feito a partir do MESMO PNG, a máscara vem dele, mapeada na
+ * memória, sem classificar pixel nenhum. Sem tela (loadAll), a imagem só é
+ * decodificada se alguém chamar getImage.
+ */
+final class MapAssets {
+    // Lista de mapas disponíveis
+    static final String[] MAPS = {"Erangel", "Miramar", "Taego", "Rondo"};
+
+    // Threads que decodificam os mapas (daemon: não impedem o programa de terminar)
+    private static final ExecutorService LOADER = Executors.newFixedThreadPool(
+        Math.max(1, Math.min(MAPS.length, Runtime.getRuntime().availableProcessors())), new LoaderThreadFactory());
+
+    // Lado (em células) das máscaras de terra; 0 = resolução da própria imagem
+    private final int maskResolution;
+    // Se true, um mapa que falhar vira uma imagem colorida simples (em vez de erro)
+    private final boolean fallbackToDefault;
+    // Se true, a imagem é decodificada já no carregamento (a interface precisa dela); se false, só em getImage
+    private final boolean eagerImages;
+    // Um carregamento por mapa (null = ainda não pedido), indexado como MAPS
+    private final List<CompletableFuture<LoadedMap>> loads;
+
+    private MapAssets(int maskResolution, boolean fallbackToDefault, boolean eagerImages) {
+        this.maskResolution = maskResolution;
+        this.fallbackToDefault = fallbackToDefault;
+        this.eagerImages = eagerImages;
+        this.loads = new ArrayList<>(Collections.nCopies(MAPS.length, null));
+    }
+
+    /**
+     * Cria os mapas SEM carregar nada ainda: cada mapa é carregado no primeiro
+     * loadAsync (ou getImage/getLandMask) que pedir por ele.
+     * @param maskResolution Lado (em células) das máscaras de terra; 0 = resolução da própria imagem.
+     * @param fallbackToDefault Se true, mapas que não puderem ser lidos viram imagens coloridas
+     *                          simples (o erro fica em getLoadError); se false, o erro é repassado.
+     */
+    static MapAssets lazy(int maskResolution, boolean fallbackToDefault) {
+        return new MapAssets(maskResolution, fallbackToDefault, true);
+    }
+
+    /**
+     * Carrega todos os mapas (em paralelo) e espera terminar.
+     * As máscaras de terra ficam na resolução de cada imagem.
+     * @throws IOException Se alguma imagem não existir ou não puder ser lida.
+     */
+    static MapAssets loadAll() throws IOException {
+        return loadAll(0);
+    }
+
+    /**
+     * Carrega todos os mapas (em paralelo) e espera terminar.
+     * As imagens só são decodificadas no primeiro getImage (quem só prevê não precisa delas).
+     * @param maskResolution Lado (em células) das máscaras de terra; 0 = resolução da própria imagem.
+     *                       Menos células = previsões mais rápidas, mais células = mais precisas.
+     * @throws IOException Se alguma imagem não existir ou não puder ser lida.
+     */
+    static MapAssets loadAll(int maskResolution) throws IOException {
+        MapAssets assets = new MapAssets(maskResolution, false, false);
+        CompletableFuture<?>[] all = new CompletableFuture<?>[MAPS.length];
+        for (int i = 0; i < MAPS.length; i++) {
+            all[i] = assets.loadAsync(i);
+        }
+        try {
+            CompletableFuture.allOf(all).join();
+        } catch (CompletionException e) {
+            throw unwrap(e);
+        }
+        return assets;
+    }
+
+    /**
+     * Método de fallback. Cria imagens coloridas simples se os
+     * arquivos de mapa não forem encontrados.
+     */
+    static MapAssets createDefault() {
+        MapAssets assets = new MapAssets(0, true, true);
+        for (int i = 0; i < MAPS.length; i++) {
+            assets.loads.set(i, CompletableFuture.completedFuture(assets.build(createDefaultImage(i), null)));
+        }
+        return assets;
+    }
+
+    /**
+     * Começa a carregar o mapa (se ninguém pediu antes) sem bloquear quem chamou.
+     * @return Um futuro que completa quando a imagem e a máscara estão prontas.
+     */
+    synchronized CompletableFuture<Void> loadAsync(int mapIndex) {
+        if (loads.get(mapIndex) == null) {
+            loads.set(mapIndex, CompletableFuture.supplyAsync(() -> load(mapIndex), LOADER));
+        }
+        return loads.get(mapIndex).thenApply(map -> null);
+    }
+
+    /**
+     * Pede (em paralelo) todos os mapas que ainda não foram pedidos.
+     */
+    void prefetchAll() {
+        for (int i = 0; i < MAPS.length; i++) {
+            loadAsync(i);
+        }
+    }
+
+    /**
+     * Se o mapa já terminou de carregar (com sucesso ou com a imagem de reserva).
+     */
+    synchronized boolean isLoaded(int mapIndex) {
+        CompletableFuture<LoadedMap> future = loads.get(mapIndex);
+        return future != null && future.isDone() && !future.isCompletedExceptionally();
+    }
+
+    /**
+     * A mensagem de erro do carregamento do mapa (se ele caiu na imagem de reserva), ou null.
+     */
+    String getLoadError(int mapIndex) {
+        return isLoaded(mapIndex) ? loaded(mapIndex).error : null;
+    }
+
+    /**
+     * Converte o nome de um mapa (sem diferenciar maiúsculas, ex: "erangel") no seu índice.
+     * @return O índice em MAPS, ou -1 se o mapa não existir.
+     */
+    static int indexOf(String mapId) {
+        for (int i = 0; i < MAPS.length; i++) {
+            if (MAPS[i].equalsIgnoreCase(mapId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A imagem do mapa. BLOQUEIA até o mapa carregar (não chame na thread da interface
+     * sem checar isLoaded antes). Se a máscara veio de um MapDataFile e a imagem
+     * ainda não foi decodificada, decodifica agora (uma única vez).
+     * @throws UncheckedIOException Se o mapa não puder ser lido.
+     */
+    BufferedImage getImage(int mapIndex) {
+        LoadedMap map = loaded(mapIndex);
+        synchronized (map) {
+            if (map.image == null) {
+                try {
+                    map.image = decode(readSource(fileName(mapIndex)), fileName(mapIndex));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return map.image;
+        }
+    }
+
+    /**
+     * A máscara de terra do mapa. BLOQUEIA até o mapa carregar.
+     * @throws UncheckedIOException Se o mapa não puder ser lido.
+     */
+    LandMask getLandMask(int mapIndex) {
+        return loaded(mapIndex).landMask;
+    }
+
+    private LoadedMap loaded(int mapIndex) {
+        try {
+            loadAsync(mapIndex);
+            CompletableFuture<LoadedMap> future;
+            synchronized (this) {
+                future = loads.get(mapIndex);
+            }
+            return future.join();
+        } catch (CompletionException e) {
+            throw new UncheckedIOException(unwrap(e));
+        }
+    }
+
+    /**
+     * Lê, decodifica e classifica um mapa (roda em uma thread do LOADER).
+     * Usa o arquivo pré-compilado (MapDataFile) quando ele for do mesmo PNG.
+     */
+    private LoadedMap load(int mapIndex) {
+        String fileName = fileName(mapIndex);
+        byte[] source;
+        try {
+            source = readSource(fileName);
+        } catch (IOException e) {
+            // Sem o PNG, um worker sem tela ainda pode usar o arquivo pré-compilado (sem conferir o CRC)
+            LandMask landMask = eagerImages ? null : openPrecompiled(mapIndex, -1);
+            if (landMask != null) {
+                return new LoadedMap(null, landMask, null);
+            }
+            return loadDefault(mapIndex, e);
+        }
+
+        LandMask landMask = openPrecompiled(mapIndex, MapDataFile.checksum(source));
+        if (landMask != null && !eagerImages) {
+            return new LoadedMap(null, landMask, null);
+        }
+        BufferedImage image;
+        try {
+            image = decode(source, fileName);
+        } catch (IOException e) {
+            return loadDefault(mapIndex, e);
+        }
+        return (landMask != null) ? new LoadedMap(image, landMask, null) : build(image, null);
+    }
+
+    /**
+     * O mapa não pôde ser lido: usa a imagem de reserva (ou repassa o erro).
+     */
+    private LoadedMap loadDefault(int mapIndex, IOException error) {
+        if (!fallbackToDefault) {
+            throw new UncheckedIOException(error);
+        }
+        return build(createDefaultImage(mapIndex), error.getMessage());
+    }
+
+    /**
+     * Abre o arquivo pré-compilado do mapa, se ele existir e for do PNG atual.
+     * @param sourceChecksum O CRC32 do PNG, ou -1 para não conferir.
+     * @return A máscara mapeada na memória, ou null (o mapa deve ser calculado a partir do PNG).
+     */
+    private LandMask openPrecompiled(int mapIndex, long sourceChecksum) {
+        if (maskResolution > 0) {
+            return null; // O arquivo está na resolução da imagem
+        }
+        Path path = MapDataFile.pathFor(MAPS[mapIndex]);
+        try {
+            LandMask landMask = MapDataFile.open(path, sourceChecksum);
+            if (landMask == null && Files.exists(path)) {
+                System.err.println("AVISO: " + path + " é de outra imagem ou versão; "
+                    + "calculando a partir do PNG (rode o MapDataCompiler para atualizar).");
+            }
+            return landMask;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("AVISO: Não foi possível abrir " + path + " (" + e.getMessage()
+                + "); calculando a partir do PNG.");
+            return null;
+        }
+    }
+
+    /**
+     * Classifica (uma única vez) todos os pixels do mapa em terra/água e já
+     * prepara a grade de proporção de terra da Fase 4, para a primeira previsão não esperar.
+     */
+    private LoadedMap build(BufferedImage image, String error) {
+        LandMask landMask = (maskResolution > 0)
+            ? LandMask.fromImage(image, maskResolution, maskResolution)
+            : LandMask.fromImage(image);
+        landMask.landFractionGrid(SafeZoneEngine.PHASE_RADII[3]);
+        return new LoadedMap(image, landMask, error);
+    }
+
+    /**
+     * O nome do PNG de um mapa (ex: "erangel.png").
+     */
+    private static String fileName(int mapIndex) {
+        return MAPS[mapIndex].toLowerCase(Locale.ROOT) + ".png";
+    }
+
+    /**
+     * Lê os bytes de um PNG do classpath (pasta "maps" ao lado desta classe, ex: dentro do .jar).
+     * Se não estiver no classpath (ex: compilado com javac -d bin), tenta
+     * src/safePubg/maps a partir da pasta atual.
+     */
+    static byte[] readSource(String fileName) throws IOException {
+        InputStream resource = MapAssets.class.getResourceAsStream("maps/" + fileName);
+        if (resource != null) {
+            try (InputStream in = resource) {
+                return in.readAllBytes();
+            }
+        }
+        File imageFile = new File("src" + File.separator + "safePubg" + File.separator + "maps" + File.separator + fileName);
+        if (!imageFile.exists()) {
+            throw new IOException("Mapa não encontrado no classpath (safePubg/maps/" + fileName
+                + ") nem em: " + imageFile.getAbsolutePath());
+        }
+        return Files.readAllBytes(imageFile.toPath());
+    }
+
+    /**
+     * Decodifica os bytes de um PNG.
+     */
+    static BufferedImage decode(byte[] source, String fileName) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(source));
+        if (image == null) {
+            throw new IOException("Formato de imagem não reconhecido: " + fileName);
+        }
+        return image;
+    }
+
+    /**
+     * A imagem colorida simples usada quando um mapa não pode ser lido.
+     */
+    static BufferedImage createDefaultImage(int mapIndex) {
+        BufferedImage img = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = img.createGraphics();
+        Color color;
+        switch (mapIndex) {
+            case 0: color = new Color(100, 150, 100); break; // Erangel
+            case 1: color = new Color(180, 150, 100); break; // Miramar
+            case 2: color = new Color(100, 100, 150); break; // Taego
+            default: color = new Color(150, 100, 150); break; // Rondo
+        }
+        g2d.setColor(color);
+        g2d.fillRect(0, 0, 800, 600);
+        g2d.setColor(Color.WHITE);
+        g2d.drawString(MAPS[mapIndex], 350, 300);
+        g2d.dispose();
+        return img;
+    }
+
+    private static IOException unwrap(CompletionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof UncheckedIOException) {
+            return ((UncheckedIOException) cause).getCause();
+        }
+        return new IOException(String.valueOf(cause), cause);
+    }
+
+    /**
+     * Um mapa já carregado: a imagem, a máscara e o erro (se caiu na imagem de reserva).
+     * A imagem pode ser null até o primeiro getImage (máscara vinda de um MapDataFile).
+     */
+    private static final class LoadedMap {
+        BufferedImage image; // Protegido pelo synchronized(this) de getImage
+        final LandMask landMask;
+        final String error;
+
+        LoadedMap(BufferedImage image, LandMask landMask, String error) {
+            this.image = image;
+            this.landMask = landMask;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Cria as threads "map-loader-N" como daemon.
+     */
+    private static final class LoaderThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "map-loader-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package safePubg;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * MapDataCompiler
+ * Gera os arquivos pré-compilados (.pmap, ver MapDataFile) de todos os mapas,
+ * a partir dos PNGs. Rode de novo sempre que um PNG mudar (se esquecer, o
+ * programa percebe pelo CRC32 e volta a calcular a partir do PNG).
+ *
+ * Uso:
+ *   java -Djava.awt.headless=true -cp bin safePubg.MapDataCompiler [pastaDeSaida]
+ * Sem pasta, grava em -Dsafepubg.mapdata.dir ou em src/safePubg/maps (onde o programa procura).
+ */
+public final class MapDataCompiler {
+
+    private MapDataCompiler() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path outputDir = (args.length > 0) ? Paths.get(args[0]) : MapDataFile.directory();
+        for (String mapName : MapAssets.MAPS) {
+            long startTime = System.nanoTime();
+            String fileName = mapName.toLowerCase(Locale.ROOT) + ".png";
+            byte[] source = MapAssets.readSource(fileName);
+            BufferedImage image = MapAssets.decode(source, fileName);
+
+            LandMask landMask = LandMask.fromImage(image);
+            LandFractionGrid phase4Grid = landMask.landFractionGrid(SafeZoneEngine.PHASE_RADII[3]);
+            Path path = outputDir.resolve(mapName.toLowerCase(Locale.ROOT) + MapDataFile.EXTENSION);
+            MapDataFile.write(path, landMask, phase4Grid, MapDataFile.checksum(source), source.length);
+
+            System.out.printf("LOG: %s -> %s (%,d KB) em %.2fs%n", mapName, path,
+                Files.size(path) / 1024, (System.nanoTime() - startTime) / 1e9);
+        }
+    }
+}
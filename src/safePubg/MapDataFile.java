@@ -0,0 +1,188 @@
+package safePubg;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.zip.CRC32;
+
+/**
+ * MapDataFile
+ * Os dados de um mapa já calculados, em um arquivo binário (.pmap) que é
+ * aberto com FileChannel.map: nada é decodificado nem copiado para o heap,
+ * e vários processos (ex: workers de batch) compartilham as mesmas páginas
+ * do arquivo pelo cache do sistema operacional.
+ *
+ * Conteúdo (little-endian, cada seção alinhada em 8 bytes):
+ *   Cabeçalho: magic "PMAP", versão, largura, altura, CRC32 e tamanho do PNG de origem,
+ *              raio e resolução da grade de proporção de terra, offsets das seções.
+ *   Seções:    máscara de terra (bits), zonas/anéis (1 byte por célula),
+ *              somas acumuladas (LandIntegral) e a grade de proporção da Fase 4.
+ *
+ * O CRC32 do PNG serve de "versão" dos dados: se a imagem mudar, o arquivo é
+ * ignorado e o mapa volta a ser calculado a partir do PNG.
+ * Gere os arquivos com MapDataCompiler.
+ */
+final class MapDataFile {
+    // "PMAP" lido como int little-endian
+    static final int MAGIC = 0x50414D50;
+    // Aumente quando o formato (ou a regra de cor, os anéis, etc.) mudar
+    static final int VERSION = 1;
+    // Extensão dos arquivos
+    static final String EXTENSION = ".pmap";
+    // Propriedade de sistema com a pasta dos arquivos .pmap
+    static final String DIRECTORY_PROPERTY = "safepubg.mapdata.dir";
+
+    private static final int HEADER_SIZE = 80;
+
+    private MapDataFile() {
+    }
+
+    /**
+     * A pasta dos arquivos .pmap: -Dsafepubg.mapdata.dir, ou src/safePubg/maps (ao lado dos PNGs).
+     */
+    static Path directory() {
+        String dir = System.getProperty(DIRECTORY_PROPERTY);
+        if (dir != null) {
+            return Paths.get(dir);
+        }
+        return Paths.get("src", "safePubg", "maps");
+    }
+
+    /**
+     * O arquivo .pmap de um mapa (ex: "Erangel" -> erangel.pmap).
+     */
+    static Path pathFor(String mapName) {
+        return directory().resolve(mapName.toLowerCase(Locale.ROOT) + EXTENSION);
+    }
+
+    /**
+     * O CRC32 dos bytes do PNG de origem.
+     */
+    static long checksum(byte[] source) {
+        CRC32 crc = new CRC32();
+        crc.update(source);
+        return crc.getValue();
+    }
+
+    /**
+     * Grava a máscara (com a sua tabela de somas e as grades de proporção já calculadas).
+     * Escreve em um arquivo temporário e depois troca, para quem estiver lendo
+     * nunca ver um arquivo pela metade.
+     * @param sourceChecksum O CRC32 do PNG de origem.
+     * @param sourceLength O tamanho (bytes) do PNG de origem.
+     */
+    static void write(Path path, LandMask mask, LandFractionGrid fractionGrid, long sourceChecksum, long sourceLength) throws IOException {
+        int width = mask.getWidth();
+        int height = mask.getHeight();
+        long landBytes = 8L * ((long) width * height + 63 >>> 6);
+        long ringBytes = (long) width * height;
+        long integralBytes = 4L * (width + 1) * (height + 1);
+        long fractionBytes = 4L * LandFractionGrid.RESOLUTION * LandFractionGrid.RESOLUTION;
+
+        long landOffset = HEADER_SIZE;
+        long ringOffset = align(landOffset + landBytes);
+        long integralOffset = align(ringOffset + ringBytes);
+        long fractionOffset = align(integralOffset + integralBytes);
+        long totalSize = align(fractionOffset + fractionBytes);
+
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, totalSize);
+                out.order(ByteOrder.LITTLE_ENDIAN);
+                out.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height);
+                out.putLong(sourceChecksum).putLong(sourceLength);
+                out.putDouble(fractionGrid.getRadius()).putInt(LandFractionGrid.RESOLUTION).putInt(0);
+                out.putLong(landOffset).putLong(ringOffset).putLong(integralOffset).putLong(fractionOffset);
+
+                slice(out, landOffset, landBytes).asLongBuffer().put(mask.getLandBits());
+                slice(out, ringOffset, ringBytes).put(mask.getZoneRings());
+                slice(out, integralOffset, integralBytes).asIntBuffer().put(mask.getIntegral().getSums());
+                slice(out, fractionOffset, fractionBytes).asFloatBuffer().put(fractionGrid.getFractions());
+                out.force();
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Abre (mapeia na memória) o arquivo de um mapa.
+     * @param expectedChecksum O CRC32 do PNG atual, ou -1 para não conferir (ex: o PNG não está disponível).
+     * @return A máscara pronta (com a grade da Fase 4 registrada), ou null se o arquivo
+     *         não existir, for de outra versão ou de outra imagem.
+     * @throws IOException Se o arquivo existir mas estiver corrompido ou não puder ser lido.
+     */
+    static LandMask open(Path path, long expectedChecksum) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        ByteBuffer data;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // O mapeamento continua válido depois de fechar o canal
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        data.order(ByteOrder.LITTLE_ENDIAN);
+        if (data.capacity() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+            throw new IOException("Arquivo de mapa inválido: " + path);
+        }
+        if (data.getInt(4) != VERSION) {
+            return null; // Gerado por outra versão do programa
+        }
+        int width = data.getInt(8);
+        int height = data.getInt(12);
+        long checksum = data.getLong(16);
+        if (expectedChecksum >= 0 && checksum != expectedChecksum) {
+            return null; // O PNG mudou desde que o arquivo foi gerado
+        }
+        double fractionRadius = data.getDouble(32);
+        int fractionResolution = data.getInt(40);
+        long landOffset = data.getLong(48);
+        long ringOffset = data.getLong(56);
+        long integralOffset = data.getLong(64);
+        long fractionOffset = data.getLong(72);
+        if (fractionResolution != LandFractionGrid.RESOLUTION) {
+            return null;
+        }
+
+        long landBytes = 8L * ((long) width * height + 63 >>> 6);
+        long ringBytes = (long) width * height;
+        long integralBytes = 4L * (width + 1) * (height + 1);
+        long fractionBytes = 4L * fractionResolution * fractionResolution;
+        if (width <= 0 || height <= 0 || fractionOffset + fractionBytes > data.capacity()) {
+            throw new IOException("Arquivo de mapa truncado: " + path);
+        }
+
+        LongBuffer landBits = slice(data, landOffset, landBytes).asLongBuffer();
+        ByteBuffer zoneRings = slice(data, ringOffset, ringBytes);
+        LandIntegral integral = LandIntegral.fromBuffer(width, height, slice(data, integralOffset, integralBytes).asIntBuffer());
+        LandMask mask = LandMask.fromBuffers(width, height, landBits, zoneRings, integral);
+        mask.putLandFractionGrid(LandFractionGrid.fromBuffer(fractionRadius, slice(data, fractionOffset, fractionBytes).asFloatBuffer()));
+        return mask;
+    }
+
+    /**
+     * Um pedaço [offset, offset + length) do buffer, com a mesma ordem de bytes.
+     */
+    private static ByteBuffer slice(ByteBuffer buffer, long offset, long length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position((int) offset).limit((int) (offset + length));
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+}
@@ -0,0 +1,138 @@
+package safePubg;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * MatchLogScanner
+ * Lê as linhas de um pedaço [start, end) de um arquivo de log, em blocos de tamanho
+ * fixo (FileChannel + ByteBuffer), sem nunca carregar o arquivo inteiro na memória.
+ *
+ * Um arquivo grande é dividido em vários pedaços (split), um por tarefa, e cada
+ * pedaço fica com as linhas que COMEÇAM dentro dele: a primeira linha incompleta é
+ * pulada (pertence ao pedaço anterior) e a última é lida até o fim, mesmo que passe de 'end'.
+ * Assim, juntando todos os pedaços, cada linha é lida exatamente uma vez.
+ */
+final class MatchLogScanner {
+    // Tamanho de cada leitura do disco
+    static final int CHUNK_SIZE = 1 << 20;
+
+    /**
+     * Recebe cada linha lida (sem o '\n' e sem '\r' no fim).
+     */
+    interface LineConsumer {
+        void accept(String line);
+    }
+
+    private MatchLogScanner() {
+    }
+
+    /**
+     * Divide um arquivo em até 'parts' pedaços de tamanhos parecidos.
+     * @return Os limites {start, end} de cada pedaço (nenhum se o arquivo estiver vazio).
+     */
+    static List<long[]> split(long size, int parts, long minPartSize) {
+        List<long[]> ranges = new ArrayList<>();
+        if (size <= 0) {
+            return ranges;
+        }
+        int count = (int) Math.max(1, Math.min(parts, size / Math.max(1, minPartSize)));
+        long step = size / count;
+        for (int i = 0; i < count; i++) {
+            long start = i * step;
+            long end = (i == count - 1) ? size : start + step;
+            ranges.add(new long[] {start, end});
+        }
+        return ranges;
+    }
+
+    /**
+     * Lê as linhas que começam em [start, end) do arquivo.
+     * @return Quantos bytes foram lidos do disco.
+     */
+    static long scan(Path file, long start, long end, LineConsumer consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+            // Pedaço de linha que ficou no fim de um bloco, esperando o resto no próximo
+            byte[] carry = new byte[256];
+            int carryLength = 0;
+            // Começa um byte antes: se ele for '\n', a primeira linha começa exatamente em 'start'
+            long position = Math.max(0, start - 1);
+            boolean skipping = start > 0;
+            long lineStart = start;
+            long bytesRead = 0;
+
+            while (true) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if (read <= 0) {
+                    break;
+                }
+                bytesRead += read;
+                byte[] bytes = buffer.array();
+                int segmentStart = 0;
+                for (int i = 0; i < read; i++) {
+                    if (bytes[i] != '\n') {
+                        continue;
+                    }
+                    long newlinePosition = position + i;
+                    if (skipping) {
+                        skipping = false;
+                    } else {
+                        if (lineStart >= end) {
+                            return bytesRead;
+                        }
+                        emit(consumer, carry, carryLength, bytes, segmentStart, i);
+                    }
+                    carryLength = 0;
+                    segmentStart = i + 1;
+                    lineStart = newlinePosition + 1;
+                }
+                if (lineStart >= end && !skipping) {
+                    return bytesRead;
+                }
+                // Guarda o resto do bloco (linha incompleta) para o próximo
+                if (!skipping) {
+                    int rest = read - segmentStart;
+                    if (carryLength + rest > carry.length) {
+                        carry = Arrays.copyOf(carry, Math.max(carry.length * 2, carryLength + rest));
+                    }
+                    System.arraycopy(bytes, segmentStart, carry, carryLength, rest);
+                    carryLength += rest;
+                }
+                position += read;
+            }
+            // Última linha do arquivo, sem '\n' no fim
+            if (!skipping && carryLength > 0 && lineStart < end) {
+                emit(consumer, carry, carryLength, carry, 0, 0);
+            }
+            return bytesRead;
+        }
+    }
+
+    /**
+     * Entrega a linha formada por carry[0, carryLength) + bytes[from, to).
+     */
+    private static void emit(LineConsumer consumer, byte[] carry, int carryLength, byte[] bytes, int from, int to) {
+        String line;
+        if (carryLength == 0) {
+            line = new String(bytes, from, to - from, StandardCharsets.UTF_8);
+        } else {
+            byte[] joined = Arrays.copyOf(carry, carryLength + (to - from));
+            System.arraycopy(bytes, from, joined, carryLength, to - from);
+            line = new String(joined, StandardCharsets.UTF_8);
+        }
+        int length = line.length();
+        if (length > 0 && line.charAt(length - 1) == '\r') {
+            line = line.substring(0, length - 1);
+        }
+        consumer.accept(line);
+    }
+}
@@ -0,0 +1,212 @@
+package safePubg;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * MonteCarloSimulator
+ * Roda MUITAS previsões independentes para a mesma rota, usando todos os núcleos,
+ * e acumula onde caiu o centro de cada fase em uma DensityGrid.
+ * O resultado é um mapa de probabilidade (heatmap), bem mais útil
+ * do que uma única sequência sorteada.
+ *
+ * Paralelismo: Fork/Join. Cada tarefa recebe um intervalo de índices de amostra
+ * e a sua própria grade, então as threads nunca compartilham estado mutável.
+ *
+ * Reprodutibilidade: a amostra i usa SEMPRE o gerador SafeZoneEngine.sequenceRandom(seed, i),
+ * não importa qual thread a simula. Como a grade só soma contagens inteiras, a mesma
+ * semente dá um resultado idêntico (bit a bit) com 1 thread ou com todas, e a
+ * amostra 0 é exatamente a sequência que SafeZoneEngine.predict(..., seed) devolve.
+ *
+ * Previsão condicional: com safes já observadas (fases 1..k), só as fases k+1..7
+ * são sorteadas e contadas; as fases observadas ficam com a grade vazia.
+ *
+ * Memória: cada tarefa escreve as sequências em um ZoneSequenceBatch reaproveitado
+ * (arrays primitivos), em vez de criar uma List<SafeZone> por amostra, e sorteia
+ * as fases 2-7 do bloco inteiro de uma vez (BatchedShiftSampler, mesmo resultado).
+ * O mesmo lote pode ser gravado em um arquivo (SequenceFileWriter) para análise offline.
+ */
+final class MonteCarloSimulator {
+    // Resolução padrão do heatmap (128 x 128 células cobrindo o mapa de 8 x 8 km, ~62 m por célula)
+    static final int GRID_SIZE = 128;
+    // Quantas sequências cada tarefa guarda no seu lote antes de somar na grade
+    private static final int CHUNK_SIZE = 1024;
+
+    private MonteCarloSimulator() {
+    }
+
+    /**
+     * Simula 'samples' sequências completas de 7 fases para o contexto dado.
+     * @param context A rota/mapa congelados para esta simulação.
+     * @param samples Quantas sequências independentes simular.
+     * @param seed A semente da simulação (a mesma semente sempre dá a mesma grade).
+     * @return A grade de densidade com as contagens de cada fase.
+     */
+    static DensityGrid simulate(SimulationContext context, int samples, long seed) {
+        return simulate(context, samples, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Igual ao simulate acima, mas rodando em um pool escolhido
+     * (ex: para limitar ou medir a quantidade de threads).
+     */
+    static DensityGrid simulate(SimulationContext context, int samples, long seed, ForkJoinPool pool) {
+        return simulate(context, Collections.emptyList(), samples, seed, pool);
+    }
+
+    /**
+     * Simula só as fases que faltam depois das safes já observadas (ver SafeZoneEngine.predictFromObserved).
+     * @param observed As safes já vistas na partida, Fase 1 primeiro (vazia = simulação completa).
+     */
+    static DensityGrid simulate(SimulationContext context, List<SafeZone> observed, int samples, long seed, ForkJoinPool pool) {
+        return simulate(context, observed, 0, samples, seed, pool);
+    }
+
+    /**
+     * Simula as amostras [firstSample, firstSample + samples) da semente (usado para simular em rodadas:
+     * juntar as grades de [0, n) e [n, m) dá a mesma grade que simular [0, m) de uma vez).
+     */
+    static DensityGrid simulate(SimulationContext context, List<SafeZone> observed, long firstSample, int samples, long seed, ForkJoinPool pool) {
+        return simulate(context, observed, firstSample, samples, seed, pool, null);
+    }
+
+    /**
+     * Igual ao simulate acima, e também grava cada sequência simulada em 'export'
+     * (ex: para análise offline; ver SequenceFileWriter). Os blocos chegam fora de ordem,
+     * cada um com a sua primeira amostra. Feche o writer depois que este método voltar.
+     * @param export Onde gravar as sequências (null = só a grade).
+     */
+    static DensityGrid simulate(SimulationContext context, List<SafeZone> observed, long firstSample, int samples, long seed,
+                                ForkJoinPool pool, SequenceFileWriter export) {
+        List<SafeZone> prefix = List.copyOf(observed);
+        DensityGrid prototype = new DensityGrid(GRID_SIZE, GRID_SIZE, WorldTransform.WORLD_SIZE, WorldTransform.WORLD_SIZE);
+        int parallelism = pool.getParallelism();
+        // Blocos grandes o suficiente para compensar a grade de cada tarefa,
+        // e pequenos o suficiente para balancear a carga entre os núcleos
+        int threshold = Math.max(256, samples / (parallelism * 8));
+        return pool.invoke(new SimulationTask(context, prefix, prototype, seed, firstSample, samples, threshold, export));
+    }
+
+    /**
+     * Simula as sequências e devolve TODAS elas (não só a densidade), em colunas primitivas.
+     * A linha i do lote é a amostra i (mesmo gerador que simulate usa), então
+     * batch.toDensityGrid() dá a mesma grade que simulate com a mesma semente.
+     * @param observed As safes já vistas na partida, Fase 1 primeiro (vazia = simulação completa).
+     */
+    static ZoneSequenceBatch simulateBatch(SimulationContext context, List<SafeZone> observed, int samples, long seed, ForkJoinPool pool) {
+        List<SafeZone> prefix = List.copyOf(observed);
+        ZoneSequenceBatch batch = new ZoneSequenceBatch(samples);
+        int threshold = Math.max(256, samples / (pool.getParallelism() * 8));
+        pool.invoke(new FillTask(context, prefix, batch, seed, 0, samples, threshold));
+        return batch;
+    }
+
+    /**
+     * Tarefa Fork/Join: divide o intervalo de amostras [from, from + samples) ao meio
+     * até ficar abaixo do limite, simula o bloco em uma grade própria e junta as grades na volta.
+     */
+    private static final class SimulationTask extends RecursiveTask<DensityGrid> {
+        private static final long serialVersionUID = 1L;
+
+        private final SimulationContext context;
+        private final List<SafeZone> observed;
+        private final DensityGrid prototype;
+        private final long seed;
+        private final long from;
+        private final int samples;
+        private final int threshold;
+        private final SequenceFileWriter export;
+
+        SimulationTask(SimulationContext context, List<SafeZone> observed, DensityGrid prototype,
+                       long seed, long from, int samples, int threshold, SequenceFileWriter export) {
+            this.context = context;
+            this.observed = observed;
+            this.prototype = prototype;
+            this.seed = seed;
+            this.from = from;
+            this.samples = samples;
+            this.threshold = threshold;
+            this.export = export;
+        }
+
+        @Override
+        protected DensityGrid compute() {
+            if (samples <= threshold) {
+                DensityGrid grid = prototype.emptyCopy();
+                int chunk = Math.min(samples, CHUNK_SIZE);
+                ZoneSequenceBatch batch = new ZoneSequenceBatch(chunk);
+                BatchedShiftSampler sampler = new BatchedShiftSampler(context, chunk);
+                SplittableRandom[] randoms = new SplittableRandom[chunk];
+                for (int done = 0; done < samples; done += chunk) {
+                    int count = Math.min(chunk, samples - done);
+                    for (int row = 0; row < count; row++) {
+                        randoms[row] = SafeZoneEngine.sequenceRandom(seed, from + done + row);
+                    }
+                    sampler.predictInto(observed, randoms, batch, 0, count);
+                    batch.addTo(grid, 0, count, observed.size());
+                    if (export != null) {
+                        export.write(batch, 0, count, from + done);
+                    }
+                }
+                return grid;
+            }
+            int half = samples / 2;
+            SimulationTask left = new SimulationTask(context, observed, prototype, seed, from, half, threshold, export);
+            SimulationTask right = new SimulationTask(context, observed, prototype, seed, from + half, samples - half, threshold, export);
+            left.fork();
+            DensityGrid result = right.compute();
+            result.merge(left.join());
+            return result;
+        }
+    }
+
+    /**
+     * Tarefa Fork/Join do simulateBatch: cada bloco escreve as suas próprias linhas do lote.
+     */
+    private static final class FillTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final SimulationContext context;
+        private final List<SafeZone> observed;
+        private final ZoneSequenceBatch batch;
+        private final long seed;
+        private final int from;
+        private final int samples;
+        private final int threshold;
+
+        FillTask(SimulationContext context, List<SafeZone> observed, ZoneSequenceBatch batch,
+                 long seed, int from, int samples, int threshold) {
+            this.context = context;
+            this.observed = observed;
+            this.batch = batch;
+            this.seed = seed;
+            this.from = from;
+            this.samples = samples;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (samples <= threshold) {
+                int chunk = Math.min(samples, CHUNK_SIZE);
+                BatchedShiftSampler sampler = new BatchedShiftSampler(context, chunk);
+                SplittableRandom[] randoms = new SplittableRandom[chunk];
+                for (int start = from; start < from + samples; start += chunk) {
+                    int end = Math.min(start + chunk, from + samples);
+                    for (int row = start; row < end; row++) {
+                        randoms[row - start] = SafeZoneEngine.sequenceRandom(seed, row);
+                    }
+                    sampler.predictInto(observed, randoms, batch, start, end);
+                }
+                return;
+            }
+            int half = samples / 2;
+            invokeAll(new FillTask(context, observed, batch, seed, from, half, threshold),
+                      new FillTask(context, observed, batch, seed, from + half, samples - half, threshold));
+        }
+    }
+}
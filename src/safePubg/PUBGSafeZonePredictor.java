@@ -7,15 +7,17 @@ package safePubg;
 import java.awt.*;
 import java.awt.event.*;
 import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
-import java.io.IOException;
-import java.io.InputStream;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Random;
-import javax.imageio.ImageIO;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 import javax.swing.*;
 
 /**
@@ -28,103 +30,159 @@ import javax.swing.*;
  * 3. Fase 4: Implementa uma simulação da "Regra da Proporção de Terra" (Seção 1.2).
  * 4. Detecção de Água: Impede que as safes se centrem na água (Seção 1.1).
  * 5. Contenção: Garante que cada safe esteja contida na anterior (Seção 2.3).
+ * * As regras ficam no SafeZoneEngine (que roda sem interface);
+ * esta classe só cuida da janela, do desenho e dos eventos do usuário.
  */
 public class PUBGSafeZonePredictor {
-    // --- CONSTANTES DE CONFIGURAÇÃO DO JOGO ---
+    // --- CONSTANTES DA INTERFACE ---
     
-    // Lista de mapas disponíveis
-    private static final String[] MAPS = {"Erangel", "Miramar", "Taego", "Rondo"};
     // Cor de fundo padrão caso o mapa não carregue
     private static final Color MAP_COLOR = new Color(100, 150, 100);
     // Cor da linha da rota do avião
     private static final Color PLANE_ROUTE_COLOR = new Color(0, 0, 255, 150);
     // Cor dos círculos da safe (Branco semi-transparente, como no jogo)
     private static final Color PREDICTED_ZONE_COLOR = new Color(255, 255, 255, 40);
-    
-    // Constantes para os tipos de zona (baseado no código original)
-    private static final int ZONE_CENTER = 0;
-    private static final int ZONE_PERIPHERAL = 1;
-    private static final int ZONE_EDGE = 2;
-    
-    // Proporções de raio (em pixels) para cada fase, baseadas na Seção 3.1
-    private static final double[] PHASE_RADII = {
-        300,    // Fase 1 (Nosso valor base em pixels)
-        195,    // Fase 2 (~65% da Fase 1)
-        97,     // Fase 3 (~50% da Fase 2)
-        48,     // Fase 4 (~50% da Fase 3)
-        24,     // Fase 5 (~50% da Fase 4)
-        12,     // Fase 6 (~50% da Fase 5)
-        6       // Fase 7 (~50% da Fase 6)
-    };
-    
-    // O "Cérebro" da Fase 1: O array 3D de Probabilidades
-    // Dimensão 1: Tipo de Rota (Central, Periférica, Borda)
-    // Dimensão 2: Zona da Safe (Central, Periférica, Borda)
-    // Dimensão 3: Distância da Rota (Sobre, Próximo, Distante)
-    private static final double[][][] PROBABILITIES = {
-        // Rota atravessa Zona Central
-        {
-            {10, 25, 30},  // Safe na Zona Central
-            {5, 12, 15},   // Safe na Zona Periférica
-            {0, 1, 0}      // Safe na Zona de Borda (Balanceado, 'Distante' é 0 pois é água)
-        },
-        // Rota atravessa apenas Zona Periférica
-        {
-            {5, 15, 25},
-            {8, 20, 22},
-            {1, 2, 0}      // Safe na Zona de Borda (Balanceado, 'Distante' é 0 pois é água)
-        },
-        // Rota atravessa apenas Zona de Borda
-        {
-            {2, 8, 15},
-            {10, 25, 30},
-            {3, 4, 3}
-        }
-    };
+    // Cor da borda das safes fixadas (as que já apareceram na partida)
+    private static final Color OBSERVED_ZONE_COLOR = new Color(255, 220, 0);
+    // Opções de quantidade de sequências para o modo Monte Carlo (heatmap)
+    private static final int[] SIMULATION_SAMPLES = {10_000, 100_000, 1_000_000};
+    // Opção "Auto" (a última da lista): simula até esta precisão ou tempo (ver AdaptiveSimulation)
+    private static final double AUTO_PRECISION = 0.05;
+    private static final long AUTO_TIME_BUDGET_MS = 3_000;
+    // Sequências simuladas a cada safe fixada (poucas: a resposta precisa vir em milissegundos)
+    private static final int FORECAST_SAMPLES = 20_000;
+    // Quantos pontos de pouso sugerir depois de simular o heatmap
+    private static final int DROP_SPOT_COUNT = 5;
+    // Cor dos pontos de pouso sugeridos
+    private static final Color DROP_SPOT_COLOR = new Color(255, 80, 80);
     
     // --- VARIÁVEIS DE ESTADO DA APLICAÇÃO ---
     
-    // Pontos para desenhar a rota do avião
+    // Pontos para desenhar a rota do avião (em coordenadas do mundo, km; ver WorldTransform)
     private static Point2D startPoint = null;
     private static Point2D endPoint = null;
+    // Pontos intermediários da rota, do início para o fim (Shift+clique; vazio = rota reta)
+    private static List<Point2D> waypoints = new ArrayList<>();
+    // Se o botão pressionado está desenhando uma rota nova (e não fixando safes ou mexendo nos pontos intermediários)
+    private static boolean drawingRoute = false;
     // Armazena a sequência de círculos previstos
     private static List<SafeZone> predictedZones = new ArrayList<>();
     // Índice do mapa selecionado (0 = Erangel, 1 = Miramar, etc.)
     private static int selectedMap = 0;
     // Tipo da rota do avião (0=Central, 1=Periférica, 2=Borda)
     private static int routeZoneType = -1;
-    // Cache para as imagens de mapa carregadas
-    private static HashMap<String, BufferedImage> mapImages = new HashMap<>();
+    // Imagens e máscaras de terra/água dos mapas carregados
+    private static MapAssets mapAssets;
+    // Resultado da última simulação Monte Carlo (null = sem heatmap)
+    private static DensityGrid heatmap = null;
+    // Imagem do heatmap já colorida para a fase escolhida (recriada só quando muda)
+    private static BufferedImage heatmapImage = null;
+    // Fase exibida no heatmap (0 = Fase 1)
+    private static int heatmapPhase = 0;
+    // Precisão alcançada pelo último heatmap "Auto" (null = heatmap com quantidade fixa)
+    private static AdaptiveSimulation.Result heatmapConvergence = null;
+    // Melhores pontos de pouso ao longo da rota, do último heatmap (o melhor primeiro)
+    private static List<DropSpotAnalysis.DropSpot> dropSpots = List.of();
+    // Prévia ao vivo da Fase 1 enquanto a rota é arrastada (calculada fora da EDT)
+    private static LivePreview livePreview;
+    // Imagem da última prévia recebida (null = sem prévia) e quantas amostras ela tem
+    private static BufferedImage previewImage = null;
+    private static long previewSamples = 0;
+    // Geração da prévia exibida (nunca trocamos por uma mais velha)
+    private static long previewGeneration = 0;
+    // Safes reais já vistas na partida (Fase 1 primeiro), fixadas pelo usuário no modo "Fixar safes"
+    private static List<SafeZone> observedZones = new ArrayList<>();
+    // A previsão condicional da rota atual (criada fora da EDT na primeira safe fixada; null = nenhuma)
+    private static CompletableFuture<ConditionalForecast> conditionalForecast = null;
+    // A versão das regras com que a previsão condicional foi criada (ver RuleBook.reload)
+    private static int conditionalForecastRulesVersion = 0;
+    // A previsão (botões "Prever" e "Repetir") rodando fora da EDT (null = nenhuma)
+    private static SwingWorker<List<SafeZone>, Void> predictionWorker = null;
+    // Mapas cujo erro de carregamento já foi mostrado ao usuário
+    private static final Set<Integer> reportedLoadErrors = new HashSet<>();
 
     /**
      * O método principal. Inicia a aplicação Swing.
+     * A janela aparece na hora; os mapas carregam em segundo plano
+     * (primeiro o mapa selecionado, depois os outros em paralelo).
      */
     public static void main(String[] args) {
-        // Carrega as imagens dos mapas na memória
-        loadMapImages();
+        // Com -Dsafepubg.rules.file, as regras são recarregadas quando o arquivo muda
+        RuleBook.startWatchingIfConfigured();
+        // Começa a carregar o mapa exibido (fora da thread da interface)
+        mapAssets = MapAssets.lazy(0, true);
+        int firstMap = selectedMap;
+        mapAssets.loadAsync(firstMap).whenComplete((done, error) -> {
+            System.out.printf("LOG: Mapa %s carregado em %d ms desde o início da JVM%n",
+                MapAssets.MAPS[firstMap], millisSinceJvmStart());
+            // Os outros mapas carregam em paralelo, para a troca de mapa ser instantânea
+            mapAssets.prefetchAll();
+        });
         
+        // Toda a interface é criada na thread da interface (EDT)
+        SwingUtilities.invokeLater(PUBGSafeZonePredictor::createAndShowGui);
+    }
+
+    /**
+     * Monta e mostra a janela principal (roda na EDT).
+     */
+    private static void createAndShowGui() {
         // Cria a janela principal
         JFrame frame = new JFrame("PUBG Safe Zone Predictor");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        frame.setSize(800, 600);
+        frame.setSize(1100, 750);
         
         JPanel mainPanel = new JPanel(new BorderLayout());
         
         // --- PAINEL SUPERIOR (Botões e ComboBox) ---
         JPanel topPanel = new JPanel();
         JLabel mapLabel = new JLabel("Selecione o mapa:");
-        JComboBox<String> mapComboBox = new JComboBox<>(MAPS);
+        JComboBox<String> mapComboBox = new JComboBox<>(MapAssets.MAPS);
         JButton predictButton = new JButton("Prever Safe Zone");
         JButton clearButton = new JButton("Limpar");
+        // Semente da última previsão: "Repetir" desenha de novo a mesma sequência
+        JTextField seedField = new JTextField(12);
+        seedField.setToolTipText("Semente (a mesma semente e a mesma rota sempre geram as mesmas safes)");
+        JButton replayButton = new JButton("Repetir");
+        // Modo partida: cliques no mapa fixam as safes reais (a previsão passa a partir delas)
+        JToggleButton pinButton = new JToggleButton("Fixar safes");
+        pinButton.setToolTipText("Clique no mapa para fixar a safe real da próxima fase; botão direito desfaz a última");
+        // Controles do modo Monte Carlo (heatmap)
+        String[] sampleLabels = new String[SIMULATION_SAMPLES.length + 1];
+        for (int i = 0; i < SIMULATION_SAMPLES.length; i++) {
+            sampleLabels[i] = String.format("%,d", SIMULATION_SAMPLES[i]);
+        }
+        sampleLabels[SIMULATION_SAMPLES.length] = String.format("Auto (±%.0f%%)", AUTO_PRECISION * 100);
+        JComboBox<String> samplesComboBox = new JComboBox<>(sampleLabels);
+        JButton simulateButton = new JButton("Simular Heatmap");
+        String[] phaseLabels = new String[SafeZoneEngine.PHASE_COUNT];
+        for (int i = 0; i < SafeZoneEngine.PHASE_COUNT; i++) {
+            phaseLabels[i] = "Fase " + (i + 1);
+        }
+        JComboBox<String> heatmapPhaseComboBox = new JComboBox<>(phaseLabels);
         
         topPanel.add(mapLabel);
         topPanel.add(mapComboBox);
         topPanel.add(predictButton);
         topPanel.add(clearButton);
+        topPanel.add(new JLabel("Semente:"));
+        topPanel.add(seedField);
+        topPanel.add(replayButton);
+        topPanel.add(pinButton);
+        topPanel.add(samplesComboBox);
+        topPanel.add(simulateButton);
+        topPanel.add(heatmapPhaseComboBox);
         
         // --- PAINEL DE DESENHO (O Mapa) ---
         // Usamos uma classe anônima que herda de JPanel
         JPanel drawingPanel = new JPanel() {
+            // Camadas já desenhadas: o mapa reescalado e as safes/heatmap por cima dele.
+            // Ao arrastar a rota, só a linha é desenhada de novo; o resto é só copiado.
+            private final CachedLayer mapLayer = new CachedLayer(false);
+            private final CachedLayer zoneLayer = new CachedLayer(true);
+            // Para medir o tempo até o primeiro quadro (só uma vez)
+            private boolean firstFrameLogged = false;
+
             /**
              * Este método é o coração visual. Ele é chamado toda vez
              * que o painel precisa ser redesenhado (ex: no início, ou
@@ -134,66 +192,111 @@ public class PUBGSafeZonePredictor {
             protected void paintComponent(Graphics g) {
                 super.paintComponent(g);
                 Graphics2D g2d = (Graphics2D) g;
-                // Deixa os círculos com bordas suaves
-                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON); 
-
-                // 1. Desenha a imagem do mapa (ou um fundo colorido se falhar)
-                BufferedImage mapImg = mapImages.get(MAPS[selectedMap]);
-                if (mapImg != null) {
-                    g2d.drawImage(mapImg, 0, 0, getWidth(), getHeight(), null);
-                } else {
-                    g2d.setColor(MAP_COLOR);
-                    g2d.fillRect(0, 0, getWidth(), getHeight());
+                int width = getWidth();
+                int height = getHeight();
+                if (width <= 0 || height <= 0) return;
+                GraphicsConfiguration gc = getGraphicsConfiguration();
+                // Converte o mundo (km) para os pixels do painel, qualquer que seja o tamanho da janela
+                WorldTransform screen = new WorldTransform(width, height);
+
+                // 1. Desenha a imagem do mapa (reescalada só quando o mapa ou o tamanho mudam).
+                //    Enquanto o mapa carrega, desenha só o fundo (nunca espera aqui)
+                boolean mapLoaded = mapAssets.isLoaded(selectedMap);
+                BufferedImage mapImg = mapLoaded ? mapAssets.getImage(selectedMap) : null;
+                g2d.drawImage(mapLayer.get(gc, width, height, layer -> paintMap(layer, mapImg, width, height), mapImg), 0, 0, null);
+                if (!firstFrameLogged) {
+                    firstFrameLogged = true;
+                    System.out.printf("LOG: Primeiro quadro desenhado em %d ms desde o início da JVM%n", millisSinceJvmStart());
                 }
+                if (!mapLoaded) {
+                    g2d.setColor(Color.WHITE);
+                    g2d.drawString("Carregando " + MapAssets.MAPS[selectedMap] + "...", width / 2 - 40, height / 2);
+                }
+                
+                // 2. Desenha o heatmap e as safes (redesenhados só quando mudam)
+                g2d.drawImage(zoneLayer.get(gc, width, height, layer -> paintZones(layer, screen),
+                    heatmapImage, previewImage, List.copyOf(predictedZones), List.copyOf(observedZones), dropSpots), 0, 0, null);
                 
-                // 2. Desenha a rota do avião (se start e end existirem)
+                // Deixa a linha e os textos com bordas suaves
+                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON); 
+
+                // 3. Desenha a rota do avião (se start e end existirem), passando pelos pontos intermediários
                 if (startPoint != null && endPoint != null) {
                     g2d.setColor(PLANE_ROUTE_COLOR);
                     g2d.setStroke(new BasicStroke(3));
-                    g2d.draw(new Line2D.Double(startPoint, endPoint));
+                    FlightPath path = currentPath();
+                    Path2D line = new Path2D.Double();
+                    line.moveTo(screen.toScreenX(path.getX(0)), screen.toScreenY(path.getY(0)));
+                    for (int i = 1; i < path.getPointCount(); i++) {
+                        line.lineTo(screen.toScreenX(path.getX(i)), screen.toScreenY(path.getY(i)));
+                    }
+                    g2d.draw(line);
+                    for (Point2D waypoint : waypoints) {
+                        g2d.fillOval((int) screen.toScreenX(waypoint.getX()) - 4, (int) screen.toScreenY(waypoint.getY()) - 4, 8, 8);
+                    }
                     
                     String zoneType = "";
                     switch (routeZoneType) {
-                        case ZONE_CENTER: zoneType = "Rota atravessa Zona Central"; break;
-                        case ZONE_PERIPHERAL: zoneType = "Rota atravessa Zona Periférica"; break;
-                        case ZONE_EDGE: zoneType = "Rota atravessa Zona de Borda"; break;
+                        case SafeZoneEngine.ZONE_CENTER: zoneType = "Rota atravessa Zona Central"; break;
+                        case SafeZoneEngine.ZONE_PERIPHERAL: zoneType = "Rota atravessa Zona Periférica"; break;
+                        case SafeZoneEngine.ZONE_EDGE: zoneType = "Rota atravessa Zona de Borda"; break;
                     }
                     g2d.setColor(Color.WHITE);
                     g2d.drawString(zoneType, 10, 20);
                 }
                 
-                // 3. Desenha a sequência de SAFES (se a lista não estiver vazia)
+                // Mostra de onde vem a mancha colorida (prévia ou heatmap completo)
+                if (heatmapImage == null && previewImage != null) {
+                    g2d.setColor(Color.WHITE);
+                    g2d.drawString(String.format("Prévia da Fase 1 (%,d sequências)", previewSamples), 10, 60);
+                }
+                
+                // Heatmap "Auto": quantas sequências foram precisas e a precisão alcançada
+                if (heatmapImage != null && heatmapConvergence != null && heatmap == heatmapConvergence.grid) {
+                    g2d.setColor(Color.WHITE);
+                    g2d.drawString(String.format("Heatmap: %,d sequências, precisão ±%.1f%%%s", heatmap.getSamples(),
+                        heatmapConvergence.precision * 100, heatmapConvergence.isConverged() ? "" : " (tempo esgotado)"), 10, 60);
+                }
+                
+                // No modo partida, mostra quantas safes já foram fixadas
+                if (pinButton.isSelected()) {
+                    g2d.setColor(OBSERVED_ZONE_COLOR);
+                    g2d.drawString(observedZones.size() < SafeZoneEngine.PHASE_COUNT
+                        ? "Clique na safe real da Fase " + (observedZones.size() + 1) + " (botão direito desfaz)"
+                        : "Todas as fases fixadas (botão direito desfaz)", 10, 80);
+                }
+                
+                // Mostra o tipo da Fase 1
                 if (!predictedZones.isEmpty()) {
-                    String firstZoneType = "";
-                    
-                    // Loop para desenhar cada círculo
-                    for (SafeZone zone : predictedZones) {
-                        int x = (int) (zone.center.getX() - zone.radius);
-                        int y = (int) (zone.center.getY() - zone.radius);
-                        int size = (int) (zone.radius * 2);
-                        
-                        // 3a. Desenha o preenchimento branco semi-transparente
-                        g2d.setColor(PREDICTED_ZONE_COLOR); 
-                        g2d.fillOval(x, y, size, size); 
-                        
-                        // 3b. Desenha uma borda branca sólida por cima (estilo PUBG)
-                        g2d.setColor(Color.WHITE);
-                        g2d.setStroke(new BasicStroke(2)); 
-                        g2d.drawOval(x, y, size, size);
-                    }
-                    
-                    // Mostra o tipo da Fase 1
-                    firstZoneType = getZoneType(predictedZones.get(0).center);
+                    String firstZoneType = SafeZoneEngine.getZoneType(predictedZones.get(0).center);
                     g2d.setColor(Color.WHITE);
                     g2d.drawString("Safe Zone prevista: " + firstZoneType, 10, 40);
                 }
                 
+                // Como corrigir a rota (só aparece depois de desenhá-la)
+                if (startPoint != null && endPoint != null && !pinButton.isSelected()) {
+                    g2d.setColor(Color.WHITE);
+                    g2d.drawString("Shift+clique dobra a rota; Shift+botão direito remove o ponto", 10, height - 28);
+                }
+                
                 // 4. Desenha o nome do mapa
                 g2d.setColor(Color.WHITE);
-                g2d.drawString("Mapa: " + MAPS[selectedMap], 10, getHeight() - 10);
+                g2d.drawString("Mapa: " + MapAssets.MAPS[selectedMap], 10, height - 10);
             }
         }; // Fim da classe anônima 'drawingPanel'
         
+        // A prévia ao vivo: a grade é pintada na thread da prévia, a EDT só troca a imagem
+        livePreview = new LivePreview((generation, grid, finished) -> {
+            BufferedImage image = renderHeatmap(grid, 0);
+            SwingUtilities.invokeLater(() -> {
+                if (livePreview.isCancelled(generation) || generation < previewGeneration) return;
+                previewGeneration = generation;
+                previewImage = image;
+                previewSamples = grid.getSamples();
+                drawingPanel.repaint();
+            });
+        });
+        
         // --- LISTENERS (Eventos do Usuário) ---
         
         // Listener para cliques do mouse
@@ -204,9 +307,24 @@ public class PUBGSafeZonePredictor {
              */
             @Override
             public void mousePressed(MouseEvent e) {
+                if (pinButton.isSelected()) {
+                    // Modo partida: o clique fixa (ou desfaz) uma safe em vez de começar uma rota nova
+                    pinObservedZone(frame, drawingPanel, heatmapPhaseComboBox, e);
+                    return;
+                }
+                if (e.isShiftDown()) {
+                    // Shift: corrige a rota atual em vez de começar uma nova
+                    drawingRoute = false;
+                    editWaypoints(drawingPanel, e);
+                    return;
+                }
+                drawingRoute = true;
                 predictedZones.clear(); // Limpa as safes antigas
-                startPoint = e.getPoint(); // Define o início da rota
+                clearObservedZones(); // As safes fixadas eram da rota antiga
+                clearHeatmap(); // O heatmap era da rota antiga
+                startPoint = toWorld(drawingPanel, e.getPoint()); // Define o início da rota
                 endPoint = null;
+                waypoints.clear(); // Uma rota nova começa reta
                 routeZoneType = -1; // Reseta o tipo de rota
                 drawingPanel.repaint(); // Redesenha a tela
             }
@@ -217,8 +335,14 @@ public class PUBGSafeZonePredictor {
              */
             @Override
             public void mouseReleased(MouseEvent e) {
-                endPoint = e.getPoint(); // Define o fim da rota
-                determineRouteZoneType(); // Calcula se a rota foi Central, Periférica, etc.
+                if (pinButton.isSelected() || !drawingRoute || startPoint == null) return;
+                drawingRoute = false;
+                Point2D releasePoint = toWorld(drawingPanel, e.getPoint());
+                if (!releasePoint.equals(endPoint)) {
+                    endPoint = releasePoint; // Define o fim da rota
+                    requestPreview(); // (se não mudou, a prévia do último arraste continua valendo)
+                }
+                routeZoneType = SafeZoneEngine.determineRouteZoneType(currentPath()); // Calcula se a rota foi Central, Periférica, etc.
                 drawingPanel.repaint(); // Redesenha
             }
         });
@@ -227,11 +351,13 @@ public class PUBGSafeZonePredictor {
         drawingPanel.addMouseMotionListener(new MouseMotionAdapter() {
             /**
              * Chamado continuamente enquanto o mouse é arrastado.
-             * Atualiza o 'endPoint' para feedback visual.
+             * Atualiza o 'endPoint' e pede a prévia da Fase 1 (que chega depois, sem travar o arraste).
              */
             @Override
             public void mouseDragged(MouseEvent e) {
-                endPoint = e.getPoint();
+                if (pinButton.isSelected() || !drawingRoute || startPoint == null) return;
+                endPoint = toWorld(drawingPanel, e.getPoint());
+                requestPreview();
                 drawingPanel.repaint();
             }
         });
@@ -239,440 +365,526 @@ public class PUBGSafeZonePredictor {
         // Listener para a ComboBox de Mapas
         mapComboBox.addActionListener(e -> {
             selectedMap = mapComboBox.getSelectedIndex();
+            clearHeatmap(); // O heatmap era do mapa antigo
+            clearObservedZones(); // As safes fixadas eram de outra partida
+            requestPreview(); // A prévia da mesma rota no mapa novo (se ele já carregou)
+            // Nunca espera o carregamento aqui: o painel é redesenhado quando o mapa ficar pronto
+            repaintWhenLoaded(frame, drawingPanel, selectedMap);
             drawingPanel.repaint();
         });
         
-        // Listener para o botão "Prever Safe Zone"
+        // Listener para o botão "Prever Safe Zone" (sorteia uma semente nova)
         predictButton.addActionListener(e -> {
+            if (!isMapReady(frame)) return;
             if (startPoint != null && endPoint != null) {
-                predictSafeZoneSequence(); // Chama o cérebro principal
-                drawingPanel.repaint();
+                long seed = new SplittableRandom().nextLong();
+                seedField.setText(Long.toString(seed));
+                predictWithSeed(drawingPanel, seed);
             } else {
                 JOptionPane.showMessageDialog(frame, "Por favor, desenhe a rota do avião primeiro.");
             }
         });
         
+        // Listener para o botão "Repetir" (usa a semente digitada no campo)
+        replayButton.addActionListener(e -> {
+            if (!isMapReady(frame)) return;
+            if (startPoint == null || endPoint == null) {
+                JOptionPane.showMessageDialog(frame, "Por favor, desenhe a rota do avião primeiro.");
+                return;
+            }
+            Long seed = parseSeed(seedField.getText());
+            if (seed == null) {
+                JOptionPane.showMessageDialog(frame, "Digite uma semente válida (um número inteiro).");
+                return;
+            }
+            predictWithSeed(drawingPanel, seed);
+        });
+        
         // Listener para o botão "Limpar"
         clearButton.addActionListener(e -> {
             startPoint = null;
             endPoint = null;
+            waypoints.clear();
             predictedZones.clear(); // Limpa a lista de safes
+            clearObservedZones();
+            clearHeatmap();
             routeZoneType = -1;
             drawingPanel.repaint();
         });
         
+        // Listener para o botão "Simular Heatmap" (modo Monte Carlo)
+        simulateButton.addActionListener(e -> {
+            if (!isMapReady(frame)) return;
+            if (startPoint == null || endPoint == null) {
+                JOptionPane.showMessageDialog(frame, "Por favor, desenhe a rota do avião primeiro.");
+                return;
+            }
+            // "Auto": a quantidade é decidida pela precisão (no máximo a maior opção fixa)
+            boolean adaptive = samplesComboBox.getSelectedIndex() == SIMULATION_SAMPLES.length;
+            int samples = adaptive ? SIMULATION_SAMPLES[SIMULATION_SAMPLES.length - 1] : SIMULATION_SAMPLES[samplesComboBox.getSelectedIndex()];
+            // Usa a semente do campo (se houver): a amostra 0 do heatmap é a sequência desenhada
+            Long typedSeed = parseSeed(seedField.getText());
+            long seed = (typedSeed != null) ? typedSeed : new SplittableRandom().nextLong();
+            seedField.setText(Long.toString(seed));
+            // Só uma cópia da rota e do mapa é tirada aqui: o contexto (máscara inteira e
+            // distâncias até a rota) é montado fora da EDT, e o usuário pode mexer na rota enquanto simula
+            int mapIndex = selectedMap;
+            String mapName = MapAssets.MAPS[mapIndex];
+            LandMask landMask = mapAssets.getLandMask(mapIndex);
+            FlightPath path = currentPath();
+            // Com safes fixadas, só as fases que faltam são simuladas
+            List<SafeZone> observed = List.copyOf(observedZones);
+            simulateButton.setEnabled(false);
+            
+            // A simulação roda fora da thread da interface (EDT) para não travar a janela
+            new SwingWorker<DensityGrid, Void>() {
+                private long startTime;
+                private List<DropSpotAnalysis.DropSpot> spots;
+                private AdaptiveSimulation.Result convergence;
+                
+                @Override
+                protected DensityGrid doInBackground() {
+                    startTime = System.nanoTime();
+                    SimulationContext context = SimulationContext.of(mapName, landMask, path, false);
+                    DensityGrid grid;
+                    if (adaptive) {
+                        convergence = AdaptiveSimulation.run(context, observed,
+                            new AdaptiveSimulation.Target(AUTO_PRECISION, AUTO_TIME_BUDGET_MS, samples), seed, ForkJoinPool.commonPool());
+                        System.out.println("LOG: Heatmap automático: " + convergence);
+                        grid = convergence.grid;
+                    } else {
+                        grid = MonteCarloSimulator.simulate(context, observed, samples, seed, ForkJoinPool.commonPool());
+                    }
+                    // Onde pousar: as células perto da rota mais próximas das safes das Fases 1 a 3
+                    long analysisStart = System.nanoTime();
+                    spots = DropSpotAnalysis.of(grid, context.getRules()).bestAlongRoute(context, DROP_SPOT_COUNT);
+                    System.out.printf("LOG: Pontos de pouso calculados em %.0f ms%n", (System.nanoTime() - analysisStart) / 1e6);
+                    return grid;
+                }
+                
+                @Override
+                protected void done() {
+                    simulateButton.setEnabled(true);
+                    try {
+                        DensityGrid result = get();
+                        double seconds = (System.nanoTime() - startTime) / 1e9;
+                        System.out.printf("LOG: %,d sequências simuladas em %.2fs (%,.0f seq/s)%n",
+                            result.getSamples(), seconds, result.getSamples() / seconds);
+                        // Só mostra se o mapa e a rota ainda são os que foram simulados
+                        if (startPoint != null && endPoint != null && mapIndex == selectedMap && path.equals(currentPath())
+                                && observed.equals(observedZones)) {
+                            heatmap = result;
+                            heatmapImage = renderHeatmap(heatmap, heatmapPhase);
+                            heatmapConvergence = convergence;
+                            dropSpots = spots;
+                            for (int i = 0; i < spots.size(); i++) {
+                                DropSpotAnalysis.DropSpot spot = spots.get(i);
+                                System.out.printf("LOG: Ponto de pouso %d: (%.2f, %.2f) km, a %.2f km da rota, distância esperada até as safes %.2f km%n",
+                                    i + 1, spot.x, spot.y, spot.routeDistance, spot.score);
+                            }
+                        }
+                    } catch (Exception ex) {
+                        ex.printStackTrace();
+                    }
+                    drawingPanel.repaint();
+                }
+            }.execute();
+        });
+        
+        // Listener para a ComboBox da fase do heatmap
+        heatmapPhaseComboBox.addActionListener(e -> {
+            heatmapPhase = heatmapPhaseComboBox.getSelectedIndex();
+            heatmapImage = (heatmap != null) ? renderHeatmap(heatmap, heatmapPhase) : null;
+            drawingPanel.repaint();
+        });
+        
         // Monta a janela
         mainPanel.add(topPanel, BorderLayout.NORTH);
         mainPanel.add(drawingPanel, BorderLayout.CENTER);
         
         frame.add(mainPanel);
         frame.setVisible(true);
-    } // --- FIM DO MÉTODO main ---
+        repaintWhenLoaded(frame, drawingPanel, selectedMap);
+    } // --- FIM DO MÉTODO createAndShowGui ---
 
     /**
-     * Carrega as imagens dos mapas da pasta 'resources' (dentro do pacote).
-     * Este método usa getResourceAsStream, que funciona mesmo
-     * depois que o projeto é compilado em um arquivo .jar.
+     * Pede o mapa (se ainda não foi pedido) e redesenha o painel quando ele estiver pronto.
+     * Se o arquivo do mapa não pôde ser lido, avisa o usuário (uma vez por mapa).
      */
-    private static void loadMapImages() {
-        String[] mapNames = {"erangel", "miramar", "taego", "rondo"};
-        
-        try {
-            for (String mapName : mapNames) {
-                // Modificação: Carregar como arquivo em vez de recurso
-                // Isso assume que o programa é executado da raiz do projeto
-                String path = "src" + java.io.File.separator + "safePubg" + java.io.File.separator + "maps" + java.io.File.separator + mapName + ".png";
-                java.io.File imageFile = new java.io.File(path);
+    private static void repaintWhenLoaded(JFrame frame, JPanel drawingPanel, int mapIndex) {
+        mapAssets.loadAsync(mapIndex).whenComplete((done, error) -> SwingUtilities.invokeLater(() -> {
+            String loadError = mapAssets.getLoadError(mapIndex);
+            if (loadError != null && reportedLoadErrors.add(mapIndex)) {
+                JOptionPane.showMessageDialog(frame,
+                    "Erro ao carregar o mapa " + MapAssets.MAPS[mapIndex] + "!\n" +
+                    "Verifique se as imagens estão em src/safePubg/maps (ou no classpath).\n" +
+                    "Detalhes: " + loadError);
+            }
+            drawingPanel.repaint();
+        }));
+    }
 
-                if (!imageFile.exists()) {
-                    throw new IOException("Arquivo de mapa não encontrado em: " + imageFile.getAbsolutePath());
+    /**
+     * Verifica se o mapa selecionado já carregou (e avisa o usuário se não).
+     */
+    private static boolean isMapReady(JFrame frame) {
+        if (mapAssets.isLoaded(selectedMap)) {
+            return true;
+        }
+        JOptionPane.showMessageDialog(frame, "O mapa " + MapAssets.MAPS[selectedMap] + " ainda está carregando. Tente de novo em instantes.");
+        return false;
+    }
+
+    /**
+     * Milissegundos desde que a JVM começou (para medir o tempo até o primeiro quadro).
+     */
+    private static long millisSinceJvmStart() {
+        return System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+
+    /**
+     * Congela a rota atual e chama o cérebro principal com a semente dada, fora da EDT
+     * (montar o contexto e simular não cabem na thread da interface).
+     * A sequência só é desenhada se a rota, o mapa e as safes fixadas não mudaram enquanto isso;
+     * uma previsão anterior que ainda esteja rodando é cancelada.
+     */
+    private static void predictWithSeed(JPanel drawingPanel, long seed) {
+        cancelPrediction();
+        int mapIndex = selectedMap;
+        String mapName = MapAssets.MAPS[mapIndex];
+        LandMask landMask = mapAssets.getLandMask(mapIndex);
+        FlightPath path = currentPath();
+        // Com safes fixadas, a sequência parte delas (previsão condicional)
+        List<SafeZone> observed = List.copyOf(observedZones);
+        predictionWorker = new SwingWorker<List<SafeZone>, Void>() {
+            @Override
+            protected List<SafeZone> doInBackground() {
+                SimulationContext context = SimulationContext.of(mapName, landMask, path, true);
+                System.out.println("LOG: Prevendo com a semente " + seed);
+                return SafeZoneEngine.predictFromObserved(context, observed, SafeZoneEngine.sequenceRandom(seed, 0));
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled() || predictionWorker != this) return;
+                predictionWorker = null;
+                try {
+                    List<SafeZone> sequence = get();
+                    if (startPoint != null && endPoint != null && mapIndex == selectedMap
+                            && path.equals(currentPath()) && observed.equals(observedZones)) {
+                        predictedZones = sequence;
+                        drawingPanel.repaint();
+                    }
+                } catch (Exception ex) {
+                    ex.printStackTrace();
                 }
-                
-                BufferedImage img = ImageIO.read(imageFile);
-                // Capitaliza o nome para usar como chave (ex: "Erangel")
-                String capitalizedMapName = mapName.substring(0, 1).toUpperCase() + mapName.substring(1);
-                mapImages.put(capitalizedMapName, img);
             }
-            System.out.println("Mapas carregados com sucesso do sistema de arquivos!");
+        };
+        predictionWorker.execute();
+    }
 
-        } catch (IOException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(null, 
-                "Erro ao carregar imagens do sistema de arquivos!\n" +
-                "Verifique se você está executando o programa da pasta raiz do projeto.\n" +
-                "Detalhes: " + e.getMessage());
-            // Se falhar, cria imagens coloridas simples
-            createDefaultMapImages();
+    /**
+     * Cancela a previsão em andamento (se houver): o resultado dela não é mais desenhado.
+     */
+    private static void cancelPrediction() {
+        if (predictionWorker != null) {
+            predictionWorker.cancel(false);
+            predictionWorker = null;
         }
     }
 
     /**
-     * Método de fallback. Cria imagens coloridas simples se os
-     * arquivos de mapa não forem encontrados.
+     * Lê a semente digitada pelo usuário.
+     * @return A semente, ou null se o texto não for um número inteiro.
      */
-    private static void createDefaultMapImages() {
-        for (int i = 0; i < MAPS.length; i++) {
-            BufferedImage img = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
-            Graphics2D g2d = img.createGraphics();
-            Color color;
-            switch (i) {
-                case 0: color = new Color(100, 150, 100); break; // Erangel
-                case 1: color = new Color(180, 150, 100); break; // Miramar
-                case 2: color = new Color(100, 100, 150); break; // Taego
-                default: color = new Color(150, 100, 150); break; // Rondo
-            }
-            g2d.setColor(color);
-            g2d.fillRect(0, 0, 800, 600);
-            g2d.setColor(Color.WHITE);
-            g2d.drawString(MAPS[i], 350, 300);
-            g2d.dispose();
-            mapImages.put(MAPS[i], img);
+    private static Long parseSeed(String text) {
+        try {
+            return Long.parseLong(text.trim());
+        } catch (NumberFormatException e) {
+            return null;
         }
     }
-    
+
     /**
-     * Calcula a qual zona (Central, Periférica, Borda) a rota do avião
-     * mais se aproxima, com base na sua distância ao centro do mapa.
+     * Desenha o mapa reescalado para o tamanho do painel (ou um fundo colorido se falhar).
+     * Usado pela camada em cache do mapa: roda só quando o mapa ou o tamanho mudam.
      */
-    private static void determineRouteZoneType() {
-        if (startPoint == null || endPoint == null) return;
-        
-        double centerX = 400; // Largura / 2
-        double centerY = 300; // Altura / 2
-        double mapRadius = 400; // Raio do mapa em pixels
-        
-        // Cria uma linha 2D para a rota do avião
-        Line2D route = new Line2D.Double(startPoint, endPoint);
-        // Calcula a menor distância da linha até o centro do mapa
-        double distToCenter = route.ptLineDist(centerX, centerY);
-        
-        // Classifica a rota
-        if (distToCenter < mapRadius * 0.25) {
-            routeZoneType = ZONE_CENTER;
-        } else if (distToCenter < mapRadius * 0.75) {
-            routeZoneType = ZONE_PERIPHERAL;
+    private static void paintMap(Graphics2D g2d, BufferedImage mapImg, int width, int height) {
+        if (mapImg != null) {
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g2d.drawImage(mapImg, 0, 0, width, height, null);
         } else {
-            routeZoneType = ZONE_EDGE;
+            g2d.setColor(MAP_COLOR);
+            g2d.fillRect(0, 0, width, height);
         }
     }
-    
-    // --- MÉTODOS PRINCIPAIS DA LÓGICA DO JOGO ---
 
     /**
-     * O CÉREBRO PRINCIPAL (Substitui o predictSafeZone original).
-     * Calcula a SEQUÊNCIA INTEIRA de 7 safes com base nas regras do PUBG.
+     * Converte um ponto do painel (pixels) para coordenadas do mundo (km).
      */
-    private static void predictSafeZoneSequence() {
-        if (routeZoneType < 0 || routeZoneType > 2) return;
-
-        predictedZones.clear();
-        Random rand = new Random(); 
+    private static Point2D toWorld(JPanel panel, Point point) {
+        WorldTransform screen = new WorldTransform(panel.getWidth(), panel.getHeight());
+        return new Point2D.Double(screen.toWorldX(point.getX()), screen.toWorldY(point.getY()));
+    }
 
-        // --- FASE 1: USA A LÓGICA COMPLEXA (PROBABILIDADES) ---
-        // (Simula a Regra da Rota do Avião da Seção 1.1)
-        
-        // 1. Pega a tabela de regras 3x3 baseada no tipo de rota
-        double[][] probs = PROBABILITIES[routeZoneType];
-        
-        // 2. Achata a tabela 3x3 para uma lista 1D de 9 elementos
-        double[] flatProbs = new double[9];
-        String[] zoneTypes = new String[9];
-        int index = 0;
-        for (int zone = 0; zone < 3; zone++) {
-            for (int dist = 0; dist < 3; dist++) {
-                flatProbs[index] = probs[zone][dist];
-                zoneTypes[index] = zone + "," + dist; // Guarda o que a regra significa (ex: "0,2")
-                if (index > 0) flatProbs[index] += flatProbs[index - 1]; // Cria probabilidade cumulativa
-                index++;
-            }
+    /**
+     * Desenha o heatmap da simulação Monte Carlo e a sequência de SAFES.
+     * Usado pela camada em cache das safes: roda só quando elas mudam.
+     * @param screen A transformação do mundo para os pixels do painel.
+     */
+    private static void paintZones(Graphics2D g2d, WorldTransform screen) {
+        // Deixa os círculos com bordas suaves
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        
+        // Heatmap (se existir); se não, a prévia ao vivo da Fase 1
+        BufferedImage densityImage = (heatmapImage != null) ? heatmapImage : previewImage;
+        if (densityImage != null) {
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            // A grade cobre o mapa inteiro, assim como a imagem
+            g2d.drawImage(densityImage, 0, 0,
+                (int) screen.scaleX(WorldTransform.WORLD_SIZE), (int) screen.scaleY(WorldTransform.WORLD_SIZE), null);
         }
         
-        // 3. Normaliza a roleta (para ir de 0 a 100)
-        double total = flatProbs[8];
-        if (total <= 0) total = 1; // Evita divisão por zero se todas as chances forem 0
-        for (int i = 0; i < 9; i++) flatProbs[i] = flatProbs[i] / total * 100;
-        
-        // 4. Gira a roleta (sorteia um número de 0 a 100)
-        double randomValue = rand.nextDouble() * 100;
-        int selected = 0;
-        for (; selected < 9; selected++) {
-            if (randomValue <= flatProbs[selected]) break;
+        // Loop para desenhar cada círculo
+        for (SafeZone zone : predictedZones) {
+            // A imagem do mapa é esticada para o painel, então o círculo acompanha o mesmo esticamento
+            int x = (int) screen.toScreenX(zone.center.getX() - zone.radius);
+            int y = (int) screen.toScreenY(zone.center.getY() - zone.radius);
+            int w = (int) screen.scaleX(zone.radius * 2);
+            int h = (int) screen.scaleY(zone.radius * 2);
+            
+            // Desenha o preenchimento branco semi-transparente
+            g2d.setColor(PREDICTED_ZONE_COLOR); 
+            g2d.fillOval(x, y, w, h); 
+            
+            // Desenha uma borda branca sólida por cima (estilo PUBG)
+            g2d.setColor(Color.WHITE);
+            g2d.setStroke(new BasicStroke(2)); 
+            g2d.drawOval(x, y, w, h);
         }
-        if(selected > 8) selected = 8; // Garante que não saia do array
-        
-        // 5. Decodifica o resultado
-        String[] parts = zoneTypes[selected].split(",");
-        int zone = Integer.parseInt(parts[0]);
-        int distance = Integer.parseInt(parts[1]);
-        
-        // --- FIM DO SORTEIO DA FASE 1 ---
         
-        // 6. Gera o CENTRO da Fase 1 usando as regras sorteadas
-        Point2D firstCenter = generateZonePoint(zone, distance, rand); 
-        if (firstCenter == null) {
-            System.out.println("ERRO: Falha crítica ao gerar a Fase 1.");
-            return;
+        // As safes fixadas (reais) ficam com uma borda amarela por cima
+        g2d.setColor(OBSERVED_ZONE_COLOR);
+        g2d.setStroke(new BasicStroke(2));
+        for (SafeZone zone : observedZones) {
+            g2d.drawOval((int) screen.toScreenX(zone.center.getX() - zone.radius),
+                         (int) screen.toScreenY(zone.center.getY() - zone.radius),
+                         (int) screen.scaleX(zone.radius * 2), (int) screen.scaleY(zone.radius * 2));
         }
-
-        // 7. Adiciona a Fase 1 à lista
-        SafeZone previousSafe = new SafeZone(firstCenter, PHASE_RADII[0]);
-        predictedZones.add(previousSafe);
         
-        // --- LÓGICA DAS FASES 2-7 (Baseada no Documento) ---
-        for (int i = 1; i < PHASE_RADII.length; i++) {
-            
-            Point2D nextCenter = null;
-            int attempts = 0;
-
-            // CORREÇÃO DE LÓGICA (Seção 2.3):
-            // O novo centro (C5) deve estar dentro de um raio de (R4 - R5)
-            // para garantir que o Círculo 5 caiba inteiramente dentro do Círculo 4.
-            double searchRadius = previousSafe.radius - PHASE_RADII[i]; 
-            if (searchRadius < 0) searchRadius = 0;
-
-            // Tenta gerar um ponto para a próxima safe que esteja EM TERRA
-            do {
-                // --- LÓGICA FASE-A-FASE ---
-                if (i == 3) { 
-                    // ----- FASE 4: REGRA DA "PROPORÇÃO DE TERRA" (Seção 1.2) -----
-                    // O documento diz que esta fase é determinística e força
-                    // um "hard shift" para longe da água.
-                    System.out.println("LOG: Calculando Fase 4 (Regra da Proporção de Terra)");
-                    nextCenter = generateRandomPointInCircle(
-                        previousSafe.center, 
-                        searchRadius, // Usa o raio de busca corrigido
-                        0.5, // Força o centro a estar na metade externa (Hard Shift)
-                        1.0, 
-                        rand
-                    );
-
-                } else {
-                    // ----- FASES 2, 3, 5, 6, 7: LÓGICA "SHIFT" (Seção 2.1) -----
-                    // O documento sugere que "hard shifts" são muito comuns (50%+).
-                    double roll = rand.nextDouble() * 100;
-                    double minRadiusPercent, maxRadiusPercent;
-
-                    if (roll < 50) { // 50% "Soft Shift" (perto do centro)
-                        minRadiusPercent = 0.0;
-                        maxRadiusPercent = 0.6;
-                    } else { // 50% "Hard Shift" (perto da borda)
-                        minRadiusPercent = 0.4;
-                        maxRadiusPercent = 1.0;
-                    }
-                    
-                    nextCenter = generateRandomPointInCircle(
-                        previousSafe.center, 
-                        searchRadius, // Usa o raio de busca corrigido
-                        minRadiusPercent, 
-                        maxRadiusPercent, 
-                        rand
-                    );
-                }
-                
-                attempts++;
-                // Se tentar 2000 vezes e não achar terra, desiste
-                if (attempts > 2000) { 
-                    System.out.println("AVISO: Não foi possível achar terra para a Fase " + (i+1) + ".");
-                    break;
-                }
-
-            } while (!isLand(nextCenter)); // Continua tentando se o ponto for na água
-            
-            // Adiciona a nova safe (Fase 2, 3, etc.) à lista
-            SafeZone nextSafe = new SafeZone(nextCenter, PHASE_RADII[i]);
-            predictedZones.add(nextSafe);
-            previousSafe = nextSafe; // A safe atual vira a "anterior"
+        // Os pontos de pouso sugeridos, numerados do melhor (1) para o pior
+        for (int i = 0; i < dropSpots.size(); i++) {
+            DropSpotAnalysis.DropSpot spot = dropSpots.get(i);
+            int x = (int) screen.toScreenX(spot.x);
+            int y = (int) screen.toScreenY(spot.y);
+            g2d.setColor(DROP_SPOT_COLOR);
+            g2d.fillOval(x - 6, y - 6, 12, 12);
+            g2d.setColor(Color.WHITE);
+            g2d.drawOval(x - 6, y - 6, 12, 12);
+            g2d.drawString(Integer.toString(i + 1), x + 8, y + 4);
         }
     }
 
     /**
-     * MÉTODO 2 (Substitui generateZonePoint original)
-     * Gera o ponto de centro para a FASE 1, com base nas regras de probabilidade
-     * e garantindo que esteja em terra.
+     * Apaga o heatmap atual, a prévia e a previsão em andamento (ex: quando a rota ou o mapa mudam).
      */
-    private static Point2D generateZonePoint(int zone, int distance, Random rand) {
-        double centerX = 400;
-        double centerY = 300;
-        double mapRadius = 400;
+    private static void clearHeatmap() {
+        heatmap = null;
+        heatmapImage = null;
+        heatmapConvergence = null;
+        dropSpots = List.of();
+        cancelPrediction();
+        livePreview.cancel();
+        previewImage = null;
+        previewSamples = 0;
+    }
 
-        // Define os raios da Zona (Central, Periférica, Borda)
-        double innerRadius, outerRadius;
-        if (zone == ZONE_CENTER) {
-            innerRadius = 0;
-            outerRadius = mapRadius * 0.25;
-        } else if (zone == ZONE_PERIPHERAL) {
-            innerRadius = mapRadius * 0.25;
-            outerRadius = mapRadius * 0.75;
-        } else { // ZONE_EDGE
-            innerRadius = mapRadius * 0.75;
-            outerRadius = mapRadius;
-        }
-        
-        // Define as distâncias da Rota (Sobre, Próximo, Distante)
-        double minDistFromRoute, maxDistFromRoute;
-        if (distance == 0) { // Sobre
-            minDistFromRoute = 0;
-            maxDistFromRoute = 0.2 * mapRadius;
-        } else if (distance == 1) { // Próximo
-            minDistFromRoute = 0.2 * mapRadius;
-            maxDistFromRoute = 0.6 * mapRadius;
-        } else { // Distante
-            minDistFromRoute = 0.6 * mapRadius;
-            maxDistFromRoute = mapRadius;
-        }
+    /**
+     * Pede a prévia ao vivo da rota atual (só registra o pedido: nada é simulado na EDT).
+     * Se o mapa ainda está carregando, não há prévia.
+     */
+    private static void requestPreview() {
+        if (startPoint == null || endPoint == null || !mapAssets.isLoaded(selectedMap)) return;
+        livePreview.request(MapAssets.MAPS[selectedMap], mapAssets.getLandMask(selectedMap), currentPath());
+    }
 
-        Point2D point = null;
-        int attempts = 0;
-        
-        // --- TENTATIVA 1: ACHAR O PONTO PERFEITO (ZONA + DISTÂNCIA + TERRA) ---
-        do {
-            // Gera um ponto aleatório dentro da ZONA sorteada
-            double angle = rand.nextDouble() * 2 * Math.PI;
-            double radius = innerRadius + rand.nextDouble() * (outerRadius - innerRadius);
-            double x = centerX + radius * Math.cos(angle);
-            double y = centerY + radius * Math.sin(angle);
-            point = new Point2D.Double(x, y);
+    /**
+     * A rota atual como um FlightPath (início, pontos intermediários e fim).
+     * Só chame com startPoint e endPoint definidos.
+     */
+    private static FlightPath currentPath() {
+        List<Point2D> points = new ArrayList<>(waypoints.size() + 2);
+        points.add(startPoint);
+        points.addAll(waypoints);
+        points.add(endPoint);
+        return FlightPath.of(points);
+    }
 
-            // Calcula a distância do ponto até a rota
-            Line2D route = new Line2D.Double(startPoint, endPoint);
-            double distToRoute = route.ptLineDist(point);
-            
-            // Verifica as 3 condições:
-            // 1. Está na Distância certa? 
-            // 2. Está na Zona certa? (já garantido pelo 'radius')
-            // 3. É Terra?
-            if (distToRoute >= minDistFromRoute && distToRoute <= maxDistFromRoute && isLand(point)) {
-                return point; // Achou!
+    /**
+     * Shift+clique: o botão esquerdo dobra a rota no ponto clicado (o ponto entra no trecho
+     * mais próximo dele), o direito remove o ponto intermediário mais próximo.
+     * A rota mudou, então as safes, o heatmap e a prévia são refeitos como numa rota nova.
+     */
+    private static void editWaypoints(JPanel drawingPanel, MouseEvent e) {
+        if (startPoint == null || endPoint == null) return;
+        Point2D point = toWorld(drawingPanel, e.getPoint());
+        if (SwingUtilities.isRightMouseButton(e)) {
+            if (waypoints.isEmpty()) return;
+            int nearest = 0;
+            for (int i = 1; i < waypoints.size(); i++) {
+                if (waypoints.get(i).distance(point) < waypoints.get(nearest).distance(point)) {
+                    nearest = i;
+                }
             }
-            attempts++;
-        } while (attempts < 15000); // Tenta 15.000 vezes
-
-        // --- TENTATIVA 2: ACHAR QUALQUER PONTO EM TERRA (IGNORANDO A DISTÂNCIA) ---
-        // Se falhar, é porque a combinação (ex: Borda + Distante) era impossível/água
-        System.out.println("LOG: Não foi possível achar um ponto perfeito. Tentando achar qualquer ponto em terra...");
-        attempts = 0;
-        do {
-            double angle = rand.nextDouble() * 2 * Math.PI;
-            double radius = innerRadius + rand.nextDouble() * (outerRadius - innerRadius);
-            double x = centerX + radius * Math.cos(angle);
-            double y = centerY + radius * Math.sin(angle);
-            point = new Point2D.Double(x, y);
-
-            if (isLand(point)) {
-                System.out.println("LOG: Ponto em terra encontrado. Ignorando distância da rota.");
-                return point;
+            waypoints.remove(nearest);
+        } else {
+            if (waypoints.size() + 2 >= FlightPath.MAX_POINTS) return;
+            // O trecho (entre os pontos i e i + 1 da rota) mais perto do clique
+            FlightPath path = currentPath();
+            int segment = 0;
+            double best = Double.POSITIVE_INFINITY;
+            for (int i = 0; i + 1 < path.getPointCount(); i++) {
+                double distance = Line2D.ptSegDist(path.getX(i), path.getY(i), path.getX(i + 1), path.getY(i + 1), point.getX(), point.getY());
+                if (distance < best) {
+                    best = distance;
+                    segment = i;
+                }
             }
-            attempts++;
-        } while (attempts < 25000); // Tenta mais 25.000 vezes
-
-        // --- TENTATIVA 3: DESISTIR ---
-        System.out.println("AVISO: Não foi possível encontrar um ponto em terra. Retornando último ponto.");
-        return point; // Retorna o último ponto (pode ser na água)
+            waypoints.add(segment, point);
+        }
+        predictedZones.clear();
+        clearObservedZones();
+        clearHeatmap();
+        routeZoneType = SafeZoneEngine.determineRouteZoneType(currentPath());
+        requestPreview();
+        drawingPanel.repaint();
     }
 
     /**
-     * MÉTODO 3 (Novo Método Auxiliar)
-     * Gera um ponto aleatório para as Fases 2-7, obedecendo à faixa de raio
-     * (minRadiusPercent, maxRadiusPercent) para simular Soft/Hard Shifts.
-     * @param center O centro do círculo anterior.
-     * @param searchRadius O raio MÁXIMO onde o novo centro pode estar (R_anterior - R_novo).
-     * @param minRadiusPercent A % mínima de 'searchRadius' (ex: 0.4 para Hard Shift).
-     * @param maxRadiusPercent A % máxima de 'searchRadius' (ex: 0.6 para Soft Shift).
-     * @param rand O gerador aleatório.
+     * Modo partida: o botão esquerdo fixa a safe real da próxima fase onde o usuário clicou,
+     * o direito desfaz a última. Depois, atualiza a previsão das fases que faltam.
      */
-    private static Point2D generateRandomPointInCircle(Point2D center, double searchRadius, double minRadiusPercent, double maxRadiusPercent, Random rand) {
-        // Pega um ângulo aleatório (0 a 360 graus)
-        double angle = 2 * Math.PI * rand.nextDouble();
-        
-        // Sorteia uma distância normalizada (0.0 a 1.0)
-        // Math.sqrt() garante distribuição uniforme PELA ÁREA, não pelo raio.
-        double rNorm = Math.sqrt(rand.nextDouble()); 
-        
-        // Mapeia o valor (0.0 a 1.0) para a faixa de % desejada
-        // Ex: (0.7 * (0.6 - 0.0)) + 0.0 = 0.42 (Soft Shift)
-        // Ex: (0.7 * (1.0 - 0.4)) + 0.4 = 0.82 (Hard Shift)
-        double rPercent = (rNorm * (maxRadiusPercent - minRadiusPercent)) + minRadiusPercent;
-        
-        // Aplica o raio de busca
-        double r = searchRadius * rPercent; 
-        
-        // Converte de polar (ângulo, raio) para cartesiano (x, y)
-        double x = center.getX() + r * Math.cos(angle);
-        double y = center.getY() + r * Math.sin(angle);
-        
-        return new Point2D.Double(x, y);
+    private static void pinObservedZone(JFrame frame, JPanel drawingPanel, JComboBox<String> heatmapPhaseComboBox, MouseEvent e) {
+        if (startPoint == null || endPoint == null) {
+            JOptionPane.showMessageDialog(frame, "Por favor, desenhe a rota do avião primeiro.");
+            return;
+        }
+        if (!isMapReady(frame)) return;
+        if (SwingUtilities.isRightMouseButton(e)) {
+            if (observedZones.isEmpty()) return;
+            observedZones.remove(observedZones.size() - 1);
+        } else {
+            int phase = observedZones.size();
+            if (phase >= SafeZoneEngine.PHASE_COUNT) return;
+            Point2D center = toWorld(drawingPanel, e.getPoint());
+            SafeZoneRules rules = RuleBook.current().forMap(MapAssets.MAPS[selectedMap]);
+            if (phase > 0) {
+                // A safe nova precisa caber na anterior (mesma regra de contenção do motor)
+                SafeZone previous = observedZones.get(phase - 1);
+                center = clampInside(center, previous.center, previous.radius - rules.getRadius(phase));
+            }
+            observedZones.add(SafeZone.of(center.getX(), center.getY(), rules.getRadius(phase)));
+        }
+        refreshConditionalForecast(drawingPanel, heatmapPhaseComboBox);
+        drawingPanel.repaint();
     }
-    
+
     /**
-     * MÉTODO 4 (Novo Método Auxiliar de Detecção de Água)
-     * Verifica se um ponto (coordenada) está em terra ou na água.
-     * Usa a regra de cor customizada (Azul > Verde E Azul > Vermelho + 10)
-     * que encontramos usando os seus dados de debug.
+     * Pede (fora da EDT) o heatmap das fases que faltam depois das safes fixadas,
+     * e uma sequência provável para desenhar. Cada prefixo é simulado uma única vez
+     * (ver ConditionalForecast), então desfazer e refazer é instantâneo.
+     * Se as regras foram recarregadas desde então, a previsão é refeita com as regras novas
+     * (os prefixos guardados foram simulados com as antigas).
      */
-    private static boolean isLand(Point2D point) {
-        BufferedImage currentMapImage = mapImages.get(MAPS[selectedMap]);
-        if (currentMapImage == null) {
-            return true; // Se o mapa não carregou, não podemos checar. Assume terra.
+    private static void refreshConditionalForecast(JPanel drawingPanel, JComboBox<String> heatmapPhaseComboBox) {
+        List<SafeZone> observed = List.copyOf(observedZones);
+        if (observed.isEmpty()) {
+            predictedZones = new ArrayList<>();
+            heatmap = null;
+            heatmapImage = null;
+            dropSpots = List.of();
+            return;
         }
-
-        int px = (int) point.getX();
-        int py = (int) point.getY();
-
-        // Verifica se o ponto está dentro dos limites da imagem
-        if (px >= 0 && px < currentMapImage.getWidth() && py >= 0 && py < currentMapImage.getHeight()) {
-            
-            Color pixelColor = new Color(currentMapImage.getRGB(px, py));
-            int red = pixelColor.getRed();
-            int green = pixelColor.getGreen();
-            int blue = pixelColor.getBlue();
-            
-            // **** A REGRA DE DETECÇÃO DE ÁGUA ****
-            if (blue > green && blue > (red + 10)) {
-                return false; // É água!
-            }
+        String mapName = MapAssets.MAPS[selectedMap];
+        SafeZoneRules rules = RuleBook.current().forMap(mapName);
+        if (conditionalForecast == null || conditionalForecastRulesVersion != rules.getVersion()) {
+            // O contexto da rota é montado uma única vez e reaproveitado por todas as safes fixadas
+            LandMask landMask = mapAssets.getLandMask(selectedMap);
+            FlightPath path = currentPath();
+            conditionalForecast = CompletableFuture.supplyAsync(() -> new ConditionalForecast(
+                SimulationContext.of(mapName, landMask, path, false).withRules(rules), FORECAST_SAMPLES, new SplittableRandom().nextLong()));
+            conditionalForecastRulesVersion = rules.getVersion();
         }
-        // Se estiver fora do mapa (px, py) ou não for água, é terra.
-        return true; 
+        // A próxima fase (a que o usuário ainda não viu) é a mais interessante de mostrar
+        int nextPhase = Math.min(observed.size(), SafeZoneEngine.PHASE_COUNT - 1);
+        CompletableFuture<ConditionalForecast> forecastFuture = conditionalForecast;
+        forecastFuture.thenCompose(forecast -> forecast.forecastAsync(observed).thenAccept(grid -> {
+            long startTime = System.nanoTime();
+            List<SafeZone> sequence = forecast.sampleSequence(observed);
+            BufferedImage image = renderHeatmap(grid, nextPhase);
+            SwingUtilities.invokeLater(() -> {
+                // Só mostra se nada mudou enquanto simulava
+                if (forecastFuture != conditionalForecast || !observed.equals(observedZones)) return;
+                predictedZones = sequence;
+                heatmap = grid;
+                // Com safes fixadas o pouso já passou: os pontos sugeridos saem da tela
+                dropSpots = List.of();
+                heatmapPhase = nextPhase;
+                heatmapImage = image;
+                heatmapPhaseComboBox.setSelectedIndex(nextPhase);
+                drawingPanel.repaint();
+            });
+        })).exceptionally(error -> {
+            error.printStackTrace();
+            return null;
+        });
     }
 
     /**
-     * MÉTODO 5 (Substitui o getZoneType original)
-     * Retorna o nome da zona (Central, Periférica, Borda) de um ponto.
-     * Inclui uma verificação para evitar erro se o ponto for nulo.
+     * Apaga as safes fixadas e a previsão condicional (ex: rota ou mapa novos).
      */
-    private static String getZoneType(Point2D point) {
-        if (point == null) return "Desconhecida"; // Correção de bug
+    private static void clearObservedZones() {
+        observedZones.clear();
+        conditionalForecast = null;
+    }
 
-        double centerX = 400; 
-        double centerY = 300; 
-        double mapRadius = 400;
-        
-        double dx = point.getX() - centerX;
-        double dy = point.getY() - centerY;
-        double distance = Math.sqrt(dx*dx + dy*dy);
-        
-        if (distance < mapRadius * 0.25) {
-            return "Zona Central";
-        } else if (distance < mapRadius * 0.75) {
-            return "Zona Periférica";
-        } else {
-            return "Zona de Borda";
+    /**
+     * Aproxima o ponto do centro até ficar a no máximo 'maxDistance' dele.
+     */
+    private static Point2D clampInside(Point2D point, Point2D center, double maxDistance) {
+        double distance = point.distance(center);
+        if (distance <= maxDistance || distance == 0) {
+            return point;
         }
+        double scale = Math.max(0, maxDistance) / distance;
+        return new Point2D.Double(center.getX() + (point.getX() - center.getX()) * scale,
+                                  center.getY() + (point.getY() - center.getY()) * scale);
     }
 
     /**
-     * ITEM 6 (Nova Classe Auxiliar)
-     * Uma classe simples ("struct") para guardar o centro
-     * e o raio de uma safe zone.
+     * Pinta a grade de densidade de uma fase em uma imagem pequena (um pixel por célula).
+     * A cor vai de azul (pouco provável) a vermelho (muito provável),
+     * e células sem nenhuma ocorrência ficam transparentes.
+     * Não usa o estado da interface, então pode rodar fora da EDT (ex: na thread da prévia).
      */
-    private static class SafeZone {
-        Point2D center;
-        double radius;
-        
-        SafeZone(Point2D center, double radius) {
-            this.center = center;
-            this.radius = radius;
+    private static BufferedImage renderHeatmap(DensityGrid grid, int phase) {
+        BufferedImage img = new BufferedImage(grid.getColumns(), grid.getRows(), BufferedImage.TYPE_INT_ARGB);
+        int max = grid.getMaxCount(phase);
+        if (max == 0) return img;
+        
+        for (int row = 0; row < grid.getRows(); row++) {
+            for (int col = 0; col < grid.getColumns(); col++) {
+                int count = grid.getCount(phase, col, row);
+                if (count == 0) continue;
+                // Raiz quadrada para realçar as células menos prováveis
+                float t = (float) Math.sqrt((double) count / max);
+                Color color = Color.getHSBColor(0.66f * (1 - t), 1f, 1f);
+                int alpha = (int) (60 + 150 * t);
+                img.setRGB(col, row, (alpha << 24) | (color.getRGB() & 0xFFFFFF));
+            }
         }
+        return img;
     }
     
 } // --- FIM DA CLASSE PUBGSafeZonePredictor ---
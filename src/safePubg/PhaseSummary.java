@@ -0,0 +1,72 @@
+package safePubg;
+
+/**
+ * PhaseSummary
+ * O resumo de uma fase de um heatmap, para quem não quer olhar a grade inteira:
+ * o centro médio, o quanto os centros se espalham em volta dele e a célula mais provável.
+ * Tudo em coordenadas do mundo (km). É imutável.
+ */
+final class PhaseSummary {
+    // Centro médio da fase (km)
+    final double meanX;
+    final double meanY;
+    // Desvio padrão da distância dos centros até o centro médio (km)
+    final double spread;
+    // Centro da célula mais provável (km) e a probabilidade dela
+    final double peakX;
+    final double peakY;
+    final double peakProbability;
+
+    private PhaseSummary(double meanX, double meanY, double spread, double peakX, double peakY, double peakProbability) {
+        this.meanX = meanX;
+        this.meanY = meanY;
+        this.spread = spread;
+        this.peakX = peakX;
+        this.peakY = peakY;
+        this.peakProbability = peakProbability;
+    }
+
+    /**
+     * Resume todas as fases da grade (usando o centro de cada célula).
+     * Fases sem nenhuma contagem (ex: as observadas na previsão condicional) ficam com tudo zero.
+     */
+    static PhaseSummary[] of(DensityGrid grid) {
+        PhaseSummary[] summaries = new PhaseSummary[SafeZoneEngine.PHASE_COUNT];
+        double cellWidth = grid.getAreaWidth() / grid.getColumns();
+        double cellHeight = grid.getAreaHeight() / grid.getRows();
+        for (int phase = 0; phase < summaries.length; phase++) {
+            long total = 0;
+            double sumX = 0, sumY = 0, sumSquares = 0;
+            int peakCount = 0, peakCol = 0, peakRow = 0;
+            for (int row = 0; row < grid.getRows(); row++) {
+                double y = (row + 0.5) * cellHeight;
+                for (int col = 0; col < grid.getColumns(); col++) {
+                    int count = grid.getCount(phase, col, row);
+                    if (count == 0) continue;
+                    double x = (col + 0.5) * cellWidth;
+                    total += count;
+                    sumX += count * x;
+                    sumY += count * y;
+                    sumSquares += count * (x * x + y * y);
+                    if (count > peakCount) {
+                        peakCount = count;
+                        peakCol = col;
+                        peakRow = row;
+                    }
+                }
+            }
+            if (total == 0) {
+                summaries[phase] = new PhaseSummary(0, 0, 0, 0, 0, 0);
+                continue;
+            }
+            double meanX = sumX / total;
+            double meanY = sumY / total;
+            // E[|p - média|²] = E[x² + y²] - |média|²
+            double variance = Math.max(0, sumSquares / total - (meanX * meanX + meanY * meanY));
+            summaries[phase] = new PhaseSummary(meanX, meanY, Math.sqrt(variance),
+                (peakCol + 0.5) * cellWidth, (peakRow + 0.5) * cellHeight,
+                grid.getProbability(phase, peakCol, peakRow));
+        }
+        return summaries;
+    }
+}
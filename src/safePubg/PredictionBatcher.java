@@ -0,0 +1,214 @@
+package safePubg;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * PredictionBatcher
+ * Junta (coalesce) as simulações Monte Carlo pedidas ao mesmo tempo para o mesmo mapa.
+ *
+ * Cada mapa tem uma fila. Enquanto um lote (batch) daquele mapa está rodando,
+ * os novos pedidos esperam na fila e entram todos juntos no próximo lote.
+ * Dentro de um lote:
+ * - Pedidos idênticos (mesma rota, semente e quantidade) rodam uma única vez
+ *   e todos recebem o mesmo resultado;
+ * - Pedidos com a mesma rota reaproveitam o mesmo SimulationContext
+ *   (e as tabelas de sorteio da Fase 1 que ele monta).
+ * Cada pedido leva as regras do mapa do momento em que foi feito: depois de recarregar
+ * o rules.properties, um contexto guardado troca só as regras (ver SimulationContext.withRules).
+ */
+final class PredictionBatcher {
+    // Quantos contextos (rotas) cada mapa guarda para reaproveitar entre lotes
+    private static final int CONTEXT_CACHE_SIZE = 64;
+
+    private final SafeZoneEngine engine;
+    private final Executor executor;
+    private final ConcurrentHashMap<String, MapQueue> queues = new ConcurrentHashMap<>();
+
+    /**
+     * @param engine O motor usado para montar os contextos.
+     * @param executor Onde os lotes rodam (cada mapa ocupa no máximo uma thread por vez).
+     */
+    PredictionBatcher(SafeZoneEngine engine, Executor executor) {
+        this.engine = engine;
+        this.executor = executor;
+    }
+
+    /**
+     * Pede uma simulação Monte Carlo com as regras atuais do mapa. O resultado chega
+     * pelo CompletableFuture quando o lote em que o pedido entrou terminar.
+     * @throws IllegalArgumentException Se o mapa não existir.
+     */
+    CompletableFuture<DensityGrid> submit(String mapId, double startX, double startY, double endX, double endY, long seed, int samples) {
+        return submit(mapId, startX, startY, endX, endY, seed, samples, null);
+    }
+
+    /**
+     * submit com as regras escolhidas por quem pede (ex: as mesmas cuja versão entrou na chave
+     * do SimulationCache), mesmo que o RuleBook mude enquanto o pedido espera na fila.
+     * @param rules As regras do mapa (null = as atuais).
+     * @throws IllegalArgumentException Se o mapa não existir.
+     */
+    CompletableFuture<DensityGrid> submit(String mapId, double startX, double startY, double endX, double endY,
+                                          long seed, int samples, SafeZoneRules rules) {
+        int mapIndex = MapAssets.indexOf(mapId);
+        if (mapIndex < 0) {
+            throw new IllegalArgumentException("Mapa desconhecido: " + mapId);
+        }
+        String map = MapAssets.MAPS[mapIndex];
+        if (rules == null) {
+            rules = RuleBook.current().forMap(map);
+        }
+        Job job = new Job(new Route(startX, startY, endX, endY), seed, samples, rules);
+        MapQueue queue = queues.computeIfAbsent(map, MapQueue::new);
+
+        synchronized (queue) {
+            // Pedido idêntico já na fila ou rodando? Compartilha o resultado.
+            CompletableFuture<DensityGrid> existing = queue.jobs.get(job);
+            if (existing != null) {
+                return existing;
+            }
+            CompletableFuture<DensityGrid> future = new CompletableFuture<>();
+            queue.jobs.put(job, future);
+            queue.pending.add(job);
+            if (!queue.running) {
+                queue.running = true;
+                executor.execute(() -> drain(queue));
+            }
+            return future;
+        }
+    }
+
+    /**
+     * Roda lotes daquele mapa até a fila esvaziar.
+     */
+    private void drain(MapQueue queue) {
+        while (true) {
+            List<Job> batch;
+            synchronized (queue) {
+                if (queue.pending.isEmpty()) {
+                    queue.running = false;
+                    return;
+                }
+                batch = queue.pending;
+                queue.pending = new ArrayList<>();
+            }
+
+            for (Job job : batch) {
+                CompletableFuture<DensityGrid> future;
+                synchronized (queue) {
+                    future = queue.jobs.get(job);
+                }
+                try {
+                    SimulationContext context = queue.contexts.get(job.route);
+                    if (context == null) {
+                        context = engine.createContext(queue.map,
+                            new Point2D.Double(job.route.startX, job.route.startY),
+                            new Point2D.Double(job.route.endX, job.route.endY));
+                    }
+                    // O contexto guardado pode ser de antes de recarregar as regras
+                    context = context.withRules(job.rules);
+                    queue.contexts.put(job.route, context);
+                    future.complete(MonteCarloSimulator.simulate(context, job.samples, job.seed));
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    synchronized (queue) {
+                        queue.jobs.remove(job);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A fila de um mapa. Protegida pelo próprio objeto (synchronized).
+     */
+    private static final class MapQueue {
+        final String map;
+        // Pedidos esperando ou rodando, com o resultado que todos os iguais compartilham
+        final Map<Job, CompletableFuture<DensityGrid>> jobs = new HashMap<>();
+        // Pedidos que ainda não entraram em nenhum lote
+        List<Job> pending = new ArrayList<>();
+        boolean running = false;
+        // Contextos das rotas recentes (só é acessado pela thread que está rodando o lote)
+        final Map<Route, SimulationContext> contexts = new LinkedHashMap<Route, SimulationContext>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Route, SimulationContext> eldest) {
+                return size() > CONTEXT_CACHE_SIZE;
+            }
+        };
+
+        MapQueue(String map) {
+            this.map = map;
+        }
+    }
+
+    /**
+     * Os pontos da rota (chave do cache de contextos).
+     */
+    private static final class Route {
+        final double startX, startY, endX, endY;
+
+        Route(double startX, double startY, double endX, double endY) {
+            this.startX = startX;
+            this.startY = startY;
+            this.endX = endX;
+            this.endY = endY;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Route)) return false;
+            Route r = (Route) o;
+            return Double.compare(startX, r.startX) == 0 && Double.compare(startY, r.startY) == 0
+                && Double.compare(endX, r.endX) == 0 && Double.compare(endY, r.endY) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(startX, startY, endX, endY);
+        }
+    }
+
+    /**
+     * Um pedido de simulação (chave para juntar pedidos idênticos).
+     */
+    private static final class Job {
+        final Route route;
+        final long seed;
+        final int samples;
+        // As regras com que o pedido deve rodar (a versão separa pedidos de antes e depois de recarregar)
+        final SafeZoneRules rules;
+
+        Job(Route route, long seed, int samples, SafeZoneRules rules) {
+            this.route = route;
+            this.seed = seed;
+            this.samples = samples;
+            this.rules = rules;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Job)) return false;
+            Job j = (Job) o;
+            return route.equals(j.route) && seed == j.seed && samples == j.samples
+                && rules.getVersion() == j.rules.getVersion();
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(route, seed, samples, rules.getVersion());
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package safePubg;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * PredictionMetrics
+ * Contadores do caminho quente da previsão, separados por mapa e tipo de rota,
+ * para descobrir quais combinações gastam o orçamento de tentativas:
+ * - quantos pontos cada fase sorteou até cair em terra (e quantas vezes bateu no limite de 2000);
+ * - quantas vezes a Fase 1 caiu no "qualquer ponto em terra" ou desistiu;
+ * - quanto tempo cada fase levou.
+ *
+ * Tudo usa LongAdder e LogHistogram (sem locks), então várias threads podem
+ * registrar ao mesmo tempo. Para pesar quase nada no caminho quente, o caso
+ * comum (ponto em terra na primeira tentativa) não toca em nenhum contador por
+ * fase, e só 1 em cada TIMING_SAMPLE_RATE sequências mede o tempo das fases
+ * e alimenta os histogramas. Cada combinação é publicada via JMX
+ * (safePubg:type=PredictionMetrics,map=...,route=...) e, se a propriedade
+ * safepubg.metrics.dumpSeconds estiver definida, impressa periodicamente.
+ */
+final class PredictionMetrics implements PredictionMetricsMXBean {
+    // Propriedade de sistema com o intervalo (em segundos) do dump periódico
+    static final String DUMP_PROPERTY = "safepubg.metrics.dumpSeconds";
+    // Uma em cada N sequências é cronometrada (System.nanoTime custa caro perto de uma fase)
+    static final int TIMING_SAMPLE_RATE = 64;
+
+    // Nomes dos tipos de rota, na ordem de ZONE_CENTER, ZONE_PERIPHERAL, ZONE_EDGE
+    private static final String[] ROUTE_TYPES = {"Central", "Periférica", "Borda"};
+
+    // Uma instância por "mapa/tipo de rota"
+    private static final ConcurrentMap<String, PredictionMetrics> REGISTRY = new ConcurrentHashMap<>();
+    private static ScheduledExecutorService dumper;
+
+    private final String map;
+    private final String routeType;
+    private final LongAdder sequences = new LongAdder();
+    private final LongAdder phase1AnyLand = new LongAdder();
+    private final LongAdder phase1GiveUp = new LongAdder();
+    // Tentativas ALÉM da primeira (a primeira é contada por 'sequences')
+    private final LongAdder[] extraAttempts = new LongAdder[SafeZoneEngine.PHASE_COUNT];
+    private final LongAccumulator[] maxAttempts = new LongAccumulator[SafeZoneEngine.PHASE_COUNT];
+    private final LongAdder[] capHits = new LongAdder[SafeZoneEngine.PHASE_COUNT];
+    private final LogHistogram[] attemptsHistogram = new LogHistogram[SafeZoneEngine.PHASE_COUNT];
+    private final LogHistogram[] phaseNanos = new LogHistogram[SafeZoneEngine.PHASE_COUNT];
+
+    private PredictionMetrics(String map, String routeType) {
+        this.map = map;
+        this.routeType = routeType;
+        for (int i = 0; i < SafeZoneEngine.PHASE_COUNT; i++) {
+            extraAttempts[i] = new LongAdder();
+            maxAttempts[i] = new LongAccumulator(Math::max, 1);
+            capHits[i] = new LongAdder();
+            attemptsHistogram[i] = new LogHistogram();
+            phaseNanos[i] = new LogHistogram();
+        }
+    }
+
+    /**
+     * As métricas de um mapa e tipo de rota (criadas e publicadas via JMX na primeira vez).
+     * @param map O nome do mapa (ou null se não for conhecido).
+     * @param routeZoneType ZONE_CENTER, ZONE_PERIPHERAL ou ZONE_EDGE (outro valor = "Nenhuma").
+     */
+    static PredictionMetrics forRoute(String map, int routeZoneType) {
+        String mapName = mapName(map);
+        String routeName = routeName(routeZoneType);
+        return REGISTRY.computeIfAbsent(mapName + "/" + routeName, key -> {
+            PredictionMetrics metrics = new PredictionMetrics(mapName, routeName);
+            metrics.registerMBean();
+            return metrics;
+        });
+    }
+
+    /**
+     * Métricas avulsas, fora do registro e do JMX: contam só as previsões de quem as usa
+     * (ex: um shard do ShardedSimulation, que grava as contagens da sua rota no resultado parcial).
+     */
+    static PredictionMetrics detached(String map, int routeZoneType) {
+        return new PredictionMetrics(mapName(map), routeName(routeZoneType));
+    }
+
+    private static String mapName(String map) {
+        return (map == null) ? "Desconhecido" : map;
+    }
+
+    private static String routeName(int routeZoneType) {
+        return (routeZoneType >= 0 && routeZoneType < ROUTE_TYPES.length) ? ROUTE_TYPES[routeZoneType] : "Nenhuma";
+    }
+
+    private void registerMBean() {
+        try {
+            ObjectName name = new ObjectName("safePubg:type=PredictionMetrics,map=" + ObjectName.quote(map)
+                + ",route=" + ObjectName.quote(routeType));
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            }
+        } catch (JMException | SecurityException e) {
+            // Sem JMX as métricas continuam funcionando (dump e getters)
+            System.err.println("AVISO: Não foi possível publicar as métricas via JMX: " + e.getMessage());
+        }
+    }
+
+    // --- REGISTRO (chamado pelo SafeZoneEngine) ---
+
+    /**
+     * Decide se a próxima sequência será cronometrada (amostragem de 1 em TIMING_SAMPLE_RATE).
+     * Usa o gerador da própria thread, então não altera o sorteio (nem a semente) da previsão.
+     */
+    static boolean shouldTime() {
+        return ThreadLocalRandom.current().nextInt(TIMING_SAMPLE_RATE) == 0;
+    }
+
+    /**
+     * Registra as tentativas de uma fase concluída.
+     * @param phase Índice da fase (0 = Fase 1).
+     * @param phaseAttempts Quantos pontos foram sorteados até achar terra (ou desistir).
+     * @param hitCap Se a fase desistiu por bater no limite de tentativas.
+     */
+    void recordAttempts(int phase, int phaseAttempts, boolean hitCap) {
+        if (phaseAttempts > 1) {
+            extraAttempts[phase].add(phaseAttempts - 1);
+            maxAttempts[phase].accumulate(phaseAttempts);
+        }
+        if (hitCap) capHits[phase].increment();
+    }
+
+    /**
+     * Registra o tempo (e as tentativas) de uma fase de uma sequência cronometrada.
+     */
+    void recordTiming(int phase, int phaseAttempts, long nanos) {
+        attemptsHistogram[phase].record(phaseAttempts);
+        phaseNanos[phase].record(nanos);
+    }
+
+    void recordSequence() {
+        sequences.increment();
+    }
+
+    void recordPhase1AnyLand() {
+        phase1AnyLand.increment();
+    }
+
+    void recordPhase1GiveUp() {
+        phase1GiveUp.increment();
+    }
+
+    // --- LEITURA (JMX e dump) ---
+
+    @Override
+    public String getMap() {
+        return map;
+    }
+
+    @Override
+    public String getRouteType() {
+        return routeType;
+    }
+
+    @Override
+    public long getSequences() {
+        return sequences.sum();
+    }
+
+    @Override
+    public long getPhase1AnyLandFallbacks() {
+        return phase1AnyLand.sum();
+    }
+
+    @Override
+    public long getPhase1GiveUps() {
+        return phase1GiveUp.sum();
+    }
+
+    @Override
+    public long[] getAttemptsPerPhase() {
+        long sequenceCount = sequences.sum();
+        long[] result = new long[extraAttempts.length];
+        for (int i = 0; i < result.length; i++) result[i] = sequenceCount + extraAttempts[i].sum();
+        return result;
+    }
+
+    @Override
+    public double[] getMeanAttemptsPerPhase() {
+        long sequenceCount = sequences.sum();
+        double[] result = new double[extraAttempts.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = (sequenceCount == 0) ? 0 : 1 + (double) extraAttempts[i].sum() / sequenceCount;
+        }
+        return result;
+    }
+
+    @Override
+    public long[] getMaxAttemptsPerPhase() {
+        long[] result = new long[maxAttempts.length];
+        for (int i = 0; i < result.length; i++) result[i] = (sequences.sum() == 0) ? 0 : maxAttempts[i].get();
+        return result;
+    }
+
+    @Override
+    public long[] getP99AttemptsPerPhase() {
+        long[] result = new long[attemptsHistogram.length];
+        for (int i = 0; i < result.length; i++) result[i] = attemptsHistogram[i].getPercentile(0.99);
+        return result;
+    }
+
+    @Override
+    public long[] getAttemptCapHitsPerPhase() {
+        long[] result = new long[capHits.length];
+        for (int i = 0; i < result.length; i++) result[i] = capHits[i].sum();
+        return result;
+    }
+
+    @Override
+    public double[] getMeanPhaseMicros() {
+        double[] result = new double[phaseNanos.length];
+        for (int i = 0; i < result.length; i++) result[i] = phaseNanos[i].getMean() / 1000.0;
+        return result;
+    }
+
+    @Override
+    public double[] getP99PhaseMicros() {
+        double[] result = new double[phaseNanos.length];
+        for (int i = 0; i < result.length; i++) result[i] = phaseNanos[i].getPercentile(0.99) / 1000.0;
+        return result;
+    }
+
+    @Override
+    public void reset() {
+        sequences.reset();
+        phase1AnyLand.reset();
+        phase1GiveUp.reset();
+        for (int i = 0; i < extraAttempts.length; i++) {
+            extraAttempts[i].reset();
+            maxAttempts[i].reset();
+            capHits[i].reset();
+            attemptsHistogram[i].reset();
+            phaseNanos[i].reset();
+        }
+    }
+
+    /**
+     * Uma linha de texto com as métricas desta combinação.
+     */
+    String summary() {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append(map).append('/').append(routeType)
+          .append(": sequencias=").append(getSequences())
+          .append(" fase1{qualquerTerra=").append(getPhase1AnyLandFallbacks())
+          .append(", desistiu=").append(getPhase1GiveUps()).append('}')
+          .append(" tentativasMedias=").append(format(getMeanAttemptsPerPhase()))
+          .append(" tentativasP99=").append(Arrays.toString(getP99AttemptsPerPhase()))
+          .append(" tentativasMax=").append(Arrays.toString(getMaxAttemptsPerPhase()))
+          .append(" limite2000=").append(Arrays.toString(getAttemptCapHitsPerPhase()))
+          .append(" tempoMedioUs=").append(format(getMeanPhaseMicros()))
+          .append(" p99Us=").append(format(getP99PhaseMicros()));
+        return sb.toString();
+    }
+
+    private static String format(double[] values) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(String.format(Locale.ROOT, "%.2f", values[i]));
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Todas as combinações que já previram alguma sequência, uma por linha (em ordem alfabética).
+     */
+    static String dumpAll() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, PredictionMetrics> entry : new TreeMap<>(REGISTRY).entrySet()) {
+            if (entry.getValue().getSequences() > 0) {
+                sb.append("METRICAS: ").append(entry.getValue().summary()).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Imprime dumpAll() em 'out' a cada 'periodSeconds' segundos, em uma thread daemon
+     * (não impede o programa de terminar). Chamar de novo não cria outra thread.
+     */
+    static synchronized void startPeriodicDump(long periodSeconds, PrintStream out) {
+        if (dumper != null || periodSeconds <= 0) return;
+        dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "prediction-metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> out.print(dumpAll()), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Liga o dump periódico se a propriedade safepubg.metrics.dumpSeconds foi definida
+     * (ex: -Dsafepubg.metrics.dumpSeconds=30).
+     */
+    static void startPeriodicDumpIfConfigured(PrintStream out) {
+        String value = System.getProperty(DUMP_PROPERTY);
+        if (value == null) return;
+        try {
+            startPeriodicDump(Long.parseLong(value.trim()), out);
+        } catch (NumberFormatException e) {
+            System.err.println("AVISO: Valor inválido para " + DUMP_PROPERTY + ": " + value);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package safePubg;
+
+/**
+ * PredictionMetricsMXBean
+ * O que as métricas de UMA combinação mapa + tipo de rota expõem via JMX
+ * (ex: no JConsole, em safePubg > PredictionMetrics).
+ * Os arrays têm uma posição por fase (Fase 1 primeiro).
+ */
+public interface PredictionMetricsMXBean {
+
+    String getMap();
+
+    String getRouteType();
+
+    /** Sequências completas previstas. */
+    long getSequences();
+
+    /** Vezes em que a Fase 1 ignorou a distância da rota ("qualquer ponto em terra"). */
+    long getPhase1AnyLandFallbacks();
+
+    /** Vezes em que a Fase 1 desistiu e devolveu um ponto qualquer (zona inteira na água). */
+    long getPhase1GiveUps();
+
+    /** Total de pontos sorteados por fase (cada ponto na água é uma tentativa a mais). */
+    long[] getAttemptsPerPhase();
+
+    double[] getMeanAttemptsPerPhase();
+
+    long[] getMaxAttemptsPerPhase();
+
+    /** Percentil 99 das tentativas (das sequências cronometradas). */
+    long[] getP99AttemptsPerPhase();
+
+    /** Vezes em que uma fase (2 a 7) estourou o limite de 2000 tentativas sem achar terra. */
+    long[] getAttemptCapHitsPerPhase();
+
+    /** Tempo médio de cada fase (das sequências cronometradas, 1 em cada 64). */
+    double[] getMeanPhaseMicros();
+
+    double[] getP99PhaseMicros();
+
+    /** Zera todos os contadores desta combinação. */
+    void reset();
+}
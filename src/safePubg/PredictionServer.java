@@ -0,0 +1,312 @@
+package safePubg;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * PredictionServer
+ * Serviço HTTP local (só usa o com.sun.net.httpserver do próprio JDK)
+ * para a ferramenta de overlay pedir previsões.
+ *
+ * POST /predict com um objeto JSON (coordenadas em km, de 0 a 8):
+ *   {"map":"Erangel","startX":1.0,"startY":0.8,"endX":7.0,"endY":6.7,"seed":42,"samples":10000}
+ * - samples ausente ou 1: devolve UMA sequência de 7 safes ("zones": [[x, y, raio], ...]).
+ * - samples > 1: roda Monte Carlo e devolve as contagens de cada fase na grade do heatmap.
+ *   Pedidos Monte Carlo simultâneos para o mesmo mapa são agrupados em lotes (PredictionBatcher).
+ * - samples > 1 SEM seed: a resposta vem do SimulationCache (a rota é arredondada para
+ *   uma grade de ~50 m e a semente é fixa), então rotas repetidas ou quase iguais voltam
+ *   em microssegundos. A resposta traz "cached", a rota arredondada ("route") e o resumo de cada fase ("summary").
+ * - "precision" (ex: 0.05) e/ou "timeBudgetMs" (ex: 200): Monte Carlo ADAPTATIVO (ver AdaptiveSimulation):
+ *   simula em rodadas até a precisão pedida ou o fim do tempo, com "samples" como máximo
+ *   (padrão MAX_SAMPLES) e seed opcional. A resposta traz a precisão alcançada ("convergence").
+ * - samples > 1 com "dropSpots": N: a resposta também traz os N melhores pontos de pouso ao longo
+ *   da rota (ver DropSpotAnalysis), com a chance de estar dentro e a distância esperada até as Fases 1 a 3.
+ *
+ * Cada requisição roda na sua própria thread virtual quando o JDK tem suporte (21+);
+ * nos JDKs mais antigos usa um pool de threads comuns.
+ *
+ * Uso:
+ *   java -Djava.awt.headless=true -cp bin safePubg.PredictionServer [porta]
+ */
+public final class PredictionServer {
+    static final int DEFAULT_PORT = 8080;
+    // Limite de sequências por pedido (evita que um único pedido ocupe a máquina)
+    static final int MAX_SAMPLES = 1_000_000;
+    // Limite de pontos de pouso por pedido
+    static final int MAX_DROP_SPOTS = 20;
+    // Tempo máximo que uma requisição espera pelo seu lote
+    private static final long REQUEST_TIMEOUT_SECONDS = 60;
+    // Tamanho máximo aceito para o corpo da requisição
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+
+    private final SafeZoneEngine engine;
+    private final PredictionBatcher batcher;
+    private final SimulationCache cache;
+    private final HttpServer server;
+    private final ExecutorService requestExecutor;
+    private final ExecutorService batchExecutor;
+
+    PredictionServer(SafeZoneEngine engine, InetSocketAddress address) throws IOException {
+        this.engine = engine;
+        this.requestExecutor = newRequestExecutor();
+        this.batchExecutor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "prediction-batch");
+            t.setDaemon(true);
+            return t;
+        });
+        this.batcher = new PredictionBatcher(engine, batchExecutor);
+        this.cache = SimulationCache.fromSystemProperties();
+        this.server = HttpServer.create(address, 1024);
+        server.createContext("/predict", this::handlePredict);
+        server.setExecutor(requestExecutor);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        SafeZoneEngine engine;
+        try {
+            engine = SafeZoneEngine.load();
+        } catch (IOException e) {
+            System.err.println("ERRO: Não foi possível carregar os mapas: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        PredictionServer predictionServer = new PredictionServer(engine, new InetSocketAddress("127.0.0.1", port));
+        predictionServer.start();
+        // Métricas: sempre via JMX; impressas a cada N segundos com -Dsafepubg.metrics.dumpSeconds=N
+        PredictionMetrics.startPeriodicDumpIfConfigured(System.out);
+        // Com -Dsafepubg.rules.file, as regras são trocadas a quente quando o arquivo muda
+        RuleBook.startWatchingIfConfigured();
+        System.out.println("LOG: Servidor de previsão ouvindo em http://127.0.0.1:" + port + "/predict");
+    }
+
+    void start() {
+        server.start();
+    }
+
+    void stop() {
+        server.stop(0);
+        requestExecutor.shutdownNow();
+        batchExecutor.shutdownNow();
+    }
+
+    /**
+     * Uma thread virtual por requisição (JDK 21+), ou um pool de threads comuns nos JDKs antigos.
+     * Usa reflexão para o código continuar compilando no JDK 17.
+     */
+    private static ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    private void handlePredict(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                respond(exchange, 405, "{\"error\":\"Use POST\"}");
+                return;
+            }
+            String response;
+            try {
+                response = predict(Json.parseFlatObject(readBody(exchange)));
+            } catch (IllegalArgumentException e) {
+                respond(exchange, 400, "{\"error\":" + Json.quote(String.valueOf(e.getMessage())) + "}");
+                return;
+            }
+            respond(exchange, 200, response);
+        } catch (TimeoutException e) {
+            respond(exchange, 503, "{\"error\":\"Tempo esgotado\"}");
+        } catch (Exception e) {
+            respond(exchange, 500, "{\"error\":" + Json.quote(String.valueOf(e.getMessage())) + "}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Interpreta o pedido e devolve o JSON da resposta.
+     */
+    String predict(Map<String, String> fields) throws Exception {
+        String map = require(fields, "map");
+        double startX, startY, endX, endY;
+        long seed;
+        int samples;
+        int dropSpots;
+        try {
+            startX = Double.parseDouble(require(fields, "startX"));
+            startY = Double.parseDouble(require(fields, "startY"));
+            endX = Double.parseDouble(require(fields, "endX"));
+            endY = Double.parseDouble(require(fields, "endY"));
+            samples = Integer.parseInt(fields.getOrDefault("samples", "1"));
+            dropSpots = Integer.parseInt(fields.getOrDefault("dropSpots", "0"));
+            if (dropSpots < 0 || dropSpots > MAX_DROP_SPOTS) {
+                throw new IllegalArgumentException("'dropSpots' deve estar entre 0 e " + MAX_DROP_SPOTS);
+            }
+            if (fields.containsKey("precision") || fields.containsKey("timeBudgetMs")) {
+                return predictAdaptive(map, startX, startY, endX, endY, fields, dropSpots);
+            }
+            if (samples > 1 && !fields.containsKey("seed")) {
+                return predictCached(map, startX, startY, endX, endY, samples, dropSpots);
+            }
+            seed = Long.parseLong(require(fields, "seed"));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Número inválido: " + e.getMessage());
+        }
+        if (samples < 1 || samples > MAX_SAMPLES) {
+            throw new IllegalArgumentException("'samples' deve estar entre 1 e " + MAX_SAMPLES);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"map\":").append(Json.quote(map)).append(",\"seed\":").append(seed);
+        if (samples == 1) {
+            List<SafeZone> zones = engine.predict(map, startX, startY, endX, endY, seed);
+            sb.append(",\"zones\":");
+            Json.appendZones(sb, zones);
+        } else {
+            DensityGrid grid;
+            try {
+                grid = batcher.submit(map, startX, startY, endX, endY, seed, samples)
+                    .get(REQUEST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                Throwable cause = (e.getCause() instanceof CompletionException) ? e.getCause().getCause() : e.getCause();
+                if (cause instanceof IllegalArgumentException) throw (IllegalArgumentException) cause;
+                throw e;
+            }
+            sb.append(",\"samples\":").append(grid.getSamples()).append(",\"density\":");
+            Json.appendDensity(sb, grid);
+            appendDropSpots(sb, grid, map, startX, startY, endX, endY, dropSpots);
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Monte Carlo adaptativo: para na precisão ou no tempo pedidos e diz a precisão alcançada.
+     */
+    private String predictAdaptive(String map, double startX, double startY, double endX, double endY,
+                                   Map<String, String> fields, int dropSpots) {
+        int maxSamples = Integer.parseInt(fields.getOrDefault("samples", Integer.toString(MAX_SAMPLES)));
+        if (maxSamples < 1 || maxSamples > MAX_SAMPLES) {
+            throw new IllegalArgumentException("'samples' deve estar entre 1 e " + MAX_SAMPLES);
+        }
+        long timeBudgetMillis = Long.parseLong(fields.getOrDefault("timeBudgetMs", "0"));
+        if (timeBudgetMillis > TimeUnit.SECONDS.toMillis(REQUEST_TIMEOUT_SECONDS)) {
+            throw new IllegalArgumentException("'timeBudgetMs' deve ser no máximo " + TimeUnit.SECONDS.toMillis(REQUEST_TIMEOUT_SECONDS));
+        }
+        AdaptiveSimulation.Target target = new AdaptiveSimulation.Target(
+            Double.parseDouble(fields.getOrDefault("precision", "0")), timeBudgetMillis, maxSamples);
+        long seed = fields.containsKey("seed") ? Long.parseLong(fields.get("seed")) : SimulationCache.SEED;
+        SimulationContext context = engine.createContext(map, new Point2D.Double(startX, startY), new Point2D.Double(endX, endY));
+        AdaptiveSimulation.Result result = AdaptiveSimulation.run(context, List.of(), target, seed, ForkJoinPool.commonPool());
+
+        StringBuilder sb = new StringBuilder(64 * 1024);
+        sb.append("{\"map\":").append(Json.quote(MapAssets.MAPS[MapAssets.indexOf(map)]))
+          .append(",\"seed\":").append(seed)
+          .append(",\"samples\":").append(result.grid.getSamples())
+          .append(",\"convergence\":");
+        Json.appendConvergence(sb, result);
+        sb.append(",\"density\":");
+        Json.appendDensity(sb, result.grid);
+        appendDropSpots(sb, result.grid, map, startX, startY, endX, endY, dropSpots);
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Monte Carlo sem semente: responde do cache (ou simula a rota arredondada e guarda).
+     */
+    private String predictCached(String mapId, double startX, double startY, double endX, double endY, int samples, int dropSpots) throws Exception {
+        if (samples < 1 || samples > MAX_SAMPLES) {
+            throw new IllegalArgumentException("'samples' deve estar entre 1 e " + MAX_SAMPLES);
+        }
+        int mapIndex = MapAssets.indexOf(mapId);
+        if (mapIndex < 0) {
+            throw new IllegalArgumentException("Mapa desconhecido: " + mapId);
+        }
+        String map = MapAssets.MAPS[mapIndex];
+        // As regras são lidas uma vez: a versão da chave é a das regras que a simulação usa
+        SafeZoneRules rules = RuleBook.current().forMap(map);
+        SimulationCache.Key key = cache.key(map, startX, startY, endX, endY, samples, rules);
+        CompletableFuture<SimulationCache.CachedResult> future = cache.get(key, k -> batcher.submit(map,
+            cache.toKm(k.startX), cache.toKm(k.startY), cache.toKm(k.endX), cache.toKm(k.endY), SimulationCache.SEED, samples, rules));
+        boolean cached = future.isDone();
+        SimulationCache.CachedResult result;
+        try {
+            result = future.get(REQUEST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = (e.getCause() instanceof CompletionException) ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof IllegalArgumentException) throw (IllegalArgumentException) cause;
+            throw e;
+        }
+
+        StringBuilder sb = new StringBuilder(result.json.length() + 256);
+        sb.append("{\"map\":").append(Json.quote(map))
+          .append(",\"seed\":").append(SimulationCache.SEED)
+          .append(",\"cached\":").append(cached)
+          .append(",\"route\":[").append(cache.toKm(key.startX)).append(',').append(cache.toKm(key.startY))
+          .append(',').append(cache.toKm(key.endX)).append(',').append(cache.toKm(key.endY)).append("],")
+          .append(result.json);
+        appendDropSpots(sb, result.grid, map, cache.toKm(key.startX), cache.toKm(key.startY),
+            cache.toKm(key.endX), cache.toKm(key.endY), dropSpots);
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Acrescenta os 'count' melhores pontos de pouso da simulação (nada se count for 0).
+     */
+    private void appendDropSpots(StringBuilder sb, DensityGrid grid, String map,
+                                 double startX, double startY, double endX, double endY, int count) {
+        if (count == 0) {
+            return;
+        }
+        SimulationContext context = engine.createContext(map, new Point2D.Double(startX, startY), new Point2D.Double(endX, endY));
+        sb.append(",\"dropSpots\":");
+        Json.appendDropSpots(sb, DropSpotAnalysis.of(grid, context.getRules()).bestAlongRoute(context, count));
+    }
+
+    private static String require(Map<String, String> fields, String key) {
+        String value = fields.get(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Campo obrigatório ausente: " + key);
+        }
+        return value;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                throw new IllegalArgumentException("Corpo da requisição muito grande");
+            }
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package safePubg;
+
+import java.util.Arrays;
+
+/**
+ * RouteDistanceField
+ * A distância até a rota do avião para o mapa inteiro, calculada uma única vez por rota,
+ * na resolução da máscara de terra. Depois disso, a distância de qualquer célula (e a
+ * faixa Sobre/Próximo/Distante que vem dela) é uma leitura O(1), não importa quantos
+ * trechos a rota tenha.
+ *
+ * Como é feito:
+ * 1. Cada trecho do meio da rota (ver FlightPath.featureDistance) marca as células por onde
+ *    passa (as "sementes"), guardando o número do trecho.
+ * 2. Uma transformada de distância euclidiana em tempo linear (Felzenszwalb e Huttenlocher:
+ *    uma passada por coluna e uma por linha, com o envelope inferior de parábolas) acha, para
+ *    cada célula, a semente mais próxima. A célula fica com o trecho dessa semente ("dono").
+ * 3. A leitura calcula a distância EXATA até o trecho dono e até os trechos que não viram
+ *    sementes: os das pontas (semirretas, que saem do mapa) e algum que saia do mapa
+ *    (só com pontos fora do mapa, ex: pela linha de comando). O ponto mais próximo deles
+ *    pode estar fora da grade, onde não há sementes.
+ * O trecho dono pode não ser o mais próximo só bem perto da fronteira entre dois trechos,
+ * e mesmo aí o erro fica abaixo de uma diagonal de célula (cerca de 12 m).
+ *
+ * A rota reta (dois pontos) tem um trecho só: não há transformada nem tabela, e a distância
+ * é exatamente Line2D.ptLineDist, como sempre foi.
+ *
+ * É imutável, então pode ser lido por várias threads.
+ */
+final class RouteDistanceField {
+    private final FlightPath path;
+    private final int width;
+    private final int height;
+    private final WorldTransform toGrid;
+    // O trecho dono de cada célula (y * largura + x); null = nenhum trecho virou semente (ex: rota reta)
+    private final byte[] owners;
+    // Trechos que sempre são conferidos na leitura: as duas pontas e os que saem do mapa
+    private final int[] alwaysChecked;
+
+    private RouteDistanceField(FlightPath path, int width, int height) {
+        this.path = path;
+        this.width = width;
+        this.height = height;
+        this.toGrid = new WorldTransform(width, height);
+        int[] seeds = new int[width * height];
+        Arrays.fill(seeds, -1);
+        int[] checked = new int[path.getFeatureCount()];
+        int checkedCount = 0;
+        for (int feature = 0; feature < path.getFeatureCount(); feature++) {
+            if (feature == 0 || feature == path.getFeatureCount() - 1 || !isInsideMap(feature)) {
+                checked[checkedCount++] = feature;
+            } else {
+                rasterize(feature, seeds);
+            }
+        }
+        alwaysChecked = Arrays.copyOf(checked, checkedCount);
+        owners = (checkedCount == path.getFeatureCount()) ? null : nearestFeature(seeds);
+    }
+
+    /**
+     * Calcula o campo da rota na resolução da máscara (ou na resolução padrão do ZoneSampler, sem máscara).
+     */
+    static RouteDistanceField of(FlightPath path, LandMask landMask) {
+        int width = (landMask != null) ? landMask.getWidth() : ZoneSampler.DEFAULT_RESOLUTION;
+        int height = (landMask != null) ? landMask.getHeight() : ZoneSampler.DEFAULT_RESOLUTION;
+        return new RouteDistanceField(path, width, height);
+    }
+
+    /**
+     * Se o segmento do trecho está inteiro dentro do mapa (basta as duas pontas estarem: o mapa é um quadrado).
+     */
+    private boolean isInsideMap(int feature) {
+        for (int i = feature; i <= feature + 1; i++) {
+            double x = path.getX(i), y = path.getY(i);
+            if (!(x >= 0 && x <= WorldTransform.WORLD_SIZE && y >= 0 && y <= WorldTransform.WORLD_SIZE)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Marca as células por onde o segmento do trecho passa, andando no máximo meia célula por passo.
+     */
+    private void rasterize(int feature, int[] seeds) {
+        double x1 = toGrid.toScreenX(path.getX(feature)), y1 = toGrid.toScreenY(path.getY(feature));
+        double x2 = toGrid.toScreenX(path.getX(feature + 1)), y2 = toGrid.toScreenY(path.getY(feature + 1));
+        int steps = (int) Math.ceil(Math.hypot(x2 - x1, y2 - y1) * 2) + 1;
+        for (int s = 0; s <= steps; s++) {
+            double t = (double) s / steps;
+            // A borda direita/de baixo do mapa (x = WORLD_SIZE) cai na última célula
+            int gx = Math.min(width - 1, (int) (x1 + t * (x2 - x1)));
+            int gy = Math.min(height - 1, (int) (y1 + t * (y2 - y1)));
+            seeds[gy * width + gx] = feature;
+        }
+    }
+
+    /**
+     * A transformada de distância com "quem é o mais próximo": para cada célula, o trecho
+     * da semente mais próxima (distâncias em km, então células não quadradas também dão certo).
+     */
+    private byte[] nearestFeature(int[] seeds) {
+        double cellWidth = WorldTransform.WORLD_SIZE / width;
+        double cellHeight = WorldTransform.WORLD_SIZE / height;
+        // 1ª passada (colunas): a semente mais próxima na mesma coluna (duas varreduras)
+        double[] columnDistance = new double[width * height];
+        int[] columnSeed = new int[width * height];
+        for (int x = 0; x < width; x++) {
+            int nearest = -1;
+            for (int y = 0; y < height; y++) {
+                if (seeds[y * width + x] >= 0) nearest = y;
+                columnSeed[y * width + x] = nearest;
+            }
+            nearest = -1;
+            for (int y = height - 1; y >= 0; y--) {
+                int index = y * width + x;
+                if (seeds[index] >= 0) nearest = y;
+                int above = columnSeed[index];
+                int best = (above < 0 || nearest >= 0 && nearest - y < y - above) ? nearest : above;
+                columnSeed[index] = best;
+                double d = (best - y) * cellHeight;
+                columnDistance[index] = (best < 0) ? Double.POSITIVE_INFINITY : d * d;
+            }
+        }
+
+        // 2ª passada (linhas): envelope inferior das parábolas (x - q)² + coluna(q)
+        byte[] result = new byte[width * height];
+        int[] sites = new int[width];
+        double[] bounds = new double[width + 1];
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            int k = -1;
+            for (int q = 0; q < width; q++) {
+                double f = columnDistance[row + q];
+                if (f == Double.POSITIVE_INFINITY) continue;
+                double z = q * cellWidth;
+                double s = Double.NEGATIVE_INFINITY;
+                while (k >= 0) {
+                    int p = sites[k];
+                    double zp = p * cellWidth;
+                    s = ((f + z * z) - (columnDistance[row + p] + zp * zp)) / (2 * (z - zp));
+                    if (s > bounds[k]) break;
+                    k--;
+                }
+                k++;
+                sites[k] = q;
+                bounds[k] = (k == 0) ? Double.NEGATIVE_INFINITY : s;
+                bounds[k + 1] = Double.POSITIVE_INFINITY;
+            }
+            int j = 0;
+            for (int x = 0; x < width; x++) {
+                double z = x * cellWidth;
+                while (bounds[j + 1] < z) j++;
+                int q = sites[j];
+                int seedRow = columnSeed[row + q];
+                result[row + x] = (byte) seeds[seedRow * width + q];
+            }
+        }
+        return result;
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    FlightPath getPath() {
+        return path;
+    }
+
+    /**
+     * A distância (km) do centro da célula (x, y) da grade até a rota. O(1).
+     */
+    double distanceAtCell(int x, int y) {
+        return distance(owners == null ? -1 : owners[y * width + x], toGrid.toWorldX(x + 0.5), toGrid.toWorldY(y + 0.5));
+    }
+
+    /**
+     * A distância (km) de um ponto do mundo até a rota. O(1) dentro do mapa;
+     * fora dele, a conta é feita trecho por trecho (FlightPath.distance).
+     */
+    double distance(double px, double py) {
+        if (owners == null) {
+            return distance(-1, px, py);
+        }
+        int x = (int) Math.floor(toGrid.toScreenX(px));
+        int y = (int) Math.floor(toGrid.toScreenY(py));
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return path.distance(px, py);
+        }
+        return distance(owners[y * width + x], px, py);
+    }
+
+    private double distance(int owner, double px, double py) {
+        double best = (owner >= 0) ? path.featureDistance(owner, px, py) : Double.POSITIVE_INFINITY;
+        for (int feature : alwaysChecked) {
+            best = Math.min(best, path.featureDistance(feature, px, py));
+        }
+        return best;
+    }
+}
@@ -0,0 +1,245 @@
+package safePubg;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * RuleBook
+ * O conjunto de regras em vigor: as regras gerais e as de cada mapa
+ * (com os ajustes "map.<mapa>.*" do arquivo), todas já compiladas (SafeZoneRules).
+ *
+ * De onde vêm as regras:
+ *   -Dsafepubg.rules.file=arquivo   Um arquivo .properties qualquer (recarregado quando muda)
+ *   (sem a propriedade)              O rules.properties que vai junto com o programa
+ *
+ * Troca a quente: com um arquivo configurado, startWatchingIfConfigured() vigia a pasta
+ * (WatchService) e, quando o arquivo muda, compila as regras novas e troca o RuleBook
+ * inteiro de uma vez (AtomicReference). Quem já pegou as regras antigas (ex: um
+ * SimulationContext de uma simulação em andamento) continua com elas até terminar.
+ * Um arquivo com erro não derruba nada: o erro é impresso e as regras antigas continuam.
+ */
+final class RuleBook {
+    // Propriedade de sistema com o arquivo de regras
+    static final String FILE_PROPERTY = "safepubg.rules.file";
+    // O arquivo que vai junto com o programa (classpath, ou src/safePubg ao rodar da raiz do projeto)
+    private static final String BUNDLED_FILE = "rules.properties";
+
+    private static final AtomicReference<RuleBook> CURRENT = new AtomicReference<>();
+    private static Thread watcher;
+
+    private final SafeZoneRules defaults;
+    // Chave: nome do mapa em minúsculas
+    private final Map<String, SafeZoneRules> byMap;
+    private final String source;
+
+    private RuleBook(SafeZoneRules defaults, Map<String, SafeZoneRules> byMap, String source) {
+        this.defaults = defaults;
+        this.byMap = byMap;
+        this.source = source;
+    }
+
+    /**
+     * Compila as regras gerais e as de cada mapa conhecido (MapAssets.MAPS).
+     * @param source De onde as regras vieram (só para as mensagens).
+     * @throws IllegalArgumentException Se alguma regra for inválida (a mensagem diz qual).
+     */
+    static RuleBook parse(Properties props, String source) {
+        SafeZoneRules defaults = SafeZoneRules.parse(props, null);
+        Map<String, SafeZoneRules> byMap = new HashMap<>();
+        for (String map : MapAssets.MAPS) {
+            try {
+                byMap.put(map.toLowerCase(Locale.ROOT), SafeZoneRules.parse(props, map));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(map + ": " + e.getMessage());
+            }
+        }
+        return new RuleBook(defaults, byMap, source);
+    }
+
+    /**
+     * As regras em vigor (lidas na primeira chamada).
+     * @throws UncheckedIOException Se o arquivo de regras não puder ser lido.
+     * @throws IllegalArgumentException Se o arquivo de regras for inválido.
+     */
+    static RuleBook current() {
+        RuleBook book = CURRENT.get();
+        if (book == null) {
+            try {
+                CURRENT.compareAndSet(null, load());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Não foi possível ler as regras: " + e.getMessage(), e);
+            }
+            book = CURRENT.get();
+        }
+        return book;
+    }
+
+    /**
+     * Lê e compila as regras (do arquivo configurado ou do que vai junto com o programa).
+     */
+    static RuleBook load() throws IOException {
+        Path file = configuredFile();
+        return parse(loadProperties(), (file != null) ? file.toString() : "safePubg/" + BUNDLED_FILE);
+    }
+
+    /**
+     * As chaves do arquivo de regras em vigor, sem compilar (ex: como base para o RuleCalibrator).
+     */
+    static Properties loadProperties() throws IOException {
+        Path file = configuredFile();
+        if (file != null) {
+            return read(file);
+        }
+        InputStream resource = RuleBook.class.getResourceAsStream(BUNDLED_FILE);
+        if (resource != null) {
+            try (Reader in = new InputStreamReader(resource, StandardCharsets.UTF_8)) {
+                return read(in);
+            }
+        }
+        File bundled = new File("src" + File.separator + "safePubg" + File.separator + BUNDLED_FILE);
+        if (!bundled.exists()) {
+            throw new IOException("Regras não encontradas no classpath (safePubg/" + BUNDLED_FILE
+                + ") nem em: " + bundled.getAbsolutePath());
+        }
+        return read(bundled.toPath());
+    }
+
+    /**
+     * Lê um arquivo de regras (UTF-8), sem compilar.
+     */
+    static Properties read(Path file) throws IOException {
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return read(in);
+        }
+    }
+
+    private static Properties read(Reader in) throws IOException {
+        Properties props = new Properties();
+        props.load(in);
+        return props;
+    }
+
+    /**
+     * O arquivo de -Dsafepubg.rules.file, ou null se não houver.
+     */
+    static Path configuredFile() {
+        String file = System.getProperty(FILE_PROPERTY);
+        return (file != null) ? Paths.get(file).toAbsolutePath() : null;
+    }
+
+    /**
+     * Lê as regras de novo e, se forem válidas, coloca no lugar das atuais.
+     * @return true se as regras foram trocadas; false se o arquivo tem erro
+     *         (as regras atuais continuam valendo) ou se nada mudou.
+     */
+    static boolean reload() {
+        RuleBook fresh;
+        try {
+            fresh = load();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("ERRO: Regras inválidas, mantendo as anteriores: " + e.getMessage());
+            return false;
+        }
+        RuleBook previous = CURRENT.getAndSet(fresh);
+        if (previous != null && previous.sameRules(fresh)) {
+            return false;
+        }
+        System.out.println("LOG: Regras recarregadas de " + fresh.source);
+        return true;
+    }
+
+    /**
+     * Se houver um arquivo de regras configurado, vigia a pasta dele em uma thread daemon
+     * ("rules-watcher") e recarrega as regras sempre que o arquivo for salvo.
+     */
+    static synchronized void startWatchingIfConfigured() {
+        Path file = configuredFile();
+        if (file == null || watcher != null) {
+            return;
+        }
+        WatchService watchService;
+        try {
+            watchService = file.getFileSystem().newWatchService();
+            // Vigia a PASTA: muitos editores salvam criando um arquivo novo no lugar do antigo
+            file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            System.err.println("AVISO: Não foi possível vigiar o arquivo de regras: " + e.getMessage());
+            return;
+        }
+        watcher = new Thread(() -> watch(watchService, file), "rules-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        System.out.println("LOG: Vigiando as regras em " + file);
+    }
+
+    private static void watch(WatchService watchService, Path file) {
+        Path fileName = file.getFileName();
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed |= fileName.equals(event.context());
+                }
+                key.reset();
+                if (changed) {
+                    // Um "salvar" costuma gerar vários eventos seguidos: espera o arquivo assentar
+                    Thread.sleep(100);
+                    for (WatchKey pending = watchService.poll(); pending != null; pending = watchService.poll()) {
+                        pending.pollEvents();
+                        pending.reset();
+                    }
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Fim da vigilância
+        }
+    }
+
+    /**
+     * As regras de um mapa (as gerais se o mapa for desconhecido ou null).
+     */
+    SafeZoneRules forMap(String map) {
+        SafeZoneRules rules = (map == null) ? null : byMap.get(map.toLowerCase(Locale.ROOT));
+        return (rules != null) ? rules : defaults;
+    }
+
+    /**
+     * As regras gerais (sem os ajustes por mapa).
+     */
+    SafeZoneRules defaults() {
+        return defaults;
+    }
+
+    private boolean sameRules(RuleBook other) {
+        if (defaults.getVersion() != other.defaults.getVersion()) {
+            return false;
+        }
+        for (Map.Entry<String, SafeZoneRules> entry : byMap.entrySet()) {
+            SafeZoneRules otherRules = other.byMap.get(entry.getKey());
+            if (otherRules == null || otherRules.getVersion() != entry.getValue().getVersion()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,521 @@
+package safePubg;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * RuleCalibrator
+ * Ajusta as regras do jogo (rules.properties) a partir de logs de partidas reais,
+ * para recalibrar o preditor depois de cada patch do jogo.
+ *
+ * Cada linha do log é uma partida: o mapa, a rota do avião e as safes observadas
+ * (centro e raio, em km no mapa de 8 x 8 km, Fase 1 primeiro; pode ter menos de 7):
+ *   CSV:   map,startX,startY,endX,endY,x1,y1,r1,x2,y2,r2,...,x7,y7,r7
+ *   JSONL: {"map":"Erangel","startX":1.0,"startY":0.8,"endX":7.0,"endY":6.7,"x1":3.9,"y1":4.2,"r1":3.0,...}
+ * Linhas vazias, comentários (#) e o cabeçalho do CSV são ignorados.
+ *
+ * Os arquivos são lidos em blocos (MatchLogScanner) e divididos em pedaços, um por tarefa;
+ * cada tarefa conta em uma CalibrationCounts só dela, e as contagens são juntadas no final.
+ * Então o tamanho dos logs não importa e o tempo cai com o número de núcleos.
+ *
+ * O que é ajustado:
+ * - Fase 1: a tabela tipo de rota x zona x distância (contagens com suavização de Laplace),
+ *   geral e por mapa (quando o mapa tem partidas suficientes);
+ * - Fases 2, 3, 5, 6, 7: chance e faixas do Soft/Hard Shift de cada fase, pela máxima
+ *   verossimilhança do histograma de shifts (faixas em passos de 0.05, chance por EM);
+ * - os raios das fases (média observada).
+ * A Fase 4 (escolha pela proporção de terra) e o que não tem dados suficientes vêm das regras base.
+ * Obs: o motor descarta pontos na água, o que o modelo de shift não enxerga; em mapas com
+ * muita água, as faixas ajustadas ficam um pouco mais largas que as "verdadeiras".
+ *
+ * No final, imprime a log-verossimilhança média das partidas de teste (held-out)
+ * com as regras base e com as ajustadas: quanto maior, melhor.
+ *
+ * Uso:
+ *   java -cp bin safePubg.RuleCalibrator logs/ [mais arquivos...] [--out regras.properties]
+ *        [--threads N] [--holdout 10] [--smoothing 0.5] [--min-map-matches 2000] [--base regras.properties]
+ * Depois: java -Dsafepubg.rules.file=regras.properties ... (ou só salve por cima do arquivo vigiado).
+ */
+public final class RuleCalibrator {
+    // Pedaços de arquivo menores que isso não compensam uma tarefa
+    private static final long MIN_PART_SIZE = 8L << 20;
+    // Mínimo de shifts observados para ajustar uma fase
+    private static final long MIN_SHIFT_SAMPLES = 50;
+    // Passos das faixas testadas (0.00, 0.05, ..., 1.00)
+    private static final int BAND_STEPS = 20;
+    private static final int EM_ITERATIONS = 25;
+    // Piso das chances (evita log(0) quando um dado cai fora das faixas)
+    private static final double EPSILON = 1e-9;
+
+    private RuleCalibrator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<Path> inputs = new ArrayList<>();
+        Path output = Paths.get("rules-calibrated.properties");
+        Path base = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int holdout = 10;
+        double smoothing = 0.5;
+        long minMapMatches = 2000;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                boolean hasValue = i + 1 < args.length;
+                if ("--out".equals(args[i]) && hasValue) {
+                    output = Paths.get(args[++i]);
+                } else if ("--threads".equals(args[i]) && hasValue) {
+                    threads = Math.max(1, Integer.parseInt(args[++i]));
+                } else if ("--holdout".equals(args[i]) && hasValue) {
+                    holdout = Math.max(0, Math.min(90, Integer.parseInt(args[++i])));
+                } else if ("--smoothing".equals(args[i]) && hasValue) {
+                    smoothing = Math.max(0, Double.parseDouble(args[++i]));
+                } else if ("--min-map-matches".equals(args[i]) && hasValue) {
+                    minMapMatches = Long.parseLong(args[++i]);
+                } else if ("--base".equals(args[i]) && hasValue) {
+                    base = Paths.get(args[++i]);
+                } else if (args[i].startsWith("--")) {
+                    throw new IllegalArgumentException("Opção desconhecida: " + args[i]);
+                } else {
+                    inputs.add(Paths.get(args[i]));
+                }
+            }
+            if (inputs.isEmpty()) {
+                throw new IllegalArgumentException("Nenhum log informado");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("ERRO: " + e.getMessage());
+            printUsage();
+            System.exit(2);
+            return;
+        }
+
+        Properties baseRules = (base != null) ? RuleBook.read(base) : RuleBook.loadProperties();
+        List<Path> files = listFiles(inputs);
+        long startTime = System.nanoTime();
+        long[] bytesRead = new long[1];
+        CalibrationCounts counts = count(files, threads, holdout, bytesRead);
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        System.err.printf(Locale.ROOT, "LOG: %d partidas (%d treino, %d teste, %d linhas rejeitadas) de %d arquivo(s), %.1f MB em %.2fs (%.0f MB/s, %d threads)%n",
+            counts.trainMatches + counts.heldOutMatches, counts.trainMatches, counts.heldOutMatches, counts.rejectedLines,
+            files.size(), bytesRead[0] / 1e6, seconds, bytesRead[0] / 1e6 / seconds, threads);
+        if (counts.trainMatches == 0) {
+            System.err.println("ERRO: Nenhuma partida válida para o treino.");
+            System.exit(1);
+            return;
+        }
+
+        String text = fit(counts, baseRules, smoothing, minMapMatches, files);
+        RuleBook fitted;
+        try {
+            Properties props = new Properties();
+            props.load(new StringReader(text));
+            fitted = RuleBook.parse(props, output.toString());
+        } catch (IllegalArgumentException e) {
+            System.err.println("ERRO: As regras ajustadas são inválidas: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        Path parent = output.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, output.getFileName().toString(), ".tmp");
+        Files.writeString(temp, text, StandardCharsets.UTF_8);
+        // Troca de uma vez: quem vigia o arquivo (RuleBook) nunca lê um arquivo pela metade
+        Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        System.err.println("LOG: Regras ajustadas gravadas em " + output);
+
+        if (counts.heldOutMatches > 0) {
+            RuleBook baseBook = RuleBook.parse(baseRules, "base");
+            double baseScore = heldOutLogLikelihood(counts, baseBook);
+            double fittedScore = heldOutLogLikelihood(counts, fitted);
+            System.err.printf(Locale.ROOT, "LOG: Log-verossimilhança média por partida de teste: base %.4f, ajustada %.4f (%+.4f)%n",
+                baseScore, fittedScore, fittedScore - baseScore);
+        }
+    }
+
+    /**
+     * Os arquivos de log (uma pasta vira os seus arquivos .csv, .jsonl, .log e .txt, em ordem alfabética).
+     */
+    static List<Path> listFiles(List<Path> inputs) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path input : inputs) {
+            if (Files.isDirectory(input)) {
+                try (Stream<Path> listing = Files.list(input)) {
+                    listing.filter(Files::isRegularFile)
+                        .filter(p -> p.getFileName().toString().matches("(?i).*\\.(csv|jsonl|log|txt)"))
+                        .sorted()
+                        .forEach(files::add);
+                }
+            } else {
+                files.add(input);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Lê todos os arquivos em paralelo (vários pedaços por arquivo) e junta as contagens.
+     * @param bytesRead Recebe quantos bytes foram lidos.
+     */
+    static CalibrationCounts count(List<Path> files, int threads, int holdout, long[] bytesRead)
+            throws IOException, InterruptedException, ExecutionException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<CalibrationCounts>> parts = new ArrayList<>();
+            List<long[]> partBytes = new ArrayList<>();
+            for (Path file : files) {
+                for (long[] range : MatchLogScanner.split(Files.size(file), threads * 4, MIN_PART_SIZE)) {
+                    long[] read = new long[1];
+                    partBytes.add(read);
+                    Callable<CalibrationCounts> task = () -> {
+                        CalibrationCounts partial = new CalibrationCounts(holdout);
+                        read[0] = MatchLogScanner.scan(file, range[0], range[1], line -> parseLine(line, partial));
+                        return partial;
+                    };
+                    parts.add(pool.submit(task));
+                }
+            }
+            CalibrationCounts total = new CalibrationCounts(holdout);
+            for (Future<CalibrationCounts> part : parts) {
+                total.merge(part.get());
+            }
+            for (long[] read : partBytes) {
+                bytesRead[0] += read[0];
+            }
+            return total;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Interpreta uma linha (CSV ou JSON) e conta a partida.
+     */
+    static void parseLine(String rawLine, CalibrationCounts counts) {
+        String line = rawLine.trim();
+        if (line.isEmpty() || line.startsWith("#") || line.regionMatches(true, 0, "map,", 0, 4)) {
+            return;
+        }
+        try {
+            String map;
+            double[] route = new double[4];
+            List<double[]> circles = new ArrayList<>(SafeZoneEngine.PHASE_COUNT);
+            if (line.startsWith("{")) {
+                Map<String, String> fields = Json.parseFlatObject(line);
+                map = fields.get("map");
+                String[] routeKeys = {"startX", "startY", "endX", "endY"};
+                for (int i = 0; i < 4; i++) {
+                    route[i] = Double.parseDouble(fields.get(routeKeys[i]));
+                }
+                for (int phase = 1; fields.containsKey("x" + phase); phase++) {
+                    circles.add(new double[] {Double.parseDouble(fields.get("x" + phase)),
+                        Double.parseDouble(fields.get("y" + phase)), Double.parseDouble(fields.get("r" + phase))});
+                }
+            } else {
+                String[] parts = line.split(",");
+                if (parts.length < 8 || (parts.length - 5) % 3 != 0) {
+                    counts.reject();
+                    return;
+                }
+                map = parts[0].trim();
+                for (int i = 0; i < 4; i++) {
+                    route[i] = Double.parseDouble(parts[1 + i].trim());
+                }
+                for (int i = 5; i < parts.length; i += 3) {
+                    circles.add(new double[] {Double.parseDouble(parts[i].trim()),
+                        Double.parseDouble(parts[i + 1].trim()), Double.parseDouble(parts[i + 2].trim())});
+                }
+            }
+            if (map == null || circles.isEmpty() || circles.size() > SafeZoneEngine.PHASE_COUNT) {
+                counts.reject();
+                return;
+            }
+            counts.add(line, MapAssets.indexOf(map), route, circles.toArray(new double[0][]));
+        } catch (RuntimeException e) {
+            // Número inválido, campo ausente (NullPointerException) ou JSON malformado
+            counts.reject();
+        }
+    }
+
+    // --- AJUSTE ---
+
+    /**
+     * Ajusta as regras e monta o texto do novo arquivo de regras.
+     */
+    static String fit(CalibrationCounts counts, Properties baseRules, double smoothing, long minMapMatches, List<Path> files) {
+        StringBuilder out = new StringBuilder(4096);
+        out.append("# Regras ajustadas pelo RuleCalibrator em ")
+           .append(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)).append('\n');
+        out.append("# ").append(counts.trainMatches).append(" partidas de treino, de ").append(files.size()).append(" arquivo(s)\n");
+        out.append("# Chaves sem dados suficientes vêm das regras base.\n\n");
+
+        // Fase 1: todas as partidas juntas, e depois cada mapa com partidas suficientes
+        out.append("# --- FASE 1 (tipo de rota x zona: Sobre, Próximo, Distante) ---\n");
+        long[][] pooled = new long[SafeZoneRules.ZONE_NAMES.length][SafeZoneRules.ZONE_NAMES.length * SafeZoneRules.DISTANCES];
+        for (long[][] mapCounts : counts.phase1[0]) {
+            for (int route = 0; route < pooled.length; route++) {
+                for (int cell = 0; cell < pooled[route].length; cell++) {
+                    pooled[route][cell] += mapCounts[route][cell];
+                }
+            }
+        }
+        appendPhase1(out, "", pooled, baseRules, smoothing);
+        for (int map = 0; map < MapAssets.MAPS.length; map++) {
+            long matches = 0;
+            for (long[] routeCounts : counts.phase1[0][map]) {
+                for (long count : routeCounts) {
+                    matches += count;
+                }
+            }
+            if (matches >= minMapMatches) {
+                out.append("# ").append(MapAssets.MAPS[map]).append(": ").append(matches).append(" partidas\n");
+                appendPhase1(out, "map." + MapAssets.MAPS[map] + ".", counts.phase1[0][map], baseRules, smoothing);
+            }
+        }
+
+        // Shift: as fases 2, 3, 5, 6, 7 juntas (valores gerais) e cada uma separada
+        out.append("\n# --- SHIFT (chance de Soft Shift em %, faixas em fração do raio de busca) ---\n");
+        long[] pooledShifts = new long[CalibrationCounts.SHIFT_BINS];
+        for (int phase = 1; phase < SafeZoneEngine.PHASE_COUNT; phase++) {
+            if (phase == 3) continue;
+            for (int bin = 0; bin < pooledShifts.length; bin++) {
+                pooledShifts[bin] += counts.shifts[0][phase][bin];
+            }
+        }
+        double[] general = fitShift(pooledShifts);
+        if (general != null) {
+            appendShift(out, "shift.", general);
+        } else {
+            copy(out, baseRules, "shift.softChance", "shift.soft", "shift.hard");
+        }
+        for (int phase = 1; phase < SafeZoneEngine.PHASE_COUNT; phase++) {
+            if (phase == 3) continue;
+            double[] fitted = fitShift(counts.shifts[0][phase]);
+            // Só escreve a fase se ela for diferente da média geral (mesmas faixas e chance a menos de 1%)
+            if (fitted != null && (general == null || !similar(fitted, general))) {
+                appendShift(out, "shift.phase" + (phase + 1) + ".", fitted);
+            }
+        }
+
+        // Fase 4: não é ajustada
+        out.append("\n# --- FASE 4 (das regras base) ---\n");
+        copy(out, baseRules, "phase4.band", "phase4.candidates");
+
+        // Raios: média observada (se todas as fases tiverem dados e diminuírem)
+        out.append("\n# --- RAIOS (km) ---\n");
+        double[] radii = new double[SafeZoneEngine.PHASE_COUNT];
+        boolean radiiValid = true;
+        for (int phase = 0; phase < radii.length; phase++) {
+            radiiValid &= counts.radiusCounts[phase] > 0;
+            radii[phase] = radiiValid ? counts.radiusSums[phase] / CalibrationCounts.RADIUS_UNITS_PER_KM / counts.radiusCounts[phase] : 0;
+            radiiValid &= radii[phase] > 0 && (phase == 0 || radii[phase] < radii[phase - 1]);
+        }
+        if (radiiValid) {
+            out.append("radii = ");
+            for (int phase = 0; phase < radii.length; phase++) {
+                out.append(phase > 0 ? ", " : "").append(String.format(Locale.ROOT, "%.3f", radii[phase]));
+            }
+            out.append('\n');
+        } else {
+            System.err.println("AVISO: Raios sem dados de todas as fases (ou que não diminuem); usando os da base.");
+            copy(out, baseRules, "radii");
+        }
+        return out.toString();
+    }
+
+    /**
+     * A tabela da Fase 1 (em %), com suavização de Laplace; tipos de rota sem partidas não são escritos.
+     */
+    private static void appendPhase1(StringBuilder out, String prefix, long[][] counts, Properties baseRules, double smoothing) {
+        for (int route = 0; route < counts.length; route++) {
+            long total = 0;
+            for (long count : counts[route]) {
+                total += count;
+            }
+            double denominator = total + smoothing * counts[route].length;
+            for (int zone = 0; zone < SafeZoneRules.ZONE_NAMES.length; zone++) {
+                String key = "phase1." + SafeZoneRules.ZONE_NAMES[route] + "." + SafeZoneRules.ZONE_NAMES[zone];
+                if (total == 0) {
+                    // Sem partidas: as gerais vêm da base e as do mapa ficam iguais às gerais
+                    if (prefix.isEmpty()) {
+                        copy(out, baseRules, key);
+                    }
+                    continue;
+                }
+                out.append(prefix).append(key).append(" = ");
+                for (int distance = 0; distance < SafeZoneRules.DISTANCES; distance++) {
+                    double weight = 100 * (counts[route][zone * SafeZoneRules.DISTANCES + distance] + smoothing) / denominator;
+                    out.append(distance > 0 ? ", " : "").append(String.format(Locale.ROOT, "%.3f", weight));
+                }
+                out.append('\n');
+            }
+        }
+    }
+
+    private static void appendShift(StringBuilder out, String prefix, double[] fitted) {
+        out.append(String.format(Locale.ROOT, "%ssoftChance = %.2f%n", prefix, fitted[0]));
+        out.append(String.format(Locale.ROOT, "%ssoft = %.2f, %.2f%n", prefix, fitted[1], fitted[2]));
+        out.append(String.format(Locale.ROOT, "%shard = %.2f, %.2f%n", prefix, fitted[3], fitted[4]));
+    }
+
+    private static boolean similar(double[] a, double[] b) {
+        return Math.abs(a[0] - b[0]) < 1
+            && Arrays.equals(Arrays.copyOfRange(a, 1, 5), Arrays.copyOfRange(b, 1, 5));
+    }
+
+    private static void copy(StringBuilder out, Properties baseRules, String... keys) {
+        for (String key : keys) {
+            String value = baseRules.getProperty(key);
+            if (value != null) {
+                out.append(key).append(" = ").append(value.trim()).append('\n');
+            }
+        }
+    }
+
+    /**
+     * Ajusta a mistura Soft/Hard Shift a um histograma de shifts normalizados.
+     * Testa todas as faixas em passos de 1/BAND_STEPS (a faixa Soft é a de meio menor)
+     * e, para cada par, acha a chance de Soft Shift por EM.
+     * @return {chance de Soft Shift (%), softMin, softMax, hardMin, hardMax}, ou null se houver poucos dados.
+     */
+    static double[] fitShift(long[] histogram) {
+        long total = 0;
+        int nonEmpty = 0;
+        for (long count : histogram) {
+            total += count;
+            if (count > 0) nonEmpty++;
+        }
+        if (total < MIN_SHIFT_SAMPLES) {
+            return null;
+        }
+        int[] bins = new int[nonEmpty];
+        double[] weights = new double[nonEmpty];
+        for (int bin = 0, k = 0; bin < histogram.length; bin++) {
+            if (histogram[bin] > 0) {
+                bins[k] = bin;
+                weights[k++] = histogram[bin];
+            }
+        }
+
+        // Chance de cada divisão do histograma para cada faixa possível
+        int bandCount = (BAND_STEPS + 1) * (BAND_STEPS + 2) / 2;
+        double[][] bandProbabilities = new double[bandCount][];
+        double[][] bands = new double[bandCount][];
+        int index = 0;
+        for (int low = 0; low <= BAND_STEPS; low++) {
+            for (int high = low; high <= BAND_STEPS; high++) {
+                bands[index] = new double[] {(double) low / BAND_STEPS, (double) high / BAND_STEPS};
+                double[] probabilities = new double[nonEmpty];
+                for (int k = 0; k < nonEmpty; k++) {
+                    probabilities[k] = binProbability(bands[index][0], bands[index][1], bins[k], histogram.length);
+                }
+                bandProbabilities[index++] = probabilities;
+            }
+        }
+
+        double bestScore = Double.NEGATIVE_INFINITY;
+        double[] best = null;
+        for (int soft = 0; soft < bandCount; soft++) {
+            for (int hard = 0; hard < bandCount; hard++) {
+                if (bands[soft][0] + bands[soft][1] > bands[hard][0] + bands[hard][1]) {
+                    continue; // A Soft é a faixa mais perto do centro
+                }
+                double[] s = bandProbabilities[soft];
+                double[] h = bandProbabilities[hard];
+                double p = 0.5;
+                for (int iteration = 0; iteration < EM_ITERATIONS; iteration++) {
+                    double softShare = 0;
+                    for (int k = 0; k < nonEmpty; k++) {
+                        double softPart = p * s[k];
+                        softShare += weights[k] * softPart / (softPart + (1 - p) * h[k] + EPSILON);
+                    }
+                    p = softShare / total;
+                }
+                double score = 0;
+                for (int k = 0; k < nonEmpty; k++) {
+                    score += weights[k] * Math.log(p * s[k] + (1 - p) * h[k] + EPSILON);
+                }
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = new double[] {p * 100, bands[soft][0], bands[soft][1], bands[hard][0], bands[hard][1]};
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * A chance de um shift cair na divisão 'bin' quando a distância é sorteada como no motor
+     * (uniforme pela área dentro da faixa [min, max]: F(d) = ((d - min) / (max - min))²).
+     */
+    static double binProbability(double min, double max, int bin, int binCount) {
+        double low = (double) bin / binCount;
+        double high = (double) (bin + 1) / binCount;
+        if (max <= min) {
+            // Faixa de largura zero: tudo cai em um ponto só
+            int pointBin = Math.min(binCount - 1, (int) (min * binCount));
+            return (bin == pointBin) ? 1 : 0;
+        }
+        return shiftCdf(min, max, high) - shiftCdf(min, max, low);
+    }
+
+    private static double shiftCdf(double min, double max, double d) {
+        double t = Math.max(0, Math.min(1, (d - min) / (max - min)));
+        return t * t;
+    }
+
+    /**
+     * A log-verossimilhança média (por partida de teste) da Fase 1 e dos shifts das fases 2, 3, 5, 6, 7.
+     * Os shifts usam as mesmas divisões do histograma (0.01 do raio de busca).
+     */
+    static double heldOutLogLikelihood(CalibrationCounts counts, RuleBook rules) {
+        double total = 0;
+        for (int map = 0; map <= CalibrationCounts.OTHER_MAP; map++) {
+            SafeZoneRules mapRules = rules.forMap((map < MapAssets.MAPS.length) ? MapAssets.MAPS[map] : null);
+            long[][] mapCounts = counts.phase1[1][map];
+            for (int route = 0; route < mapCounts.length; route++) {
+                for (int cell = 0; cell < mapCounts[route].length; cell++) {
+                    if (mapCounts[route][cell] > 0) {
+                        total += mapCounts[route][cell] * Math.log(mapRules.getPhase1Probability(route, cell) + EPSILON);
+                    }
+                }
+            }
+        }
+        SafeZoneRules general = rules.defaults();
+        for (int phase = 1; phase < SafeZoneEngine.PHASE_COUNT; phase++) {
+            if (phase == 3) continue;
+            long[] histogram = counts.shifts[1][phase];
+            double p = general.getSoftShiftChance(phase) / 100;
+            for (int bin = 0; bin < histogram.length; bin++) {
+                if (histogram[bin] == 0) continue;
+                double probability = p * binProbability(general.getSoftMin(phase), general.getSoftMax(phase), bin, histogram.length)
+                    + (1 - p) * binProbability(general.getHardMin(phase), general.getHardMax(phase), bin, histogram.length);
+                total += histogram[bin] * Math.log(probability + EPSILON);
+            }
+        }
+        return total / counts.heldOutMatches;
+    }
+
+    private static void printUsage() {
+        System.err.println("Uso: java -cp bin safePubg.RuleCalibrator <logs ou pastas...> [--out regras.properties] "
+            + "[--threads N] [--holdout 10] [--smoothing 0.5] [--min-map-matches 2000] [--base regras.properties]");
+    }
+}
@@ -0,0 +1,41 @@
+package safePubg;
+
+import java.awt.geom.Point2D;
+
+/**
+ * SafeZone
+ * Uma classe simples ("struct") para guardar o centro
+ * e o raio de uma safe zone.
+ * É imutável, para poder ser compartilhada entre as threads da simulação.
+ */
+public final class SafeZone {
+    final Point2D center;
+    final double radius;
+
+    SafeZone(Point2D center, double radius) {
+        this.center = center;
+        this.radius = radius;
+    }
+
+    /**
+     * Cria uma safe (ex: uma safe observada na partida, para a previsão condicional).
+     * @param centerX X do centro (km).
+     * @param centerY Y do centro (km).
+     * @param radius Raio (km).
+     */
+    public static SafeZone of(double centerX, double centerY, double radius) {
+        return new SafeZone(new Point2D.Double(centerX, centerY), radius);
+    }
+
+    public double getCenterX() {
+        return center.getX();
+    }
+
+    public double getCenterY() {
+        return center.getY();
+    }
+
+    public double getRadius() {
+        return radius;
+    }
+}
@@ -0,0 +1,594 @@
+package safePubg;
+
+import java.awt.geom.Line2D;
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * SafeZoneEngine
+ * O motor de previsão, separado da interface gráfica.
+ * Recebe um mapa, os pontos da rota do avião e uma semente (seed),
+ * e devolve a sequência das 7 safes. Não usa nada do Swing, então
+ * pode rodar em servidores sem tela (-Djava.awt.headless=true).
+ *
+ * A lógica das fases mora aqui; os números das regras (tabela da Fase 1,
+ * Soft/Hard Shift, Fase 4, raios) vêm do arquivo de regras (RuleBook, rules.properties),
+ * e a interface (PUBGSafeZonePredictor) só desenha o resultado.
+ */
+public final class SafeZoneEngine {
+    // --- CONSTANTES DE CONFIGURAÇÃO DO JOGO ---
+    
+    // Constantes para os tipos de zona (baseado no código original)
+    static final int ZONE_CENTER = 0;
+    static final int ZONE_PERIPHERAL = 1;
+    static final int ZONE_EDGE = 2;
+    // Fora do círculo do mapa (além de MAP_RADIUS do centro)
+    static final int ZONE_OUTSIDE = 3;
+    
+    // Proporções de raio (em km, no mapa de 8 x 8 km) para cada fase, baseadas na Seção 3.1.
+    // São os raios PADRÃO (os do rules.properties); os que valem são os das regras do mapa (SafeZoneRules)
+    static final double[] PHASE_RADII = {
+        3.00,   // Fase 1 (Nosso valor base)
+        1.95,   // Fase 2 (~65% da Fase 1)
+        0.97,   // Fase 3 (~50% da Fase 2)
+        0.48,   // Fase 4 (~50% da Fase 3)
+        0.24,   // Fase 5 (~50% da Fase 4)
+        0.12,   // Fase 6 (~50% da Fase 5)
+        0.06    // Fase 7 (~50% da Fase 6)
+    };
+    // Quantidade de fases de uma sequência completa
+    static final int PHASE_COUNT = PHASE_RADII.length;
+    // Versão da LÓGICA das fases (o conteúdo do arquivo de regras já entra em SafeZoneRules.getVersion).
+    // Aumente sempre que uma mudança no código alterar os resultados: os resultados guardados
+    // (SimulationCache) são descartados. 2 = sorteio da Fase 1 por tabela de alias
+    static final int RULES_VERSION = 2;
+    // Constante "razão áurea" de 64 bits (a mesma usada pelo SplittableRandom), para derivar sementes
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    
+    // Imagens e máscaras de terra dos mapas usados pelo motor
+    private final MapAssets mapAssets;
+
+    /**
+     * Cria um motor usando mapas já carregados.
+     */
+    SafeZoneEngine(MapAssets mapAssets) {
+        this.mapAssets = mapAssets;
+    }
+
+    /**
+     * Cria um motor carregando as imagens dos mapas do disco.
+     * @throws IOException Se as imagens dos mapas não puderem ser lidas.
+     */
+    public static SafeZoneEngine load() throws IOException {
+        return new SafeZoneEngine(MapAssets.loadAll());
+    }
+
+    /**
+     * Cria um motor com máscaras de terra na resolução escolhida
+     * (troca de precisão por velocidade; o resultado continua em km).
+     * @param maskResolution Lado da máscara em células (0 = resolução da imagem).
+     * @throws IOException Se as imagens dos mapas não puderem ser lidas.
+     */
+    public static SafeZoneEngine load(int maskResolution) throws IOException {
+        return new SafeZoneEngine(MapAssets.loadAll(maskResolution));
+    }
+
+    /**
+     * Prevê a sequência completa de 7 safes para uma rota.
+     * A mesma semente (com o mesmo mapa e a mesma rota) sempre gera a mesma sequência,
+     * que é também a amostra 0 de um Monte Carlo com essa semente.
+     * As coordenadas são do mundo (km, de 0 a 8; ver WorldTransform).
+     * @param mapId O nome do mapa (ex: "Erangel", sem diferenciar maiúsculas).
+     * @param startX X do início da rota do avião (km).
+     * @param startY Y do início da rota do avião (km).
+     * @param endX X do fim da rota do avião (km).
+     * @param endY Y do fim da rota do avião (km).
+     * @param seed A semente do gerador aleatório.
+     * @return A lista com as 7 safes (Fase 1 primeiro).
+     * @throws IllegalArgumentException Se o mapa não existir.
+     */
+    public List<SafeZone> predict(String mapId, double startX, double startY, double endX, double endY, long seed) {
+        return predict(mapId, startX, startY, endX, endY, seed, 0);
+    }
+
+    /**
+     * Prevê a sequência número 'index' de uma simulação com a semente 'seed'
+     * (a mesma que o Monte Carlo com essa semente simulou como amostra 'index').
+     * Serve para "repetir" uma sequência específica de um lote.
+     * @throws IllegalArgumentException Se o mapa não existir.
+     */
+    public List<SafeZone> predict(String mapId, double startX, double startY, double endX, double endY, long seed, long index) {
+        SimulationContext context = createContext(mapId, new Point2D.Double(startX, startY), new Point2D.Double(endX, endY));
+        return predictSafeZoneSequence(context, sequenceRandom(seed, index));
+    }
+
+    /**
+     * Prevê as fases que faltam a partir das safes já vistas na partida (previsão condicional).
+     * As coordenadas são do mundo (km, de 0 a 8; ver WorldTransform).
+     * @param observed As safes já vistas, Fase 1 primeiro (vazia = previsão normal a partir da rota).
+     * @return A lista com as 7 safes (as observadas primeiro).
+     * @throws IllegalArgumentException Se o mapa não existir ou houver safes observadas demais.
+     */
+    public List<SafeZone> predict(String mapId, double startX, double startY, double endX, double endY,
+                                  List<SafeZone> observed, long seed) {
+        SimulationContext context = createContext(mapId, new Point2D.Double(startX, startY), new Point2D.Double(endX, endY));
+        return predictFromObserved(context, observed, sequenceRandom(seed, 0));
+    }
+
+    /**
+     * O gerador da sequência número 'index' de uma simulação com a semente 'seed'.
+     * Cada sequência tem o seu gerador, calculado só a partir de (seed, index)
+     * (como um contador embaralhado), então o resultado não depende de quantas
+     * threads simularam nem da ordem em que as sequências foram simuladas.
+     */
+    static SplittableRandom sequenceRandom(long seed, long index) {
+        return new SplittableRandom(mix64(mix64(seed) + index * GOLDEN_GAMMA));
+    }
+
+    /**
+     * Embaralha os bits de um long (finalizador do MurmurHash3 / SplitMix64):
+     * valores vizinhos (ex: índices 0, 1, 2) viram sementes sem relação entre si.
+     */
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    /**
+     * Congela um mapa e uma rota em um contexto de simulação (sem LOGs).
+     * Útil para rodar várias previsões (ex: Monte Carlo) sobre a mesma rota.
+     * @throws IllegalArgumentException Se o mapa não existir.
+     */
+    SimulationContext createContext(String mapId, Point2D startPoint, Point2D endPoint) {
+        return createContext(mapId, FlightPath.of(startPoint, endPoint));
+    }
+
+    /**
+     * createContext para uma rota com pontos intermediários (ver FlightPath).
+     * @throws IllegalArgumentException Se o mapa não existir.
+     */
+    SimulationContext createContext(String mapId, FlightPath path) {
+        int mapIndex = MapAssets.indexOf(mapId);
+        if (mapIndex < 0) {
+            throw new IllegalArgumentException("Mapa desconhecido: " + mapId);
+        }
+        return SimulationContext.of(MapAssets.MAPS[mapIndex], mapAssets.getLandMask(mapIndex), path, false);
+    }
+
+    /**
+     * Calcula a qual zona (Central, Periférica, Borda) a rota do avião
+     * mais se aproxima, com base na sua distância ao centro do mapa.
+     * @return ZONE_CENTER, ZONE_PERIPHERAL, ZONE_EDGE (ou -1 se a rota estiver incompleta).
+     */
+    static int determineRouteZoneType(Point2D startPoint, Point2D endPoint) {
+        if (startPoint == null || endPoint == null) return -1;
+        
+        // Cria uma linha 2D para a rota do avião
+        Line2D route = new Line2D.Double(startPoint, endPoint);
+        // Calcula a menor distância da linha até o centro do mapa
+        return routeZoneType(route.ptLineDist(WorldTransform.MAP_CENTER_X, WorldTransform.MAP_CENTER_Y));
+    }
+
+    /**
+     * determineRouteZoneType para uma rota com pontos intermediários (conta trecho por trecho;
+     * bom para a interface, que não tem o RouteDistanceField da rota).
+     */
+    static int determineRouteZoneType(FlightPath path) {
+        return routeZoneType(path.distance(WorldTransform.MAP_CENTER_X, WorldTransform.MAP_CENTER_Y));
+    }
+
+    /**
+     * O tipo de uma rota qualquer (reta ou com pontos intermediários), lendo a distância
+     * do centro do mapa até ela no campo já calculado (O(1), qualquer que seja o número de trechos).
+     */
+    static int determineRouteZoneType(RouteDistanceField routeDistance) {
+        return routeZoneType(routeDistance.distance(WorldTransform.MAP_CENTER_X, WorldTransform.MAP_CENTER_Y));
+    }
+
+    /**
+     * Classifica a rota pela menor distância (km) entre ela e o centro do mapa.
+     */
+    private static int routeZoneType(double distToCenter) {
+        double mapRadius = WorldTransform.MAP_RADIUS;
+        if (distToCenter < mapRadius * 0.25) {
+            return ZONE_CENTER;
+        } else if (distToCenter < mapRadius * 0.75) {
+            return ZONE_PERIPHERAL;
+        } else {
+            return ZONE_EDGE;
+        }
+    }
+
+    // --- MÉTODOS PRINCIPAIS DA LÓGICA DO JOGO ---
+
+    /**
+     * O CÉREBRO PRINCIPAL (Substitui o predictSafeZone original).
+     * Calcula a SEQUÊNCIA INTEIRA de 7 safes com base nas regras do PUBG.
+     * Só lê o contexto recebido (nada de estado estático), então pode ser
+     * chamado por várias threads ao mesmo tempo, cada uma com o seu gerador.
+     * As tentativas e o tempo de cada fase vão para as métricas do contexto (PredictionMetrics).
+     * @param context A rota e o mapa congelados para esta previsão.
+     * @param rand O gerador aleatório (não compartilhe entre threads).
+     * @return A lista com as safes previstas (vazia se a rota for inválida).
+     */
+    static List<SafeZone> predictSafeZoneSequence(SimulationContext context, RandomGenerator rand) {
+        return predictFromObserved(context, Collections.emptyList(), rand);
+    }
+
+    /**
+     * PREVISÃO CONDICIONAL (durante a partida).
+     * As safes das fases 1..k já apareceram no jogo: em vez de sortear tudo de novo
+     * a partir da rota, parte delas e sorteia só as fases k+1..7, com as mesmas
+     * regras de contenção e de shift da sequência completa.
+     * Cada fase só depende da safe anterior, então só a ÚLTIMA safe observada
+     * (e quantas são) muda o resultado (ver ConditionalForecast).
+     * @param context A rota e o mapa congelados (a rota só importa se 'observed' estiver vazia).
+     * @param observed As safes já vistas, Fase 1 primeiro (pode ser vazia).
+     * @param rand O gerador aleatório (não compartilhe entre threads).
+     * @return As 7 safes: as observadas (as mesmas instâncias) seguidas das sorteadas.
+     * @throws IllegalArgumentException Se houver mais safes observadas do que fases.
+     */
+    static List<SafeZone> predictFromObserved(SimulationContext context, List<SafeZone> observed, RandomGenerator rand) {
+        ZoneSequenceBatch batch = new ZoneSequenceBatch(1);
+        predictInto(context, observed, rand, batch, 0);
+        List<SafeZone> predictedZones = new ArrayList<>(PHASE_COUNT);
+        for (int phase = 0; phase < batch.getPhaseCount(0); phase++) {
+            predictedZones.add((phase < observed.size()) ? observed.get(phase) : batch.getZone(0, phase));
+        }
+        return predictedZones;
+    }
+
+    /**
+     * O MESMO cérebro, mas escrevendo a sequência direto em uma linha de um ZoneSequenceBatch
+     * (sem criar SafeZone nem listas). É o que as simulações em massa usam.
+     * Se a sequência falhar (rota inválida, Fase 1 impossível), a linha fica com 0 fases.
+     * @param observed As safes já vistas, Fase 1 primeiro (vazia = sequência completa a partir da rota).
+     * @param batch Onde gravar; o raio das fases observadas vira o raio do lote inteiro.
+     * @param sequence A linha do lote.
+     * @throws IllegalArgumentException Se houver mais safes observadas do que fases.
+     */
+    static void predictInto(SimulationContext context, List<SafeZone> observed, RandomGenerator rand,
+                            ZoneSequenceBatch batch, int sequence) {
+        if (observed.size() > PHASE_COUNT) {
+            throw new IllegalArgumentException("Safes observadas demais: " + observed.size() + " (máximo " + PHASE_COUNT + ")");
+        }
+        batch.setPhaseCount(sequence, 0);
+        // Só algumas sequências são cronometradas (ver PredictionMetrics)
+        boolean timed;
+        long phaseStart;
+        Point2D previousCenter;
+        double previousRadius;
+        if (observed.isEmpty()) {
+            int routeZoneType = context.getRouteZoneType();
+            if (routeZoneType < 0 || routeZoneType > 2) return;
+            timed = PredictionMetrics.shouldTime();
+            phaseStart = timed ? System.nanoTime() : 0;
+            setRadii(context.getRules(), batch);
+
+            // --- FASE 1: USA A LÓGICA COMPLEXA (PROBABILIDADES) ---
+            Point2D firstCenter = predictFirstCenter(context, rand);
+            if (firstCenter == null) {
+                System.out.println("ERRO: Falha crítica ao gerar a Fase 1.");
+                return;
+            }
+
+            // 7. Grava a Fase 1
+            batch.setCenter(sequence, 0, firstCenter.getX(), firstCenter.getY());
+            previousCenter = firstCenter;
+            previousRadius = context.getRules().getRadius(0);
+            if (timed) {
+                long now = System.nanoTime();
+                context.getMetrics().recordTiming(0, 1, now - phaseStart); // O sorteio direto da Fase 1 nunca rejeita pontos
+                phaseStart = now;
+            }
+            batch.setPhaseCount(sequence, 1);
+        } else {
+            // As fases observadas entram como estão
+            setRadii(context.getRules(), batch);
+            for (int phase = 0; phase < observed.size(); phase++) {
+                SafeZone zone = observed.get(phase);
+                batch.setCenter(sequence, phase, zone.center.getX(), zone.center.getY());
+                batch.setRadius(phase, zone.radius);
+            }
+            SafeZone last = observed.get(observed.size() - 1);
+            previousCenter = last.center;
+            previousRadius = last.radius;
+            timed = PredictionMetrics.shouldTime();
+            phaseStart = timed ? System.nanoTime() : 0;
+            batch.setPhaseCount(sequence, observed.size());
+        }
+        predictRemainingPhases(context, batch, sequence, previousCenter, previousRadius, rand, timed, phaseStart);
+    }
+
+    /**
+     * Grava no lote os raios das fases pelas regras do mapa (as observadas sobrescrevem depois).
+     */
+    static void setRadii(SafeZoneRules rules, ZoneSequenceBatch batch) {
+        for (int phase = 0; phase < PHASE_COUNT; phase++) {
+            batch.setRadius(phase, rules.getRadius(phase));
+        }
+    }
+
+    /**
+     * Sorteia as fases que faltam (depois das batch.getPhaseCount(sequence) já gravadas).
+     * @param previousCenter O centro da última safe gravada.
+     * @param previousRadius O raio da última safe gravada.
+     * @param timed Se esta sequência é cronometrada (ver PredictionMetrics).
+     * @param phaseStart Quando a fase atual começou (System.nanoTime), se cronometrada.
+     */
+    private static void predictRemainingPhases(SimulationContext context, ZoneSequenceBatch batch, int sequence,
+                                               Point2D previousCenter, double previousRadius,
+                                               RandomGenerator rand, boolean timed, long phaseStart) {
+        PredictionMetrics metrics = context.getMetrics();
+        SafeZoneRules rules = context.getRules();
+        
+        // --- LÓGICA DAS FASES 2-7 (Baseada no Documento) ---
+        for (int i = batch.getPhaseCount(sequence); i < PHASE_COUNT; i++) {
+            
+            Point2D nextCenter = null;
+            boolean hitCap = false;
+            int attempts = 0;
+
+            // CORREÇÃO DE LÓGICA (Seção 2.3):
+            // O novo centro (C5) deve estar dentro de um raio de (R4 - R5)
+            // para garantir que o Círculo 5 caiba inteiramente dentro do Círculo 4.
+            double searchRadius = previousRadius - rules.getRadius(i); 
+            if (searchRadius < 0) searchRadius = 0;
+
+            if (i == 3) {
+                if (context.isVerbose()) {
+                    System.out.println("LOG: Calculando Fase 4 (Regra da Proporção de Terra)");
+                }
+                // ----- FASE 4: REGRA DA "PROPORÇÃO DE TERRA" (Seção 1.2) -----
+                // O documento diz que esta fase é determinística e força
+                // um "hard shift" para longe da água: sorteia alguns candidatos
+                // em terra na metade externa e fica com o de MAIOR proporção de terra
+                // (medida no círculo inteiro da Fase 4, não só no pixel do centro).
+                double bestFraction = -1;
+                Point2D bestCenter = null;
+                int landCandidates = 0;
+                while (landCandidates < rules.getPhase4Candidates()) {
+                    nextCenter = generateRandomPointInCircle(
+                        previousCenter, 
+                        searchRadius, // Usa o raio de busca corrigido
+                        rules.getPhase4Min(), // Força o centro a estar na metade externa (Hard Shift)
+                        rules.getPhase4Max(),
+                        rand
+                    );
+                    attempts++;
+                    if (context.isLand(nextCenter)) {
+                        landCandidates++;
+                        // Custo constante, não importa o raio (ver LandIntegral)
+                        double fraction = context.landFraction(nextCenter, rules.getRadius(i));
+                        if (fraction > bestFraction) {
+                            bestFraction = fraction;
+                            bestCenter = nextCenter;
+                        }
+                    }
+                    // Se tentar 2000 vezes, fica com o melhor candidato achado até aqui
+                    if (attempts > 2000) {
+                        hitCap = (bestCenter == null);
+                        if (hitCap && context.isVerbose()) {
+                            System.out.println("AVISO: Não foi possível achar terra para a Fase " + (i+1) + ".");
+                        }
+                        break;
+                    }
+                }
+                if (bestCenter != null) {
+                    nextCenter = bestCenter;
+                }
+                if (context.isVerbose()) {
+                    System.out.printf("LOG: Fase 4 escolhida com %.0f%% de terra%n", Math.max(0, bestFraction) * 100);
+                }
+            } else {
+                // ----- FASES 2, 3, 5, 6, 7: LÓGICA "SHIFT" (Seção 2.1) -----
+                // Tenta gerar um ponto para a próxima safe que esteja EM TERRA
+                do {
+                    // O documento sugere que "hard shifts" são muito comuns (50%+).
+                    double roll = rand.nextDouble() * 100;
+                    double minRadiusPercent, maxRadiusPercent;
+
+                    if (roll < rules.getSoftShiftChance(i)) { // 50% "Soft Shift" (perto do centro)
+                        minRadiusPercent = rules.getSoftMin(i);
+                        maxRadiusPercent = rules.getSoftMax(i);
+                    } else { // 50% "Hard Shift" (perto da borda)
+                        minRadiusPercent = rules.getHardMin(i);
+                        maxRadiusPercent = rules.getHardMax(i);
+                    }
+                    
+                    nextCenter = generateRandomPointInCircle(
+                        previousCenter, 
+                        searchRadius, // Usa o raio de busca corrigido
+                        minRadiusPercent, 
+                        maxRadiusPercent, 
+                        rand
+                    );
+                    
+                    attempts++;
+                    // Se tentar 2000 vezes e não achar terra, desiste
+                    if (attempts > 2000) { 
+                        hitCap = true;
+                        if (context.isVerbose()) {
+                            System.out.println("AVISO: Não foi possível achar terra para a Fase " + (i+1) + ".");
+                        }
+                        break;
+                    }
+
+                } while (!context.isLand(nextCenter)); // Continua tentando se o ponto for na água
+            }
+            
+            // Grava a nova safe (Fase 2, 3, etc.)
+            batch.setCenter(sequence, i, nextCenter.getX(), nextCenter.getY());
+            batch.setPhaseCount(sequence, i + 1);
+            previousCenter = nextCenter; // A safe atual vira a "anterior"
+            previousRadius = rules.getRadius(i);
+
+            metrics.recordAttempts(i, attempts, hitCap);
+            if (timed) {
+                long now = System.nanoTime();
+                metrics.recordTiming(i, attempts, now - phaseStart);
+                phaseStart = now;
+            }
+        }
+        metrics.recordSequence();
+    }
+
+    /**
+     * Sorteia só o CENTRO da Fase 1 (a Regra da Rota do Avião), consumindo o gerador
+     * exatamente como predictSafeZoneSequence. Assim a prévia ao vivo da Fase 1
+     * (LivePreview) mostra a mesma distribuição que a simulação completa.
+     * @param context A rota e o mapa congelados (o tipo da rota deve ser válido).
+     * @return O centro da Fase 1, ou null se não foi possível gerar um ponto.
+     */
+    static Point2D predictFirstCenter(SimulationContext context, RandomGenerator rand) {
+        // (Simula a Regra da Rota do Avião da Seção 1.1)
+        
+        // 1-5. Sorteia a combinação (zona, distância) na tabela 3x3 do tipo de rota.
+        // A tabela já vem compilada (SafeZoneRules): um sorteio por tabela de alias,
+        // em tempo constante e sem criar objetos
+        int cell = context.getRules().drawPhase1Cell(context.getRouteZoneType(), rand);
+        int zone = cell / SafeZoneRules.DISTANCES;
+        int distance = cell % SafeZoneRules.DISTANCES;
+        
+        // --- FIM DO SORTEIO DA FASE 1 ---
+        
+        // 6. Gera o CENTRO da Fase 1 usando as regras sorteadas
+        return generateZonePoint(context, zone, distance, rand);
+    }
+
+    /**
+     * MÉTODO 2 (Substitui generateZonePoint original)
+     * Gera o ponto de centro para a FASE 1, com base nas regras de probabilidade
+     * e garantindo que esteja em terra.
+     * O sorteio é direto (ver ZoneSampler): só pixels de terra que já satisfazem
+     * a zona e a distância da rota podem ser escolhidos, então não há mais
+     * milhares de tentativas rejeitadas.
+     */
+    static Point2D generateZonePoint(SimulationContext context, int zone, int distance, RandomGenerator rand) {
+        ZoneSampler sampler = context.getZoneSampler();
+        
+        // --- TENTATIVA 1: O PONTO PERFEITO (ZONA + DISTÂNCIA + TERRA) ---
+        if (sampler.hasLand(zone, distance)) {
+            return sampler.sample(zone, distance, rand); // Achou!
+        }
+
+        // --- TENTATIVA 2: QUALQUER PONTO EM TERRA (IGNORANDO A DISTÂNCIA) ---
+        // Se não existe, é porque a combinação (ex: Borda + Distante) era impossível/água
+        if (context.isVerbose()) {
+            System.out.println("LOG: Não foi possível achar um ponto perfeito. Tentando achar qualquer ponto em terra...");
+        }
+        if (sampler.hasLand(zone)) {
+            context.getMetrics().recordPhase1AnyLand();
+            if (context.isVerbose()) {
+                System.out.println("LOG: Ponto em terra encontrado. Ignorando distância da rota.");
+            }
+            return sampler.sample(zone, rand);
+        }
+
+        // --- TENTATIVA 3: DESISTIR ---
+        // A zona inteira é água: devolve um ponto qualquer da zona (como antes)
+        context.getMetrics().recordPhase1GiveUp();
+        if (context.isVerbose()) {
+            System.out.println("AVISO: Não foi possível encontrar um ponto em terra. Retornando último ponto.");
+        }
+        double mapRadius = WorldTransform.MAP_RADIUS;
+        double innerRadius, outerRadius;
+        if (zone == ZONE_CENTER) {
+            innerRadius = 0;
+            outerRadius = mapRadius * 0.25;
+        } else if (zone == ZONE_PERIPHERAL) {
+            innerRadius = mapRadius * 0.25;
+            outerRadius = mapRadius * 0.75;
+        } else { // ZONE_EDGE
+            innerRadius = mapRadius * 0.75;
+            outerRadius = mapRadius;
+        }
+        double angle = rand.nextDouble() * 2 * Math.PI;
+        double radius = innerRadius + rand.nextDouble() * (outerRadius - innerRadius);
+        return new Point2D.Double(WorldTransform.MAP_CENTER_X + radius * Math.cos(angle),
+                                  WorldTransform.MAP_CENTER_Y + radius * Math.sin(angle));
+    }
+
+    /**
+     * MÉTODO 3 (Novo Método Auxiliar)
+     * Gera um ponto aleatório para as Fases 2-7, obedecendo à faixa de raio
+     * (minRadiusPercent, maxRadiusPercent) para simular Soft/Hard Shifts.
+     * @param center O centro do círculo anterior.
+     * @param searchRadius O raio MÁXIMO onde o novo centro pode estar (R_anterior - R_novo).
+     * @param minRadiusPercent A % mínima de 'searchRadius' (ex: 0.4 para Hard Shift).
+     * @param maxRadiusPercent A % máxima de 'searchRadius' (ex: 0.6 para Soft Shift).
+     * @param rand O gerador aleatório.
+     */
+    static Point2D generateRandomPointInCircle(Point2D center, double searchRadius, double minRadiusPercent, double maxRadiusPercent, RandomGenerator rand) {
+        // Pega um ângulo aleatório (0 a 360 graus)
+        double angle = 2 * Math.PI * rand.nextDouble();
+        
+        // Sorteia uma distância normalizada (0.0 a 1.0)
+        // Math.sqrt() garante distribuição uniforme PELA ÁREA, não pelo raio.
+        double rNorm = Math.sqrt(rand.nextDouble()); 
+        
+        // Mapeia o valor (0.0 a 1.0) para a faixa de % desejada
+        // Ex: (0.7 * (0.6 - 0.0)) + 0.0 = 0.42 (Soft Shift)
+        // Ex: (0.7 * (1.0 - 0.4)) + 0.4 = 0.82 (Hard Shift)
+        double rPercent = (rNorm * (maxRadiusPercent - minRadiusPercent)) + minRadiusPercent;
+        
+        // Aplica o raio de busca
+        double r = searchRadius * rPercent; 
+        
+        // Converte de polar (ângulo, raio) para cartesiano (x, y)
+        double x = center.getX() + r * Math.cos(angle);
+        double y = center.getY() + r * Math.sin(angle);
+        
+        return new Point2D.Double(x, y);
+    }
+    
+    /**
+     * A zona (anel) de um ponto do mundo (km), pelos limites de 0.25 e 0.75 do raio do mapa.
+     * @return ZONE_CENTER, ZONE_PERIPHERAL, ZONE_EDGE ou ZONE_OUTSIDE.
+     */
+    static int getZoneRing(double x, double y) {
+        double dx = x - WorldTransform.MAP_CENTER_X;
+        double dy = y - WorldTransform.MAP_CENTER_Y;
+        double distance = Math.sqrt(dx * dx + dy * dy);
+        double mapRadius = WorldTransform.MAP_RADIUS;
+        if (distance < mapRadius * 0.25) {
+            return ZONE_CENTER;
+        } else if (distance < mapRadius * 0.75) {
+            return ZONE_PERIPHERAL;
+        } else if (distance < mapRadius) {
+            return ZONE_EDGE;
+        }
+        return ZONE_OUTSIDE;
+    }
+
+    /**
+     * MÉTODO 5 (Substitui o getZoneType original)
+     * Retorna o nome da zona (Central, Periférica, Borda) de um ponto.
+     * Inclui uma verificação para evitar erro se o ponto for nulo.
+     */
+    static String getZoneType(Point2D point) {
+        if (point == null) return "Desconhecida"; // Correção de bug
+
+        double centerX = WorldTransform.MAP_CENTER_X;
+        double centerY = WorldTransform.MAP_CENTER_Y;
+        double mapRadius = WorldTransform.MAP_RADIUS;
+        
+        double dx = point.getX() - centerX;
+        double dy = point.getY() - centerY;
+        double distance = Math.sqrt(dx*dx + dy*dy);
+        
+        if (distance < mapRadius * 0.25) {
+            return "Zona Central";
+        } else if (distance < mapRadius * 0.75) {
+            return "Zona Periférica";
+        } else {
+            return "Zona de Borda";
+        }
+    }
+}
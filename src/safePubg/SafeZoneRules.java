@@ -0,0 +1,245 @@
+package safePubg;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.random.RandomGenerator;
+import java.util.zip.CRC32;
+
+/**
+ * SafeZoneRules
+ * As regras do jogo de UM mapa, já "compiladas" para o caminho quente:
+ * - a tabela da Fase 1 (tipo de rota x zona x distância) vira uma AliasTable
+ *   por tipo de rota, com as 9 combinações (zona, distância) como itens;
+ * - as chances e faixas do Soft/Hard Shift (gerais ou por fase), a faixa e os candidatos da Fase 4;
+ * - os raios das 7 fases.
+ *
+ * É imutável: cada SimulationContext guarda as regras do momento em que foi criado,
+ * então trocar as regras (RuleBook) nunca muda uma simulação pela metade.
+ * As regras vêm de um arquivo .properties (ver rules.properties).
+ */
+final class SafeZoneRules {
+    // Nomes das zonas e tipos de rota no arquivo, na ordem de ZONE_CENTER, ZONE_PERIPHERAL, ZONE_EDGE
+    static final String[] ZONE_NAMES = {"central", "peripheral", "edge"};
+    // Quantas distâncias da rota cada zona tem (Sobre, Próximo, Distante)
+    static final int DISTANCES = 3;
+
+    // Uma tabela por tipo de rota; o item sorteado é zona * DISTANCES + distância
+    private final AliasTable[] phase1Tables;
+    // Por fase (índice 0 = Fase 1): chance (%) de Soft Shift e as faixas (fração do raio de busca) de cada shift
+    private final double[] softShiftChance;
+    private final double[] softMin;
+    private final double[] softMax;
+    private final double[] hardMin;
+    private final double[] hardMax;
+    // Fase 4: faixa dos candidatos e quantos candidatos em terra comparar
+    private final double phase4Min;
+    private final double phase4Max;
+    private final int phase4Candidates;
+    private final double[] radii;
+    // Identifica o conteúdo das regras (para o SimulationCache)
+    private final int version;
+
+    private SafeZoneRules(AliasTable[] phase1Tables, double[] softShiftChance, double[][] soft, double[][] hard,
+                          double[] phase4Band, int phase4Candidates, double[] radii, int version) {
+        this.phase1Tables = phase1Tables;
+        this.softShiftChance = softShiftChance;
+        this.softMin = new double[soft.length];
+        this.softMax = new double[soft.length];
+        this.hardMin = new double[hard.length];
+        this.hardMax = new double[hard.length];
+        for (int phase = 0; phase < soft.length; phase++) {
+            softMin[phase] = soft[phase][0];
+            softMax[phase] = soft[phase][1];
+            hardMin[phase] = hard[phase][0];
+            hardMax[phase] = hard[phase][1];
+        }
+        this.phase4Min = phase4Band[0];
+        this.phase4Max = phase4Band[1];
+        this.phase4Candidates = phase4Candidates;
+        this.radii = radii;
+        this.version = version;
+    }
+
+    /**
+     * Lê e valida as regras de um mapa.
+     * @param props As chaves do arquivo de regras.
+     * @param mapName O mapa (as chaves "map.<mapa>.*" sobrescrevem as gerais), ou null para as gerais.
+     * @throws IllegalArgumentException Se faltar alguma chave ou algum valor for inválido.
+     */
+    static SafeZoneRules parse(Properties props, String mapName) {
+        String prefix = (mapName == null) ? null : "map." + mapName + ".";
+        // Texto "canônico" das regras já resolvidas: a versão é o CRC dele
+        StringBuilder canonical = new StringBuilder("engine=").append(SafeZoneEngine.RULES_VERSION);
+
+        AliasTable[] tables = new AliasTable[ZONE_NAMES.length];
+        for (int route = 0; route < ZONE_NAMES.length; route++) {
+            double[] weights = new double[ZONE_NAMES.length * DISTANCES];
+            for (int zone = 0; zone < ZONE_NAMES.length; zone++) {
+                String key = "phase1." + ZONE_NAMES[route] + "." + ZONE_NAMES[zone];
+                double[] values = numbers(props, prefix, key, DISTANCES, canonical);
+                System.arraycopy(values, 0, weights, zone * DISTANCES, DISTANCES);
+            }
+            try {
+                tables[route] = AliasTable.of(weights);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("phase1." + ZONE_NAMES[route] + ": " + e.getMessage());
+            }
+        }
+
+        // Shift: os valores gerais, e "shift.phase<N>.*" (opcional) para uma fase específica
+        double[] softChance = new double[SafeZoneEngine.PHASE_COUNT];
+        double[][] soft = new double[SafeZoneEngine.PHASE_COUNT][];
+        double[][] hard = new double[SafeZoneEngine.PHASE_COUNT][];
+        softChance[0] = chance(props, prefix, "shift.softChance", canonical);
+        soft[0] = band(props, prefix, "shift.soft", canonical);
+        hard[0] = band(props, prefix, "shift.hard", canonical);
+        for (int phase = 1; phase < SafeZoneEngine.PHASE_COUNT; phase++) {
+            String phaseKey = "shift.phase" + (phase + 1) + ".";
+            softChance[phase] = has(props, prefix, phaseKey + "softChance")
+                ? chance(props, prefix, phaseKey + "softChance", canonical) : softChance[0];
+            soft[phase] = has(props, prefix, phaseKey + "soft") ? band(props, prefix, phaseKey + "soft", canonical) : soft[0];
+            hard[phase] = has(props, prefix, phaseKey + "hard") ? band(props, prefix, phaseKey + "hard", canonical) : hard[0];
+        }
+        double[] phase4Band = band(props, prefix, "phase4.band", canonical);
+        double candidates = numbers(props, prefix, "phase4.candidates", 1, canonical)[0];
+        if (candidates < 1 || candidates != Math.rint(candidates)) {
+            throw new IllegalArgumentException("phase4.candidates deve ser um inteiro positivo: " + candidates);
+        }
+
+        double[] radii = numbers(props, prefix, "radii", SafeZoneEngine.PHASE_COUNT, canonical);
+        for (int i = 0; i < radii.length; i++) {
+            if (!(radii[i] > 0) || (i > 0 && radii[i] >= radii[i - 1])) {
+                throw new IllegalArgumentException("radii deve ser positivo e diminuir a cada fase: " + radii[i]);
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(canonical.toString().getBytes(StandardCharsets.UTF_8));
+        return new SafeZoneRules(tables, softChance, soft, hard, phase4Band, (int) candidates, radii, (int) crc.getValue());
+    }
+
+    /**
+     * A chave existe (no mapa ou geral)?
+     */
+    private static boolean has(Properties props, String prefix, String key) {
+        return (prefix != null && props.getProperty(prefix + key) != null) || props.getProperty(key) != null;
+    }
+
+    /**
+     * Uma chance em % (0 a 100).
+     */
+    private static double chance(Properties props, String prefix, String key, StringBuilder canonical) {
+        double chance = numbers(props, prefix, key, 1, canonical)[0];
+        if (!(chance >= 0 && chance <= 100)) {
+            throw new IllegalArgumentException(key + " deve ficar entre 0 e 100: " + chance);
+        }
+        return chance;
+    }
+
+    /**
+     * Lê 'count' números separados por vírgula (a chave do mapa tem prioridade sobre a geral).
+     */
+    private static double[] numbers(Properties props, String prefix, String key, int count, StringBuilder canonical) {
+        String value = (prefix != null) ? props.getProperty(prefix + key) : null;
+        if (value == null) {
+            value = props.getProperty(key);
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("Chave obrigatória ausente: " + key);
+        }
+        String[] parts = value.split(",");
+        if (parts.length != count) {
+            throw new IllegalArgumentException(key + ": esperado(s) " + count + " número(s), veio \"" + value.trim() + "\"");
+        }
+        double[] numbers = new double[count];
+        canonical.append(';').append(key).append('=');
+        for (int i = 0; i < count; i++) {
+            try {
+                numbers[i] = Double.parseDouble(parts[i].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(key + ": número inválido \"" + parts[i].trim() + "\"");
+            }
+            if (!Double.isFinite(numbers[i])) {
+                throw new IllegalArgumentException(key + ": número inválido \"" + parts[i].trim() + "\"");
+            }
+            canonical.append(numbers[i]).append(',');
+        }
+        return numbers;
+    }
+
+    /**
+     * Uma faixa (mínimo, máximo) dentro de 0.0 a 1.0.
+     */
+    private static double[] band(Properties props, String prefix, String key, StringBuilder canonical) {
+        double[] band = numbers(props, prefix, key, 2, canonical);
+        if (band[0] < 0 || band[1] > 1 || band[0] > band[1]) {
+            throw new IllegalArgumentException(key + ": a faixa deve ficar entre 0.0 e 1.0 (mínimo, máximo)");
+        }
+        return band;
+    }
+
+    /**
+     * Sorteia a combinação (zona, distância) da Fase 1 para o tipo de rota,
+     * em tempo constante e consumindo UM número do gerador.
+     * @return zona * DISTANCES + distância.
+     */
+    int drawPhase1Cell(int routeZoneType, RandomGenerator rand) {
+        return phase1Tables[routeZoneType].sample(rand);
+    }
+
+    /**
+     * A chance (0.0 a 1.0) da combinação zona * DISTANCES + distância na Fase 1 (ex: para medir a verossimilhança).
+     */
+    double getPhase1Probability(int routeZoneType, int cell) {
+        return phase1Tables[routeZoneType].probability(cell);
+    }
+
+    /**
+     * Chance (%) de Soft Shift na fase (0 = Fase 1); o resto é Hard Shift.
+     */
+    double getSoftShiftChance(int phase) {
+        return softShiftChance[phase];
+    }
+
+    double getSoftMin(int phase) {
+        return softMin[phase];
+    }
+
+    double getSoftMax(int phase) {
+        return softMax[phase];
+    }
+
+    double getHardMin(int phase) {
+        return hardMin[phase];
+    }
+
+    double getHardMax(int phase) {
+        return hardMax[phase];
+    }
+
+    double getPhase4Min() {
+        return phase4Min;
+    }
+
+    double getPhase4Max() {
+        return phase4Max;
+    }
+
+    int getPhase4Candidates() {
+        return phase4Candidates;
+    }
+
+    /**
+     * O raio (km) da fase (0 = Fase 1).
+     */
+    double getRadius(int phase) {
+        return radii[phase];
+    }
+
+    /**
+     * Muda sempre que alguma regra resolvida deste mapa (ou o RULES_VERSION do motor) muda.
+     */
+    int getVersion() {
+        return version;
+    }
+}
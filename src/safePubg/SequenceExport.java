@@ -0,0 +1,162 @@
+package safePubg;
+
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * SequenceExport
+ * Linha de comando para gravar TODAS as sequências de uma simulação em um arquivo .pzs
+ * (SequenceFile) e para ler os agregados de um arquivo já gravado.
+ *
+ * Gravar: simula a rota com o MonteCarloSimulator e grava cada sequência enquanto simula
+ * (SequenceFileWriter, em segundo plano). Com --compare, simula antes sem gravar nada,
+ * para medir quanto a gravação custou.
+ * Ler: passa pelo arquivo um bloco de cada vez (mapeado na memória) e imprime, por fase,
+ * quantas sequências têm a fase, o centro médio, o espalhamento e a célula mais provável.
+ *
+ * Uso:
+ *   java -Djava.awt.headless=true -cp bin safePubg.SequenceExport write --map Erangel --route 0.5,0.5,7.5,7.5
+ *        --samples 10000000 --out erangel.pzs [--seed S] [--threads N] [--compare]
+ *   java -cp bin safePubg.SequenceExport stats erangel.pzs
+ */
+public final class SequenceExport {
+
+    private SequenceExport() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        try {
+            if (args.length >= 1 && "write".equals(args[0])) {
+                write(args);
+            } else if (args.length == 2 && "stats".equals(args[0])) {
+                stats(Paths.get(args[1]));
+            } else {
+                throw new IllegalArgumentException("Comando inválido");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("ERRO: " + e.getMessage());
+            printUsage();
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println("ERRO: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void write(String[] args) throws IOException {
+        String map = null;
+        double[] route = null;
+        Path output = null;
+        int samples = 1_000_000;
+        long seed = SimulationCache.SEED;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean compare = false;
+        for (int i = 1; i < args.length; i++) {
+            boolean hasValue = i + 1 < args.length;
+            if ("--map".equals(args[i]) && hasValue) {
+                map = args[++i];
+            } else if ("--route".equals(args[i]) && hasValue) {
+                String[] fields = args[++i].split(",");
+                if (fields.length != 4) {
+                    throw new IllegalArgumentException("--route precisa de startX,startY,endX,endY");
+                }
+                route = new double[4];
+                for (int k = 0; k < 4; k++) {
+                    route[k] = Double.parseDouble(fields[k].trim());
+                }
+            } else if ("--out".equals(args[i]) && hasValue) {
+                output = Paths.get(args[++i]);
+            } else if ("--samples".equals(args[i]) && hasValue) {
+                samples = Integer.parseInt(args[++i]);
+            } else if ("--seed".equals(args[i]) && hasValue) {
+                seed = Long.parseLong(args[++i]);
+            } else if ("--threads".equals(args[i]) && hasValue) {
+                threads = Math.max(1, Integer.parseInt(args[++i]));
+            } else if ("--compare".equals(args[i])) {
+                compare = true;
+            } else {
+                throw new IllegalArgumentException("Opção desconhecida: " + args[i]);
+            }
+        }
+        if (map == null || route == null || output == null || samples < 1) {
+            throw new IllegalArgumentException("Informe --map, --route, --out e --samples (> 0)");
+        }
+        if (MapAssets.indexOf(map) < 0) {
+            throw new IllegalArgumentException("Mapa desconhecido: " + map);
+        }
+
+        SafeZoneEngine engine;
+        try {
+            engine = SafeZoneEngine.load();
+        } catch (IOException e) {
+            throw new IOException("Não foi possível carregar os mapas: " + e.getMessage(), e);
+        }
+        String mapName = MapAssets.MAPS[MapAssets.indexOf(map)];
+        SimulationContext context = engine.createContext(mapName, new Point2D.Double(route[0], route[1]), new Point2D.Double(route[2], route[3]));
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            long simulationNanos = 0;
+            if (compare) {
+                // Aquecimento (JIT) e a medida sem gravar
+                MonteCarloSimulator.simulate(context, List.of(), 0, Math.min(samples, 100_000), seed, pool);
+                long start = System.nanoTime();
+                MonteCarloSimulator.simulate(context, List.of(), 0, samples, seed, pool);
+                simulationNanos = System.nanoTime() - start;
+            }
+
+            long start = System.nanoTime();
+            SequenceFileWriter writer = new SequenceFileWriter(output, SequenceFile.Header.of(mapName, context, List.of(), seed, 0));
+            try {
+                MonteCarloSimulator.simulate(context, List.of(), 0, samples, seed, pool, writer);
+            } finally {
+                writer.close();
+            }
+            long exportNanos = System.nanoTime() - start;
+
+            System.err.printf(Locale.ROOT, "LOG: %,d sequências gravadas em %s: %.1f MB (%.1f bytes por sequência, %.1fx menor que o cru), %.2fs (%d threads)%n",
+                writer.getSequences(), output, writer.getFileBytes() / 1e6, (double) writer.getFileBytes() / writer.getSequences(),
+                (double) writer.getRawBytes() / Math.max(1, writer.getFileBytes() - SequenceFile.HEADER_SIZE), exportNanos / 1e9, threads);
+            if (compare) {
+                System.err.printf(Locale.ROOT, "LOG: Só a simulação: %.2fs; com a gravação: %.2fs (%+.1f%%)%n",
+                    simulationNanos / 1e9, exportNanos / 1e9, 100.0 * (exportNanos - simulationNanos) / simulationNanos);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void stats(Path file) throws IOException {
+        long start = System.nanoTime();
+        SequenceFile.Summary summary = SequenceFile.summarize(file, MonteCarloSimulator.GRID_SIZE);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        SequenceFile.Header header = summary.header;
+        System.out.println(header);
+        if (header.sequences >= 0 && header.sequences != summary.sequences) {
+            System.err.println("AVISO: O cabeçalho diz " + header.sequences + " sequências, mas o arquivo tem " + summary.sequences + ".");
+        }
+        PhaseSummary[] phases = PhaseSummary.of(summary.grid);
+        for (int phase = 0; phase < SafeZoneEngine.PHASE_COUNT; phase++) {
+            if (summary.counts[phase] == 0) {
+                System.out.printf(Locale.ROOT, "Fase %d: nenhuma sequência%n", phase + 1);
+                continue;
+            }
+            System.out.printf(Locale.ROOT, "Fase %d: %,d sequências, centro médio (%.3f, %.3f), espalhamento %.3f km, célula mais provável (%.2f, %.2f) %.2f%%%n",
+                phase + 1, summary.counts[phase], summary.meanX(phase), summary.meanY(phase), summary.spread(phase),
+                phases[phase].peakX, phases[phase].peakY, phases[phase].peakProbability * 100);
+        }
+        System.err.printf(Locale.ROOT, "LOG: %,d sequências lidas em %.2fs (%.1f milhões/s)%n",
+            summary.sequences, seconds, summary.sequences / seconds / 1e6);
+    }
+
+    private static void printUsage() {
+        System.err.println("Uso:");
+        System.err.println("  java -cp bin safePubg.SequenceExport write --map Erangel --route 0.5,0.5,7.5,7.5 --samples N --out arquivo.pzs");
+        System.err.println("       [--seed S] [--threads N] [--compare]");
+        System.err.println("  java -cp bin safePubg.SequenceExport stats arquivo.pzs");
+    }
+}
@@ -0,0 +1,417 @@
+package safePubg;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * SequenceFile
+ * Formato binário (.pzs) com TODAS as sequências de uma simulação, para análise offline
+ * (JSON ou texto com dezenas de milhões de centros seria lento e enorme).
+ *
+ * Conteúdo (little-endian, como o .pmap):
+ *   Cabeçalho (HEADER_SIZE bytes): magic "PZSQ", versão, o mapa, a rota, o tipo da rota,
+ *       a versão das regras, a semente, a primeira amostra, quantas fases foram observadas,
+ *       os raios das 7 fases e, no final da escrita, o total de sequências e de blocos.
+ *   Blocos, um atrás do outro, cada um com até SequenceFileWriter.BLOCK_SEQUENCES sequências:
+ *       BLOCK_HEADER_SIZE bytes (primeira amostra, sequências, tamanho da parte comprimida, CRC32 do bloco cru),
+ *       a parte comprimida (Deflater) e a parte guardada sem compressão.
+ * O bloco cru tem largura fixa (RECORD_BYTES por sequência): 1 byte por sequência (quantas fases
+ * ela tem) e os centros X e Y de cada fase em float, com os bytes dos floats separados em
+ * 4 planos (todos os bytes mais altos, depois os segundos, ...).
+ * Os 2 planos altos (sinal, expoente e o começo da mantissa) quase não mudam dentro de um mapa
+ * de 8 km e comprimem bem só com Huffman (o modo mais rápido do Deflater); os 2 planos baixos são
+ * praticamente ruído, então vão sem compressão: comprimir custaria CPU sem diminuir o arquivo.
+ *
+ * Como a simulação roda em várias threads, os blocos podem estar fora de ordem: cada um diz
+ * a sua primeira amostra (a sequência i é sempre a mesma para a mesma semente).
+ *
+ * Reader mapeia o arquivo na memória (em janelas de até MAP_WINDOW bytes) e descomprime
+ * um bloco de cada vez em um ZoneSequenceBatch reaproveitado: o arquivo nunca é lido inteiro.
+ */
+final class SequenceFile {
+    // "PZSQ" lido como int little-endian
+    static final int MAGIC = 0x5153_5A50;
+    static final int VERSION = 1;
+    static final String EXTENSION = ".pzs";
+    static final int HEADER_SIZE = 192;
+    static final int BLOCK_HEADER_SIZE = 24;
+    // Bytes crus por sequência: a quantidade de fases + X e Y (float) de cada fase
+    static final int RECORD_BYTES = 1 + SafeZoneEngine.PHASE_COUNT * 2 * Float.BYTES;
+    // Deles, os que são comprimidos: a quantidade de fases + os 2 planos altos
+    static final int COMPRESSED_RECORD_BYTES = 1 + SafeZoneEngine.PHASE_COUNT * 2 * 2;
+
+    // Maior pedaço do arquivo mapeado de uma vez
+    private static final long MAP_WINDOW = 1L << 30;
+    private static final int MAP_NAME_BYTES = 32;
+
+    private SequenceFile() {
+    }
+
+    /**
+     * O que foi simulado: tudo o que é preciso para reproduzir (ou conferir) o arquivo.
+     */
+    static final class Header {
+        final String map;
+        final double startX;
+        final double startY;
+        final double endX;
+        final double endY;
+        final int routeZoneType;
+        final long rulesVersion;
+        final long seed;
+        final long firstSample;
+        final int observedPhases;
+        final double[] radii;
+        // -1 enquanto o arquivo está sendo escrito
+        final long sequences;
+        final long blocks;
+
+        Header(String map, double startX, double startY, double endX, double endY, int routeZoneType,
+               long rulesVersion, long seed, long firstSample, int observedPhases, double[] radii, long sequences, long blocks) {
+            this.map = (map == null) ? "" : map;
+            this.startX = startX;
+            this.startY = startY;
+            this.endX = endX;
+            this.endY = endY;
+            this.routeZoneType = routeZoneType;
+            this.rulesVersion = rulesVersion;
+            this.seed = seed;
+            this.firstSample = firstSample;
+            this.observedPhases = observedPhases;
+            this.radii = radii.clone();
+            this.sequences = sequences;
+            this.blocks = blocks;
+        }
+
+        /**
+         * O cabeçalho de uma simulação (os totais são preenchidos ao fechar o arquivo).
+         * @param observed As safes já vistas na partida (os raios delas substituem os das regras).
+         */
+        static Header of(String map, SimulationContext context, List<SafeZone> observed, long seed, long firstSample) {
+            double[] radii = new double[SafeZoneEngine.PHASE_COUNT];
+            for (int phase = 0; phase < radii.length; phase++) {
+                radii[phase] = (phase < observed.size()) ? observed.get(phase).radius : context.getRules().getRadius(phase);
+            }
+            return new Header(map, context.getStartPoint().getX(), context.getStartPoint().getY(),
+                context.getEndPoint().getX(), context.getEndPoint().getY(), context.getRouteZoneType(),
+                context.getRules().getVersion(), seed, firstSample, observed.size(), radii, -1, -1);
+        }
+
+        Header withTotals(long sequences, long blocks) {
+            return new Header(map, startX, startY, endX, endY, routeZoneType, rulesVersion, seed, firstSample,
+                observedPhases, radii, sequences, blocks);
+        }
+
+        void writeTo(ByteBuffer out) {
+            byte[] name = Arrays.copyOf(map.getBytes(StandardCharsets.UTF_8), MAP_NAME_BYTES);
+            out.putInt(MAGIC).putInt(VERSION).putInt(HEADER_SIZE).putInt(SafeZoneEngine.PHASE_COUNT);
+            out.putLong(seed).putLong(firstSample).putLong(sequences).putLong(blocks).putLong(rulesVersion);
+            out.putDouble(startX).putDouble(startY).putDouble(endX).putDouble(endY);
+            out.putInt(routeZoneType).putInt(observedPhases).put(name);
+            for (double radius : radii) {
+                out.putDouble(radius);
+            }
+            while (out.position() < HEADER_SIZE) {
+                out.put((byte) 0);
+            }
+        }
+
+        static Header readFrom(ByteBuffer in, Path path) throws IOException {
+            if (in.limit() < HEADER_SIZE || in.getInt(0) != MAGIC) {
+                throw new IOException("Não é um arquivo de sequências: " + path);
+            }
+            if (in.getInt(4) != VERSION || in.getInt(8) != HEADER_SIZE || in.getInt(12) != SafeZoneEngine.PHASE_COUNT) {
+                throw new IOException("Versão do arquivo de sequências não suportada (" + in.getInt(4) + "): " + path);
+            }
+            byte[] name = new byte[MAP_NAME_BYTES];
+            in.get(96, name);
+            int length = 0;
+            while (length < name.length && name[length] != 0) length++;
+            double[] radii = new double[SafeZoneEngine.PHASE_COUNT];
+            for (int phase = 0; phase < radii.length; phase++) {
+                radii[phase] = in.getDouble(128 + phase * Double.BYTES);
+            }
+            return new Header(new String(name, 0, length, StandardCharsets.UTF_8),
+                in.getDouble(56), in.getDouble(64), in.getDouble(72), in.getDouble(80), in.getInt(88),
+                in.getLong(48), in.getLong(16), in.getLong(24), in.getInt(92), radii, in.getLong(32), in.getLong(40));
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s, rota (%.2f, %.2f) -> (%.2f, %.2f), semente %d, amostras a partir de %d, regras %08x, %d fase(s) observada(s)",
+                map.isEmpty() ? "Desconhecido" : map, startX, startY, endX, endY, seed, firstSample, rulesVersion, observedPhases);
+        }
+    }
+
+    // --- BLOCO CRU ---
+
+    /**
+     * Grava as sequências [from, to) do lote no formato cru (com os planos de bytes, o mais alto primeiro) a partir de raw[0].
+     * @return Quantos bytes foram escritos.
+     */
+    static int pack(ZoneSequenceBatch batch, int from, int to, byte[] raw) {
+        int count = to - from;
+        for (int i = 0; i < count; i++) {
+            raw[i] = (byte) batch.getPhaseCount(from + i);
+        }
+        // Cada plano tem um byte de cada float: floats = fases * 2 * count
+        int floats = SafeZoneEngine.PHASE_COUNT * 2 * count;
+        int float0 = 0;
+        for (int phase = 0; phase < SafeZoneEngine.PHASE_COUNT; phase++) {
+            for (int axis = 0; axis < 2; axis++) {
+                for (int i = 0; i < count; i++) {
+                    int sequence = from + i;
+                    float value = (batch.getPhaseCount(sequence) > phase)
+                        ? (float) (axis == 0 ? batch.getCenterX(sequence, phase) : batch.getCenterY(sequence, phase))
+                        : 0f;
+                    int bits = Float.floatToRawIntBits(value);
+                    int index = count + float0 + i;
+                    raw[index] = (byte) (bits >>> 24);
+                    raw[index + floats] = (byte) (bits >>> 16);
+                    raw[index + 2 * floats] = (byte) (bits >>> 8);
+                    raw[index + 3 * floats] = (byte) bits;
+                }
+                float0 += count;
+            }
+        }
+        return count * RECORD_BYTES;
+    }
+
+    /**
+     * O contrário de pack: escreve as 'count' sequências do bloco cru nas linhas [0, count) do lote.
+     */
+    static void unpack(byte[] raw, int count, ZoneSequenceBatch batch) {
+        int floats = SafeZoneEngine.PHASE_COUNT * 2 * count;
+        for (int i = 0; i < count; i++) {
+            batch.setPhaseCount(i, raw[i]);
+        }
+        int float0 = 0;
+        for (int phase = 0; phase < SafeZoneEngine.PHASE_COUNT; phase++) {
+            int xStart = count + float0;
+            int yStart = xStart + count;
+            for (int i = 0; i < count; i++) {
+                batch.setCenter(i, phase, floatAt(raw, xStart + i, floats), floatAt(raw, yStart + i, floats));
+            }
+            float0 += 2 * count;
+        }
+    }
+
+    private static float floatAt(byte[] raw, int index, int planeSize) {
+        int bits = (raw[index] & 0xFF) << 24
+            | (raw[index + planeSize] & 0xFF) << 16
+            | (raw[index + 2 * planeSize] & 0xFF) << 8
+            | (raw[index + 3 * planeSize] & 0xFF);
+        return Float.intBitsToFloat(bits);
+    }
+
+    // --- LEITURA ---
+
+    /**
+     * Recebe os blocos do arquivo, um de cada vez.
+     */
+    interface BlockConsumer {
+        /**
+         * @param firstSample A amostra da linha 0 do lote.
+         * @param batch As sequências do bloco nas linhas [0, count) (o lote é reaproveitado: copie o que quiser guardar).
+         */
+        void accept(long firstSample, ZoneSequenceBatch batch, int count);
+    }
+
+    /**
+     * Abre um arquivo .pzs para leitura.
+     */
+    static Reader open(Path path) throws IOException {
+        return new Reader(path);
+    }
+
+    /**
+     * Lê os blocos do arquivo sem carregar o arquivo inteiro (ver a descrição da classe).
+     */
+    static final class Reader implements Closeable {
+        private final Path path;
+        private final FileChannel channel;
+        private final long size;
+        private final Header header;
+        // A janela mapeada atual: [windowStart, windowStart + window.capacity())
+        private MappedByteBuffer window;
+        private long windowStart;
+
+        private Reader(Path path) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                this.size = channel.size();
+                this.header = Header.readFrom(map(0, Math.min(size, HEADER_SIZE)), path);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        Header getHeader() {
+            return header;
+        }
+
+        /**
+         * Passa por todos os blocos, na ordem do arquivo.
+         * @return Quantas sequências foram lidas.
+         * @throws IOException Se um bloco estiver truncado ou corrompido (CRC diferente).
+         */
+        long forEachBlock(BlockConsumer consumer) throws IOException {
+            ZoneSequenceBatch batch = new ZoneSequenceBatch(SequenceFileWriter.BLOCK_SEQUENCES);
+            for (int phase = 0; phase < header.radii.length; phase++) {
+                batch.setRadius(phase, header.radii[phase]);
+            }
+            byte[] raw = new byte[SequenceFileWriter.BLOCK_SEQUENCES * RECORD_BYTES];
+            byte[] compressed = new byte[0];
+            Inflater inflater = new Inflater();
+            CRC32 crc = new CRC32();
+            long total = 0;
+            try {
+                long position = HEADER_SIZE;
+                while (position < size) {
+                    if (position + BLOCK_HEADER_SIZE > size) {
+                        throw new IOException("Bloco truncado na posição " + position + ": " + path);
+                    }
+                    ByteBuffer blockHeader = view(position, BLOCK_HEADER_SIZE);
+                    long firstSample = blockHeader.getLong(0);
+                    int count = blockHeader.getInt(8);
+                    int compressedLength = blockHeader.getInt(12);
+                    int checksum = blockHeader.getInt(16);
+                    int packedLength = count * COMPRESSED_RECORD_BYTES;
+                    int rawLength = count * RECORD_BYTES;
+                    long blockLength = BLOCK_HEADER_SIZE + (long) compressedLength + (rawLength - packedLength);
+                    if (count <= 0 || count > SequenceFileWriter.BLOCK_SEQUENCES || compressedLength <= 0
+                            || position + blockLength > size) {
+                        throw new IOException("Bloco inválido ou truncado na posição " + position + ": " + path);
+                    }
+                    if (compressed.length < compressedLength) {
+                        compressed = new byte[compressedLength];
+                    }
+                    view(position + BLOCK_HEADER_SIZE, compressedLength).get(compressed, 0, compressedLength);
+                    inflater.reset();
+                    inflater.setInput(compressed, 0, compressedLength);
+                    int inflated;
+                    try {
+                        inflated = inflater.inflate(raw, 0, packedLength);
+                    } catch (DataFormatException e) {
+                        throw new IOException("Bloco corrompido na posição " + position + ": " + path, e);
+                    }
+                    view(position + BLOCK_HEADER_SIZE + compressedLength, rawLength - packedLength).get(raw, packedLength, rawLength - packedLength);
+                    crc.reset();
+                    crc.update(raw, 0, rawLength);
+                    if (inflated != packedLength || (int) crc.getValue() != checksum) {
+                        throw new IOException("Bloco corrompido na posição " + position + " (CRC): " + path);
+                    }
+                    unpack(raw, count, batch);
+                    consumer.accept(firstSample, batch, count);
+                    total += count;
+                    position += blockLength;
+                }
+            } finally {
+                inflater.end();
+            }
+            return total;
+        }
+
+        /**
+         * O trecho [position, position + length) do arquivo, remapeando a janela se ele não couber nela.
+         */
+        private ByteBuffer view(long position, int length) throws IOException {
+            if (window == null || position < windowStart || position + length > windowStart + window.capacity()) {
+                window = map(position, Math.min(size - position, Math.max(MAP_WINDOW, length)));
+                windowStart = position;
+            }
+            ByteBuffer view = window.duplicate();
+            int offset = (int) (position - windowStart);
+            view.position(offset).limit(offset + length);
+            return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        private MappedByteBuffer map(long position, long length) throws IOException {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+
+        @Override
+        public void close() throws IOException {
+            window = null;
+            channel.close();
+        }
+    }
+
+    // --- AGREGAÇÕES ---
+
+    /**
+     * Agregados de um arquivo inteiro, calculados bloco a bloco: a grade de densidade e,
+     * por fase, quantas sequências têm a fase, o centro médio e o espalhamento (exatos, não da grade).
+     */
+    static final class Summary implements BlockConsumer {
+        final Header header;
+        final DensityGrid grid;
+        final long[] counts = new long[SafeZoneEngine.PHASE_COUNT];
+        private final double[] sumX = new double[SafeZoneEngine.PHASE_COUNT];
+        private final double[] sumY = new double[SafeZoneEngine.PHASE_COUNT];
+        private final double[] sumSquares = new double[SafeZoneEngine.PHASE_COUNT];
+        long sequences;
+
+        Summary(Header header, int gridSize) {
+            this.header = header;
+            this.grid = new DensityGrid(gridSize, gridSize, WorldTransform.WORLD_SIZE, WorldTransform.WORLD_SIZE);
+        }
+
+        @Override
+        public void accept(long firstSample, ZoneSequenceBatch batch, int count) {
+            batch.addTo(grid, 0, count, header.observedPhases);
+            batch.forEachCenter(0, count, (sequence, phase, x, y) -> {
+                counts[phase]++;
+                sumX[phase] += x;
+                sumY[phase] += y;
+                sumSquares[phase] += x * x + y * y;
+            });
+            sequences += count;
+        }
+
+        double meanX(int phase) {
+            return sumX[phase] / counts[phase];
+        }
+
+        double meanY(int phase) {
+            return sumY[phase] / counts[phase];
+        }
+
+        /**
+         * O desvio padrão da distância dos centros até o centro médio (km), como ZoneSequenceBatch.spread.
+         */
+        double spread(int phase) {
+            double meanX = meanX(phase);
+            double meanY = meanY(phase);
+            return Math.sqrt(Math.max(0, sumSquares[phase] / counts[phase] - meanX * meanX - meanY * meanY));
+        }
+    }
+
+    /**
+     * Lê o arquivo inteiro (um bloco de cada vez) e devolve os agregados.
+     */
+    static Summary summarize(Path path, int gridSize) throws IOException {
+        try (Reader reader = open(path)) {
+            Summary summary = new Summary(reader.getHeader(), gridSize);
+            reader.forEachBlock(summary);
+            return summary;
+        }
+    }
+}
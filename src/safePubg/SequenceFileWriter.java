@@ -0,0 +1,243 @@
+package safePubg;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * SequenceFileWriter
+ * Grava as sequências de uma simulação em um arquivo SequenceFile (.pzs) enquanto ela roda.
+ *
+ * As threads da simulação só copiam as sequências para um bloco cru (SequenceFile.pack, barato) e
+ * o colocam em uma fila; uma thread própria ("sequence-writer") comprime cada bloco e o
+ * escreve com um FileChannel, em paralelo com a simulação. A fila tem tamanho fixo (QUEUE_BLOCKS): se o disco ou a
+ * compressão não acompanharem, quem chama write espera (backpressure) em vez de acumular
+ * blocos na memória. Os blocos crus são reaproveitados, então não há lixo por bloco.
+ *
+ * O arquivo é escrito em "nome.tmp" e só vira "nome" no close, já com os totais no cabeçalho:
+ * quem lê nunca vê um arquivo pela metade.
+ *
+ * write pode ser chamado por várias threads ao mesmo tempo (ex: as tarefas do MonteCarloSimulator).
+ */
+final class SequenceFileWriter implements Closeable {
+    // Máximo de sequências por bloco
+    static final int BLOCK_SEQUENCES = 4096;
+    // Blocos crus que podem estar esperando a thread de escrita
+    private static final int QUEUE_BLOCKS = 8;
+    // Marca de fim da fila
+    private static final Block END = new Block(0);
+
+    private final Path path;
+    private final Path temp;
+    private final FileChannel channel;
+    private final SequenceFile.Header header;
+    private final BlockingQueue<Block> full = new ArrayBlockingQueue<>(QUEUE_BLOCKS);
+    // Blocos já escritos, prontos para reaproveitar (há no máximo QUEUE_BLOCKS + 1 + quantidade de produtores)
+    private final BlockingQueue<Block> free = new ArrayBlockingQueue<>(QUEUE_BLOCKS * 4);
+    private final Thread thread;
+    private final AtomicLong sequences = new AtomicLong();
+    private final AtomicLong rawBytes = new AtomicLong();
+    private final AtomicLong fileBytes = new AtomicLong(SequenceFile.HEADER_SIZE);
+    private long blocks;
+    // Primeiro erro da thread de escrita (depois dele, os blocos são descartados)
+    private volatile IOException failure;
+    private boolean closed;
+
+    /**
+     * Um bloco cru (ainda não comprimido).
+     */
+    private static final class Block {
+        final byte[] raw;
+        long firstSample;
+        int count;
+
+        Block(int capacity) {
+            this.raw = new byte[capacity * SequenceFile.RECORD_BYTES];
+        }
+    }
+
+    /**
+     * Cria o arquivo e começa a thread de escrita.
+     */
+    SequenceFileWriter(Path path, SequenceFile.Header header) throws IOException {
+        this.path = path;
+        this.header = header;
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        this.temp = parent.resolve(path.getFileName() + ".tmp");
+        this.channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        writeHeader(header);
+        channel.position(SequenceFile.HEADER_SIZE);
+        this.thread = new Thread(this::writeLoop, "sequence-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Copia as sequências [from, to) do lote para o arquivo (o lote pode ser reaproveitado logo depois).
+     * Espera se a fila estiver cheia.
+     * @param firstSample A amostra da linha 'from' (a linha from + i é a amostra firstSample + i).
+     * @throws UncheckedIOException Se a escrita já falhou (ex: disco cheio).
+     */
+    void write(ZoneSequenceBatch batch, int from, int to, long firstSample) {
+        for (int start = from; start < to; start += BLOCK_SEQUENCES) {
+            int end = Math.min(to, start + BLOCK_SEQUENCES);
+            checkFailure();
+            Block block = free.poll();
+            if (block == null) {
+                block = new Block(BLOCK_SEQUENCES);
+            }
+            block.firstSample = firstSample + (start - from);
+            block.count = end - start;
+            SequenceFile.pack(batch, start, end, block.raw);
+            try {
+                full.put(block);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UncheckedIOException(new InterruptedIOException("Escrita de sequências interrompida"));
+            }
+        }
+    }
+
+    /**
+     * A thread de escrita: comprime e escreve cada bloco, até receber END.
+     */
+    private void writeLoop() {
+        // Só Huffman (sem procurar repetições): os planos altos têm poucos valores muito frequentes
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        deflater.setStrategy(Deflater.HUFFMAN_ONLY);
+        CRC32 crc = new CRC32();
+        byte[] compressed = new byte[BLOCK_SEQUENCES * SequenceFile.RECORD_BYTES + 1024];
+        ByteBuffer blockHeader = ByteBuffer.allocate(SequenceFile.BLOCK_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            while (true) {
+                Block block = full.take();
+                if (block == END) break;
+                if (failure == null) {
+                    try {
+                        int rawLength = block.count * SequenceFile.RECORD_BYTES;
+                        int packedLength = block.count * SequenceFile.COMPRESSED_RECORD_BYTES;
+                        crc.reset();
+                        crc.update(block.raw, 0, rawLength);
+                        deflater.reset();
+                        deflater.setInput(block.raw, 0, packedLength);
+                        deflater.finish();
+                        int length = 0;
+                        while (!deflater.finished()) {
+                            if (length == compressed.length) {
+                                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                            }
+                            length += deflater.deflate(compressed, length, compressed.length - length);
+                        }
+                        blockHeader.clear();
+                        blockHeader.putLong(block.firstSample).putInt(block.count).putInt(length)
+                            .putInt((int) crc.getValue()).putInt(0).flip();
+                        writeFully(blockHeader);
+                        writeFully(ByteBuffer.wrap(compressed, 0, length));
+                        // Os planos baixos (ruído) vão como estão
+                        writeFully(ByteBuffer.wrap(block.raw, packedLength, rawLength - packedLength));
+                        blocks++;
+                        sequences.addAndGet(block.count);
+                        rawBytes.addAndGet(rawLength);
+                        fileBytes.addAndGet(SequenceFile.BLOCK_HEADER_SIZE + length + rawLength - packedLength);
+                    } catch (IOException e) {
+                        failure = e;
+                    }
+                }
+                free.offer(block);
+            }
+        } catch (InterruptedException e) {
+            failure = new InterruptedIOException("Thread de escrita interrompida");
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void writeHeader(SequenceFile.Header header) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SequenceFile.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.writeTo(buffer);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, buffer.position());
+        }
+    }
+
+    private void checkFailure() {
+        IOException error = failure;
+        if (error != null) {
+            throw new UncheckedIOException("Falha ao gravar " + path + ": " + error.getMessage(), error);
+        }
+    }
+
+    /**
+     * Sequências já escritas no arquivo.
+     */
+    long getSequences() {
+        return sequences.get();
+    }
+
+    /**
+     * Bytes do arquivo até agora (cabeçalho + blocos comprimidos).
+     */
+    long getFileBytes() {
+        return fileBytes.get();
+    }
+
+    /**
+     * Bytes que as mesmas sequências ocupariam sem compressão.
+     */
+    long getRawBytes() {
+        return rawBytes.get();
+    }
+
+    /**
+     * Espera a fila esvaziar, grava os totais no cabeçalho e troca o arquivo temporário pelo final.
+     * Chame depois que todas as chamadas a write terminaram.
+     * @throws IOException Se alguma escrita falhou (o arquivo temporário é apagado).
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            full.put(END);
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            thread.interrupt();
+            failure = new InterruptedIOException("Escrita de sequências interrompida");
+        }
+        try {
+            if (failure != null) {
+                throw failure;
+            }
+            writeHeader(header.withTotals(sequences.get(), blocks));
+            channel.force(false);
+            channel.close();
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            channel.close();
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package safePubg;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * ShardPartial
+ * O resultado (parcial) de um ou mais shards de um ShardedSimulation: para cada rota do job,
+ * a grade de densidade e as contagens de tentativas/fallbacks das sequências simuladas.
+ *
+ * Só tem somas de inteiros (e um máximo), então juntar (merge) parciais dá sempre o mesmo
+ * resultado, em qualquer ordem: N shards juntados = a simulação inteira em um processo só.
+ * Cada parcial diz de qual job é (fingerprint) e quais shards já contém, para que o
+ * coordenador não junte shards de jobs diferentes nem o mesmo shard duas vezes.
+ *
+ * Formato (GZIP + DataOutput): MAGIC, FORMAT_VERSION, fingerprint, quantidade de shards,
+ * os shards contidos, e por rota: RouteStats + DensityGrid.writeTo. A grade é quase toda
+ * zeros, então o GZIP deixa o arquivo bem pequeno.
+ */
+final class ShardPartial {
+    static final int MAGIC = 0x53505348; // "SPSH"
+    static final int FORMAT_VERSION = 1;
+
+    private final long fingerprint;
+    private final int shardCount;
+    // Quais shards (0 .. shardCount-1) já estão somados aqui
+    private final BitSet shards;
+    private final DensityGrid[] grids;
+    private final RouteStats[] stats;
+
+    /**
+     * As contagens do motor para uma rota (as mesmas de PredictionMetrics, menos os tempos,
+     * que mudam de uma máquina para outra).
+     */
+    static final class RouteStats {
+        long sequences;
+        long phase1AnyLandFallbacks;
+        long phase1GiveUps;
+        final long[] attempts = new long[SafeZoneEngine.PHASE_COUNT];
+        final long[] maxAttempts = new long[SafeZoneEngine.PHASE_COUNT];
+        final long[] capHits = new long[SafeZoneEngine.PHASE_COUNT];
+
+        /**
+         * Copia as contagens de métricas usadas só por esta rota (ver PredictionMetrics.detached).
+         */
+        static RouteStats of(PredictionMetrics metrics) {
+            RouteStats stats = new RouteStats();
+            stats.sequences = metrics.getSequences();
+            stats.phase1AnyLandFallbacks = metrics.getPhase1AnyLandFallbacks();
+            stats.phase1GiveUps = metrics.getPhase1GiveUps();
+            System.arraycopy(metrics.getAttemptsPerPhase(), 0, stats.attempts, 0, SafeZoneEngine.PHASE_COUNT);
+            System.arraycopy(metrics.getMaxAttemptsPerPhase(), 0, stats.maxAttempts, 0, SafeZoneEngine.PHASE_COUNT);
+            System.arraycopy(metrics.getAttemptCapHitsPerPhase(), 0, stats.capHits, 0, SafeZoneEngine.PHASE_COUNT);
+            return stats;
+        }
+
+        void merge(RouteStats other) {
+            sequences += other.sequences;
+            phase1AnyLandFallbacks += other.phase1AnyLandFallbacks;
+            phase1GiveUps += other.phase1GiveUps;
+            for (int phase = 0; phase < SafeZoneEngine.PHASE_COUNT; phase++) {
+                attempts[phase] += other.attempts[phase];
+                maxAttempts[phase] = Math.max(maxAttempts[phase], other.maxAttempts[phase]);
+                capHits[phase] += other.capHits[phase];
+            }
+        }
+
+        void writeTo(DataOutput out) throws IOException {
+            out.writeLong(sequences);
+            out.writeLong(phase1AnyLandFallbacks);
+            out.writeLong(phase1GiveUps);
+            for (int phase = 0; phase < SafeZoneEngine.PHASE_COUNT; phase++) {
+                out.writeLong(attempts[phase]);
+                out.writeLong(maxAttempts[phase]);
+                out.writeLong(capHits[phase]);
+            }
+        }
+
+        static RouteStats readFrom(DataInput in) throws IOException {
+            RouteStats stats = new RouteStats();
+            stats.sequences = in.readLong();
+            stats.phase1AnyLandFallbacks = in.readLong();
+            stats.phase1GiveUps = in.readLong();
+            for (int phase = 0; phase < SafeZoneEngine.PHASE_COUNT; phase++) {
+                stats.attempts[phase] = in.readLong();
+                stats.maxAttempts[phase] = in.readLong();
+                stats.capHits[phase] = in.readLong();
+            }
+            return stats;
+        }
+
+        /**
+         * Média de pontos sorteados por sequência em cada fase.
+         */
+        double[] meanAttempts() {
+            double[] mean = new double[SafeZoneEngine.PHASE_COUNT];
+            for (int phase = 0; phase < mean.length; phase++) {
+                mean[phase] = (sequences == 0) ? 0 : (double) attempts[phase] / sequences;
+            }
+            return mean;
+        }
+    }
+
+    /**
+     * O parcial de um único shard.
+     */
+    ShardPartial(long fingerprint, int shardCount, int shard, DensityGrid[] grids, RouteStats[] stats) {
+        this(fingerprint, shardCount, new BitSet(), grids, stats);
+        if (shard < 0 || shard >= shardCount) {
+            throw new IllegalArgumentException("Shard " + shard + " fora de 0.." + (shardCount - 1));
+        }
+        shards.set(shard);
+    }
+
+    private ShardPartial(long fingerprint, int shardCount, BitSet shards, DensityGrid[] grids, RouteStats[] stats) {
+        if (grids.length != stats.length) {
+            throw new IllegalArgumentException("Grades e contagens de quantidades diferentes de rotas");
+        }
+        this.fingerprint = fingerprint;
+        this.shardCount = shardCount;
+        this.shards = shards;
+        this.grids = grids;
+        this.stats = stats;
+    }
+
+    /**
+     * Soma outro parcial do MESMO job neste.
+     * @throws IllegalArgumentException Se for de outro job ou tiver algum shard que já está aqui.
+     */
+    void merge(ShardPartial other) {
+        if (other.fingerprint != fingerprint || other.shardCount != shardCount || other.grids.length != grids.length) {
+            throw new IllegalArgumentException(String.format("Parciais de jobs diferentes (%08x/%d e %08x/%d)",
+                fingerprint, shardCount, other.fingerprint, other.shardCount));
+        }
+        if (shards.intersects(other.shards)) {
+            BitSet repeated = (BitSet) shards.clone();
+            repeated.and(other.shards);
+            throw new IllegalArgumentException("Shards repetidos: " + repeated);
+        }
+        for (int route = 0; route < grids.length; route++) {
+            grids[route].merge(other.grids[route]);
+            stats[route].merge(other.stats[route]);
+        }
+        shards.or(other.shards);
+    }
+
+    /**
+     * true se todos os shards do job já foram somados.
+     */
+    boolean isComplete() {
+        return shards.cardinality() == shardCount;
+    }
+
+    boolean containsShard(int shard) {
+        return shards.get(shard);
+    }
+
+    /**
+     * Os shards que ainda faltam.
+     */
+    BitSet missingShards() {
+        BitSet missing = new BitSet(shardCount);
+        missing.set(0, shardCount);
+        missing.andNot(shards);
+        return missing;
+    }
+
+    long getFingerprint() {
+        return fingerprint;
+    }
+
+    int getShardCount() {
+        return shardCount;
+    }
+
+    int getRouteCount() {
+        return grids.length;
+    }
+
+    DensityGrid getGrid(int route) {
+        return grids[route];
+    }
+
+    RouteStats getStats(int route) {
+        return stats[route];
+    }
+
+    /**
+     * Um CRC só do CONTEÚDO (grades e contagens), sem a divisão em shards:
+     * o mesmo job dá o mesmo digest com 1 ou com N shards.
+     */
+    long digest() {
+        CRC32 crc = new CRC32();
+        try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(OutputStream.nullOutputStream(), crc))) {
+            writeRoutes(out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // Não acontece: o destino é descartado
+        }
+        return crc.getValue();
+    }
+
+    // --- ARQUIVO ---
+
+    /**
+     * Grava o parcial (troca o arquivo de uma vez: quem lê nunca vê um arquivo pela metade).
+     */
+    void writeTo(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(temp), 1 << 16)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(fingerprint);
+            out.writeInt(shardCount);
+            out.writeInt(shards.cardinality());
+            for (int shard = shards.nextSetBit(0); shard >= 0; shard = shards.nextSetBit(shard + 1)) {
+                out.writeInt(shard);
+            }
+            writeRoutes(out);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void writeRoutes(DataOutput out) throws IOException {
+        out.writeInt(grids.length);
+        for (int route = 0; route < grids.length; route++) {
+            stats[route].writeTo(out);
+            grids[route].writeTo(out);
+        }
+    }
+
+    /**
+     * Lê um parcial gravado por writeTo.
+     * @throws IOException Se o arquivo estiver truncado ou for de outro formato.
+     */
+    static ShardPartial readFrom(Path file) throws IOException {
+        try (InputStream raw = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(raw, 1 << 16)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Não é um parcial de simulação: " + file);
+            }
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Versão " + version + " do parcial não suportada: " + file);
+            }
+            long fingerprint = in.readLong();
+            int shardCount = in.readInt();
+            int contained = in.readInt();
+            if (shardCount <= 0 || contained <= 0 || contained > shardCount) {
+                throw new IOException("Parcial inválido (" + contained + " de " + shardCount + " shards): " + file);
+            }
+            BitSet shards = new BitSet(shardCount);
+            for (int i = 0; i < contained; i++) {
+                int shard = in.readInt();
+                if (shard < 0 || shard >= shardCount || shards.get(shard)) {
+                    throw new IOException("Shard inválido " + shard + ": " + file);
+                }
+                shards.set(shard);
+            }
+            int routes = in.readInt();
+            if (routes <= 0 || routes > 100_000) {
+                throw new IOException("Quantidade de rotas inválida (" + routes + "): " + file);
+            }
+            DensityGrid[] grids = new DensityGrid[routes];
+            RouteStats[] stats = new RouteStats[routes];
+            for (int route = 0; route < routes; route++) {
+                stats[route] = RouteStats.readFrom(in);
+                grids[route] = DensityGrid.readFrom(in);
+            }
+            return new ShardPartial(fingerprint, shardCount, shards, grids, stats);
+        } catch (EOFException e) {
+            throw new IOException("Parcial truncado: " + file, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ShardPartial[%08x, shards %s de %d, %d rotas]", fingerprint, shards, shardCount, grids.length);
+    }
+
+    /**
+     * Os índices de amostra [início, fim) de um shard: 'samples' dividido em 'shardCount' pedaços contíguos.
+     */
+    static long[] sampleRange(long samples, int shard, int shardCount) {
+        return new long[] {samples * shard / shardCount, samples * (shard + 1) / shardCount};
+    }
+}
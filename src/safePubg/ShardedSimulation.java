@@ -0,0 +1,567 @@
+package safePubg;
+
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+
+/**
+ * ShardedSimulation
+ * Divide um estudo grande (várias rotas x muitas sequências) em SHARDS independentes,
+ * cada um rodando em um processo (JVM) separado, e junta os resultados no final.
+ *
+ * O JOB é um arquivo texto com a semente, as sequências por rota e as rotas:
+ *   seed = 1510089252
+ *   samples = 1000000
+ *   route = Erangel, 0.5, 0.5, 7.5, 7.5
+ *   route = Miramar, 0.0, 2.0, 8.0, 2.0
+ * (coordenadas em km, de 0 a 8; linhas vazias e comentários (#) são ignorados).
+ *
+ * O shard k de K simula, em cada rota, as amostras [k * samples / K, (k + 1) * samples / K)
+ * da semente. Como a amostra i usa sempre o gerador SafeZoneEngine.sequenceRandom(seed, i)
+ * (ver MonteCarloSimulator), os shards usam sequências aleatórias disjuntas e o resultado
+ * juntado é IDÊNTICO (bit a bit) para qualquer quantidade de shards, inclusive 1.
+ * Cada shard grava um ShardPartial (grades + contagens de tentativas e fallbacks), que o
+ * coordenador soma; o digest impresso no final permite conferir isso.
+ *
+ * O job tem uma impressão digital (fingerprint): o CRC do job e das versões das regras
+ * de cada mapa. Parciais de outro job (ou de outras regras) são recusados.
+ *
+ * Uso (coordenador, que também cria os processos workers nesta máquina):
+ *   java -cp bin safePubg.ShardedSimulation run --out estudo.part [--study | --routes rotas.csv]
+ *        [--samples 1000000] [--seed S] [--shards 8] [--parallel 2] [--threads N] [--work pasta] [--in-process]
+ * Worker (normalmente chamado pelo coordenador):
+ *   java -cp bin safePubg.ShardedSimulation worker job.txt <shard> <shards> saida.part [--threads N]
+ * Juntar parciais gravados em outro lugar:
+ *   java -cp bin safePubg.ShardedSimulation merge saida.part parte-0.part parte-1.part ...
+ */
+public final class ShardedSimulation {
+    // Maior bloco de amostras simulado de uma vez (MonteCarloSimulator recebe int)
+    private static final int MAX_CALL_SAMPLES = 1 << 26;
+    // As rotas do estudo padrão (--study): as mesmas dos benchmarks, em todos os mapas
+    private static final double[][] STUDY_ROUTES = {
+        {0.5, 0.5, 7.5, 7.5}, // Central
+        {0.0, 2.0, 8.0, 2.0}, // Periférica
+        {0.0, 0.5, 8.0, 0.5}  // Borda
+    };
+
+    private ShardedSimulation() {
+    }
+
+    /**
+     * Uma rota do job.
+     */
+    static final class Route {
+        final String map;
+        final double startX;
+        final double startY;
+        final double endX;
+        final double endY;
+
+        Route(String map, double startX, double startY, double endX, double endY) {
+            if (MapAssets.indexOf(map) < 0) {
+                throw new IllegalArgumentException("Mapa desconhecido: " + map);
+            }
+            this.map = MapAssets.MAPS[MapAssets.indexOf(map)];
+            this.startX = startX;
+            this.startY = startY;
+            this.endX = endX;
+            this.endY = endY;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s, %s, %s, %s, %s", map, startX, startY, endX, endY);
+        }
+    }
+
+    /**
+     * O que simular: as rotas, as sequências por rota e a semente.
+     */
+    static final class Job {
+        final long seed;
+        final long samples;
+        final List<Route> routes;
+
+        Job(long seed, long samples, List<Route> routes) {
+            if (samples < 1 || routes.isEmpty()) {
+                throw new IllegalArgumentException("Job vazio: " + samples + " sequências, " + routes.size() + " rotas");
+            }
+            this.seed = seed;
+            this.samples = samples;
+            this.routes = List.copyOf(routes);
+        }
+
+        /**
+         * O texto canônico do job (o mesmo que é gravado no arquivo).
+         */
+        String toText() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("seed = ").append(seed).append('\n');
+            sb.append("samples = ").append(samples).append('\n');
+            for (Route route : routes) {
+                sb.append("route = ").append(route).append('\n');
+            }
+            return sb.toString();
+        }
+
+        /**
+         * CRC do job e das versões das regras de cada mapa usado.
+         */
+        long fingerprint() {
+            CRC32 crc = new CRC32();
+            crc.update(toText().getBytes(StandardCharsets.UTF_8));
+            RuleBook rules = RuleBook.current();
+            for (Route route : routes) {
+                long version = rules.forMap(route.map).getVersion();
+                for (int shift = 0; shift < 64; shift += 8) {
+                    crc.update((int) (version >>> shift));
+                }
+            }
+            return crc.getValue();
+        }
+
+        void writeTo(Path file) throws IOException {
+            Files.writeString(file, toText(), StandardCharsets.UTF_8);
+        }
+
+        static Job readFrom(Path file) throws IOException {
+            Long seed = null;
+            Long samples = null;
+            List<Route> routes = new ArrayList<>();
+            int lineNumber = 0;
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                int equals = line.indexOf('=');
+                if (equals < 0) {
+                    throw new IOException(file + ":" + lineNumber + ": linha sem '='");
+                }
+                String key = line.substring(0, equals).trim();
+                String value = line.substring(equals + 1).trim();
+                try {
+                    switch (key) {
+                        case "seed": seed = Long.parseLong(value); break;
+                        case "samples": samples = Long.parseLong(value); break;
+                        case "route": routes.add(parseRoute(value)); break;
+                        default: throw new IllegalArgumentException("chave desconhecida '" + key + "'");
+                    }
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(file + ":" + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+            if (seed == null || samples == null) {
+                throw new IOException(file + ": faltam 'seed' ou 'samples'");
+            }
+            try {
+                return new Job(seed, samples, routes);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(file + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * "map, startX, startY, endX, endY" (colunas a mais são ignoradas).
+     */
+    static Route parseRoute(String text) {
+        String[] fields = text.split(",");
+        if (fields.length < 5) {
+            throw new IllegalArgumentException("rota incompleta: '" + text + "'");
+        }
+        return new Route(fields[0].trim(), Double.parseDouble(fields[1].trim()), Double.parseDouble(fields[2].trim()),
+            Double.parseDouble(fields[3].trim()), Double.parseDouble(fields[4].trim()));
+    }
+
+    /**
+     * As rotas de um CSV (map,startX,startY,endX,endY); ignora linhas vazias, comentários e o cabeçalho.
+     */
+    static List<Route> readRoutes(Path file) throws IOException {
+        List<Route> routes = new ArrayList<>();
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#") || line.toLowerCase(Locale.ROOT).startsWith("map,")) continue;
+            try {
+                routes.add(parseRoute(line));
+            } catch (IllegalArgumentException e) {
+                throw new IOException(file + ":" + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        return routes;
+    }
+
+    /**
+     * O estudo padrão: as rotas Central, Periférica e de Borda em todos os mapas.
+     */
+    static List<Route> studyRoutes() {
+        List<Route> routes = new ArrayList<>();
+        for (String map : MapAssets.MAPS) {
+            for (double[] r : STUDY_ROUTES) {
+                routes.add(new Route(map, r[0], r[1], r[2], r[3]));
+            }
+        }
+        return routes;
+    }
+
+    /**
+     * Simula o shard 'shard' de 'shardCount' do job (todas as rotas, uma depois da outra, usando o pool inteiro).
+     */
+    static ShardPartial runShard(SafeZoneEngine engine, Job job, int shard, int shardCount, ForkJoinPool pool) {
+        long[] range = ShardPartial.sampleRange(job.samples, shard, shardCount);
+        DensityGrid[] grids = new DensityGrid[job.routes.size()];
+        ShardPartial.RouteStats[] stats = new ShardPartial.RouteStats[grids.length];
+        for (int i = 0; i < grids.length; i++) {
+            Route route = job.routes.get(i);
+            SimulationContext base = engine.createContext(route.map,
+                new Point2D.Double(route.startX, route.startY), new Point2D.Double(route.endX, route.endY));
+            // Métricas só desta rota neste shard (as globais misturariam rotas e processos)
+            PredictionMetrics metrics = PredictionMetrics.detached(route.map, base.getRouteZoneType());
+            SimulationContext context = base.withMetrics(metrics);
+            DensityGrid grid = null;
+            for (long first = range[0]; first < range[1]; first += MAX_CALL_SAMPLES) {
+                int count = (int) Math.min(MAX_CALL_SAMPLES, range[1] - first);
+                DensityGrid part = MonteCarloSimulator.simulate(context, List.of(), first, count, job.seed, pool);
+                if (grid == null) {
+                    grid = part;
+                } else {
+                    grid.merge(part);
+                }
+            }
+            if (grid == null) {
+                // Shard sem amostras (mais shards que sequências): grade vazia
+                grid = new DensityGrid(MonteCarloSimulator.GRID_SIZE, MonteCarloSimulator.GRID_SIZE,
+                    WorldTransform.WORLD_SIZE, WorldTransform.WORLD_SIZE);
+            }
+            grids[i] = grid;
+            stats[i] = ShardPartial.RouteStats.of(metrics);
+        }
+        return new ShardPartial(job.fingerprint(), shardCount, shard, grids, stats);
+    }
+
+    // --- LINHA DE COMANDO ---
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            printUsage();
+            System.exit(2);
+            return;
+        }
+        String command = args[0];
+        String[] rest = Arrays.copyOfRange(args, 1, args.length);
+        try {
+            switch (command) {
+                case "run": run(rest); break;
+                case "worker": worker(rest); break;
+                case "merge": merge(rest); break;
+                default: throw new IllegalArgumentException("Comando desconhecido: " + command);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("ERRO: " + e.getMessage());
+            printUsage();
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println("ERRO: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Coordenador: grava o job, cria os workers (no máximo 'parallel' ao mesmo tempo), espera e junta.
+     */
+    private static void run(String[] args) throws Exception {
+        Path output = null;
+        Path routesFile = null;
+        Path work = null;
+        boolean study = false;
+        boolean inProcess = false;
+        long samples = 1_000_000;
+        long seed = SimulationCache.SEED;
+        int shards = Runtime.getRuntime().availableProcessors();
+        int parallel = Runtime.getRuntime().availableProcessors();
+        int threads = 0;
+        for (int i = 0; i < args.length; i++) {
+            boolean hasValue = i + 1 < args.length;
+            if ("--out".equals(args[i]) && hasValue) {
+                output = Paths.get(args[++i]);
+            } else if ("--routes".equals(args[i]) && hasValue) {
+                routesFile = Paths.get(args[++i]);
+            } else if ("--work".equals(args[i]) && hasValue) {
+                work = Paths.get(args[++i]);
+            } else if ("--samples".equals(args[i]) && hasValue) {
+                samples = Long.parseLong(args[++i]);
+            } else if ("--seed".equals(args[i]) && hasValue) {
+                seed = Long.parseLong(args[++i]);
+            } else if ("--shards".equals(args[i]) && hasValue) {
+                shards = Integer.parseInt(args[++i]);
+            } else if ("--parallel".equals(args[i]) && hasValue) {
+                parallel = Math.max(1, Integer.parseInt(args[++i]));
+            } else if ("--threads".equals(args[i]) && hasValue) {
+                threads = Math.max(1, Integer.parseInt(args[++i]));
+            } else if ("--study".equals(args[i])) {
+                study = true;
+            } else if ("--in-process".equals(args[i])) {
+                inProcess = true;
+            } else {
+                throw new IllegalArgumentException("Opção desconhecida: " + args[i]);
+            }
+        }
+        if (output == null) {
+            throw new IllegalArgumentException("Informe --out");
+        }
+        if (study == (routesFile != null)) {
+            throw new IllegalArgumentException("Informe --study ou --routes (um dos dois)");
+        }
+        if (shards < 1) {
+            throw new IllegalArgumentException("--shards precisa ser pelo menos 1");
+        }
+        // Por padrão, os núcleos são divididos entre os workers que rodam juntos
+        if (threads == 0) {
+            threads = Math.max(1, Runtime.getRuntime().availableProcessors() / parallel);
+        }
+
+        Job job = new Job(seed, samples, study ? studyRoutes() : readRoutes(routesFile));
+        long fingerprint = job.fingerprint();
+        if (work == null) {
+            work = Paths.get(output + ".shards");
+        }
+        Files.createDirectories(work);
+        Path jobFile = work.resolve("job.txt");
+        job.writeTo(jobFile);
+        System.err.printf(Locale.ROOT, "LOG: Job %08x: %d rotas x %,d sequências, %d shards (%s)%n", fingerprint,
+            job.routes.size(), job.samples, shards, inProcess ? "neste processo" : parallel + " processos por vez, " + threads + " threads cada");
+
+        long startTime = System.nanoTime();
+        Path[] parts = new Path[shards];
+        for (int shard = 0; shard < shards; shard++) {
+            parts[shard] = work.resolve("shard-" + shard + ".part");
+        }
+        if (inProcess) {
+            SafeZoneEngine engine = loadEngine();
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                for (int shard = 0; shard < shards; shard++) {
+                    if (!isDone(parts[shard], fingerprint, shard, shards)) {
+                        runShard(engine, job, shard, shards, pool).writeTo(parts[shard]);
+                    }
+                }
+            } finally {
+                pool.shutdown();
+            }
+        } else {
+            launchWorkers(jobFile, parts, fingerprint, parallel, threads);
+        }
+
+        ShardPartial total = mergeAll(parts);
+        total.writeTo(output);
+        System.err.printf(Locale.ROOT, "LOG: %d shards juntados em %.1fs -> %s%n", shards, (System.nanoTime() - startTime) / 1e9, output);
+        printSummary(job, total);
+    }
+
+    /**
+     * Cria um processo worker por shard que ainda não tem parcial, no máximo 'parallel' por vez.
+     */
+    private static void launchWorkers(Path jobFile, Path[] parts, long fingerprint, int parallel, int threads)
+            throws IOException, InterruptedException {
+        int shards = parts.length;
+        Deque<Process> running = new ArrayDeque<>();
+        Deque<Integer> runningShards = new ArrayDeque<>();
+        for (int shard = 0; shard <= shards; shard++) {
+            // Espera o mais antigo quando não cabe mais ninguém (ou no final, por todos)
+            while (!running.isEmpty() && (running.size() >= parallel || shard == shards)) {
+                Process process = running.removeFirst();
+                int finished = runningShards.removeFirst();
+                int exitCode = process.waitFor();
+                if (exitCode != 0) {
+                    running.forEach(Process::destroy);
+                    System.err.println("ERRO: O shard " + finished + " terminou com código " + exitCode
+                        + " (veja " + logFile(parts[finished]) + ")");
+                    System.exit(1);
+                }
+                System.err.println("LOG: Shard " + finished + " pronto.");
+            }
+            if (shard == shards) break;
+            if (isDone(parts[shard], fingerprint, shard, shards)) {
+                System.err.println("LOG: Shard " + shard + " já estava pronto (" + parts[shard] + ").");
+                continue;
+            }
+            List<String> command = workerCommand(jobFile, shard, shards, parts[shard], threads);
+            Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(logFile(parts[shard]).toFile())
+                .start();
+            running.addLast(process);
+            runningShards.addLast(shard);
+        }
+    }
+
+    /**
+     * A linha de comando de um worker: a mesma JVM e o mesmo classpath deste processo,
+     * repassando as propriedades safepubg.* (ex: safepubg.rules.file, para as mesmas regras).
+     */
+    private static List<String> workerCommand(Path jobFile, int shard, int shards, Path part, int threads) {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Djava.awt.headless=true");
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("safepubg.")) {
+                command.add("-D" + name + "=" + System.getProperty(name));
+            }
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ShardedSimulation.class.getName());
+        command.add("worker");
+        command.add(jobFile.toString());
+        command.add(Integer.toString(shard));
+        command.add(Integer.toString(shards));
+        command.add(part.toString());
+        command.add("--threads");
+        command.add(Integer.toString(threads));
+        return command;
+    }
+
+    private static Path logFile(Path part) {
+        String name = part.getFileName().toString();
+        return part.resolveSibling(name.substring(0, name.length() - ".part".length()) + ".log");
+    }
+
+    /**
+     * true se o parcial já existe e é deste job (permite continuar um estudo interrompido).
+     */
+    private static boolean isDone(Path part, long fingerprint, int shard, int shards) {
+        if (!Files.isRegularFile(part)) return false;
+        try {
+            ShardPartial partial = ShardPartial.readFrom(part);
+            return partial.getFingerprint() == fingerprint && partial.getShardCount() == shards && partial.containsShard(shard);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Worker: simula um shard e grava o parcial.
+     */
+    private static void worker(String[] args) throws Exception {
+        List<String> positional = new ArrayList<>();
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            if ("--threads".equals(args[i]) && i + 1 < args.length) {
+                threads = Math.max(1, Integer.parseInt(args[++i]));
+            } else {
+                positional.add(args[i]);
+            }
+        }
+        if (positional.size() != 4) {
+            throw new IllegalArgumentException("worker precisa de: job shard shards saida");
+        }
+        Job job = Job.readFrom(Paths.get(positional.get(0)));
+        int shard = Integer.parseInt(positional.get(1));
+        int shards = Integer.parseInt(positional.get(2));
+        Path output = Paths.get(positional.get(3));
+        if (shards < 1 || shard < 0 || shard >= shards) {
+            throw new IllegalArgumentException("Shard " + shard + " de " + shards + " inválido");
+        }
+        SafeZoneEngine engine = loadEngine();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long startTime = System.nanoTime();
+        try {
+            ShardPartial partial = runShard(engine, job, shard, shards, pool);
+            partial.writeTo(output);
+        } finally {
+            pool.shutdown();
+        }
+        long[] range = ShardPartial.sampleRange(job.samples, shard, shards);
+        System.err.printf(Locale.ROOT, "LOG: Shard %d de %d: amostras [%d, %d) de %d rotas em %.1fs (%d threads) -> %s%n",
+            shard, shards, range[0], range[1], job.routes.size(), (System.nanoTime() - startTime) / 1e9, threads, output);
+    }
+
+    /**
+     * Junta parciais já gravados (ex: de workers que rodaram em outro lugar).
+     */
+    private static void merge(String[] args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("merge precisa de: saida parcial [parcial ...]");
+        }
+        Path[] parts = new Path[args.length - 1];
+        for (int i = 1; i < args.length; i++) {
+            parts[i - 1] = Paths.get(args[i]);
+        }
+        ShardPartial total = mergeAll(parts);
+        total.writeTo(Paths.get(args[0]));
+        System.err.printf("LOG: %d parciais juntados -> %s (digest %08x)%n", parts.length, args[0], total.digest());
+    }
+
+    /**
+     * Soma os parciais (na ordem dada; como só há somas inteiras, a ordem não muda o resultado).
+     */
+    private static ShardPartial mergeAll(Path[] parts) throws IOException {
+        ShardPartial total = null;
+        for (Path part : parts) {
+            ShardPartial partial = ShardPartial.readFrom(part);
+            if (total == null) {
+                total = partial;
+            } else {
+                try {
+                    total.merge(partial);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(part + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        if (!total.isComplete()) {
+            System.err.println("AVISO: Faltam os shards " + total.missingShards() + " de " + total.getShardCount() + ".");
+        }
+        return total;
+    }
+
+    private static SafeZoneEngine loadEngine() throws IOException {
+        try {
+            return SafeZoneEngine.load();
+        } catch (IOException e) {
+            throw new IOException("Não foi possível carregar os mapas: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Uma linha por rota: sequências, tentativas médias por fase, fallbacks e o pico da Fase 1.
+     */
+    private static void printSummary(Job job, ShardPartial total) {
+        for (int i = 0; i < total.getRouteCount(); i++) {
+            ShardPartial.RouteStats stats = total.getStats(i);
+            PhaseSummary phase1 = PhaseSummary.of(total.getGrid(i))[0];
+            StringBuilder attempts = new StringBuilder();
+            long capHits = 0;
+            for (double mean : stats.meanAttempts()) {
+                attempts.append(attempts.length() == 0 ? "" : "/").append(String.format(Locale.ROOT, "%.2f", mean));
+            }
+            for (long hits : stats.capHits) {
+                capHits += hits;
+            }
+            System.out.printf(Locale.ROOT, "%s: %,d sequências, tentativas %s, limites %d, fallbacks F1 %d/%d, pico F1 (%.2f, %.2f) %.2f%%%n",
+                job.routes.get(i), stats.sequences, attempts, capHits, stats.phase1AnyLandFallbacks, stats.phase1GiveUps,
+                phase1.peakX, phase1.peakY, phase1.peakProbability * 100);
+        }
+        System.out.printf("digest %08x%n", total.digest());
+    }
+
+    private static void printUsage() {
+        System.err.println("Uso:");
+        System.err.println("  java -cp bin safePubg.ShardedSimulation run --out estudo.part (--study | --routes rotas.csv)");
+        System.err.println("       [--samples 1000000] [--seed S] [--shards N] [--parallel N] [--threads N] [--work pasta] [--in-process]");
+        System.err.println("  java -cp bin safePubg.ShardedSimulation worker job.txt <shard> <shards> saida.part [--threads N]");
+        System.err.println("  java -cp bin safePubg.ShardedSimulation merge saida.part parcial.part [parcial.part ...]");
+    }
+}
@@ -0,0 +1,374 @@
+package safePubg;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * SimulationCache
+ * Guarda os resultados de simulações Monte Carlo (a grade, o resumo de cada fase
+ * e o JSON já montado) para que pedidos repetidos voltem na hora, sem simular.
+ *
+ * A chave é (mapa, pontos da rota arredondados para uma grade de QUANTUM_KM,
+ * quantidade de sequências, versão das regras). Rotas quase iguais (a poucos metros
+ * de distância) caem na mesma chave; a simulação é feita para a rota ARREDONDADA,
+ * com uma semente fixa, então o resultado de uma chave é sempre o mesmo.
+ *
+ * A memória é limitada em BYTES (não em quantidade): quando passa do limite, os
+ * resultados usados há mais tempo saem primeiro (LRU). Com uma pasta de spill
+ * configurada, os resultados que saem vão para o disco e voltam de lá se forem
+ * pedidos de novo.
+ *
+ * Configuração (propriedades de sistema):
+ *   -Dsafepubg.cache.maxMB=256         Limite de memória
+ *   -Dsafepubg.cache.quantumKm=0.05    Tamanho da grade de arredondamento das rotas (km)
+ *   -Dsafepubg.cache.spillDir=pasta    Pasta para os resultados que saem da memória (sem = não grava)
+ */
+final class SimulationCache implements SimulationCacheMXBean {
+    static final String MAX_MB_PROPERTY = "safepubg.cache.maxMB";
+    static final String QUANTUM_PROPERTY = "safepubg.cache.quantumKm";
+    static final String SPILL_DIR_PROPERTY = "safepubg.cache.spillDir";
+    static final long DEFAULT_MAX_MB = 256;
+    static final double DEFAULT_QUANTUM_KM = 0.05;
+    // A semente de todas as simulações do cache (o resultado depende só da chave)
+    static final long SEED = 0xCAC4E_5AFEL;
+    // Cabeçalho dos arquivos de spill ("SCSH")
+    private static final int SPILL_MAGIC = 0x53435348;
+
+    private final long maxSizeBytes;
+    private final double quantumKm;
+    private final Path spillDirectory;
+    // Resultados na memória, do usado há mais tempo para o mais recente (protegido por synchronized(this))
+    private final LinkedHashMap<Key, CachedResult> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long sizeBytes;
+    // Simulações em andamento (pedidos iguais esperam a mesma)
+    private final ConcurrentHashMap<Key, CompletableFuture<CachedResult>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder spillHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxSizeBytes Limite de memória (bytes aproximados).
+     * @param quantumKm Tamanho da grade de arredondamento das rotas (km).
+     * @param spillDirectory Pasta para os resultados que saem da memória (null = não grava).
+     */
+    SimulationCache(long maxSizeBytes, double quantumKm, Path spillDirectory) {
+        if (maxSizeBytes <= 0 || !(quantumKm > 0)) {
+            throw new IllegalArgumentException("Limite e grade do cache devem ser positivos");
+        }
+        this.maxSizeBytes = maxSizeBytes;
+        this.quantumKm = quantumKm;
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * Cria o cache com as propriedades de sistema (ver o comentário da classe)
+     * e o registra no JMX.
+     */
+    static SimulationCache fromSystemProperties() {
+        long maxMb = DEFAULT_MAX_MB;
+        double quantum = DEFAULT_QUANTUM_KM;
+        try {
+            maxMb = Long.parseLong(System.getProperty(MAX_MB_PROPERTY, Long.toString(DEFAULT_MAX_MB)).trim());
+            quantum = Double.parseDouble(System.getProperty(QUANTUM_PROPERTY, Double.toString(DEFAULT_QUANTUM_KM)).trim());
+        } catch (NumberFormatException e) {
+            System.err.println("AVISO: Valor inválido para a configuração do cache: " + e.getMessage());
+        }
+        String spill = System.getProperty(SPILL_DIR_PROPERTY);
+        SimulationCache cache = new SimulationCache(maxMb * 1024 * 1024, quantum, (spill != null) ? Paths.get(spill) : null);
+        cache.registerMBean();
+        return cache;
+    }
+
+    private void registerMBean() {
+        try {
+            ObjectName name = new ObjectName("safePubg:type=SimulationCache");
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            }
+        } catch (JMException | SecurityException e) {
+            // Sem JMX o cache continua funcionando
+        }
+    }
+
+    /**
+     * A chave de um pedido, com a rota já arredondada para a grade do cache.
+     * A versão das regras do mapa entra na chave: trocar as regras (RuleBook) invalida os resultados antigos.
+     * A simulação que preencher a chave precisa rodar com essas MESMAS regras (não com as
+     * atuais, que podem ter mudado nesse meio tempo), senão o resultado fica na chave errada.
+     * @param map O nome do mapa como em MapAssets.MAPS.
+     * @param rules As regras do mapa com que a simulação vai rodar.
+     */
+    Key key(String map, double startX, double startY, double endX, double endY, int samples, SafeZoneRules rules) {
+        return new Key(map, quantize(startX), quantize(startY), quantize(endX), quantize(endY), samples,
+            rules.getVersion());
+    }
+
+    private int quantize(double coordinate) {
+        return (int) Math.round(coordinate / quantumKm);
+    }
+
+    /**
+     * A coordenada (km) de um valor arredondado da chave.
+     */
+    double toKm(int quantized) {
+        return quantized * quantumKm;
+    }
+
+    /**
+     * O resultado da chave: da memória (microssegundos), do disco, ou simulando.
+     * @param simulator Roda a simulação da rota ARREDONDADA da chave com a semente SEED
+     *                  (só é chamado se o resultado não estiver guardado).
+     */
+    CompletableFuture<CachedResult> get(Key key, Function<Key, CompletableFuture<DensityGrid>> simulator) {
+        CachedResult cached = getIfPresent(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<CachedResult> created = new CompletableFuture<>();
+        CompletableFuture<CachedResult> running = inFlight.putIfAbsent(key, created);
+        if (running != null) {
+            hits.increment(); // Outro pedido igual já está simulando: não é trabalho novo
+            return running;
+        }
+        misses.increment();
+        simulator.apply(key).whenComplete((grid, error) -> {
+            try {
+                if (error != null) {
+                    created.completeExceptionally(error);
+                } else {
+                    CachedResult result = new CachedResult(grid);
+                    put(key, result);
+                    created.complete(result);
+                }
+            } finally {
+                inFlight.remove(key, created);
+            }
+        });
+        return created;
+    }
+
+    /**
+     * O resultado guardado da chave (memória ou disco), ou null se não houver.
+     */
+    CachedResult getIfPresent(Key key) {
+        synchronized (this) {
+            CachedResult cached = entries.get(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+        CachedResult spilled = readSpill(key);
+        if (spilled != null) {
+            spillHits.increment();
+            put(key, spilled);
+        }
+        return spilled;
+    }
+
+    /**
+     * Guarda um resultado e tira os mais antigos se passar do limite de bytes.
+     */
+    void put(Key key, CachedResult result) {
+        List<Map.Entry<Key, CachedResult>> evicted = new ArrayList<>();
+        synchronized (this) {
+            CachedResult previous = entries.put(key, result);
+            if (previous != null) {
+                sizeBytes -= previous.sizeBytes;
+            }
+            sizeBytes += result.sizeBytes;
+            Iterator<Map.Entry<Key, CachedResult>> oldest = entries.entrySet().iterator();
+            while (sizeBytes > maxSizeBytes && oldest.hasNext()) {
+                Map.Entry<Key, CachedResult> entry = oldest.next();
+                if (entry.getKey().equals(key)) {
+                    continue; // Nunca tira o que acabou de entrar
+                }
+                oldest.remove();
+                sizeBytes -= entry.getValue().sizeBytes;
+                evictions.increment();
+                evicted.add(entry);
+            }
+        }
+        // A escrita no disco fica fora do lock
+        for (Map.Entry<Key, CachedResult> entry : evicted) {
+            writeSpill(entry.getKey(), entry.getValue());
+        }
+    }
+
+    // --- SPILL PARA O DISCO ---
+
+    private Path spillPath(Key key) {
+        return spillDirectory.resolve(String.format(Locale.ROOT, "%s_%d_%d_%d_%d_%d_v%08x_q%s.grid", key.map.toLowerCase(Locale.ROOT),
+            key.startX, key.startY, key.endX, key.endY, key.samples, key.rulesVersion,
+            Double.toString(quantumKm).replace('.', '_')));
+    }
+
+    private void writeSpill(Key key, CachedResult result) {
+        if (spillDirectory == null) return;
+        Path path = spillPath(key);
+        if (Files.exists(path)) return; // O mesmo resultado já está no disco
+        try {
+            Files.createDirectories(spillDirectory);
+            Path temp = Files.createTempFile(spillDirectory, "spill", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024))) {
+                out.writeInt(SPILL_MAGIC);
+                out.writeInt(key.rulesVersion);
+                result.grid.writeTo(out);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("AVISO: Não foi possível gravar o cache em " + path + ": " + e.getMessage());
+        }
+    }
+
+    private CachedResult readSpill(Key key) {
+        if (spillDirectory == null) return null;
+        Path path = spillPath(key);
+        if (!Files.isRegularFile(path)) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 64 * 1024))) {
+            if (in.readInt() != SPILL_MAGIC || in.readInt() != key.rulesVersion) {
+                return null;
+            }
+            return new CachedResult(DensityGrid.readFrom(in));
+        } catch (IOException e) {
+            System.err.println("AVISO: Arquivo de cache inválido " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // --- ESTATÍSTICAS (JMX) ---
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getSpillHits() {
+        return spillHits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public double getHitRatio() {
+        long served = getHits() + getSpillHits();
+        long total = served + getMisses();
+        return total == 0 ? 0 : (double) served / total;
+    }
+
+    @Override
+    public synchronized int getEntries() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    @Override
+    public long getMaxSizeBytes() {
+        return maxSizeBytes;
+    }
+
+    @Override
+    public synchronized void clear() {
+        entries.clear();
+        sizeBytes = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SimulationCache[%d resultados, %,d KB de %,d KB, acertos=%d, disco=%d, simulações=%d, removidos=%d]",
+            getEntries(), getSizeBytes() / 1024, maxSizeBytes / 1024, getHits(), getSpillHits(), getMisses(), getEvictions());
+    }
+
+    /**
+     * Um resultado guardado: a grade, o resumo de cada fase e o JSON de
+     * "density" + "summary" já montado (montar o JSON custa mais que achar o resultado).
+     */
+    static final class CachedResult {
+        final DensityGrid grid;
+        final PhaseSummary[] summaries;
+        final String json;
+        final long sizeBytes;
+
+        CachedResult(DensityGrid grid) {
+            this.grid = grid;
+            this.summaries = PhaseSummary.of(grid);
+            StringBuilder sb = new StringBuilder(64 * 1024);
+            sb.append("\"samples\":").append(grid.getSamples()).append(",\"density\":");
+            Json.appendDensity(sb, grid);
+            sb.append(",\"summary\":");
+            Json.appendSummaries(sb, summaries);
+            this.json = sb.toString();
+            // A grade + o texto (até 2 bytes por caractere) + os resumos
+            this.sizeBytes = grid.sizeInBytes() + 40L + 2L * json.length() + 64L * summaries.length;
+        }
+    }
+
+    /**
+     * A chave do cache (a rota já arredondada, em unidades de QUANTUM_KM).
+     */
+    static final class Key {
+        final String map;
+        final int startX, startY, endX, endY;
+        final int samples;
+        final int rulesVersion;
+
+        Key(String map, int startX, int startY, int endX, int endY, int samples, int rulesVersion) {
+            this.map = map;
+            this.startX = startX;
+            this.startY = startY;
+            this.endX = endX;
+            this.endY = endY;
+            this.samples = samples;
+            this.rulesVersion = rulesVersion;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return map.equals(k.map) && startX == k.startX && startY == k.startY && endX == k.endX
+                && endY == k.endY && samples == k.samples && rulesVersion == k.rulesVersion;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(map, startX, startY, endX, endY, samples, rulesVersion);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package safePubg;
+
+/**
+ * SimulationCacheMXBean
+ * O que o cache de simulações expõe via JMX (ex: no JConsole, em safePubg > SimulationCache).
+ */
+public interface SimulationCacheMXBean {
+
+    /** Pedidos respondidos da memória. */
+    long getHits();
+
+    /** Pedidos respondidos de um arquivo do disco (spill). */
+    long getSpillHits();
+
+    /** Pedidos que precisaram simular. */
+    long getMisses();
+
+    /** Resultados tirados da memória para caber no limite. */
+    long getEvictions();
+
+    /** Fração dos pedidos respondidos sem simular (0 a 1). */
+    double getHitRatio();
+
+    /** Resultados guardados na memória agora. */
+    int getEntries();
+
+    /** Bytes (aproximados) ocupados na memória agora. */
+    long getSizeBytes();
+
+    long getMaxSizeBytes();
+
+    /** Apaga tudo da memória (os arquivos do disco continuam). */
+    void clear();
+}
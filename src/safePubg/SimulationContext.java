@@ -0,0 +1,191 @@
+package safePubg;
+
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+
+/**
+ * SimulationContext
+ * Tudo o que uma previsão precisa saber, congelado no momento em que ela começa:
+ * a máscara de terra do mapa, a rota do avião (em coordenadas do mundo, reta ou com pontos
+ * intermediários; ver FlightPath), a distância até ela no mapa inteiro e o tipo da rota.
+ * É imutável, então várias threads podem simular a mesma rota ao mesmo tempo
+ * sem disputar (nem corromper) o estado estático da interface.
+ */
+final class SimulationContext {
+    private final LandMask landMask;
+    private final Point2D startPoint;
+    private final Point2D endPoint;
+    private final FlightPath path;
+    // Distância até a rota em cada célula da máscara (calculada uma única vez)
+    private final RouteDistanceField routeDistance;
+    private final int routeZoneType;
+    private final boolean verbose;
+    // Tabelas de sorteio da Fase 1 para esta rota (montadas uma única vez)
+    private final ZoneSampler zoneSampler;
+    // Onde as previsões deste contexto registram tentativas e tempos (por mapa e tipo de rota)
+    private final PredictionMetrics metrics;
+    // As regras do mapa no momento da criação (uma troca de regras não afeta este contexto)
+    private final SafeZoneRules rules;
+
+    private SimulationContext(String mapName, LandMask landMask, RouteDistanceField routeDistance, int routeZoneType, boolean verbose) {
+        this.landMask = landMask;
+        // O FlightPath já é uma cópia: a interface continua alterando os seus próprios pontos
+        this.path = routeDistance.getPath();
+        this.startPoint = path.getStart();
+        this.endPoint = path.getEnd();
+        this.routeDistance = routeDistance;
+        this.routeZoneType = routeZoneType;
+        this.verbose = verbose;
+        this.zoneSampler = new ZoneSampler(landMask, routeDistance);
+        this.metrics = PredictionMetrics.forRoute(mapName, routeZoneType);
+        this.rules = RuleBook.current().forMap(mapName);
+    }
+
+    /**
+     * Cópia de outro contexto com outras métricas ou outras regras (ver withMetrics e withRules).
+     */
+    private SimulationContext(SimulationContext other, PredictionMetrics metrics, SafeZoneRules rules) {
+        this.landMask = other.landMask;
+        this.startPoint = other.startPoint;
+        this.endPoint = other.endPoint;
+        this.path = other.path;
+        this.routeDistance = other.routeDistance;
+        this.routeZoneType = other.routeZoneType;
+        this.verbose = other.verbose;
+        this.zoneSampler = other.zoneSampler;
+        this.metrics = metrics;
+        this.rules = rules;
+    }
+
+    /**
+     * Cria o contexto de uma rota. O tipo da rota (Central, Periférica, Borda)
+     * é calculado aqui mesmo, uma única vez.
+     * @param mapName O nome do mapa (separa as métricas e escolhe as regras do mapa; pode ser nulo).
+     * @param landMask A máscara do mapa (pode ser nula se o mapa não carregou).
+     * @param verbose Se true, imprime os LOGs de cada previsão (não use em simulações em massa).
+     */
+    static SimulationContext of(String mapName, LandMask landMask, Point2D startPoint, Point2D endPoint, boolean verbose) {
+        return of(mapName, landMask, FlightPath.of(startPoint, endPoint), verbose);
+    }
+
+    /**
+     * Cria o contexto de uma rota com pontos intermediários (ou reta, com dois pontos).
+     * A distância até a rota é calculada aqui, uma única vez, para o mapa inteiro
+     * (RouteDistanceField); o tipo da rota e as faixas do ZoneSampler só leem dela.
+     */
+    static SimulationContext of(String mapName, LandMask landMask, FlightPath path, boolean verbose) {
+        RouteDistanceField routeDistance = RouteDistanceField.of(path, landMask);
+        int routeZoneType = SafeZoneEngine.determineRouteZoneType(routeDistance);
+        return new SimulationContext(mapName, landMask, routeDistance, routeZoneType, verbose);
+    }
+
+    /**
+     * Cria o contexto de uma rota sem nome de mapa (as métricas ficam em "Desconhecido").
+     */
+    static SimulationContext of(LandMask landMask, Point2D startPoint, Point2D endPoint, boolean verbose) {
+        return of(null, landMask, startPoint, endPoint, verbose);
+    }
+
+    /**
+     * Verifica se um ponto está em terra no mapa deste contexto.
+     */
+    boolean isLand(Point2D point) {
+        if (landMask == null) {
+            return true; // Se o mapa não carregou, não podemos checar. Assume terra.
+        }
+        // Fora do mapa ou não for água, é terra.
+        return landMask.isLandAt(point.getX(), point.getY());
+    }
+
+    /**
+     * isLand para um lote de pontos (km) de uma vez (ver LandMask.isLandAt em lote).
+     * @param cells Rascunho com pelo menos 'count' posições.
+     */
+    void isLand(double[] x, double[] y, int count, int[] cells, boolean[] out) {
+        if (landMask == null) {
+            Arrays.fill(out, 0, count, true); // Sem mapa, assume terra (como acima)
+            return;
+        }
+        landMask.isLandAt(x, y, count, cells, out);
+    }
+
+    /**
+     * A proporção de terra (0.0 a 1.0) de um círculo no mapa deste contexto.
+     * Usa a grade pré-calculada para esse raio (uma leitura de array; ver LandFractionGrid).
+     */
+    double landFraction(Point2D center, double radius) {
+        return landFraction(center.getX(), center.getY(), radius);
+    }
+
+    /**
+     * landFraction com o centro em coordenadas soltas (km), sem criar um Point2D.
+     */
+    double landFraction(double x, double y, double radius) {
+        if (landMask == null) {
+            return 1.0; // Sem mapa, tudo é terra (como em isLand)
+        }
+        return landMask.landFractionGrid(radius).at(x, y);
+    }
+
+    ZoneSampler getZoneSampler() {
+        return zoneSampler;
+    }
+
+    Point2D getStartPoint() {
+        return startPoint;
+    }
+
+    Point2D getEndPoint() {
+        return endPoint;
+    }
+
+    /**
+     * A rota inteira (início, pontos intermediários e fim).
+     */
+    FlightPath getPath() {
+        return path;
+    }
+
+    /**
+     * A distância (km) de um ponto até a rota (uma leitura do RouteDistanceField).
+     */
+    double distanceToRoute(double x, double y) {
+        return routeDistance.distance(x, y);
+    }
+
+    int getRouteZoneType() {
+        return routeZoneType;
+    }
+
+    /**
+     * As regras (já compiladas) do mapa deste contexto.
+     */
+    SafeZoneRules getRules() {
+        return rules;
+    }
+
+    /**
+     * O mesmo contexto (rota, regras e tabelas), mas registrando tentativas e tempos
+     * em 'metrics' em vez das métricas globais do mapa e tipo de rota.
+     */
+    SimulationContext withMetrics(PredictionMetrics metrics) {
+        return new SimulationContext(this, metrics, rules);
+    }
+
+    /**
+     * O mesmo contexto (rota e tabelas), mas com outras regras do mapa
+     * (ex: depois de recarregar o rules.properties). As tabelas de sorteio da Fase 1
+     * só dependem da rota e da máscara, então não são recalculadas.
+     */
+    SimulationContext withRules(SafeZoneRules rules) {
+        return (rules.getVersion() == this.rules.getVersion()) ? this : new SimulationContext(this, metrics, rules);
+    }
+
+    PredictionMetrics getMetrics() {
+        return metrics;
+    }
+
+    boolean isVerbose() {
+        return verbose;
+    }
+}
@@ -0,0 +1,62 @@
+package safePubg;
+
+/**
+ * WorldTransform
+ * O sistema de coordenadas do "mundo": o mapa é um quadrado de 8 x 8 km
+ * (como os mapas grandes do PUBG), com (0, 0) no canto superior esquerdo.
+ * Toda a lógica de previsão (zonas, rota, raios das safes) trabalha em km,
+ * então o resultado não depende do tamanho da janela nem da resolução da imagem.
+ *
+ * Uma instância converte entre o mundo e um espaço em pixels de tamanho
+ * largura x altura: a tela (o painel) ou a máscara de terra (LandMask).
+ */
+final class WorldTransform {
+    // Lado do mapa em km
+    static final double WORLD_SIZE = 8.0;
+    // Centro do mapa e raio do círculo usado para as zonas (Central, Periférica, Borda)
+    static final double MAP_CENTER_X = WORLD_SIZE / 2;
+    static final double MAP_CENTER_Y = WORLD_SIZE / 2;
+    static final double MAP_RADIUS = WORLD_SIZE / 2;
+
+    private final double width;
+    private final double height;
+
+    /**
+     * @param width Largura do espaço de destino (em pixels ou células).
+     * @param height Altura do espaço de destino.
+     */
+    WorldTransform(double width, double height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    double toWorldX(double x) {
+        return x / width * WORLD_SIZE;
+    }
+
+    double toWorldY(double y) {
+        return y / height * WORLD_SIZE;
+    }
+
+    double toScreenX(double worldX) {
+        return worldX / WORLD_SIZE * width;
+    }
+
+    double toScreenY(double worldY) {
+        return worldY / WORLD_SIZE * height;
+    }
+
+    /**
+     * Converte um comprimento horizontal do mundo (km) para pixels.
+     */
+    double scaleX(double worldLength) {
+        return worldLength / WORLD_SIZE * width;
+    }
+
+    /**
+     * Converte um comprimento vertical do mundo (km) para pixels.
+     */
+    double scaleY(double worldLength) {
+        return worldLength / WORLD_SIZE * height;
+    }
+}
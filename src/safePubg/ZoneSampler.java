@@ -0,0 +1,187 @@
+package safePubg;
+
+import java.awt.geom.Point2D;
+import java.util.random.RandomGenerator;
+
+/**
+ * ZoneSampler
+ * Sorteia o centro da Fase 1 DIRETAMENTE entre os pixels de terra válidos,
+ * em vez de sortear pontos às cegas e rejeitar até acertar.
+ *
+ * Na criação (uma vez por rota), cada célula da LandMask dentro do mapa é classificada por:
+ * - Zona (Central, Periférica, Borda), pela distância ao centro do mapa;
+ * - Faixa de distância da rota (Sobre, Próximo, Distante), lida do RouteDistanceField da rota;
+ * - Terra ou água.
+ * As células de terra de cada zona ficam guardadas agrupadas por faixa,
+ * junto com uma soma acumulada (prefix sum) dos seus pesos.
+ * Sortear um ponto vira uma busca binária: O(log n), sem rejeição.
+ *
+ * O peso de cada célula é 1/r (r = distância ao centro do mapa), que reproduz
+ * exatamente a distribuição antiga (ângulo uniforme + raio uniforme dentro da zona).
+ * Tudo é calculado em coordenadas do mundo (km), na resolução da máscara.
+ */
+final class ZoneSampler {
+    // Resolução usada quando o mapa não tem máscara (tudo é terra)
+    static final int DEFAULT_RESOLUTION = 512;
+    // Faixa extra (além de Sobre/Próximo/Distante) para células de terra mais longe que MAP_RADIUS da rota
+    static final int OUT_OF_BAND = 3;
+
+    // Para cada zona: células de terra ordenadas por faixa (índice compactado y * largura + x)
+    private final int[][] cells;
+    // Para cada zona: soma acumulada dos pesos, alinhada com 'cells'
+    private final double[][] cumulativeWeights;
+    // Para cada zona: onde começa cada faixa dentro de 'cells' (4 faixas + fim)
+    private final int[][] bandStart;
+    private final int gridWidth;
+    // Converte entre o mundo (km) e as células da grade
+    private final WorldTransform toGrid;
+
+    /**
+     * Pré-calcula as tabelas para a rota no mapa dado.
+     * @param landMask A máscara do mapa (nula = tudo é terra).
+     * @param routeDistance A distância até a rota, na mesma resolução (ver RouteDistanceField.of).
+     */
+    ZoneSampler(LandMask landMask, RouteDistanceField routeDistance) {
+        gridWidth = routeDistance.getWidth();
+        int gridHeight = routeDistance.getHeight();
+        toGrid = new WorldTransform(gridWidth, gridHeight);
+
+        // 1ª passada: conta quantas células de terra existem em cada (zona, faixa)
+        int[][] counts = new int[3][OUT_OF_BAND + 1];
+        byte[] labels = new byte[gridWidth * gridHeight];
+        for (int gy = 0; gy < gridHeight; gy++) {
+            for (int gx = 0; gx < gridWidth; gx++) {
+                int label = classify(landMask, toGrid, routeDistance, gx, gy);
+                labels[gy * gridWidth + gx] = (byte) label;
+                if (label >= 0) {
+                    counts[label >> 2][label & 3]++;
+                }
+            }
+        }
+
+        // Reserva os arrays e calcula onde começa cada faixa
+        cells = new int[3][];
+        cumulativeWeights = new double[3][];
+        bandStart = new int[3][OUT_OF_BAND + 2];
+        int[][] fill = new int[3][OUT_OF_BAND + 1];
+        for (int zone = 0; zone < 3; zone++) {
+            int total = 0;
+            for (int band = 0; band <= OUT_OF_BAND; band++) {
+                bandStart[zone][band] = total;
+                fill[zone][band] = total;
+                total += counts[zone][band];
+            }
+            bandStart[zone][OUT_OF_BAND + 1] = total;
+            cells[zone] = new int[total];
+            cumulativeWeights[zone] = new double[total];
+        }
+
+        // 2ª passada: guarda as células agrupadas por faixa
+        for (int i = 0; i < labels.length; i++) {
+            int label = labels[i];
+            if (label >= 0) {
+                cells[label >> 2][fill[label >> 2][label & 3]++] = i;
+            }
+        }
+
+        // Pesos acumulados (1/r imita o sorteio polar antigo)
+        double minRadius = toGrid.toWorldX(0.5); // Meia célula (evita dividir por zero no centro)
+        for (int zone = 0; zone < 3; zone++) {
+            double sum = 0;
+            for (int k = 0; k < cells[zone].length; k++) {
+                int index = cells[zone][k];
+                double dx = toGrid.toWorldX((index % gridWidth) + 0.5) - WorldTransform.MAP_CENTER_X;
+                double dy = toGrid.toWorldY((index / gridWidth) + 0.5) - WorldTransform.MAP_CENTER_Y;
+                sum += 1.0 / Math.max(Math.sqrt(dx * dx + dy * dy), minRadius);
+                cumulativeWeights[zone][k] = sum;
+            }
+        }
+    }
+
+    /**
+     * Rótulo de uma célula: (zona << 2) | faixa, ou -1 se for água ou estiver fora do mapa.
+     */
+    private static int classify(LandMask landMask, WorldTransform toGrid, RouteDistanceField routeDistance, int x, int y) {
+        double px = toGrid.toWorldX(x + 0.5);
+        double py = toGrid.toWorldY(y + 0.5);
+        // A zona vem pronta da máscara (pré-calculada, talvez de um MapDataFile)
+        int zone = (landMask != null) ? landMask.getZoneRing(x, y) : SafeZoneEngine.getZoneRing(px, py);
+        if (zone == SafeZoneEngine.ZONE_OUTSIDE) return -1;
+        if (landMask != null && !landMask.isLand(x, y)) return -1;
+
+        return (zone << 2) | distanceBand(routeDistance.distanceAtCell(x, y));
+    }
+
+    /**
+     * A faixa de distância de um ponto até a rota (a mesma que RuleCalibrator usa nos logs):
+     * Sobre (até 20% do raio do mapa), Próximo (20% a 60%), Distante (60% a 100%),
+     * ou OUT_OF_BAND se estiver mais longe que isso.
+     * @param distToRoute A distância (km) do ponto até a linha da rota.
+     */
+    static int distanceBand(double distToRoute) {
+        double mapRadius = WorldTransform.MAP_RADIUS;
+        if (distToRoute < 0.2 * mapRadius) {
+            return 0;
+        } else if (distToRoute < 0.6 * mapRadius) {
+            return 1;
+        } else if (distToRoute <= mapRadius) {
+            return 2;
+        }
+        return OUT_OF_BAND;
+    }
+
+    /**
+     * Existe alguma célula de terra na zona E na faixa de distância pedidas?
+     */
+    boolean hasLand(int zone, int distance) {
+        return bandStart[zone][distance + 1] > bandStart[zone][distance];
+    }
+
+    /**
+     * Existe alguma célula de terra na zona (em qualquer distância da rota)?
+     */
+    boolean hasLand(int zone) {
+        return cells[zone].length > 0;
+    }
+
+    /**
+     * Sorteia um ponto em terra na zona e faixa de distância pedidas.
+     * Só chame se hasLand(zone, distance) for true.
+     */
+    Point2D sample(int zone, int distance, RandomGenerator rand) {
+        return sampleRange(zone, bandStart[zone][distance], bandStart[zone][distance + 1], rand);
+    }
+
+    /**
+     * Sorteia um ponto em terra em qualquer lugar da zona (ignorando a rota).
+     * Só chame se hasLand(zone) for true.
+     */
+    Point2D sample(int zone, RandomGenerator rand) {
+        return sampleRange(zone, 0, cells[zone].length, rand);
+    }
+
+    /**
+     * Busca binária na soma acumulada dos pesos, restrita a [from, to).
+     */
+    private Point2D sampleRange(int zone, int from, int to, RandomGenerator rand) {
+        double[] cumulative = cumulativeWeights[zone];
+        double low = (from == 0) ? 0 : cumulative[from - 1];
+        double target = low + rand.nextDouble() * (cumulative[to - 1] - low);
+
+        int lo = from;
+        int hi = to - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cumulative[mid] <= target) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        int index = cells[zone][lo];
+        // Posição aleatória dentro da célula sorteada
+        double x = toGrid.toWorldX((index % gridWidth) + rand.nextDouble());
+        double y = toGrid.toWorldY((index / gridWidth) + rand.nextDouble());
+        return new Point2D.Double(x, y);
+    }
+}
@@ -0,0 +1,222 @@
+package safePubg;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ZoneSequenceBatch
+ * Muitas sequências de safes guardadas em COLUNAS de tipos primitivos,
+ * em vez de uma List<SafeZone> (com um Point2D) por fase de cada sequência.
+ *
+ * Cada fase ocupa um trecho contínuo de dois double[] (X e Y dos centros):
+ * o centro da fase p da sequência s fica em [p * capacity + s]. Os raios não são
+ * guardados por sequência: são os de SafeZoneEngine.PHASE_RADII (ou os das safes
+ * observadas, que são os mesmos para o lote inteiro). Um milhão de sequências
+ * ocupa ~112 MB em 3 arrays, em vez de dezenas de milhões de objetos pequenos.
+ *
+ * O motor escreve direto aqui (SafeZoneEngine.predictInto). As agregações
+ * (densidade, centro médio, espalhamento) percorrem os arrays sem criar objetos;
+ * SafeZone/List só são criados se alguém pedir (getZone, getSequence).
+ *
+ * Linhas diferentes podem ser escritas por threads diferentes ao mesmo tempo
+ * (cada thread com as suas linhas); quem lê depois precisa esperar as threads (join).
+ */
+final class ZoneSequenceBatch {
+    private final int capacity;
+    // Centros: [fase * capacity + sequência]
+    private final double[] centerX;
+    private final double[] centerY;
+    // Quantas fases cada sequência tem (0 = não escrita ou falhou; PHASE_COUNT = completa)
+    private final byte[] phaseCounts;
+    // Raio de cada fase (PHASE_RADII, ou o da safe observada)
+    private final double[] radii;
+
+    /**
+     * Recebe o centro de cada fase de cada sequência, sem criar objetos (ver forEachCenter).
+     */
+    interface CenterConsumer {
+        void accept(int sequence, int phase, double x, double y);
+    }
+
+    /**
+     * @param capacity Quantas sequências cabem (todas as linhas começam vazias).
+     */
+    ZoneSequenceBatch(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacidade inválida: " + capacity);
+        }
+        this.capacity = capacity;
+        this.centerX = new double[SafeZoneEngine.PHASE_COUNT * capacity];
+        this.centerY = new double[SafeZoneEngine.PHASE_COUNT * capacity];
+        this.phaseCounts = new byte[capacity];
+        this.radii = SafeZoneEngine.PHASE_RADII.clone();
+    }
+
+    // --- ESCRITA (usada pelo motor) ---
+
+    /**
+     * Grava o centro de uma fase de uma sequência.
+     */
+    void setCenter(int sequence, int phase, double x, double y) {
+        int index = phase * capacity + sequence;
+        centerX[index] = x;
+        centerY[index] = y;
+    }
+
+    /**
+     * Marca quantas fases a sequência tem (as fases 0..phases-1 já foram gravadas).
+     */
+    void setPhaseCount(int sequence, int phases) {
+        phaseCounts[sequence] = (byte) phases;
+    }
+
+    /**
+     * Troca o raio de uma fase para o lote inteiro (ex: o raio de uma safe observada).
+     */
+    void setRadius(int phase, double radius) {
+        radii[phase] = radius;
+    }
+
+    /**
+     * Esvazia todas as linhas (para reaproveitar os arrays) e volta aos raios padrão.
+     */
+    void clear() {
+        Arrays.fill(phaseCounts, (byte) 0);
+        System.arraycopy(SafeZoneEngine.PHASE_RADII, 0, radii, 0, radii.length);
+    }
+
+    // --- LEITURA ---
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    int getPhaseCount(int sequence) {
+        return phaseCounts[sequence];
+    }
+
+    double getCenterX(int sequence, int phase) {
+        return centerX[phase * capacity + sequence];
+    }
+
+    double getCenterY(int sequence, int phase) {
+        return centerY[phase * capacity + sequence];
+    }
+
+    double getRadius(int phase) {
+        return radii[phase];
+    }
+
+    /**
+     * Cria o objeto SafeZone de uma fase (só quando alguém precisa dele).
+     */
+    SafeZone getZone(int sequence, int phase) {
+        return new SafeZone(new Point2D.Double(getCenterX(sequence, phase), getCenterY(sequence, phase)), radii[phase]);
+    }
+
+    /**
+     * A sequência como lista de SafeZone (vazia se ela falhou).
+     */
+    List<SafeZone> getSequence(int sequence) {
+        int phases = phaseCounts[sequence];
+        List<SafeZone> zones = new ArrayList<>(phases);
+        for (int phase = 0; phase < phases; phase++) {
+            zones.add(getZone(sequence, phase));
+        }
+        return zones;
+    }
+
+    /**
+     * Passa por todos os centros gravados das sequências [from, to), fase por fase.
+     */
+    void forEachCenter(int from, int to, CenterConsumer consumer) {
+        for (int phase = 0; phase < SafeZoneEngine.PHASE_COUNT; phase++) {
+            int base = phase * capacity;
+            for (int sequence = from; sequence < to; sequence++) {
+                if (phaseCounts[sequence] > phase) {
+                    consumer.accept(sequence, phase, centerX[base + sequence], centerY[base + sequence]);
+                }
+            }
+        }
+    }
+
+    // --- AGREGAÇÕES (sem criar objetos) ---
+
+    /**
+     * Soma na grade os centros das fases [fromPhase, PHASE_COUNT) das sequências [from, to),
+     * e conta cada sequência escrita nelas como uma amostra.
+     * @param fromPhase A primeira fase contada (ex: depois das safes observadas).
+     */
+    void addTo(DensityGrid grid, int from, int to, int fromPhase) {
+        for (int phase = fromPhase; phase < SafeZoneEngine.PHASE_COUNT; phase++) {
+            int base = phase * capacity;
+            for (int sequence = from; sequence < to; sequence++) {
+                if (phaseCounts[sequence] > phase) {
+                    grid.add(phase, centerX[base + sequence], centerY[base + sequence]);
+                }
+            }
+        }
+        for (int sequence = from; sequence < to; sequence++) {
+            grid.addSample();
+        }
+    }
+
+    /**
+     * A grade de densidade de todas as sequências (na resolução padrão do heatmap).
+     */
+    DensityGrid toDensityGrid() {
+        DensityGrid grid = new DensityGrid(MonteCarloSimulator.GRID_SIZE, MonteCarloSimulator.GRID_SIZE,
+            WorldTransform.WORLD_SIZE, WorldTransform.WORLD_SIZE);
+        addTo(grid, 0, capacity, 0);
+        return grid;
+    }
+
+    /**
+     * Quantas sequências têm a fase.
+     */
+    int countWithPhase(int phase) {
+        int count = 0;
+        for (int sequence = 0; sequence < capacity; sequence++) {
+            if (phaseCounts[sequence] > phase) count++;
+        }
+        return count;
+    }
+
+    /**
+     * O centro médio {x, y} da fase (km), ou {NaN, NaN} se nenhuma sequência tem a fase.
+     */
+    double[] meanCenter(int phase) {
+        int base = phase * capacity;
+        double sumX = 0, sumY = 0;
+        int count = 0;
+        for (int sequence = 0; sequence < capacity; sequence++) {
+            if (phaseCounts[sequence] > phase) {
+                sumX += centerX[base + sequence];
+                sumY += centerY[base + sequence];
+                count++;
+            }
+        }
+        return (count == 0) ? new double[] {Double.NaN, Double.NaN} : new double[] {sumX / count, sumY / count};
+    }
+
+    /**
+     * O espalhamento da fase: o desvio padrão da distância dos centros até o centro médio (km).
+     */
+    double spread(int phase) {
+        double[] mean = meanCenter(phase);
+        int base = phase * capacity;
+        double sumSquares = 0;
+        int count = 0;
+        for (int sequence = 0; sequence < capacity; sequence++) {
+            if (phaseCounts[sequence] > phase) {
+                double dx = centerX[base + sequence] - mean[0];
+                double dy = centerY[base + sequence] - mean[1];
+                sumSquares += dx * dx + dy * dy;
+                count++;
+            }
+        }
+        return (count == 0) ? Double.NaN : Math.sqrt(sumSquares / count);
+    }
+}